@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools;
+
+import io.inverno.tool.buildtools.internal.GenericBuildDaemon;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * A long-lived build process executing build tasks on behalf of short-lived build processes.
+ * </p>
+ *
+ * <p>
+ * Build tasks executed in a new JVM run the JDK tools (e.g. {@code jlink}, {@code jdeps}...) and the build tools code in interpreted mode and must load the build state persisted by previous builds.
+ * A build daemon keeps a JVM running between builds so that JIT-compiled code, tool providers and in-memory state are reused which significantly reduces build time in an edit-build-run loop.
+ * </p>
+ *
+ * <p>
+ * A daemon is started in the background the first time tasks are executed and it is then reused by subsequent builds until it stops after being idle during the idle timeout. Daemons are
+ * registered in the daemon directory and they are identified by the build tools classpath and Java runtime so that builds using different versions never share a daemon.
+ * </p>
+ *
+ * <p>
+ * Tasks created from a build daemon are configured as regular tasks, they are executed in the daemon when the last task in the chain is executed. Task configuration must then be provided as
+ * values and not as callbacks: callbacks registered using {@link Task#doOnComplete(java.util.function.Consumer)} are invoked in the client after the daemon executed the tasks and tasks starting or
+ * running the application can't be executed in a daemon.
+ * </p>
+ *
+ * <pre>{@code
+ * Project project = ...
+ *
+ * Image runtimeImage = BuildDaemon.of(Path.of(System.getProperty("user.home"), ".inverno", "daemon"))
+ *     .modularizeDependencies(project)
+ *     .buildJmod()
+ *     .buildRuntime()
+ *     .execute();
+ * }</pre>
+ *
+ * <p>
+ * The daemon logs are written to a log file in the daemon directory.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public interface BuildDaemon {
+
+	/**
+	 * The default idle timeout in milliseconds.
+	 */
+	long DEFAULT_IDLE_TIMEOUT = 3 * 60 * 60 * 1000;
+
+	/**
+	 * <p>
+	 * Returns a build daemon registered in the specified directory.
+	 * </p>
+	 *
+	 * @param daemonPath the daemon directory
+	 *
+	 * @return a build daemon
+	 */
+	static BuildDaemon of(Path daemonPath) {
+		return new GenericBuildDaemon(daemonPath);
+	}
+
+	/**
+	 * <p>
+	 * Sets the time after which a daemon started by this client stops when it is idle.
+	 * </p>
+	 *
+	 * <p>
+	 * Defaults to {@link #DEFAULT_IDLE_TIMEOUT}.
+	 * </p>
+	 *
+	 * @param idleTimeout the idle timeout in milliseconds
+	 *
+	 * @return the build daemon
+	 */
+	BuildDaemon idleTimeout(long idleTimeout);
+
+	/**
+	 * <p>
+	 * Creates a modularize project dependencies task executed in the daemon.
+	 * </p>
+	 *
+	 * @param project the project
+	 *
+	 * @return a modularize dependencies task
+	 */
+	ModularizeDependenciesTask modularizeDependencies(Project project);
+
+	/**
+	 * <p>
+	 * Creates and configures a modularize project dependencies task executed in the daemon.
+	 * </p>
+	 *
+	 * @param project    the project
+	 * @param configurer a modularize dependencies task configurer
+	 *
+	 * @return a modularize dependencies task
+	 */
+	default ModularizeDependenciesTask modularizeDependencies(Project project, Consumer<ModularizeDependenciesTask> configurer) {
+		ModularizeDependenciesTask modularizeDependencies = this.modularizeDependencies(project);
+		configurer.accept(modularizeDependencies);
+		return modularizeDependencies;
+	}
+}
@@ -164,6 +164,146 @@ public interface BuildRuntimeTask extends Task<Image, BuildRuntimeTask> {
 	 */
 	BuildRuntimeTask launchers(List<? extends Launcher> launchers);
 	
+	/**
+	 * <p>
+	 * Specifies whether to create a layered runtime image.
+	 * </p>
+	 * 
+	 * <p>
+	 * A layered runtime image is meant to speed up development iterations: only the required JDK's modules are linked in a base image which is cached by JDK version and set of modules, the 
+	 * modularized dependencies and the project module are put as modular JARs in the {@code app/} directory of the runtime image which is specified on the module path by the launchers. When 
+	 * project classes change, only the project modular JAR is then updated instead of linking a whole new runtime image.
+	 * </p>
+	 * 
+	 * <p>
+	 * A layered runtime image can't be used to package the application which requires a fully linked runtime image.
+	 * </p>
+	 * 
+	 * <p>
+	 * Defaults to {@code false}.
+	 * </p>
+	 * 
+	 * @param layered true to create a layered runtime image, false otherwise
+	 * 
+	 * @return the task
+	 */
+	BuildRuntimeTask layered(boolean layered);
+	
+	/**
+	 * <p>
+	 * Specifies whether to only link the JDK's modules required by the project module and its dependencies.
+	 * </p>
+	 * 
+	 * <p>
+	 * The task always computes the JDK's modules transitively required by the project module and its modularized dependencies and reports the JDK's modules added on top of them by 
+	 * {@link #addModules(java.lang.String)} or {@link #bindServices(boolean)} along with the expected reduction of the runtime image. When enabled, these modules are excluded from the runtime image:
+	 * services are not bound, {@link #bindServices(boolean)} is then ignored, and the JDK's modules specified in {@link #addModules(java.lang.String)} are not linked unless
+	 * {@link #keepAddedModules(boolean)} is enabled. Note that JDK's modules only providing services (e.g. {@code jdk.crypto.ec}, {@code jdk.localedata}...) are never required and must then be
+	 * explicitly added and kept when needed.
+	 * </p>
+	 * 
+	 * <p>
+	 * Defaults to {@code false}.
+	 * </p>
+	 * 
+	 * @param minimizeModules true to only link the required JDK's modules, false otherwise
+	 * 
+	 * @return the task
+	 */
+	BuildRuntimeTask minimizeModules(boolean minimizeModules);
+	
+	/**
+	 * <p>
+	 * Specifies whether to link the JDK's modules specified in {@link #addModules(java.lang.String)} when {@link #minimizeModules(boolean)} is enabled.
+	 * </p>
+	 * 
+	 * <p>
+	 * Defaults to {@code false}.
+	 * </p>
+	 * 
+	 * @param keepAddedModules true to link the JDK's modules explicitly added when minimizing modules, false otherwise
+	 * 
+	 * @return the task
+	 */
+	BuildRuntimeTask keepAddedModules(boolean keepAddedModules);
+
+	/**
+	 * <p>
+	 * Specifies whether to create an application class data sharing (AppCDS) archive in the runtime image.
+	 * </p>
+	 *
+	 * <p>
+	 * The archive is dumped during a training run of the first launcher, or of the project module default main class if no launcher was specified, and stored in {@code lib/app.jsa} in the runtime
+	 * image. Launchers created by the task as well as the application image created by the package task are configured to use it which reduces the application startup time. The training run is
+	 * stopped after the training timeout which allows to train applications that do not exit by themselves (e.g. servers).
+	 * </p>
+	 *
+	 * <p>
+	 * Native commands are not stripped when enabled since the {@code java} command is required to run the training. This option is ignored for a layered runtime.
+	 * </p>
+	 *
+	 * <p>
+	 * Defaults to {@code false}.
+	 * </p>
+	 *
+	 * @param appCds true to create an AppCDS archive, false otherwise
+	 *
+	 * @return the task
+	 */
+	BuildRuntimeTask appCds(boolean appCds);
+
+	/**
+	 * <p>
+	 * Specifies the arguments to pass to the application during the AppCDS training run.
+	 * </p>
+	 *
+	 * @param appCdsTrainingArguments the training arguments
+	 *
+	 * @return the task
+	 */
+	BuildRuntimeTask appCdsTrainingArguments(String appCdsTrainingArguments);
+
+	/**
+	 * <p>
+	 * Specifies the time in milliseconds after which the AppCDS training run is stopped.
+	 * </p>
+	 *
+	 * <p>
+	 * Defaults to 60000.
+	 * </p>
+	 *
+	 * @param appCdsTrainingTimeout the training timeout in milliseconds
+	 *
+	 * @return the task
+	 */
+	BuildRuntimeTask appCdsTrainingTimeout(long appCdsTrainingTimeout);
+
+	/**
+	 * <p>
+	 * Specifies whether to link the runtime image using a class list recorded during a training run of the project.
+	 * </p>
+	 *
+	 * <p>
+	 * The classes loaded by the first launcher, or by the project module default main class if no launcher was specified, are recorded during a training run using the AppCDS training arguments and
+	 * timeout. The runtime image is then linked with {@code jlink} {@code --order-resources} option, which places the loaded classes first in the modules image, and
+	 * {@code --generate-jli-classes} option, which pre-generates the lambda form classes used by the application, in order to improve the application startup time. The class list is cached in the
+	 * project working directory and only recorded again when the JDK, the project classes, the dependencies or the training arguments change.
+	 * </p>
+	 *
+	 * <p>
+	 * This option is ignored for a layered runtime.
+	 * </p>
+	 *
+	 * <p>
+	 * Defaults to {@code false}.
+	 * </p>
+	 *
+	 * @param profileGuided true to link the runtime image using a recorded class list, false otherwise
+	 *
+	 * @return the task
+	 */
+	BuildRuntimeTask profileGuided(boolean profileGuided);
+	
 	/**
 	 * <p>
 	 * Creates an archive task.
@@ -212,6 +352,30 @@ public interface BuildRuntimeTask extends Task<Image, BuildRuntimeTask> {
 		return packageApplication;
 	}
 	
+	/**
+	 * <p>
+	 * Creates a train runtime task.
+	 * </p>
+	 * 
+	 * @return a train runtime task
+	 */
+	TrainRuntimeTask trainRuntime();
+	
+	/**
+	 * <p>
+	 * Creates and configures a train runtime task.
+	 * </p>
+	 * 
+	 * @param configurer a configurer
+	 * 
+	 * @return a configured train runtime task
+	 */
+	default TrainRuntimeTask trainRuntime(Consumer<TrainRuntimeTask> configurer) {
+		TrainRuntimeTask trainRuntime = this.trainRuntime();
+		configurer.accept(trainRuntime);
+		return trainRuntime;
+	}
+	
 	/**
 	 * <p>
 	 * Parameters describing a runtime image launcher.
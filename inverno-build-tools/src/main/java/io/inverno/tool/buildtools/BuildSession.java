@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools;
+
+import io.inverno.tool.buildtools.internal.GenericBuildSession;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * A build session sharing the project state resolved by a build with the subsequent builds of the same project.
+ * </p>
+ *
+ * <p>
+ * Every build resolves the project state it needs: dependencies are indexed, their module descriptors resolved and the project main classes are scanned. When several builds of the same project are
+ * executed in the same JVM (e.g. multiple goals bound to a Maven lifecycle), tasks created from a build session reuse the state resolved by the previous build instead of resolving it again as long
+ * as the project dependencies and classes are unchanged, which is determined from their file attributes.
+ * </p>
+ *
+ * <pre>{@code
+ * Project project = ...
+ * BuildSession session = BuildSession.of(project);
+ *
+ * Image runtimeImage = session
+ *     .modularizeDependencies()
+ *     .buildJmod()
+ *     .buildRuntime()
+ *     .execute();
+ *
+ * Set<Image> applicationImages = session
+ *     .modularizeDependencies()
+ *     .buildJmod()
+ *     .buildRuntime()
+ *     .packageApplication()
+ *     .execute();
+ * }</pre>
+ *
+ * <p>
+ * A build session is bound to the project dependencies it was created with, a new session must be created when the set of project dependencies changes.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public interface BuildSession {
+
+	/**
+	 * <p>
+	 * Returns a new build session for the specified project.
+	 * </p>
+	 *
+	 * @param project the project
+	 *
+	 * @return a build session
+	 */
+	static BuildSession of(Project project) {
+		return new GenericBuildSession(project);
+	}
+
+	/**
+	 * <p>
+	 * Returns a modularize dependencies task executed in the build session.
+	 * </p>
+	 *
+	 * @return a modularize dependencies task
+	 */
+	ModularizeDependenciesTask modularizeDependencies();
+
+	/**
+	 * <p>
+	 * Returns a modularize dependencies task executed in the build session.
+	 * </p>
+	 *
+	 * @param configurer a modularize dependencies task configurer
+	 *
+	 * @return a modularize dependencies task
+	 */
+	ModularizeDependenciesTask modularizeDependencies(Consumer<ModularizeDependenciesTask> configurer);
+
+	/**
+	 * <p>
+	 * Returns a task graph executed in the build session.
+	 * </p>
+	 *
+	 * @return a task graph
+	 */
+	TaskGraph taskGraph();
+}
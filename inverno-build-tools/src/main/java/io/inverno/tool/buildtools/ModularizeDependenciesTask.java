@@ -15,8 +15,10 @@
  */
 package io.inverno.tool.buildtools;
 
+import java.net.URI;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 
@@ -84,7 +86,106 @@ public interface ModularizeDependenciesTask extends Task<Set<Dependency>, Modula
 	 * @return the task
 	 */
 	ModularizeDependenciesTask moduleOverrides(List<? extends ModuleInfo> moduleOverrides);
-	
+
+	/**
+	 * <p>
+	 * Specifies the maximum number of dependencies that can be modularized concurrently.
+	 * </p>
+	 *
+	 * <p>
+	 * Dependencies are modularized independently from each other, a value lower or equal to zero indicates that the number of available processors should be used.
+	 * </p>
+	 *
+	 * @param parallelism the maximum number of dependencies to modularize concurrently
+	 *
+	 * @return the task
+	 */
+	ModularizeDependenciesTask parallelism(int parallelism);
+
+	/**
+	 * <p>
+	 * Specifies the path to a cache of modularized dependencies that can be shared between projects (e.g. {@code ~/.inverno/modules}).
+	 * </p>
+	 *
+	 * <p>
+	 * Modularized dependencies are cached by coordinates, content, module descriptor overrides, JDK version and versions of the modules they require. A dependency found in the cache
+	 * is linked or copied to the project instead of being modularized again. No cache is used when not specified.
+	 * </p>
+	 *
+	 * @param cachePath the path to the modularized dependencies cache
+	 *
+	 * @return the task
+	 */
+	ModularizeDependenciesTask cachePath(Path cachePath);
+
+	/**
+	 * <p>
+	 * Specifies the URI of a build cache where the outputs of the tasks executed in the chain are stored and restored from (e.g. {@code https://cache.example.com/inverno/}).
+	 * </p>
+	 *
+	 * <p>
+	 * Modularized dependencies, project JMOD, runtime and application images and archives are cached by a fingerprint of the contents and options used to generate them, including the Java runtime.
+	 * Outputs found in the cache are restored instead of being generated again which allows to share them between builds running on different hosts. A {@code file} URI designates a local directory,
+	 * a {@code http} or {@code https} URI designates a remote cache on which entries are retrieved with {@code GET} requests and stored with {@code PUT} requests, Basic authentication credentials can
+	 * be specified in the URI user info. No build cache is used when not specified.
+	 * </p>
+	 *
+	 * @param buildCacheURI the build cache URI
+	 *
+	 * @return the task
+	 */
+	ModularizeDependenciesTask buildCache(URI buildCacheURI);
+
+	/**
+	 * <p>
+	 * Specifies the path to a directory shared by the builds running on the host which is used to limit the number of heavyweight tools run concurrently by the tasks executed in the chain (e.g.
+	 * {@code ~/.inverno/throttle}).
+	 * </p>
+	 *
+	 * <p>
+	 * Tools such as {@code jlink}, {@code jpackage} or container image builds use a lot of memory and I/O, running too many of them at the same time on a host, typically when multiple projects
+	 * are built in parallel, degrades the overall build time. A tool is run once a permit is acquired by locking a file in the specified directory, the number of permits per tool is specified with
+	 * {@link #throttlePermits(java.util.Map) }. Tools are not throttled when not specified.
+	 * </p>
+	 *
+	 * @param throttlePath the path to the throttle directory
+	 *
+	 * @return the task
+	 */
+	ModularizeDependenciesTask throttlePath(Path throttlePath);
+
+	/**
+	 * <p>
+	 * Specifies the maximum number of runs of a tool that can be executed concurrently on the host when a throttle directory is specified.
+	 * </p>
+	 *
+	 * <p>
+	 * Throttled tools are {@code jdeps}, {@code jlink}, {@code jpackage} and {@code containerize} for container image builds. Unless specified otherwise, one run of {@code jlink},
+	 * {@code jpackage} and {@code containerize} and as many runs of {@code jdeps} as available processors are allowed. A value lower or equal to zero indicates that a tool is not throttled.
+	 * </p>
+	 *
+	 * @param throttlePermits the number of permits by tool name
+	 *
+	 * @return the task
+	 */
+	ModularizeDependenciesTask throttlePermits(Map<String, Integer> throttlePermits);
+
+	/**
+	 * <p>
+	 * Specifies whether module descriptors should be generated with JDK's {@code jdeps} tool.
+	 * </p>
+	 *
+	 * <p>
+	 * By default, module descriptors are generated by analyzing the bytecode of the dependencies which is much faster than running {@code jdeps}, which is still used for the dependencies that
+	 * can't be analyzed.
+	 * </p>
+	 *
+	 * @param useJdeps true to generate module descriptors with {@code jdeps}, false otherwise
+	 *
+	 * @return the task
+	 */
+	ModularizeDependenciesTask useJdeps(boolean useJdeps);
+
 	/**
 	 * <p>
 	 * Creates a start task.
@@ -17,6 +17,7 @@ package io.inverno.tool.buildtools;
 
 import io.inverno.tool.buildtools.internal.GenericModularizeDependenciesTask;
 import io.inverno.tool.buildtools.internal.GenericStopTask;
+import io.inverno.tool.buildtools.internal.GenericTaskGraph;
 import java.nio.file.Path;
 import java.util.Objects;
 import java.util.Set;
@@ -62,7 +63,9 @@ import java.util.function.Consumer;
 public abstract class Project implements Artifact {
 	
 	/**
-	 * System property to set to display or not the progress bar while executing the build tasks.
+	 * System property to set to display or not the progress bar while executing the build tasks when it is not specified explicitly by the project.
+	 * 
+	 * @see #isDisplayProgressBar() 
 	 */
 	public static final String PROPERY_DISPLAY_PROGRESS_BAR = "inverno.build.progress_bar";
 	
@@ -144,6 +147,22 @@ public abstract class Project implements Artifact {
 		return this.getName() + "-" + this.getVersion();
 	}
 
+	/**
+	 * <p>
+	 * Determines whether a progress bar should be displayed while executing the build tasks.
+	 * </p>
+	 * 
+	 * <p>
+	 * Defaults to the value of the {@link #PROPERY_DISPLAY_PROGRESS_BAR} system property. Implementations should override this method when projects are built concurrently in the same JVM in order
+	 * to explicitly display or not the progress bar for each project.
+	 * </p>
+	 * 
+	 * @return true to display a progress bar, false otherwise
+	 */
+	public boolean isDisplayProgressBar() {
+		return Boolean.parseBoolean(System.getProperty(PROPERY_DISPLAY_PROGRESS_BAR));
+	}
+	
 	/**
 	 * <p>
 	 * Creates a modularize dependencies task.
@@ -195,4 +214,15 @@ public abstract class Project implements Artifact {
 		configurer.accept(stop);
 		return stop;
 	}
+	
+	/**
+	 * <p>
+	 * Creates a task graph to execute multiple tasks created from the project sharing parent tasks.
+	 * </p>
+	 * 
+	 * @return a task graph
+	 */
+	public final TaskGraph taskGraph() {
+		return new GenericTaskGraph(this);
+	}
 }
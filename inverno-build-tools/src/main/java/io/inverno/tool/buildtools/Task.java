@@ -15,6 +15,7 @@
  */
 package io.inverno.tool.buildtools;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -51,4 +52,25 @@ public interface Task<U, V extends Task<U,V>> {
 	 * @throws TaskExecutionException if an error was raised during the execution of the task
 	 */
 	U execute() throws TaskExecutionException;
+	
+	/**
+	 * <p>
+	 * Executes the task asynchronously.
+	 * </p>
+	 * 
+	 * <p>
+	 * The task is executed in a dedicated thread, the returned future completes with the task execution result or exceptionally with the error raised during the execution of the task.
+	 * </p>
+	 * 
+	 * <p>
+	 * Cancelling the returned future cancels the execution cooperatively: the execution thread is interrupted which stops the tasks that are not yet started, destroys forked processes and discards
+	 * the outputs of the JDK tools (e.g. {@code jlink}, {@code jpackage}...) running in-process as soon as they return. The outputs of a task whose execution did not complete are invalidated and
+	 * generated again on next execution.
+	 * </p>
+	 * 
+	 * @return a future completing with the task execution result
+	 * 
+	 * @since 1.7
+	 */
+	CompletableFuture<U> executeAsync();
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools;
+
+/**
+ * <p>
+ * A graph of build tasks executed together.
+ * </p>
+ *
+ * <p>
+ * Executing a {@link Task} executes its whole chain of parent tasks, a task graph allows to execute multiple tasks sharing parent tasks: shared parent tasks are executed once and independent
+ * branches are executed concurrently. Parent tasks are shared when they are the same instance. For instance, the following shows how to create a runtime archive, an application package and a
+ * container image in a single execution:
+ * </p>
+ *
+ * <pre>{@code
+ * Project project = ...
+ *
+ * BuildRuntimeTask buildRuntime = project
+ *     .modularizeDependencies()
+ *     .buildJmod()
+ *     .buildRuntime();
+ *
+ * PackageApplicationTask packageApplication = buildRuntime.packageApplication();
+ *
+ * project.taskGraph()
+ *     .add(buildRuntime.archive().formats(Set.of("zip")))  // executed concurrently with packageApplication
+ *     .add(packageApplication)
+ *     .add(packageApplication.containerize())              // executed after packageApplication
+ *     .execute();
+ * }</pre>
+ *
+ * <p>
+ * Task execution results are provided to the callbacks registered on each task with {@link Task#doOnComplete(java.util.function.Consumer)}.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public interface TaskGraph {
+
+	/**
+	 * <p>
+	 * Adds a task to the graph.
+	 * </p>
+	 *
+	 * <p>
+	 * The task and its parent tasks are executed when the graph is executed.
+	 * </p>
+	 *
+	 * @param task a task created from the project
+	 *
+	 * @return the task graph
+	 *
+	 * @throws IllegalArgumentException if the task was not created from the project
+	 */
+	TaskGraph add(Task<?, ?> task) throws IllegalArgumentException;
+
+	/**
+	 * <p>
+	 * Sets the maximum number of tasks that can be executed concurrently.
+	 * </p>
+	 *
+	 * <p>
+	 * Defaults to the number of available processors.
+	 * </p>
+	 *
+	 * @param parallelism the maximum number of concurrent tasks
+	 *
+	 * @return the task graph
+	 */
+	TaskGraph parallelism(int parallelism);
+
+	/**
+	 * <p>
+	 * Executes the tasks in the graph.
+	 * </p>
+	 *
+	 * <p>
+	 * A task is executed once its parent task has been executed successfully. When a task fails, the tasks that are not yet started are not executed and the execution fails once running tasks
+	 * complete.
+	 * </p>
+	 *
+	 * @throws TaskExecutionException if an error was raised during the execution of a task
+	 */
+	void execute() throws TaskExecutionException;
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools;
+
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * A task for training the project runtime image in order to reduce the application startup and warmup times.
+ * </p>
+ * 
+ * <p>
+ * The task runs the application from the runtime image with a user-supplied workload and records an AOT cache ({@code lib/app.aot}) in the runtime image containing the classes loaded and linked
+ * during the training run as well as method profiles. The runtime image launchers and the launchers of the application image created by a subsequent {@link PackageApplicationTask} are configured
+ * to use it.
+ * </p>
+ * 
+ * <p>
+ * AOT caches require a JDK 24 or later. With an earlier JDK, the task falls back to recording a dynamic application class data sharing (AppCDS) archive ({@code lib/app-trained.jsa}) when the
+ * runtime image contains a default CDS archive (see {@link BuildRuntimeTask#appCds(boolean)}) and otherwise skips the training. The trained archive then supersedes the AppCDS archive created with the
+ * runtime image.
+ * </p>
+ * 
+ * <p>
+ * The runtime image is trained as a whole: the archive and the configured launchers replace the runtime image at once when the training succeeded. Tasks following the {@link BuildRuntimeTask} in
+ * a task graph, such as an archive or an application image, are executed after the runtime image has been trained.
+ * </p>
+ * 
+ * <p>
+ * This task depends on {@link BuildRuntimeTask}.
+ * </p>
+ * 
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public interface TrainRuntimeTask extends Task<Image, TrainRuntimeTask> {
+
+	/**
+	 * <p>
+	 * Specifies the name of the runtime image launcher to train.
+	 * </p>
+	 * 
+	 * <p>
+	 * Defaults to the first launcher defined in the {@link BuildRuntimeTask} or to the project module default main class if no launcher was defined.
+	 * </p>
+	 * 
+	 * @param launcher the name of a runtime image launcher
+	 * 
+	 * @return the task
+	 */
+	TrainRuntimeTask launcher(String launcher);
+	
+	/**
+	 * <p>
+	 * Specifies the arguments to pass to the application during the training run.
+	 * </p>
+	 * 
+	 * @param arguments the application arguments
+	 * 
+	 * @return the task
+	 */
+	TrainRuntimeTask arguments(String arguments);
+	
+	/**
+	 * <p>
+	 * Specifies the VM options to use during the training run.
+	 * </p>
+	 * 
+	 * <p>
+	 * The AOT cache can only be used by a JVM started with consistent options, these should then be the options used to run the application in production.
+	 * </p>
+	 * 
+	 * @param vmOptions the VM options
+	 * 
+	 * @return the task
+	 */
+	TrainRuntimeTask vmOptions(String vmOptions);
+	
+	/**
+	 * <p>
+	 * Specifies the workload command to run against the application during the training run.
+	 * </p>
+	 * 
+	 * <p>
+	 * The workload command (e.g. a load testing script sending requests to a server) is started along with the application and is responsible for waiting for the application to be ready. The
+	 * application is stopped once the workload command completes, the task fails if the workload command exits with a non-zero code. When no workload is specified, the application runs until it exits
+	 * by itself or until the training timeout is reached.
+	 * </p>
+	 * 
+	 * @param workload the workload command
+	 * 
+	 * @return the task
+	 */
+	TrainRuntimeTask workload(String workload);
+	
+	/**
+	 * <p>
+	 * Specifies the time in milliseconds after which the training run is stopped.
+	 * </p>
+	 * 
+	 * <p>
+	 * Defaults to 60000.
+	 * </p>
+	 * 
+	 * @param timeout the training timeout in milliseconds
+	 * 
+	 * @return the task
+	 */
+	TrainRuntimeTask timeout(long timeout);
+	
+	/**
+	 * <p>
+	 * Creates an archive task.
+	 * </p>
+	 * 
+	 * @return an archive task
+	 */
+	ArchiveTask archive();
+	
+	/**
+	 * <p>
+	 * Creates and configures an archive task.
+	 * </p>
+	 * 
+	 * @param configurer a configurer
+	 * 
+	 * @return a configured archive task
+	 */
+	default ArchiveTask archive(Consumer<ArchiveTask> configurer) {
+		ArchiveTask archive = this.archive();
+		configurer.accept(archive);
+		return archive;
+	}
+	
+	/**
+	 * <p>
+	 * Creates a package application task.
+	 * </p>
+	 * 
+	 * @return a package application task
+	 */
+	PackageApplicationTask packageApplication();
+	
+	/**
+	 * <p>
+	 * Creates and configures a package application task.
+	 * </p>
+	 * 
+	 * @param configurer a configurer
+	 * 
+	 * @return a configured package application task
+	 */
+	default PackageApplicationTask packageApplication(Consumer<PackageApplicationTask> configurer) {
+		PackageApplicationTask packageApplication = this.packageApplication();
+		configurer.accept(packageApplication);
+		return packageApplication;
+	}
+}
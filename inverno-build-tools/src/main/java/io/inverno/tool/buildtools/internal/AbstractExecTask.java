@@ -171,7 +171,7 @@ public abstract class AbstractExecTask<U, V extends ExecTask<U, V>> extends Abst
 					return defaultMainClass;
 				});
 			} 
-			catch (ClassNotFoundException | IOException e) {
+			catch (IOException e) {
 				LOGGER.error("Could not find project main class", e);
 			}
 			return Optional.empty();
@@ -205,4 +205,32 @@ public abstract class AbstractExecTask<U, V extends ExecTask<U, V>> extends Abst
 			throw new TaskExecutionException("Error running project", e);
 		}
 	}
+	
+	/**
+	 * <p>
+	 * Waits for the specified project process to exit.
+	 * </p>
+	 * 
+	 * <p>
+	 * The process and its descendants are destroyed when the current thread is interrupted, typically when the task execution is cancelled.
+	 * </p>
+	 * 
+	 * @param proc the project process
+	 * 
+	 * @return the process exit value
+	 * 
+	 * @throws TaskExecutionException if the current thread was interrupted while waiting for the process
+	 */
+	protected int waitForProject(Process proc) throws TaskExecutionException {
+		try {
+			return proc.waitFor();
+		} 
+		catch (InterruptedException e) {
+			LOGGER.warn("Project execution interrupted, destroying the process...");
+			proc.descendants().forEach(ProcessHandle::destroy);
+			proc.destroy();
+			Thread.currentThread().interrupt();
+			throw new TaskExecutionException("Project execution was interrupted", e);
+		}
+	}
 }
@@ -18,7 +18,19 @@ package io.inverno.tool.buildtools.internal;
 import io.inverno.tool.buildtools.Project;
 import io.inverno.tool.buildtools.Task;
 import io.inverno.tool.buildtools.TaskExecutionException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * <p>
@@ -33,6 +45,8 @@ import java.util.function.Consumer;
  */
 public abstract class AbstractTask<U, V extends Task<U, V>> implements Task<U, V> {
 
+	private static final Logger LOGGER = LogManager.getLogger(AbstractTask.class);
+	
 	private final Project project;
 	
 	private final AbstractTask<?, ?> parentTask;
@@ -77,8 +91,40 @@ public abstract class AbstractTask<U, V extends Task<U, V>> implements Task<U, V
 	
 	@Override
 	public final U execute() throws TaskExecutionException {
-		BuildProject buildProject = new BuildProject(this.project);
-		return this.execute(buildProject, Boolean.parseBoolean(System.getProperty(Project.PROPERY_DISPLAY_PROGRESS_BAR)) ? new ProgressBar(this.getTaskCompletionMessage(buildProject)) : null);
+		BuildProject buildProject = BuildProject.of(this.project);
+		this.initialize(buildProject);
+		return this.execute(buildProject, buildProject.isDisplayProgressBar() ? new ProgressBar(this.getTaskCompletionMessage(buildProject)) : null);
+	}
+	
+	@Override
+	public final CompletableFuture<U> executeAsync() {
+		AbstractTask.ExecutionFuture<U> future = new AbstractTask.ExecutionFuture<>();
+		future.worker = new Thread(LoggingContext.propagate(() -> {
+			try {
+				future.complete(this.execute());
+			}
+			catch(Throwable e) {
+				future.completeExceptionally(e);
+			}
+		}), "inverno-" + this.getClass().getSimpleName());
+		future.worker.start();
+		return future;
+	}
+	
+	/**
+	 * <p>
+	 * Initializes the task by initializing its parent tasks first from the root task.
+	 * </p>
+	 * 
+	 * @param buildProject the build project
+	 * 
+	 * @throws TaskExecutionException if there was an error initializing the task
+	 */
+	private void initialize(BuildProject buildProject) throws TaskExecutionException {
+		if(this.parentTask != null) {
+			this.parentTask.initialize(buildProject);
+		}
+		this.doInitialize(buildProject);
 	}
 	
 	/**
@@ -105,7 +151,31 @@ public abstract class AbstractTask<U, V extends Task<U, V>> implements Task<U, V
 		else if(progressBar != null) {
 			progressBar.display();
 		}
-
+		return this.executeTask(buildProject, step);
+	}
+	
+	/**
+	 * <p>
+	 * Executes the task alone, assuming parent tasks have been executed.
+	 * </p>
+	 * 
+	 * <p>
+	 * The task is not executed if the current thread was interrupted, typically when the task execution was cancelled. The inputs fingerprint of the task is removed from the project fingerprint store
+	 * when the execution fails so that outputs that might have been partially generated are generated again on next execution.
+	 * </p>
+	 * 
+	 * @param buildProject the build project
+	 * @param step         the progress step or null
+	 * 
+	 * @return the task execution result
+	 * 
+	 * @throws TaskExecutionException if there was an error executing the task
+	 * @throws CancellationException  if the current thread was interrupted
+	 */
+	U executeTask(BuildProject buildProject, ProgressBar.Step step) throws TaskExecutionException, CancellationException {
+		if(Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("Task execution was cancelled");
+		}
 		try {
 			U result = this.doExecute(buildProject, step);
 			if(this.onComplete != null) {
@@ -113,6 +183,17 @@ public abstract class AbstractTask<U, V extends Task<U, V>> implements Task<U, V
 			}
 			return result;
 		}
+		catch(Throwable e) {
+			FingerprintStore fingerprintStore = buildProject.getFingerprintStore();
+			fingerprintStore.remove(this.getFingerprintKey());
+			try {
+				fingerprintStore.save();
+			}
+			catch(IOException ioe) {
+				e.addSuppressed(ioe);
+			}
+			throw e;
+		}
 		finally {
 			if(step != null) {
 				step.done();
@@ -120,6 +201,28 @@ public abstract class AbstractTask<U, V extends Task<U, V>> implements Task<U, V
 		}
 	}
 	
+	/**
+	 * <p>
+	 * Returns the project the task was created from.
+	 * </p>
+	 * 
+	 * @return the project
+	 */
+	Project getProject() {
+		return this.project;
+	}
+	
+	/**
+	 * <p>
+	 * Returns the parent task.
+	 * </p>
+	 * 
+	 * @return the parent task or null if the task is a root task
+	 */
+	AbstractTask<?, ?> getParentTask() {
+		return this.parentTask;
+	}
+	
 	/**
 	 * <p>
 	 * Returns the task completion message that must be displayed in the progress bar when the leaf task completes successfully.
@@ -141,6 +244,24 @@ public abstract class AbstractTask<U, V extends Task<U, V>> implements Task<U, V
 	 */
 	protected abstract int getTaskWeight(BuildProject project);
 	
+	/**
+	 * <p>
+	 * Initializes the task before any task in the chain is executed.
+	 * </p>
+	 * 
+	 * <p>
+	 * This is invoked before the progress bar is created and can be used to set up the build project state (e.g. dependency fingerprints) on which the task weight or the execution of descendant tasks
+	 * depend. This does nothing by default.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * 
+	 * @throws TaskExecutionException if there was an error initializing the task
+	 */
+	protected void doInitialize(BuildProject project) throws TaskExecutionException {
+		
+	}
+	
 	/**
 	 * <p>
 	 * Executes the task.
@@ -154,4 +275,289 @@ public abstract class AbstractTask<U, V extends Task<U, V>> implements Task<U, V
 	 * @throws TaskExecutionException if there was an error executing the task
 	 */
 	protected abstract U doExecute(BuildProject project, ProgressBar.Step step) throws TaskExecutionException;
+	
+	/**
+	 * <p>
+	 * Adds the task inputs to the specified fingerprint.
+	 * </p>
+	 * 
+	 * <p>
+	 * Task inputs are the task options and the outputs of the parent task which determine the task outputs. Implementations generating outputs must override this method to add their options after
+	 * invoking the parent implementation which adds the outputs of the parent task.
+	 * </p>
+	 * 
+	 * @param project     the build project
+	 * @param fingerprint the fingerprint
+	 * 
+	 * @throws IOException if there was an error reading an input file
+	 */
+	protected void fingerprintInputs(BuildProject project, Fingerprint fingerprint) throws IOException {
+		if(this.parentTask != null) {
+			fingerprint.add(this.parentTask.getOutputsFingerprint(project, fingerprint.isPortable()));
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Returns the fingerprint of the task inputs.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * 
+	 * @return the inputs fingerprint
+	 * 
+	 * @throws IOException if there was an error reading an input file
+	 */
+	protected final String getInputsFingerprint(BuildProject project) throws IOException {
+		return this.getInputsFingerprint(project, false);
+	}
+	
+	/**
+	 * <p>
+	 * Returns the fingerprint of the task inputs.
+	 * </p>
+	 * 
+	 * @param project  the build project
+	 * @param portable true to identify input files by their content, false otherwise
+	 * 
+	 * @return the inputs fingerprint
+	 * 
+	 * @throws IOException if there was an error reading an input file
+	 */
+	protected final String getInputsFingerprint(BuildProject project, boolean portable) throws IOException {
+		Fingerprint fingerprint = new Fingerprint(portable).add(this.getClass().getName());
+		this.fingerprintInputs(project, fingerprint);
+		return fingerprint.get();
+	}
+	
+	/**
+	 * <p>
+	 * Returns the fingerprint of the task outputs.
+	 * </p>
+	 * 
+	 * <p>
+	 * This is used by child tasks to determine whether their own outputs are up to date. Task outputs are identified by the task inputs by default, implementations that might not regenerate their
+	 * outputs when inputs change can override this method to identify their actual outputs.
+	 * </p>
+	 * 
+	 * @param project  the build project
+	 * @param portable true to identify files by their content, false otherwise
+	 * 
+	 * @return the outputs fingerprint
+	 * 
+	 * @throws IOException if there was an error reading an input or an output file
+	 */
+	protected String getOutputsFingerprint(BuildProject project, boolean portable) throws IOException {
+		return this.getInputsFingerprint(project, portable);
+	}
+	
+	/**
+	 * <p>
+	 * Returns the key identifying the task outputs in the project fingerprint store.
+	 * </p>
+	 * 
+	 * @return the task key
+	 */
+	protected String getFingerprintKey() {
+		return "task." + this.getClass().getSimpleName();
+	}
+	
+	/**
+	 * <p>
+	 * Determines whether the task inputs changed since the task outputs were last generated.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * 
+	 * @return true if the inputs fingerprint differs from the one recorded in the project fingerprint store, false otherwise
+	 * 
+	 * @throws TaskExecutionException if there was an error computing the inputs fingerprint
+	 */
+	protected final boolean isInputsChanged(BuildProject project) throws TaskExecutionException {
+		try {
+			return !this.getInputsFingerprint(project).equals(project.getFingerprintStore().get(this.getFingerprintKey()).orElse(null));
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error computing task inputs fingerprint", e);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Records the fingerprint of the task inputs in the project fingerprint store.
+	 * </p>
+	 * 
+	 * <p>
+	 * This must be invoked once the task outputs have been successfully generated.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * 
+	 * @throws TaskExecutionException if there was an error computing the inputs fingerprint
+	 */
+	protected final void storeInputsFingerprint(BuildProject project) throws TaskExecutionException {
+		try {
+			project.getFingerprintStore().put(this.getFingerprintKey(), this.getInputsFingerprint(project));
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error computing task inputs fingerprint", e);
+		}
+		try {
+			project.getFingerprintStore().save();
+		}
+		catch(IOException e) {
+			LOGGER.warn("Error saving fingerprints to {}", project.getFingerprintStore().getPath(), e);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Returns the path to the staging directory of the task.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * 
+	 * @return the staging path
+	 */
+	protected final Path getStagingPath(BuildProject project) {
+		return project.getWorkingPath().resolve("staging").resolve(this.getFingerprintKey());
+	}
+	
+	/**
+	 * <p>
+	 * Creates the staging area where the task generates its outputs.
+	 * </p>
+	 * 
+	 * <p>
+	 * Outputs must be staged, generated and then committed before the inputs fingerprint is stored so that the task outputs are either up to date or left untouched when the build is interrupted.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * 
+	 * @return a new staging area
+	 * 
+	 * @throws IOException if there was an error creating the staging area
+	 */
+	protected final StagingArea createStagingArea(BuildProject project) throws IOException {
+		return new StagingArea(this.getStagingPath(project));
+	}
+	
+	/**
+	 * <p>
+	 * Restores the task outputs from the project build cache.
+	 * </p>
+	 * 
+	 * <p>
+	 * Outputs are looked up in the build cache by the portable fingerprint of the task inputs. Since the cache is an optimization, errors are logged and reported as a cache miss in which case the task
+	 * must generate its outputs.
+	 * </p>
+	 * 
+	 * <p>
+	 * Outputs are unpacked to a staging area and committed once the entry has been fully unpacked.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * @param outputs the paths to the task outputs
+	 * 
+	 * @return true if the outputs were restored, false otherwise
+	 */
+	protected final boolean restoreOutputs(BuildProject project, Path... outputs) {
+		Optional<BuildCache> buildCache = project.getBuildCache();
+		if(buildCache.isEmpty()) {
+			return false;
+		}
+		try {
+			String key = this.getInputsFingerprint(project, true);
+			Optional<InputStream> entry = buildCache.get().get(key);
+			if(entry.isEmpty()) {
+				LOGGER.info(" - build cache miss {}", key);
+				return false;
+			}
+			try(InputStream entryInput = entry.get(); StagingArea stagingArea = this.createStagingArea(project)) {
+				List<Path> stagedOutputs = new ArrayList<>();
+				for(Path output : outputs) {
+					stagedOutputs.add(stagingArea.stage(output));
+				}
+				BuildCacheEntry.unpack(entryInput, stagedOutputs);
+				stagingArea.commit();
+			}
+			LOGGER.info(" - restored {} from build cache {}", key, buildCache.get());
+			return true;
+		}
+		catch(IOException e) {
+			LOGGER.warn(" - error restoring task outputs from build cache {}: {}", buildCache.get(), e.toString());
+			return false;
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Stores the task outputs in the project build cache.
+	 * </p>
+	 * 
+	 * <p>
+	 * This must be invoked once the task outputs have been successfully generated. Since the cache is an optimization, errors are logged and ignored.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * @param outputs the paths to the task outputs
+	 */
+	protected final void storeOutputs(BuildProject project, Path... outputs) {
+		Optional<BuildCache> buildCache = project.getBuildCache();
+		if(buildCache.isEmpty()) {
+			return;
+		}
+		Path entryPath = null;
+		try {
+			String key = this.getInputsFingerprint(project, true);
+			Files.createDirectories(project.getWorkingPath());
+			entryPath = Files.createTempFile(project.getWorkingPath(), "cache-", ".tgz");
+			try(OutputStream entryOutput = Files.newOutputStream(entryPath)) {
+				BuildCacheEntry.pack(List.of(outputs), entryOutput);
+			}
+			buildCache.get().put(key, entryPath);
+			LOGGER.info(" - stored {} to build cache {}", key, buildCache.get());
+		}
+		catch(IOException e) {
+			LOGGER.warn(" - error storing task outputs to build cache {}: {}", buildCache.get(), e.toString());
+		}
+		finally {
+			if(entryPath != null) {
+				try {
+					Files.deleteIfExists(entryPath);
+				}
+				catch(IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+	
+	/**
+	 * <p>
+	 * The future returned when executing a task asynchronously.
+	 * </p>
+	 * 
+	 * <p>
+	 * Cancelling the future interrupts the thread executing the task.
+	 * </p>
+	 * 
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 * 
+	 * @param <U> the type of task result
+	 */
+	private static class ExecutionFuture<U> extends CompletableFuture<U> {
+
+		private Thread worker;
+		
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if(cancelled) {
+				this.worker.interrupt();
+			}
+			return cancelled;
+		}
+	}
 }
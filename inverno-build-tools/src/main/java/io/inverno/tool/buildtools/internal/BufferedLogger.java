@@ -0,0 +1,234 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * A logger that buffers log events in memory until they are flushed to a target logger.
+ * </p>
+ *
+ * <p>
+ * It is used when processing multiple units of work concurrently (e.g. when modularizing dependencies) in order to keep the log output of each unit of work contiguous and ordered in the target
+ * logger. Tool outputs can also be buffered using the {@link #out() } and {@link #err() } print streams.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe, a buffered logger is meant to be used by a single unit of work at a time. Concurrent flushes to the target logger are however serialized.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class BufferedLogger {
+
+	private static final Object FLUSH_LOCK = new Object();
+
+	private final Logger logger;
+
+	private final List<LogEvent> events;
+
+	private final PrintStream out;
+
+	private final PrintStream err;
+
+	/**
+	 * <p>
+	 * Creates a buffered logger.
+	 * </p>
+	 *
+	 * @param logger the target logger
+	 */
+	public BufferedLogger(Logger logger) {
+		this.logger = logger;
+		this.events = new ArrayList<>();
+		this.out = new PrintStream(new LineOutputStream(Level.INFO), true, Charset.defaultCharset());
+		this.err = new PrintStream(new LineOutputStream(Level.ERROR), true, Charset.defaultCharset());
+	}
+
+	/**
+	 * <p>
+	 * Logs a message with info level.
+	 * </p>
+	 *
+	 * @param message the message pattern
+	 * @param params  the message parameters
+	 */
+	public void info(String message, Object... params) {
+		this.events.add(new LogEvent(Level.INFO, message, params));
+	}
+
+	/**
+	 * <p>
+	 * Logs a message with warn level.
+	 * </p>
+	 *
+	 * @param message the message pattern
+	 * @param params  the message parameters
+	 */
+	public void warn(String message, Object... params) {
+		this.events.add(new LogEvent(Level.WARN, message, params));
+	}
+
+	/**
+	 * <p>
+	 * Logs a message with error level.
+	 * </p>
+	 *
+	 * @param message the message pattern
+	 * @param params  the message parameters
+	 */
+	public void error(String message, Object... params) {
+		this.events.add(new LogEvent(Level.ERROR, message, params));
+	}
+
+	/**
+	 * <p>
+	 * Returns a print stream logging each line with info level.
+	 * </p>
+	 *
+	 * @return a print stream
+	 */
+	public PrintStream out() {
+		return this.out;
+	}
+
+	/**
+	 * <p>
+	 * Returns a print stream logging each line with error level.
+	 * </p>
+	 *
+	 * @return a print stream
+	 */
+	public PrintStream err() {
+		return this.err;
+	}
+
+	/**
+	 * <p>
+	 * Flushes buffered log events to the target logger.
+	 * </p>
+	 */
+	public void flush() {
+		this.out.flush();
+		this.err.flush();
+		synchronized(FLUSH_LOCK) {
+			for(LogEvent event : this.events) {
+				if(event.params.length > 0) {
+					this.logger.log(event.level, event.message, event.params);
+				}
+				else {
+					this.logger.log(event.level, event.message);
+				}
+			}
+		}
+		this.events.clear();
+	}
+
+	/**
+	 * <p>
+	 * A buffered log event.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private static class LogEvent {
+
+		private final Level level;
+
+		private final String message;
+
+		private final Object[] params;
+
+		/**
+		 * <p>
+		 * Creates a log event.
+		 * </p>
+		 *
+		 * @param level   the log level
+		 * @param message the message pattern
+		 * @param params  the message parameters
+		 */
+		public LogEvent(Level level, String message, Object[] params) {
+			this.level = level;
+			this.message = message;
+			this.params = params != null ? params : new Object[0];
+		}
+	}
+
+	/**
+	 * <p>
+	 * An output stream that buffers a log event for each line written.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private class LineOutputStream extends OutputStream {
+
+		private final Level level;
+
+		private final ByteArrayOutputStream line;
+
+		/**
+		 * <p>
+		 * Creates a line output stream.
+		 * </p>
+		 *
+		 * @param level the level of the log events
+		 */
+		public LineOutputStream(Level level) {
+			this.level = level;
+			this.line = new ByteArrayOutputStream();
+		}
+
+		@Override
+		public void write(int b) {
+			if(b == '\n') {
+				this.flushLine();
+			}
+			else if(b != '\r') {
+				this.line.write(b);
+			}
+		}
+
+		@Override
+		public void flush() {
+			this.flushLine();
+		}
+
+		/**
+		 * <p>
+		 * Buffers the current line as a log event.
+		 * </p>
+		 */
+		private void flushLine() {
+			if(this.line.size() > 0) {
+				BufferedLogger.this.events.add(new LogEvent(this.level, this.line.toString(Charset.defaultCharset()), null));
+				this.line.reset();
+			}
+		}
+	}
+}
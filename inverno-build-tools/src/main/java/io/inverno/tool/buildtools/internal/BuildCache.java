@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * <p>
+ * A build cache storing task outputs by key.
+ * </p>
+ *
+ * <p>
+ * Entries are opaque archives created by {@link BuildCacheEntry}, keys are portable fingerprints of the inputs of the task that generated them so that an entry can be shared between builds running
+ * on different hosts.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public interface BuildCache {
+
+	/**
+	 * <p>
+	 * Returns the build cache located at the specified URI.
+	 * </p>
+	 *
+	 * <p>
+	 * A {@code file} URI designates a local directory, a {@code http} or {@code https} URI designates a remote cache accessed with {@code GET} and {@code PUT} requests.
+	 * </p>
+	 *
+	 * @param uri the build cache URI
+	 *
+	 * @return a build cache
+	 *
+	 * @throws IllegalArgumentException if the URI scheme is not supported
+	 */
+	static BuildCache of(URI uri) throws IllegalArgumentException {
+		String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "file";
+		switch(scheme) {
+			case "file": return new LocalBuildCache(uri.getScheme() != null ? Path.of(uri) : Path.of(uri.getPath()));
+			case "http":
+			case "https": return new HttpBuildCache(uri);
+			default: throw new IllegalArgumentException("Unsupported build cache URI: " + uri);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the entry identified by the specified key.
+	 * </p>
+	 *
+	 * @param key the entry key
+	 *
+	 * @return an optional returning an input stream to read the entry or an empty optional if there's no such entry in the cache
+	 *
+	 * @throws IOException if there was an error accessing the cache
+	 */
+	Optional<InputStream> get(String key) throws IOException;
+
+	/**
+	 * <p>
+	 * Stores the specified entry in the cache.
+	 * </p>
+	 *
+	 * @param key       the entry key
+	 * @param entryPath the path to the entry
+	 *
+	 * @throws IOException if there was an error accessing the cache
+	 */
+	void put(String key, Path entryPath) throws IOException;
+}
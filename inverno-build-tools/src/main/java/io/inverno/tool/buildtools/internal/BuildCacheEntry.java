@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+
+/**
+ * <p>
+ * Packs and unpacks the outputs of a task to and from a build cache entry.
+ * </p>
+ *
+ * <p>
+ * An entry is a compressed tar archive in which outputs are identified by their index in the list of outputs of the task so that they can be restored to a different location. Files modes and
+ * symbolic links are preserved which is required to restore runtime or application images.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public final class BuildCacheEntry {
+
+	private BuildCacheEntry() {}
+
+	/**
+	 * <p>
+	 * Packs the specified outputs.
+	 * </p>
+	 *
+	 * @param outputs the paths to the task outputs which can be regular files or directories
+	 * @param output  the output stream where to write the entry
+	 *
+	 * @throws IOException if there was an error packing the outputs
+	 */
+	public static void pack(List<Path> outputs, OutputStream output) throws IOException {
+		try(TarArchiveOutputStream tarOutput = new TarArchiveOutputStream(new GZIPOutputStream(output))) {
+			tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+			tarOutput.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+			for(int i=0;i<outputs.size();i++) {
+				Path outputPath = outputs.get(i);
+				if(!Files.exists(outputPath, LinkOption.NOFOLLOW_LINKS)) {
+					throw new IOException("Missing task output: " + outputPath);
+				}
+				try(Stream<Path> walk = Files.walk(outputPath)) {
+					for(Iterator<Path> pathIterator = walk.iterator(); pathIterator.hasNext();) {
+						Path path = pathIterator.next();
+						String relativePath = outputPath.relativize(path).toString().replace(java.io.File.separatorChar, '/');
+						String entryName = relativePath.isEmpty() ? Integer.toString(i) : i + "/" + relativePath;
+
+						TarArchiveEntry entry;
+						if(Files.isSymbolicLink(path)) {
+							entry = new TarArchiveEntry(entryName, TarConstants.LF_SYMLINK);
+							entry.setLinkName(Files.readSymbolicLink(path).toString().replace(java.io.File.separatorChar, '/'));
+						}
+						else if(Files.isDirectory(path)) {
+							entry = new TarArchiveEntry(entryName + "/");
+						}
+						else {
+							entry = new TarArchiveEntry(entryName);
+							entry.setSize(Files.size(path));
+						}
+						if(path.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+							entry.setMode((Integer)Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS) & 0xfff);
+						}
+						tarOutput.putArchiveEntry(entry);
+						if(Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+							Files.copy(path, tarOutput);
+						}
+						tarOutput.closeArchiveEntry();
+					}
+				}
+			}
+			tarOutput.finish();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Unpacks the specified entry to the specified outputs.
+	 * </p>
+	 *
+	 * <p>
+	 * Existing outputs are deleted first.
+	 * </p>
+	 *
+	 * @param input   the input stream to read the entry
+	 * @param outputs the paths to the task outputs
+	 *
+	 * @throws IOException if there was an error unpacking the entry or if the entry is invalid
+	 */
+	public static void unpack(InputStream input, List<Path> outputs) throws IOException {
+		for(Path outputPath : outputs) {
+			delete(outputPath);
+		}
+		// directory modes are restored last since a directory might not be writable
+		Map<Path, Integer> directoryModes = new HashMap<>();
+		try(TarArchiveInputStream tarInput = new TarArchiveInputStream(new GZIPInputStream(input))) {
+			TarArchiveEntry entry;
+			while((entry = tarInput.getNextEntry()) != null) {
+				String entryName = entry.getName().endsWith("/") ? entry.getName().substring(0, entry.getName().length() - 1) : entry.getName();
+				int separatorIndex = entryName.indexOf('/');
+				int index;
+				try {
+					index = Integer.parseInt(separatorIndex < 0 ? entryName : entryName.substring(0, separatorIndex));
+				}
+				catch(NumberFormatException e) {
+					throw new IOException("Invalid build cache entry: " + entry.getName());
+				}
+				if(index < 0 || index >= outputs.size()) {
+					throw new IOException("Invalid build cache entry: " + entry.getName());
+				}
+				Path outputPath = outputs.get(index).toAbsolutePath().normalize();
+				Path path = separatorIndex < 0 ? outputPath : outputPath.resolve(entryName.substring(separatorIndex + 1)).normalize();
+				if(!path.startsWith(outputPath)) {
+					throw new IOException("Invalid build cache entry: " + entry.getName());
+				}
+
+				if(entry.isDirectory()) {
+					Files.createDirectories(path);
+					directoryModes.put(path, entry.getMode() & 0xfff);
+					continue;
+				}
+				Files.createDirectories(path.getParent());
+				if(entry.isSymbolicLink()) {
+					Path target = Path.of(entry.getLinkName());
+					if(target.isAbsolute() || !path.getParent().resolve(target).normalize().startsWith(outputPath)) {
+						throw new IOException("Invalid build cache entry: " + entry.getName());
+					}
+					Files.createSymbolicLink(path, target);
+					continue;
+				}
+				if(!entry.isFile()) {
+					throw new IOException("Invalid build cache entry: " + entry.getName());
+				}
+				Files.copy(tarInput, path);
+				if(path.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+					Files.setAttribute(path, "unix:mode", entry.getMode() & 0xfff);
+				}
+			}
+		}
+		for(Map.Entry<Path, Integer> directoryMode : directoryModes.entrySet()) {
+			if(directoryMode.getKey().getFileSystem().supportedFileAttributeViews().contains("unix")) {
+				Files.setAttribute(directoryMode.getKey(), "unix:mode", directoryMode.getValue());
+			}
+		}
+		for(Path outputPath : outputs) {
+			if(!Files.exists(outputPath, LinkOption.NOFOLLOW_LINKS)) {
+				throw new IOException("Incomplete build cache entry, missing: " + outputPath);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Deletes the specified file or directory.
+	 * </p>
+	 *
+	 * @param path the path to a file or a directory
+	 *
+	 * @throws IOException if there was an error deleting the path
+	 */
+	public static void delete(Path path) throws IOException {
+		if(Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+			try(Stream<Path> walk = Files.walk(path)) {
+				for(Iterator<Path> pathIterator = walk.sorted(Comparator.reverseOrder()).iterator(); pathIterator.hasNext();) {
+					Files.delete(pathIterator.next());
+				}
+			}
+		}
+	}
+}
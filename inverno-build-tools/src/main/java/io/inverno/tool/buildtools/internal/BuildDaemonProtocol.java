@@ -0,0 +1,562 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.Task;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * The protocol used to communicate with a build daemon.
+ * </p>
+ *
+ * <p>
+ * Values exchanged with the daemon are the arguments of the task configuration methods and the task results which are defined by the build tools API. Besides basic types (strings, primitive
+ * wrappers, paths, URIs, enums, collections and optionals), values are encoded based on their declared type: an interface value is encoded as the values returned by its getters and decoded as a
+ * proxy returning them, a class value is encoded as its fields and decoded as a new instance of the declared class. Only types defined in the build tools package can be decoded.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public final class BuildDaemonProtocol {
+
+	/**
+	 * The protocol version.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Message sent by the daemon to accept a connection.
+	 */
+	public static final byte MESSAGE_ACCEPT = 0;
+	/**
+	 * Message sent by the daemon with the result of a task in the executed chain.
+	 */
+	public static final byte MESSAGE_RESULT = 1;
+	/**
+	 * Message sent by the daemon when the execution completed successfully.
+	 */
+	public static final byte MESSAGE_COMPLETE = 2;
+	/**
+	 * Message sent by the daemon when the execution failed.
+	 */
+	public static final byte MESSAGE_ERROR = 3;
+
+	private static final String API_PACKAGE_PREFIX = Task.class.getPackageName() + ".";
+
+	private static final byte TYPE_NULL = 0;
+	private static final byte TYPE_STRING = 1;
+	private static final byte TYPE_BOOLEAN = 2;
+	private static final byte TYPE_INTEGER = 3;
+	private static final byte TYPE_LONG = 4;
+	private static final byte TYPE_PATH = 5;
+	private static final byte TYPE_URI = 6;
+	private static final byte TYPE_ENUM = 7;
+	private static final byte TYPE_LIST = 8;
+	private static final byte TYPE_SET = 9;
+	private static final byte TYPE_MAP = 10;
+	private static final byte TYPE_OPTIONAL = 11;
+	private static final byte TYPE_INTERFACE = 12;
+	private static final byte TYPE_OBJECT = 13;
+
+	private BuildDaemonProtocol() {}
+
+	/**
+	 * <p>
+	 * Writes the specified value.
+	 * </p>
+	 *
+	 * @param output the output
+	 * @param value  the value to write
+	 * @param type   the declared type of the value
+	 *
+	 * @throws IOException              if there was an error writing the value
+	 * @throws IllegalArgumentException if the value can't be encoded
+	 */
+	public static void writeValue(DataOutputStream output, Object value, Type type) throws IOException, IllegalArgumentException {
+		Class<?> rawType = getRawType(type);
+		if(value == null) {
+			output.writeByte(TYPE_NULL);
+		}
+		else if(value instanceof String) {
+			output.writeByte(TYPE_STRING);
+			output.writeUTF((String)value);
+		}
+		else if(value instanceof Boolean) {
+			output.writeByte(TYPE_BOOLEAN);
+			output.writeBoolean((Boolean)value);
+		}
+		else if(value instanceof Integer) {
+			output.writeByte(TYPE_INTEGER);
+			output.writeInt((Integer)value);
+		}
+		else if(value instanceof Long) {
+			output.writeByte(TYPE_LONG);
+			output.writeLong((Long)value);
+		}
+		else if(value instanceof Path) {
+			// relative paths must not be resolved against the daemon working directory
+			output.writeByte(TYPE_PATH);
+			output.writeUTF(((Path)value).toAbsolutePath().toString());
+		}
+		else if(value instanceof URI) {
+			output.writeByte(TYPE_URI);
+			output.writeUTF(value.toString());
+		}
+		else if(value instanceof Enum) {
+			output.writeByte(TYPE_ENUM);
+			output.writeUTF(((Enum<?>)value).getDeclaringClass().getName());
+			output.writeUTF(((Enum<?>)value).name());
+		}
+		else if(value instanceof Optional) {
+			output.writeByte(TYPE_OPTIONAL);
+			writeValue(output, ((Optional<?>)value).orElse(null), getTypeArgument(type, 0));
+		}
+		else if(value instanceof Map) {
+			output.writeByte(TYPE_MAP);
+			output.writeInt(((Map<?, ?>)value).size());
+			for(Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+				writeValue(output, entry.getKey(), getTypeArgument(type, 0));
+				writeValue(output, entry.getValue(), getTypeArgument(type, 1));
+			}
+		}
+		else if(value instanceof Set || value instanceof List) {
+			output.writeByte(value instanceof Set ? TYPE_SET : TYPE_LIST);
+			output.writeInt(((java.util.Collection<?>)value).size());
+			for(Object element : (java.util.Collection<?>)value) {
+				writeValue(output, element, getTypeArgument(type, 0));
+			}
+		}
+		else if(rawType.isInterface() && rawType.isInstance(value) && isApiType(rawType)) {
+			output.writeByte(TYPE_INTERFACE);
+			output.writeUTF(rawType.getName());
+			List<Method> getters = getGetters(rawType);
+			output.writeInt(getters.size());
+			for(Method getter : getters) {
+				output.writeUTF(getter.getName());
+				try {
+					writeValue(output, getter.invoke(value), getter.getGenericReturnType());
+				}
+				catch(IllegalAccessException | InvocationTargetException e) {
+					throw new IllegalArgumentException("Error reading " + getter, e);
+				}
+			}
+		}
+		else if(rawType.isInstance(value) && isApiType(rawType)) {
+			output.writeByte(TYPE_OBJECT);
+			output.writeUTF(rawType.getName());
+			List<Field> fields = getFields(rawType);
+			output.writeInt(fields.size());
+			for(Field field : fields) {
+				output.writeUTF(field.getName());
+				try {
+					writeValue(output, field.get(value), field.getGenericType());
+				}
+				catch(IllegalAccessException e) {
+					throw new IllegalArgumentException("Error reading " + field, e);
+				}
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported value of type " + value.getClass().getName() + " declared as " + type.getTypeName());
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads a value.
+	 * </p>
+	 *
+	 * @param input the input
+	 *
+	 * @return the value
+	 *
+	 * @throws IOException if there was an error reading the value or if the value can't be decoded
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static Object readValue(DataInputStream input) throws IOException {
+		byte type = input.readByte();
+		switch(type) {
+			case TYPE_NULL: return null;
+			case TYPE_STRING: return input.readUTF();
+			case TYPE_BOOLEAN: return input.readBoolean();
+			case TYPE_INTEGER: return input.readInt();
+			case TYPE_LONG: return input.readLong();
+			case TYPE_PATH: return Path.of(input.readUTF());
+			case TYPE_URI: return URI.create(input.readUTF());
+			case TYPE_ENUM: {
+				Class<?> enumType = loadApiType(input.readUTF());
+				if(!enumType.isEnum()) {
+					throw new IOException("Not an enum: " + enumType.getName());
+				}
+				return Enum.valueOf((Class<? extends Enum>)enumType, input.readUTF());
+			}
+			case TYPE_OPTIONAL: return Optional.ofNullable(readValue(input));
+			case TYPE_MAP: {
+				int size = input.readInt();
+				Map<Object, Object> map = new LinkedHashMap<>();
+				for(int i=0;i<size;i++) {
+					map.put(readValue(input), readValue(input));
+				}
+				return map;
+			}
+			case TYPE_LIST:
+			case TYPE_SET: {
+				int size = input.readInt();
+				List<Object> elements = new ArrayList<>(size);
+				for(int i=0;i<size;i++) {
+					elements.add(readValue(input));
+				}
+				return type == TYPE_SET ? new LinkedHashSet<>(elements) : elements;
+			}
+			case TYPE_INTERFACE: {
+				Class<?> interfaceType = loadApiType(input.readUTF());
+				if(!interfaceType.isInterface()) {
+					throw new IOException("Not an interface: " + interfaceType.getName());
+				}
+				int size = input.readInt();
+				Map<String, Object> values = new HashMap<>();
+				for(int i=0;i<size;i++) {
+					values.put(input.readUTF(), readValue(input));
+				}
+				return Proxy.newProxyInstance(interfaceType.getClassLoader(), new Class<?>[] { interfaceType }, (proxy, method, args) -> {
+					if(method.getDeclaringClass() == Object.class) {
+						switch(method.getName()) {
+							case "equals": return proxy == args[0];
+							case "hashCode": return System.identityHashCode(proxy);
+							default: return interfaceType.getSimpleName() + values;
+						}
+					}
+					if(method.getParameterCount() == 0 && values.containsKey(method.getName())) {
+						return values.get(method.getName());
+					}
+					if(method.isDefault()) {
+						return InvocationHandler.invokeDefault(proxy, method, args);
+					}
+					throw new UnsupportedOperationException(method.toString());
+				});
+			}
+			case TYPE_OBJECT: {
+				Class<?> objectType = loadApiType(input.readUTF());
+				Map<String, Field> fields = getFields(objectType).stream().collect(Collectors.toMap(Field::getName, field -> field));
+				try {
+					Object value = objectType.getDeclaredConstructor().newInstance();
+					int size = input.readInt();
+					for(int i=0;i<size;i++) {
+						Field field = fields.get(input.readUTF());
+						Object fieldValue = readValue(input);
+						if(field != null) {
+							field.set(value, fieldValue);
+						}
+					}
+					return value;
+				}
+				catch(ReflectiveOperationException | IllegalArgumentException e) {
+					throw new IOException("Error creating instance of " + objectType.getName(), e);
+				}
+			}
+			default: throw new IOException("Invalid value type: " + type);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Writes the specified error along with its causes.
+	 * </p>
+	 *
+	 * @param output the output
+	 * @param error  the error to write
+	 *
+	 * @throws IOException if there was an error writing the error
+	 */
+	public static void writeThrowable(DataOutputStream output, Throwable error) throws IOException {
+		output.writeUTF(error.getClass().getName());
+		writeValue(output, error.getMessage(), String.class);
+		StackTraceElement[] stackTrace = error.getStackTrace();
+		output.writeInt(stackTrace.length);
+		for(StackTraceElement element : stackTrace) {
+			output.writeUTF(element.getClassName());
+			output.writeUTF(element.getMethodName());
+			writeValue(output, element.getFileName(), String.class);
+			output.writeInt(element.getLineNumber());
+		}
+		Throwable cause = error.getCause();
+		output.writeBoolean(cause != null && cause != error);
+		if(cause != null && cause != error) {
+			writeThrowable(output, cause);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads an error along with its causes.
+	 * </p>
+	 *
+	 * @param input the input
+	 *
+	 * @return a remote exception
+	 *
+	 * @throws IOException if there was an error reading the error
+	 */
+	public static BuildDaemonProtocol.RemoteException readThrowable(DataInputStream input) throws IOException {
+		String className = input.readUTF();
+		String message = (String)readValue(input);
+		StackTraceElement[] stackTrace = new StackTraceElement[input.readInt()];
+		for(int i=0;i<stackTrace.length;i++) {
+			stackTrace[i] = new StackTraceElement(input.readUTF(), input.readUTF(), (String)readValue(input), input.readInt());
+		}
+		BuildDaemonProtocol.RemoteException cause = input.readBoolean() ? readThrowable(input) : null;
+		BuildDaemonProtocol.RemoteException error = new BuildDaemonProtocol.RemoteException(className, message, cause);
+		error.setStackTrace(stackTrace);
+		return error;
+	}
+
+	/**
+	 * <p>
+	 * Returns the result type of the specified task type.
+	 * </p>
+	 *
+	 * @param taskType a task interface
+	 *
+	 * @return the type of the task result
+	 */
+	public static Type getTaskResultType(Class<?> taskType) {
+		return resolveTypeArgument(taskType, Task.class, 0, Map.of());
+	}
+
+	/**
+	 * <p>
+	 * Resolves the type argument of a generic super type of the specified type.
+	 * </p>
+	 *
+	 * @param type          the type
+	 * @param superType     the generic super type
+	 * @param index         the index of the type argument
+	 * @param typeVariables the type variables resolved so far
+	 *
+	 * @return the resolved type argument or {@code Object} if it couldn't be resolved
+	 */
+	private static Type resolveTypeArgument(Class<?> type, Class<?> superType, int index, Map<TypeVariable<?>, Type> typeVariables) {
+		for(Type genericInterface : type.getGenericInterfaces()) {
+			if(genericInterface instanceof ParameterizedType) {
+				ParameterizedType parameterizedType = (ParameterizedType)genericInterface;
+				Class<?> rawType = (Class<?>)parameterizedType.getRawType();
+				Type[] typeArguments = Arrays.stream(parameterizedType.getActualTypeArguments())
+					.map(argument -> typeVariables.getOrDefault(argument, argument))
+					.toArray(Type[]::new);
+				if(rawType == superType) {
+					return typeArguments[index] instanceof TypeVariable ? Object.class : typeArguments[index];
+				}
+				if(superType.isAssignableFrom(rawType)) {
+					Map<TypeVariable<?>, Type> rawTypeVariables = new HashMap<>();
+					for(int i=0;i<typeArguments.length;i++) {
+						rawTypeVariables.put(rawType.getTypeParameters()[i], typeArguments[i]);
+					}
+					return resolveTypeArgument(rawType, superType, index, rawTypeVariables);
+				}
+			}
+			else if(genericInterface instanceof Class && superType.isAssignableFrom((Class<?>)genericInterface)) {
+				return resolveTypeArgument((Class<?>)genericInterface, superType, index, Map.of());
+			}
+		}
+		return Object.class;
+	}
+
+	/**
+	 * <p>
+	 * Returns the raw type of the specified type.
+	 * </p>
+	 *
+	 * @param type a type
+	 *
+	 * @return the raw type or {@code Object} if it can't be determined
+	 */
+	private static Class<?> getRawType(Type type) {
+		if(type instanceof Class) {
+			return (Class<?>)type;
+		}
+		else if(type instanceof ParameterizedType) {
+			return getRawType(((ParameterizedType)type).getRawType());
+		}
+		else if(type instanceof WildcardType) {
+			return getRawType(((WildcardType)type).getUpperBounds()[0]);
+		}
+		return Object.class;
+	}
+
+	/**
+	 * <p>
+	 * Returns the type argument of the specified parameterized type.
+	 * </p>
+	 *
+	 * @param type  a type
+	 * @param index the index of the type argument
+	 *
+	 * @return the type argument or {@code Object} if the type is not parameterized
+	 */
+	private static Type getTypeArgument(Type type, int index) {
+		if(type instanceof ParameterizedType) {
+			Type typeArgument = ((ParameterizedType)type).getActualTypeArguments()[index];
+			return typeArgument instanceof WildcardType ? ((WildcardType)typeArgument).getUpperBounds()[0] : typeArgument;
+		}
+		return Object.class;
+	}
+
+	/**
+	 * <p>
+	 * Returns the getters of the specified interface sorted by name.
+	 * </p>
+	 *
+	 * @param type an interface
+	 *
+	 * @return a list of methods
+	 */
+	private static List<Method> getGetters(Class<?> type) {
+		return Arrays.stream(type.getMethods())
+			.filter(method -> !Modifier.isStatic(method.getModifiers()) && method.getParameterCount() == 0 && method.getReturnType() != void.class)
+			.sorted(Comparator.comparing(Method::getName))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * <p>
+	 * Returns the instance fields of the specified class and its super classes.
+	 * </p>
+	 *
+	 * @param type a class
+	 *
+	 * @return a list of accessible fields
+	 */
+	private static List<Field> getFields(Class<?> type) {
+		List<Field> fields = new ArrayList<>();
+		for(Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			for(Field field : current.getDeclaredFields()) {
+				if(!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * <p>
+	 * Determines whether the specified type is defined in the build tools API.
+	 * </p>
+	 *
+	 * @param type a type
+	 *
+	 * @return true if the type is defined in the build tools API, false otherwise
+	 */
+	private static boolean isApiType(Class<?> type) {
+		return type.getName().startsWith(API_PACKAGE_PREFIX) && !type.getName().startsWith(API_PACKAGE_PREFIX + "internal.");
+	}
+
+	/**
+	 * <p>
+	 * Loads a type defined in the build tools API.
+	 * </p>
+	 *
+	 * @param name the type name
+	 *
+	 * @return the type
+	 *
+	 * @throws IOException if the type is not defined in the build tools API
+	 */
+	public static Class<?> loadApiType(String name) throws IOException {
+		if(!name.startsWith(API_PACKAGE_PREFIX) || name.startsWith(API_PACKAGE_PREFIX + "internal.")) {
+			throw new IOException("Type is not defined in the build tools API: " + name);
+		}
+		try {
+			return Class.forName(name, false, BuildDaemonProtocol.class.getClassLoader());
+		}
+		catch(ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * An error raised in a build daemon.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	public static class RemoteException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String className;
+
+		/**
+		 * <p>
+		 * Creates a remote exception.
+		 * </p>
+		 *
+		 * @param className the name of the class of the original error
+		 * @param message   the message of the original error
+		 * @param cause     the cause of the original error
+		 */
+		private RemoteException(String className, String message, RemoteException cause) {
+			super(message, cause);
+			this.className = className;
+		}
+
+		/**
+		 * <p>
+		 * Returns the name of the class of the original error.
+		 * </p>
+		 *
+		 * @return a class name
+		 */
+		public String getClassName() {
+			return this.className;
+		}
+
+		@Override
+		public String toString() {
+			return this.getMessage() != null ? this.className + ": " + this.getMessage() : this.className;
+		}
+	}
+}
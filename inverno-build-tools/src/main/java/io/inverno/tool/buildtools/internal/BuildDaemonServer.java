@@ -0,0 +1,539 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.BuildSession;
+import io.inverno.tool.buildtools.Dependency;
+import io.inverno.tool.buildtools.ModularizeDependenciesTask;
+import io.inverno.tool.buildtools.Project;
+import io.inverno.tool.buildtools.Task;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * A build daemon server executing build tasks on behalf of build daemon clients.
+ * </p>
+ *
+ * <p>
+ * The server listens on a loopback port which is advertised along with a random token in a registry file in the daemon directory. A client must send the token when connecting, it then sends the
+ * project and the chain of tasks to execute with their configuration. Tasks are replayed on the {@link GenericBuildSession build session} of the project and executed in the daemon so that
+ * JIT-compiled code, tool providers, persisted caches and the project state resolved by previous builds are reused between builds. The execution is cancelled when the client disconnects.
+ * </p>
+ *
+ * <p>
+ * The server stops when no request was received during the idle timeout.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ *
+ * @see GenericBuildDaemon
+ */
+public class BuildDaemonServer {
+
+	private static final Logger LOGGER = LogManager.getLogger(BuildDaemonServer.class);
+
+	private static final int ACCEPT_TIMEOUT = 1000;
+
+	private final Path registryPath;
+
+	private final long idleTimeout;
+
+	private final String token;
+
+	private final AtomicInteger workerIndex;
+
+	private final ExecutorService executor;
+
+	private final Map<Path, ReentrantLock> projectLocks;
+
+	private final Map<Path, GenericBuildSession> sessions;
+
+	private final AtomicInteger activeRequests;
+
+	private volatile long lastActivity;
+
+	private volatile boolean stopped;
+
+	/**
+	 * <p>
+	 * Creates a build daemon server.
+	 * </p>
+	 *
+	 * @param registryPath the path to the registry file advertising the daemon
+	 * @param idleTimeout  the time in milliseconds after which the daemon stops when idle
+	 */
+	public BuildDaemonServer(Path registryPath, long idleTimeout) {
+		this.registryPath = registryPath.toAbsolutePath();
+		this.idleTimeout = idleTimeout;
+		byte[] tokenBytes = new byte[32];
+		new SecureRandom().nextBytes(tokenBytes);
+		this.token = HexFormat.of().formatHex(tokenBytes);
+		this.workerIndex = new AtomicInteger();
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			Thread worker = new Thread(runnable, "inverno-daemon-" + this.workerIndex.incrementAndGet());
+			worker.setDaemon(true);
+			return worker;
+		});
+		this.projectLocks = new ConcurrentHashMap<>();
+		this.sessions = new ConcurrentHashMap<>();
+		this.activeRequests = new AtomicInteger();
+	}
+
+	/**
+	 * <p>
+	 * Starts a build daemon server.
+	 * </p>
+	 *
+	 * <p>
+	 * Expected arguments are the path to the registry file and the idle timeout in milliseconds.
+	 * </p>
+	 *
+	 * @param args the daemon arguments
+	 *
+	 * @throws IOException if there was an error starting the daemon
+	 */
+	public static void main(String[] args) throws IOException {
+		new BuildDaemonServer(Path.of(args[0]), Long.parseLong(args[1])).run();
+		System.exit(0);
+	}
+
+	/**
+	 * <p>
+	 * Runs the server until it is stopped or idle for longer than the idle timeout.
+	 * </p>
+	 *
+	 * @throws IOException if there was an error running the server
+	 */
+	public void run() throws IOException {
+		try(ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			serverSocket.setSoTimeout(ACCEPT_TIMEOUT);
+			this.register(serverSocket.getLocalPort());
+			LOGGER.info("Build daemon {} listening on port {}", ProcessHandle.current().pid(), serverSocket.getLocalPort());
+			this.lastActivity = System.currentTimeMillis();
+			try {
+				while(!this.stopped) {
+					try {
+						Socket socket = serverSocket.accept();
+						this.activeRequests.incrementAndGet();
+						this.executor.execute(() -> {
+							try {
+								this.handle(socket);
+							}
+							finally {
+								this.lastActivity = System.currentTimeMillis();
+								this.activeRequests.decrementAndGet();
+							}
+						});
+					}
+					catch(SocketTimeoutException e) {
+						if(this.activeRequests.get() == 0 && System.currentTimeMillis() - this.lastActivity > this.idleTimeout) {
+							LOGGER.info("Build daemon {} stopping after being idle for {}ms", ProcessHandle.current().pid(), this.idleTimeout);
+							break;
+						}
+					}
+				}
+			}
+			finally {
+				this.unregister();
+				this.executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stops the server.
+	 * </p>
+	 */
+	public void stop() {
+		this.stopped = true;
+	}
+
+	/**
+	 * <p>
+	 * Advertises the daemon in the registry file.
+	 * </p>
+	 *
+	 * <p>
+	 * The registry file is only readable by the current user when supported by the file system since it contains the token required to connect to the daemon.
+	 * </p>
+	 *
+	 * @param port the daemon port
+	 *
+	 * @throws IOException if there was an error writing the registry file
+	 */
+	private void register(int port) throws IOException {
+		Properties registry = new Properties();
+		registry.setProperty("pid", Long.toString(ProcessHandle.current().pid()));
+		registry.setProperty("port", Integer.toString(port));
+		registry.setProperty("token", this.token);
+
+		Files.createDirectories(this.registryPath.getParent());
+		Path tmpRegistryPath = Files.createTempFile(this.registryPath.getParent(), this.registryPath.getFileName().toString() + ".", ".tmp");
+		try {
+			try {
+				Files.setPosixFilePermissions(tmpRegistryPath, PosixFilePermissions.fromString("rw-------"));
+			}
+			catch(UnsupportedOperationException e) {
+				// not a POSIX file system
+			}
+			try(OutputStream output = Files.newOutputStream(tmpRegistryPath)) {
+				registry.store(output, null);
+			}
+			Files.move(tmpRegistryPath, this.registryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tmpRegistryPath);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Removes the registry file if it still advertises this daemon.
+	 * </p>
+	 */
+	private void unregister() {
+		try {
+			Properties registry = new Properties();
+			try(InputStream input = Files.newInputStream(this.registryPath)) {
+				registry.load(input);
+			}
+			if(this.token.equals(registry.getProperty("token"))) {
+				Files.deleteIfExists(this.registryPath);
+			}
+		}
+		catch(IOException e) {
+			// registry was replaced or removed
+		}
+	}
+
+	/**
+	 * <p>
+	 * Handles a client connection.
+	 * </p>
+	 *
+	 * @param socket the client socket
+	 */
+	private void handle(Socket socket) {
+		try(socket) {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			if(!this.token.equals(input.readUTF()) || input.readInt() != BuildDaemonProtocol.VERSION) {
+				LOGGER.warn("Rejected build daemon connection from {}", socket.getRemoteSocketAddress());
+				return;
+			}
+			output.writeByte(BuildDaemonProtocol.MESSAGE_ACCEPT);
+			output.flush();
+
+			ByteArrayOutputStream response = new ByteArrayOutputStream();
+			try {
+				List<Object[]> results = new ArrayList<>();
+				try {
+					BuildDaemonServer.DaemonProject project = readProject(input);
+
+					ReentrantLock projectLock = this.projectLocks.computeIfAbsent(project.getWorkingPath(), ign -> new ReentrantLock());
+					projectLock.lockInterruptibly();
+					try {
+						GenericBuildSession session = this.sessions.compute(project.getWorkingPath(), (ign, previousSession) -> new GenericBuildSession(project, previousSession));
+						Task<?, ?> task = this.readTasks(input, session, results);
+
+						LOGGER.info("Executing {} for project {}", task.getClass().getSimpleName(), project);
+						CompletableFuture<?> future = task.executeAsync();
+						// The client closes the connection when it is interrupted
+						this.executor.execute(() -> {
+							try {
+								if(input.read() == -1) {
+									future.cancel(true);
+								}
+							}
+							catch(IOException e) {
+								future.cancel(true);
+							}
+						});
+						future.get();
+					}
+					finally {
+						projectLock.unlock();
+					}
+				}
+				catch(ExecutionException e) {
+					throw e.getCause();
+				}
+
+				// Results are encoded before being sent so that an encoding error can still be reported
+				DataOutputStream responseOutput = new DataOutputStream(response);
+				for(Object[] taskResult : results) {
+					responseOutput.writeByte(BuildDaemonProtocol.MESSAGE_RESULT);
+					responseOutput.writeInt((Integer)taskResult[0]);
+					BuildDaemonProtocol.writeValue(responseOutput, taskResult[2], (Type)taskResult[1]);
+				}
+				responseOutput.writeByte(BuildDaemonProtocol.MESSAGE_COMPLETE);
+			}
+			catch(Throwable e) {
+				LOGGER.error("Error executing tasks", e);
+				response.reset();
+				DataOutputStream responseOutput = new DataOutputStream(response);
+				responseOutput.writeByte(BuildDaemonProtocol.MESSAGE_ERROR);
+				BuildDaemonProtocol.writeThrowable(responseOutput, e);
+			}
+			response.writeTo(output);
+			output.flush();
+		}
+		catch(IOException e) {
+			LOGGER.warn("Error communicating with build daemon client", e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads the project sent by the client.
+	 * </p>
+	 *
+	 * @param input the input
+	 *
+	 * @return a project
+	 *
+	 * @throws IOException if there was an error reading the project
+	 */
+	@SuppressWarnings("unchecked")
+	private static BuildDaemonServer.DaemonProject readProject(DataInputStream input) throws IOException {
+		// The working path identifies the project build session
+		Path targetPath = ((Path)BuildDaemonProtocol.readValue(input)).toAbsolutePath().normalize();
+		Path workingPath = ((Path)BuildDaemonProtocol.readValue(input)).toAbsolutePath().normalize();
+		String group = (String)BuildDaemonProtocol.readValue(input);
+		String name = (String)BuildDaemonProtocol.readValue(input);
+		String version = (String)BuildDaemonProtocol.readValue(input);
+		String finalName = (String)BuildDaemonProtocol.readValue(input);
+		Path classesPath = ((Path)BuildDaemonProtocol.readValue(input)).toAbsolutePath().normalize();
+		Set<Dependency> dependencies = (Set<Dependency>)BuildDaemonProtocol.readValue(input);
+		return new BuildDaemonServer.DaemonProject(targetPath, workingPath, group, name, version, finalName, classesPath, dependencies);
+	}
+
+	/**
+	 * <p>
+	 * Reads the chain of tasks sent by the client and creates them from the specified project build session.
+	 * </p>
+	 *
+	 * <p>
+	 * Tasks are sent from the root task, each task is created from its parent task and configured by invoking the configuration methods recorded by the client. The result of each task is added to
+	 * the specified list along with the task index and the task result type.
+	 * </p>
+	 *
+	 * @param input   the input
+	 * @param session the project build session
+	 * @param results the list of task results
+	 *
+	 * @return the last task in the chain
+	 *
+	 * @throws IOException if there was an error reading tasks
+	 */
+	@SuppressWarnings("unchecked")
+	private Task<?, ?> readTasks(DataInputStream input, BuildSession session, List<Object[]> results) throws IOException {
+		int tasksCount = input.readInt();
+		Task<?, ?> task = null;
+		Class<?> parentTaskType = null;
+		for(int i=0;i<tasksCount;i++) {
+			Class<?> taskType = BuildDaemonProtocol.loadApiType(input.readUTF());
+			if(!Task.class.isAssignableFrom(taskType)) {
+				throw new IOException("Not a task: " + taskType.getName());
+			}
+			try {
+				if(task == null) {
+					if(taskType != ModularizeDependenciesTask.class) {
+						throw new IOException("Invalid root task: " + taskType.getName());
+					}
+					task = session.modularizeDependencies();
+				}
+				else {
+					task = (Task<?, ?>)parentTaskType.getMethod(input.readUTF()).invoke(task);
+				}
+				if(!taskType.isInstance(task)) {
+					throw new IOException("Invalid task: expected " + taskType.getName() + " but was " + task.getClass().getName());
+				}
+
+				int invocationsCount = input.readInt();
+				for(int j=0;j<invocationsCount;j++) {
+					String methodName = input.readUTF();
+					Class<?>[] parameterTypes = new Class<?>[input.readInt()];
+					for(int k=0;k<parameterTypes.length;k++) {
+						parameterTypes[k] = this.loadParameterType(input.readUTF());
+					}
+					Object[] args = new Object[parameterTypes.length];
+					for(int k=0;k<args.length;k++) {
+						args[k] = BuildDaemonProtocol.readValue(input);
+					}
+					taskType.getMethod(methodName, parameterTypes).invoke(task, args);
+				}
+			}
+			catch(NoSuchMethodException | IllegalAccessException e) {
+				throw new IOException("Invalid task configuration", e);
+			}
+			catch(InvocationTargetException e) {
+				throw new IOException("Invalid task configuration", e.getCause());
+			}
+
+			parentTaskType = taskType;
+			int taskIndex = i;
+			Type resultType = BuildDaemonProtocol.getTaskResultType(taskType);
+			((Task<Object, ?>)task).doOnComplete(result -> results.add(new Object[] { taskIndex, resultType, result }));
+		}
+		if(task == null) {
+			throw new IOException("No task to execute");
+		}
+		return task;
+	}
+
+	/**
+	 * <p>
+	 * Loads a task configuration method parameter type.
+	 * </p>
+	 *
+	 * @param name the type name
+	 *
+	 * @return the type
+	 *
+	 * @throws IOException if the type is not supported
+	 */
+	private Class<?> loadParameterType(String name) throws IOException {
+		switch(name) {
+			case "boolean": return boolean.class;
+			case "int": return int.class;
+			case "long": return long.class;
+			case "java.lang.String": return String.class;
+			case "java.nio.file.Path": return Path.class;
+			case "java.net.URI": return java.net.URI.class;
+			case "java.util.List": return List.class;
+			case "java.util.Set": return Set.class;
+			case "java.util.Map": return Map.class;
+			case "java.util.Optional": return Optional.class;
+			default: return BuildDaemonProtocol.loadApiType(name);
+		}
+	}
+
+	/**
+	 * <p>
+	 * A project sent by a build daemon client.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private static class DaemonProject extends Project {
+
+		private final String group;
+		private final String name;
+		private final String version;
+		private final String finalName;
+		private final Path classesPath;
+		private final Set<Dependency> dependencies;
+
+		/**
+		 * <p>
+		 * Creates a daemon project.
+		 * </p>
+		 *
+		 * @param targetPath   the target path
+		 * @param workingPath  the working path
+		 * @param group        the project group
+		 * @param name         the project name
+		 * @param version      the project version
+		 * @param finalName    the project final name
+		 * @param classesPath  the project classes path
+		 * @param dependencies the project dependencies
+		 */
+		public DaemonProject(Path targetPath, Path workingPath, String group, String name, String version, String finalName, Path classesPath, Set<Dependency> dependencies) {
+			super(targetPath, workingPath);
+			this.group = group;
+			this.name = name;
+			this.version = version;
+			this.finalName = finalName;
+			this.classesPath = classesPath;
+			this.dependencies = dependencies;
+		}
+
+		@Override
+		public String getGroup() {
+			return this.group;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public String getVersion() {
+			return this.version;
+		}
+
+		@Override
+		public String getFinalName() {
+			return this.finalName;
+		}
+
+		@Override
+		public Path getClassesPath() {
+			return this.classesPath;
+		}
+
+		@Override
+		public Set<? extends Dependency> getDependencies() {
+			return this.dependencies;
+		}
+
+		@Override
+		public String toString() {
+			return this.group + ":" + this.name + ":" + this.version + this.dependencies.stream().map(Dependency::getJarPath).map(Path::toString).collect(Collectors.joining(", ", " [", "]"));
+		}
+	}
+}
@@ -16,14 +16,10 @@
 package io.inverno.tool.buildtools.internal;
 
 import io.inverno.tool.buildtools.Dependency;
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.lang.module.ModuleDescriptor;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.jar.Attributes;
-import java.util.jar.JarFile;
-import java.util.zip.ZipFile;
+import java.util.Optional;
 
 /**
  * <p>
@@ -37,34 +33,24 @@ public class BuildDependency implements Dependency {
 
 	private final BuildProject project;
 	private final Dependency dependency;
-	private final ModuleDescriptor moduleDescriptor;
-	private final boolean named;
-	private final boolean marked;
+	private final DependencyIndex.Jar jar;
+	
+	private String fingerprint;
+	private Boolean marked;
 	
 	/**
 	 * <p>
 	 * Creates a build dependency.
 	 * </p>
 	 * 
-	 * @param project          the build project
-	 * @param dependency       the original project dependency
-	 * @param moduleDescriptor the dependency module descriptor
+	 * @param project    the build project
+	 * @param dependency the original project dependency
+	 * @param jar        the index of the dependency JAR
 	 */
-	public BuildDependency(BuildProject project, Dependency dependency, ModuleDescriptor moduleDescriptor) {
+	public BuildDependency(BuildProject project, Dependency dependency, DependencyIndex.Jar jar) {
 		this.dependency = dependency;
 		this.project = project;
-		this.moduleDescriptor = moduleDescriptor;
-		
-		try(JarFile jarFile = new JarFile(this.dependency.getJarPath().toFile(), true, ZipFile.OPEN_READ, Runtime.version())) {
-			// if the module is not "named" the name should be groupId.artifactId...
-			this.named = jarFile.getEntry("module-info.class") != null || (jarFile.getManifest() != null && jarFile.getManifest().getMainAttributes().containsKey(new Attributes.Name("Automatic-Module-Name")));
-			
-			Path jmodPath = this.getModulePath();
-			this.marked = !Files.exists(jmodPath) || Files.getLastModifiedTime(this.dependency.getJarPath()).compareTo(Files.getLastModifiedTime(jmodPath)) > 0;
-		}
-		catch(IOException e) {
-			throw new UncheckedIOException(e);
-		}
+		this.jar = jar;
 	}
 	
 	/**
@@ -98,6 +84,17 @@ public class BuildDependency implements Dependency {
 		return this.dependency.getJarPath();
 	}
 	
+	/**
+	 * <p>
+	 * Returns the index of the dependency JAR.
+	 * </p>
+	 * 
+	 * @return the JAR index
+	 */
+	public DependencyIndex.Jar getIndex() {
+		return this.jar;
+	}
+	
 	/**
 	 * <p>
 	 * Returns the module descriptor.
@@ -106,7 +103,7 @@ public class BuildDependency implements Dependency {
 	 * @return the module descriptor
 	 */
 	public ModuleDescriptor getModuleDescriptor() {
-		return this.moduleDescriptor;
+		return this.jar.getModuleDescriptor();
 	}
 	
 	/**
@@ -117,7 +114,8 @@ public class BuildDependency implements Dependency {
 	 * @return the module name
 	 */
 	public String getModuleName() {
-		if(this.named) {
+		// if the module is not "named" the name should be groupId.artifactId...
+		if(this.isNamed()) {
 			return this.getModuleDescriptor().name();
 		}
 		else {
@@ -166,7 +164,80 @@ public class BuildDependency implements Dependency {
 	 * @return true if the dependency is a named module, false otherwise
 	 */
 	public boolean isNamed() {
-		return this.named;
+		return this.jar.isNamed();
+	}
+	
+	/**
+	 * <p>
+	 * Returns the SHA-256 hash of the dependency JAR content.
+	 * </p>
+	 * 
+	 * @return the hash of the JAR content
+	 * 
+	 * @see DependencyIndex
+	 */
+	public String getContentHash() {
+		return this.jar.getHash();
+	}
+	
+	/**
+	 * <p>
+	 * Returns the fingerprint of the inputs used to modularize the dependency.
+	 * </p>
+	 * 
+	 * <p>
+	 * Unless specified explicitly by the modularize dependencies task, the fingerprint is computed from the JAR content and the JDK feature version.
+	 * </p>
+	 * 
+	 * @return the dependency fingerprint
+	 */
+	public synchronized String getFingerprint() {
+		if(this.fingerprint == null) {
+			this.fingerprint = new Fingerprint()
+				.add(this.getContentHash())
+				.add(Integer.toString(Runtime.version().feature()))
+				.get();
+		}
+		return this.fingerprint;
+	}
+	
+	/**
+	 * <p>
+	 * Sets the fingerprint of the inputs used to modularize the dependency.
+	 * </p>
+	 * 
+	 * <p>
+	 * This must be invoked before {@link #isMarked() } is invoked for the first time.
+	 * </p>
+	 * 
+	 * @param fingerprint the dependency fingerprint
+	 */
+	synchronized void setFingerprint(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+	
+	/**
+	 * <p>
+	 * Records the dependency fingerprint in the project fingerprint store.
+	 * </p>
+	 * 
+	 * <p>
+	 * This must be invoked once the dependency has been successfully modularized.
+	 * </p>
+	 */
+	void storeFingerprint() {
+		this.project.getFingerprintStore().put("dependency." + this.getModuleName(), this.getFingerprint());
+	}
+	
+	/**
+	 * <p>
+	 * Returns the dependency fingerprint recorded in the project fingerprint store after the last modularization.
+	 * </p>
+	 * 
+	 * @return an optional returning the stored fingerprint or an empty optional if the dependency was never modularized
+	 */
+	Optional<String> getStoredFingerprint() {
+		return this.project.getFingerprintStore().get("dependency." + this.getModuleName());
 	}
 	
 	/**
@@ -174,9 +245,16 @@ public class BuildDependency implements Dependency {
 	 * Determines whether the dependency has changed since last build.
 	 * </p>
 	 * 
+	 * <p>
+	 * A dependency is marked when its modular JAR doesn't exist or when its fingerprint differs from the one recorded in the project fingerprint store after the last modularization.
+	 * </p>
+	 * 
 	 * @return true if the dependency changed, false otherwise
 	 */
-	public boolean isMarked() {
+	public synchronized boolean isMarked() {
+		if(this.marked == null) {
+			this.marked = !Files.exists(this.getModulePath()) || !this.getFingerprint().equals(this.getStoredFingerprint().orElse(null));
+		}
 		return this.marked;
 	}
 
@@ -19,20 +19,23 @@ import io.inverno.tool.buildtools.Dependency;
 import io.inverno.tool.buildtools.Project;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.lang.module.Configuration;
+import java.lang.module.FindException;
 import java.lang.module.ModuleDescriptor;
 import java.lang.module.ModuleFinder;
-import java.lang.module.ModuleReference;
-import java.lang.reflect.Method;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.lang.module.ResolutionException;
+import java.lang.module.ResolvedModule;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.FileTime;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -42,6 +45,16 @@ import java.util.stream.Stream;
  * Wraps the {@link Project} for processing within {@link Task} implementations.
  * </p>
  *
+ * <p>
+ * A build project is shared by all the tasks executed in a build which might be executed concurrently in a {@link io.inverno.tool.buildtools.TaskGraph}, lazily resolved properties are therefore
+ * synchronized.
+ * </p>
+ *
+ * <p>
+ * A build project is created for each build, when the project is a {@link GenericBuildSession}, the dependency index and the main classes resolved by the previous build of the session are reused
+ * as long as the project dependencies and classes are unchanged.
+ * </p>
+ *
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.4
  */
@@ -49,10 +62,21 @@ public class BuildProject extends Project {
 
 	private final Project project;
 	
+	private final FingerprintStore fingerprintStore;
+	
 	private ModuleDescriptor moduleDescriptor;
 	private Set<String> mainClasses;
 	private Optional<String> defaultMainClass;
 	private Set<BuildDependency> buildDependencies;
+	private DependencyIndex dependencyIndex;
+	private DirectorySnapshot classesSnapshot;
+	private Boolean marked;
+	private String mainClassesFingerprint;
+	private Set<String> requiredJdkModules;
+	private volatile Optional<BuildCache> buildCache = Optional.empty();
+	private volatile Optional<ToolThrottle> toolThrottle = Optional.empty();
+	
+	private final BuildProject.ResolvedState previousState;
 
 	/**
 	 * <p>
@@ -62,8 +86,38 @@ public class BuildProject extends Project {
 	 * @param project the original project
 	 */
 	public BuildProject(Project project) {
+		this(project, null);
+	}
+	
+	/**
+	 * <p>
+	 * Creates a build project reusing the state resolved by a previous build of the same project.
+	 * </p>
+	 * 
+	 * @param project       the original project
+	 * @param previousState the state resolved by the previous build or null
+	 */
+	BuildProject(Project project, BuildProject.ResolvedState previousState) {
 		super(project.getTargetPath(), project.getWorkingPath());
 		this.project = project;
+		this.fingerprintStore = new FingerprintStore(this.getWorkingPath().resolve("fingerprints.properties").toAbsolutePath());
+		this.previousState = previousState;
+	}
+	
+	/**
+	 * <p>
+	 * Returns the build project to use to build the specified project.
+	 * </p>
+	 * 
+	 * @param project the project to build
+	 * 
+	 * @return a new build project
+	 */
+	public static BuildProject of(Project project) {
+		if(project instanceof GenericBuildSession) {
+			return ((GenericBuildSession)project).newBuildProject();
+		}
+		return new BuildProject(project);
 	}
 	
 	/**
@@ -98,19 +152,37 @@ public class BuildProject extends Project {
 	}
 
 	@Override
-	public Set<BuildDependency> getDependencies() {
+	public synchronized Set<BuildDependency> getDependencies() {
 		if(this.buildDependencies == null) {
-			Set<? extends Dependency> dependencies = this.project.getDependencies();
-			ModuleFinder moduleFinder = ModuleFinder.of(dependencies.stream().map(Dependency::getJarPath).toArray(Path[]::new));
-			Map<Path, ModuleDescriptor> modulesByDependencyJarPath = moduleFinder.findAll().stream().collect(Collectors.toMap(moduleRef -> Path.of(moduleRef.location().get()), ModuleReference::descriptor));
-			
-			this.buildDependencies = dependencies.stream()
-				.map(dependency -> new BuildDependency(this, dependency, modulesByDependencyJarPath.get(dependency.getJarPath())))
+			DependencyIndex index = this.getDependencyIndex();
+			this.buildDependencies = this.project.getDependencies().stream()
+				.map(dependency -> new BuildDependency(this, dependency, index.get(dependency.getJarPath())))
 				.collect(Collectors.toSet());
 		}
 		return this.buildDependencies;
 	}
 	
+	/**
+	 * <p>
+	 * Returns the index of the project dependencies.
+	 * </p>
+	 * 
+	 * <p>
+	 * The index is built once per build and persisted in the project working directory, it should be used to resolve dependencies content instead of opening dependency JARs.
+	 * </p>
+	 * 
+	 * @return the dependency index
+	 */
+	public synchronized DependencyIndex getDependencyIndex() {
+		if(this.dependencyIndex == null && this.previousState != null && this.previousState.dependencyIndex != null && this.previousState.dependencyIndex.isUpToDate(this.project.getDependencies().stream().map(Dependency::getJarPath).collect(Collectors.toList()))) {
+			this.dependencyIndex = this.previousState.dependencyIndex;
+		}
+		if(this.dependencyIndex == null) {
+			this.dependencyIndex = new DependencyIndex(this.getWorkingPath().resolve("index").toAbsolutePath(), this.fingerprintStore, this.project.getDependencies().stream().map(Dependency::getJarPath).collect(Collectors.toList()));
+		}
+		return this.dependencyIndex;
+	}
+	
 	@Override
 	public Path getWorkingPath() {
 		return this.project.getWorkingPath();
@@ -125,6 +197,11 @@ public class BuildProject extends Project {
 	public String getFinalName() {
 		return this.project.getFinalName();
 	}
+
+	@Override
+	public boolean isDisplayProgressBar() {
+		return this.project.isDisplayProgressBar();
+	}
 	
 	/**
 	 * <p>
@@ -133,7 +210,7 @@ public class BuildProject extends Project {
 	 * 
 	 * @return the module descriptor
 	 */
-	public ModuleDescriptor getModuleDescriptor() {
+	public synchronized ModuleDescriptor getModuleDescriptor() {
 		if(this.moduleDescriptor == null) {
 			this.moduleDescriptor = ModuleFinder.of(this.getClassesPath()).findAll().stream().findFirst().get().descriptor();
 		}
@@ -173,31 +250,178 @@ public class BuildProject extends Project {
 		return this.getModulesPath().resolve(this.getModuleName() + "-" + this.getModuleVersion() + ".jmod");
 	}
 	
+	/**
+	 * <p>
+	 * Returns the snapshot of the project classes directory.
+	 * </p>
+	 * 
+	 * <p>
+	 * The snapshot is taken once per build project, it should be used to determine whether project classes changed instead of traversing the classes directory.
+	 * </p>
+	 * 
+	 * @return the classes snapshot
+	 * 
+	 * @throws UncheckedIOException if there was an error traversing the classes directory
+	 */
+	public synchronized DirectorySnapshot getClassesSnapshot() throws UncheckedIOException {
+		if(this.classesSnapshot == null) {
+			try {
+				this.classesSnapshot = DirectorySnapshot.scan(this.getClassesPath());
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return this.classesSnapshot;
+	}
+	
+	/**
+	 * <p>
+	 * Returns the path to the snapshot of the project classes persisted when the project JMOD is created.
+	 * </p>
+	 * 
+	 * @return the path to the persisted classes snapshot
+	 */
+	private Path getClassesSnapshotPath() {
+		return this.getWorkingPath().resolve("classes.snapshot").toAbsolutePath();
+	}
+	
+	/**
+	 * <p>
+	 * Returns the stamp identifying the project JMOD.
+	 * </p>
+	 * 
+	 * @return the project JMOD stamp
+	 * 
+	 * @throws IOException if there was an error reading the JMOD attributes
+	 */
+	private String getModuleStamp() throws IOException {
+		Path jmodPath = this.getModulePath();
+		return jmodPath.getFileName() + ":" + Files.size(jmodPath) + ":" + Files.getLastModifiedTime(jmodPath).toMillis();
+	}
+	
+	/**
+	 * <p>
+	 * Records the snapshot of the project classes the project JMOD was created from.
+	 * </p>
+	 * 
+	 * <p>
+	 * This must be invoked once the project JMOD has been successfully created.
+	 * </p>
+	 * 
+	 * @throws IOException if there was an error persisting the snapshot
+	 */
+	void storeClassesSnapshot() throws IOException {
+		this.getClassesSnapshot().save(this.getClassesSnapshotPath(), this.getModuleStamp());
+	}
+	
 	/**
 	 * <p>
 	 * Determines whether the project has changed since last build.
 	 * </p>
 	 * 
+	 * <p>
+	 * The project is marked when its JMOD doesn't exist or when the project classes changed since it was created, which is determined by comparing the classes snapshot with the one recorded
+	 * when the JMOD was created. The result is computed once per build project.
+	 * </p>
+	 * 
 	 * @return true if the project changed, false otherwise
 	 */
-	public boolean isMarked() {
-		Path jmodPath = this.getModulePath();
-		if(!Files.exists(jmodPath)) {
-			return true;
-		}
-		Path classesDirectory = this.getClassesPath();
-		try(Stream<Path> walk = Files.walk(classesDirectory)) {
-			FileTime jmodLastModified = Files.getLastModifiedTime(jmodPath);
-			for(Iterator<Path> pathIterator = walk.iterator(); pathIterator.hasNext();) {
-				if(Files.getLastModifiedTime(pathIterator.next()).compareTo(jmodLastModified) > 0) {
-					return true;
+	public synchronized boolean isMarked() {
+		if(this.marked == null) {
+			if(!Files.exists(this.getModulePath())) {
+				this.marked = true;
+			}
+			else {
+				try {
+					String moduleStamp = this.getModuleStamp();
+					DirectorySnapshot classesSnapshot = this.getClassesSnapshot();
+					Optional<DirectorySnapshot> previousClassesSnapshot = DirectorySnapshot.load(this.getClassesPath(), this.getClassesSnapshotPath(), moduleStamp);
+					if(previousClassesSnapshot.isPresent()) {
+						this.marked = classesSnapshot.hasChanged(previousClassesSnapshot.get());
+						if(!this.marked && !classesSnapshot.getFingerprint().equals(previousClassesSnapshot.get().getFingerprint())) {
+							// classes were regenerated with the same content: record the new attributes to avoid hashing them again
+							classesSnapshot.save(this.getClassesSnapshotPath(), moduleStamp);
+						}
+					}
+					else {
+						// no snapshot was recorded when the JMOD was created, it can't be trusted
+						this.marked = true;
+					}
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
 				}
 			}
-		} 
-		catch (IOException e) {
-			throw new UncheckedIOException(e);
 		}
-		return false;
+		return this.marked;
+	}
+	
+	/**
+	 * <p>
+	 * Returns the project fingerprint store.
+	 * </p>
+	 * 
+	 * <p>
+	 * The store is persisted in the project working directory, it records the fingerprints of the inputs used to generate build outputs in order to determine whether they are up to date.
+	 * </p>
+	 * 
+	 * @return the fingerprint store
+	 */
+	public FingerprintStore getFingerprintStore() {
+		return this.fingerprintStore;
+	}
+	
+	/**
+	 * <p>
+	 * Returns the build cache where task outputs are stored and restored from.
+	 * </p>
+	 * 
+	 * @return an optional returning the build cache or an empty optional if no build cache was specified
+	 */
+	public Optional<BuildCache> getBuildCache() {
+		return this.buildCache;
+	}
+	
+	/**
+	 * <p>
+	 * Sets the build cache where task outputs are stored and restored from.
+	 * </p>
+	 * 
+	 * @param buildCache a build cache or null
+	 */
+	void setBuildCache(BuildCache buildCache) {
+		this.buildCache = Optional.ofNullable(buildCache);
+	}
+	
+	/**
+	 * <p>
+	 * Sets the throttle limiting the number of heavyweight tools run concurrently on the host.
+	 * </p>
+	 * 
+	 * @param toolThrottle a tool throttle or null
+	 */
+	void setToolThrottle(ToolThrottle toolThrottle) {
+		this.toolThrottle = Optional.ofNullable(toolThrottle);
+	}
+	
+	/**
+	 * <p>
+	 * Acquires a permit to run the specified tool.
+	 * </p>
+	 * 
+	 * <p>
+	 * This method blocks until a permit is available when a tool throttle was specified, it returns immediately otherwise.
+	 * </p>
+	 * 
+	 * @param tool the tool to run
+	 * 
+	 * @return a permit that must be closed once the tool completes
+	 * 
+	 * @throws CancellationException if the current thread was interrupted while waiting for a permit
+	 */
+	public ToolThrottle.Permit acquireToolPermit(String tool) throws CancellationException {
+		return this.toolThrottle.map(throttle -> throttle.acquire(tool)).orElse(ToolThrottle.noPermit());
 	}
 	
 	/**
@@ -267,48 +491,120 @@ public class BuildProject extends Project {
 	 * Resolves the main classes defined in the project module.
 	 * </p>
 	 *
-	 * @return a set of classes or an empty set if the module doesn't define any main class.
+	 * <p>
+	 * Main classes are resolved by parsing the module class files, the result is cached in the project working directory along with the fingerprint of the module classes and the project
+	 * dependencies so that subsequent builds don't have to resolve them again as long as the module and its dependencies are unchanged. Within a build session, main classes resolved by the
+	 * previous build are reused without reading the cache.
+	 * </p>
+	 *
+	 * @return a sorted set of classes or an empty set if the module doesn't define any main class.
 	 *
-	 * @throws IOException            if there was an error reading a module classes
-	 * @throws ClassNotFoundException if a class was not found when trying to load a module classes
+	 * @throws IOException if there was an error reading a module classes
 	 */
-	public Set<String> getMainClasses() throws IOException, ClassNotFoundException {
+	public synchronized Set<String> getMainClasses() throws IOException {
 		if(this.mainClasses == null) {
-			this.mainClasses = new HashSet<>();
 			Path moduleClassesPath = this.getClassesPath();
 			
-			Set<URL> urls = new HashSet<>();
-			for(Dependency d : this.getDependencies()) {
-				urls.add(d.getJarPath().toUri().toURL());
+			// The fingerprint is computed from file attributes, class files content is only read when main classes must be resolved
+			Fingerprint classesFingerprint = new Fingerprint().add(this.getClassesSnapshot().getFingerprint());
+			for(Path jarPath : this.project.getDependencies().stream().map(Dependency::getJarPath).map(Path::toAbsolutePath).sorted().collect(Collectors.toList())) {
+				classesFingerprint.add(jarPath.toString()).add(Files.size(jarPath) + ":" + Files.getLastModifiedTime(jarPath).toMillis());
+			}
+			String fingerprint = classesFingerprint.get();
+			
+			if(this.previousState != null && fingerprint.equals(this.previousState.mainClassesFingerprint)) {
+				this.mainClasses = this.previousState.mainClasses;
 			}
-			urls.add(moduleClassesPath.toUri().toURL());
-			try(Stream<Path> walk = Files.walk(moduleClassesPath);URLClassLoader classLoader = new URLClassLoader(urls.stream().toArray(URL[]::new));) {
-				Iterator<Path> pathsIterator = walk.filter(path -> {
-					String fileName = path.getFileName().toString();
-					return fileName.endsWith(".class") && !fileName.equals("module-info.class");
-				}).iterator();
+			
+			Path mainClassesPath = this.getWorkingPath().resolve("main-classes").toAbsolutePath();
+			if(this.mainClasses == null && Files.exists(mainClassesPath)) {
+				List<String> lines = Files.readAllLines(mainClassesPath);
+				if(!lines.isEmpty() && lines.getFirst().equals(fingerprint)) {
+					this.mainClasses = Collections.unmodifiableSet(new TreeSet<>(lines.subList(1, lines.size())));
+				}
+			}
+			
+			if(this.mainClasses == null) {
+				this.mainClasses = new MainClassResolver(moduleClassesPath, this.getDependencyIndex()).resolve();
 				
-				while(pathsIterator.hasNext()) {
-					String className = moduleClassesPath.relativize(pathsIterator.next()).toString();
-					className = className.replace(java.io.File.separatorChar, '.').substring(0, className.length() - 6);
-					Class<?> cl = classLoader.loadClass(className);
-					try {
-						Method m = cl.getMethod("main", String[].class);
-						if(m.getReturnType().equals(void.class)) {
-							this.mainClasses.add(className);
-						}
-					} 
-					catch (NoSuchMethodException | NoClassDefFoundError e) {
-						// an error can occur if the method doesn't exist OR if there's a return type
-						// that could not be found (NoClassDefFoundError)
-						continue;
-					}
+				Files.createDirectories(mainClassesPath.getParent());
+				Path tmpMainClassesPath = Files.createTempFile(mainClassesPath.getParent(), "main-classes.", ".tmp");
+				try {
+					Files.write(tmpMainClassesPath, Stream.concat(Stream.of(fingerprint), this.mainClasses.stream()).collect(Collectors.toList()));
+					Files.move(tmpMainClassesPath, mainClassesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+				finally {
+					Files.deleteIfExists(tmpMainClassesPath);
 				}
 			}
+			this.mainClassesFingerprint = fingerprint;
 		}
 		return this.mainClasses;
 	}
 	
+	/**
+	 * <p>
+	 * Resolves the JDK's modules transitively required by the project module and its dependencies.
+	 * </p>
+	 *
+	 * <p>
+	 * Modules are resolved from the project module classes and the modularized dependencies which must then have been created. Service providers are not bound, only the modules statically required
+	 * are returned. The result is cached in the project working directory along with the fingerprint of the JDK, the project module descriptor and the stored fingerprints of the modularized
+	 * dependencies so that subsequent builds don't have to resolve them again as long as they are unchanged.
+	 * </p>
+	 *
+	 * @return a sorted set of JDK's modules
+	 *
+	 * @throws IOException         if there was an error reading the modules
+	 * @throws FindException       if a module could not be found
+	 * @throws ResolutionException if modules could not be resolved
+	 */
+	public synchronized Set<String> getRequiredJdkModules() throws IOException, FindException, ResolutionException {
+		if(this.requiredJdkModules == null) {
+			Path moduleInfoPath = this.getClassesPath().resolve("module-info.class");
+			Fingerprint modulesFingerprint = new Fingerprint()
+				.add(System.getProperty("java.home"))
+				.add(Runtime.version().toString())
+				.add(moduleInfoPath);
+			// Modular JARs are rewritten by every modularization, they are identified by the fingerprint of the inputs they were created from
+			for(BuildDependency dependency : this.getDependencies().stream().sorted(Comparator.comparing(BuildDependency::getModuleName)).collect(Collectors.toList())) {
+				modulesFingerprint.add(dependency.getModuleName()).add(dependency.getStoredFingerprint().orElseGet(dependency::getFingerprint));
+			}
+			String fingerprint = modulesFingerprint.get();
+			
+			Path requiredJdkModulesPath = this.getWorkingPath().resolve("jdk-modules").toAbsolutePath();
+			if(Files.exists(requiredJdkModulesPath)) {
+				List<String> lines = Files.readAllLines(requiredJdkModulesPath);
+				if(!lines.isEmpty() && lines.getFirst().equals(fingerprint)) {
+					this.requiredJdkModules = Collections.unmodifiableSet(new TreeSet<>(lines.subList(1, lines.size())));
+				}
+			}
+			
+			if(this.requiredJdkModules == null) {
+				ModuleFinder systemModuleFinder = ModuleFinder.ofSystem();
+				ModuleFinder applicationModuleFinder = ModuleFinder.of(Stream.concat(this.getDependencies().stream().map(BuildDependency::getModulePath), Stream.of(this.getClassesPath())).toArray(Path[]::new));
+				Set<String> roots = Stream.concat(this.getDependencies().stream().map(BuildDependency::getModuleName), Stream.of(this.getModuleName())).collect(Collectors.toSet());
+				
+				Set<String> resolvedJdkModules = Configuration.empty().resolve(systemModuleFinder, applicationModuleFinder, roots).modules().stream()
+					.map(ResolvedModule::name)
+					.filter(name -> systemModuleFinder.find(name).isPresent())
+					.collect(Collectors.toCollection(TreeSet::new));
+				this.requiredJdkModules = Collections.unmodifiableSet(resolvedJdkModules);
+				
+				Files.createDirectories(requiredJdkModulesPath.getParent());
+				Path tmpRequiredJdkModulesPath = Files.createTempFile(requiredJdkModulesPath.getParent(), "jdk-modules.", ".tmp");
+				try {
+					Files.write(tmpRequiredJdkModulesPath, Stream.concat(Stream.of(fingerprint), this.requiredJdkModules.stream()).collect(Collectors.toList()));
+					Files.move(tmpRequiredJdkModulesPath, requiredJdkModulesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+				finally {
+					Files.deleteIfExists(tmpRequiredJdkModulesPath);
+				}
+			}
+		}
+		return this.requiredJdkModules;
+	}
+	
 	/**
 	 * <p>
 	 * Returns the default main class of the project module.
@@ -320,10 +616,9 @@ public class BuildProject extends Project {
 	 *
 	 * @return an optional returning a main class or an empty optional if the doesn't define any main class.
 	 *
-	 * @throws IOException            if there was an error reading a module classes
-	 * @throws ClassNotFoundException if a class was not found when trying to load a module classes
+	 * @throws IOException if there was an error reading a module classes
 	 */
-	public Optional<String> getDefaultMainClass() throws ClassNotFoundException, IOException {
+	public synchronized Optional<String> getDefaultMainClass() throws IOException {
 		if(this.defaultMainClass == null) {
 			this.defaultMainClass = Optional.of(this.getMainClasses()).filter(classes -> !classes.isEmpty()).map(classes -> classes.iterator().next());
 		}
@@ -337,11 +632,10 @@ public class BuildProject extends Project {
 	 * 
 	 * @param defaultMainClass the default main class within the project module
 	 * 
-	 * @throws ClassNotFoundException   if a class was not found when trying to load a module classes
 	 * @throws IOException              if there was an error reading a module classes
 	 * @throws IllegalArgumentException if the specified class is defined in the project module
 	 */
-	void setDefaultMainClass(String defaultMainClass) throws ClassNotFoundException, IOException, IllegalArgumentException {
+	synchronized void setDefaultMainClass(String defaultMainClass) throws IOException, IllegalArgumentException {
 		if(!this.getMainClasses().contains(defaultMainClass)) {
 			throw new IllegalArgumentException(defaultMainClass + " is not defined in project module " + this.getModuleName());
 		}
@@ -359,8 +653,58 @@ public class BuildProject extends Project {
 		return this.getWorkingPath().resolve(this.getName()+ ".pid");
 	}
 
+	/**
+	 * <p>
+	 * Returns the state resolved by this build project that can be reused by a subsequent build of the same project.
+	 * </p>
+	 * 
+	 * <p>
+	 * The state resolved by the previous build is returned when it hasn't been resolved by this build.
+	 * </p>
+	 * 
+	 * @return the resolved state
+	 */
+	synchronized BuildProject.ResolvedState getResolvedState() {
+		BuildProject.ResolvedState state = new BuildProject.ResolvedState();
+		if(this.dependencyIndex != null) {
+			state.dependencyIndex = this.dependencyIndex;
+		}
+		else if(this.previousState != null) {
+			state.dependencyIndex = this.previousState.dependencyIndex;
+		}
+		if(this.mainClasses != null && this.mainClassesFingerprint != null) {
+			state.mainClassesFingerprint = this.mainClassesFingerprint;
+			state.mainClasses = this.mainClasses;
+		}
+		else if(this.previousState != null) {
+			state.mainClassesFingerprint = this.previousState.mainClassesFingerprint;
+			state.mainClasses = this.previousState.mainClasses;
+		}
+		return state;
+	}
+
 	@Override
 	public String toString() {
 		return this.getModuleName() + "@" + this.getModuleVersion();
 	}
+	
+	/**
+	 * <p>
+	 * The project state resolved by a build which can be reused by subsequent builds.
+	 * </p>
+	 * 
+	 * <p>
+	 * Main classes are only valid for the project classes and dependencies they were resolved from which are identified by their fingerprint.
+	 * </p>
+	 * 
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	static final class ResolvedState {
+		
+		private DependencyIndex dependencyIndex;
+		
+		private String mainClassesFingerprint;
+		private Set<String> mainClasses;
+	}
 }
@@ -0,0 +1,665 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.ModuleInfo;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * A bytecode analyzer that generates the module descriptor of a dependency JAR.
+ * </p>
+ *
+ * <p>
+ * This is a lightweight alternative to {@code jdeps --generate-module-info}: the class files of the JAR are parsed to determine the classes they reference, which are then mapped to their owning
+ * modules using the module finder provided on creation. The resulting module descriptor:
+ * </p>
+ *
+ * <ul>
+ * <li>requires the modules owning referenced classes, transitively when they are referenced in the API of the JAR (i.e. public types and their public or protected members),</li>
+ * <li>exports all the packages of the JAR,</li>
+ * <li>provides the services declared in {@code META-INF/services}.</li>
+ * </ul>
+ *
+ * <p>
+ * Like {@code jdeps --ignore-missing-deps}, references to classes that can't be found are ignored. Multi-release JARs are analyzed for the current JDK version.
+ * </p>
+ *
+ * <p>
+ * A dependency analyzer is immutable and can be used concurrently.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class DependencyAnalyzer {
+
+	private static final int RELEASE = Runtime.version().feature();
+
+	private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+	private static final String SERVICES_PREFIX = "META-INF/services/";
+
+	private static final String JAVA_BASE = "java.base";
+
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_PROTECTED = 0x0004;
+	private static final int ACC_MODULE = 0x8000;
+
+	private final Map<String, String> systemModuleNamesByPackage;
+
+	private final Map<String, String> moduleNamesByClass;
+
+	/**
+	 * <p>
+	 * Creates a dependency analyzer.
+	 * </p>
+	 *
+	 * <p>
+	 * All the modules that can be found by the specified module finder are loaded on creation, this can be costly and an analyzer should then be reused for all the dependencies sharing the same
+	 * module path.
+	 * </p>
+	 *
+	 * <p>
+	 * Like {@code jdeps}, referenced classes are resolved at class level: a reference to a class that can't be found is ignored even if its package exists in another module. System modules, which
+	 * can't have split packages, are resolved at package level.
+	 * </p>
+	 *
+	 * @param moduleFinder the finder used to resolve the modules owning referenced classes
+	 *
+	 * @throws java.lang.module.FindException if an error occurs finding modules
+	 * @throws IOException                    if there was an error listing the classes of a module
+	 */
+	public DependencyAnalyzer(ModuleFinder moduleFinder) throws IOException {
+		this(moduleFinder, Map.of());
+	}
+
+	/**
+	 * <p>
+	 * Creates a dependency analyzer using known module classes.
+	 * </p>
+	 *
+	 * <p>
+	 * The classes of the modules found by the specified module finder are only listed when they are not specified in the classes by module name map, this allows to reuse a {@link DependencyIndex}
+	 * instead of opening the module JARs.
+	 * </p>
+	 *
+	 * @param moduleFinder        the finder used to resolve the modules owning referenced classes
+	 * @param classesByModuleName the binary names in internal form of the classes defined in modules by module name
+	 *
+	 * @throws java.lang.module.FindException if an error occurs finding modules
+	 * @throws IOException                    if there was an error listing the classes of a module
+	 */
+	public DependencyAnalyzer(ModuleFinder moduleFinder, Map<String, ? extends Collection<String>> classesByModuleName) throws IOException {
+		Map<String, String> systemModulesByPackage = new HashMap<>();
+		Map<String, String> modulesByClass = new HashMap<>();
+		for(ModuleReference moduleReference : moduleFinder.findAll()) {
+			String moduleName = moduleReference.descriptor().name();
+			if(moduleReference.location().filter(location -> "jrt".equals(location.getScheme())).isPresent()) {
+				for(String packageName : moduleReference.descriptor().packages()) {
+					systemModulesByPackage.putIfAbsent(packageName, moduleName);
+				}
+			}
+			else if(classesByModuleName.containsKey(moduleName)) {
+				for(String className : classesByModuleName.get(moduleName)) {
+					modulesByClass.putIfAbsent(className, moduleName);
+				}
+			}
+			else {
+				try(ModuleReader moduleReader = moduleReference.open(); Stream<String> resources = moduleReader.list()) {
+					resources.filter(resource -> resource.endsWith(".class")).forEach(resource -> {
+						if(resource.startsWith(VERSIONS_PREFIX)) {
+							int versionEnd = resource.indexOf('/', VERSIONS_PREFIX.length());
+							if(versionEnd < 0) {
+								return;
+							}
+							resource = resource.substring(versionEnd + 1);
+						}
+						modulesByClass.putIfAbsent(resource.substring(0, resource.length() - 6), moduleName);
+					});
+				}
+			}
+		}
+		this.systemModuleNamesByPackage = Collections.unmodifiableMap(systemModulesByPackage);
+		this.moduleNamesByClass = Collections.unmodifiableMap(modulesByClass);
+	}
+
+	/**
+	 * <p>
+	 * Analyzes the specified JAR and generates its module descriptor.
+	 * </p>
+	 *
+	 * @param moduleName       the name of the module
+	 * @param jarPath          the path to the JAR
+	 * @param excludedServices the names of the service entries to ignore (e.g. {@code META-INF/services/my.Service})
+	 *
+	 * @return a module info
+	 *
+	 * @throws IOException              if there was an error reading the JAR
+	 * @throws IllegalArgumentException if the JAR contains invalid class files
+	 */
+	public ModuleInfo analyze(String moduleName, Path jarPath, Set<String> excludedServices) throws IOException, IllegalArgumentException {
+		Set<String> packages = new TreeSet<>();
+		Set<String> classes = new HashSet<>();
+		Set<String> referencedTypes = new LinkedHashSet<>();
+		Set<String> apiTypes = new LinkedHashSet<>();
+		Map<String, List<String>> providers = new TreeMap<>();
+
+		try(JarFile jarFile = new JarFile(jarPath.toFile(), false)) {
+			// Resolve the class entries to analyze, the highest versioned entry supported by the current JDK overrides the base entry
+			Map<String, JarEntry> classEntries = new HashMap<>();
+			Map<String, Integer> classVersions = new HashMap<>();
+			for(Iterator<JarEntry> entriesIterator = jarFile.entries().asIterator(); entriesIterator.hasNext();) {
+				JarEntry entry = entriesIterator.next();
+				String entryName = entry.getName();
+				if(entry.isDirectory()) {
+					continue;
+				}
+				if(entryName.startsWith(VERSIONS_PREFIX)) {
+					int versionEnd = entryName.indexOf('/', VERSIONS_PREFIX.length());
+					if(versionEnd > 0 && entryName.endsWith(".class")) {
+						try {
+							int version = Integer.parseInt(entryName.substring(VERSIONS_PREFIX.length(), versionEnd));
+							String className = entryName.substring(versionEnd + 1);
+							if(version <= RELEASE && version > classVersions.getOrDefault(className, 0)) {
+								classEntries.put(className, entry);
+								classVersions.put(className, version);
+							}
+						}
+						catch(NumberFormatException e) {
+							// not a versioned entry
+						}
+					}
+				}
+				else if(entryName.startsWith(SERVICES_PREFIX)) {
+					if(entryName.indexOf('/', SERVICES_PREFIX.length()) == -1 && !excludedServices.contains(entryName)) {
+						List<String> serviceProviders = this.readServiceProviders(jarFile.getInputStream(entry));
+						if(!serviceProviders.isEmpty()) {
+							providers.put(entryName.substring(SERVICES_PREFIX.length()), serviceProviders);
+						}
+					}
+				}
+				else if(entryName.endsWith(".class") && !entryName.startsWith("META-INF/")) {
+					classEntries.putIfAbsent(entryName, entry);
+				}
+			}
+
+			for(Map.Entry<String, JarEntry> classEntry : classEntries.entrySet()) {
+				int packageEnd = classEntry.getKey().lastIndexOf('/');
+				if(packageEnd < 0 || classEntry.getKey().endsWith("module-info.class")) {
+					// classes in the unnamed package can't be part of a module
+					continue;
+				}
+				byte[] classFile;
+				try(InputStream classInput = jarFile.getInputStream(classEntry.getValue())) {
+					classFile = classInput.readAllBytes();
+				}
+				if(this.analyzeClass(classFile, referencedTypes, apiTypes)) {
+					classes.add(classEntry.getKey().substring(0, classEntry.getKey().length() - 6));
+					packages.add(classEntry.getKey().substring(0, packageEnd).replace('/', '.'));
+				}
+			}
+		}
+
+		Set<String> requires = new TreeSet<>();
+		for(String referencedType : referencedTypes) {
+			if(!classes.contains(referencedType)) {
+				this.getModuleName(referencedType).filter(requiredModuleName -> !requiredModuleName.equals(moduleName) && !requiredModuleName.equals(JAVA_BASE)).ifPresent(requires::add);
+			}
+		}
+		Set<String> transitiveRequires = new TreeSet<>();
+		for(String apiType : apiTypes) {
+			if(!classes.contains(apiType)) {
+				this.getModuleName(apiType).filter(requires::contains).ifPresent(transitiveRequires::add);
+			}
+		}
+		requires.removeAll(transitiveRequires);
+
+		List<ModuleInfo.RequiresDirective> requiresDirectives = new ArrayList<>();
+		requires.forEach(requiredModuleName -> requiresDirectives.add(new ModuleInfo.RequiresDirective(requiredModuleName, false, false)));
+		transitiveRequires.forEach(requiredModuleName -> requiresDirectives.add(new ModuleInfo.RequiresDirective(requiredModuleName, false, true)));
+
+		return new ModuleInfo(
+			moduleName,
+			false,
+			null,
+			requiresDirectives,
+			packages.stream().map(packageName -> new ModuleInfo.ExportsDirective(packageName, null)).collect(Collectors.toList()),
+			null,
+			null,
+			providers.entrySet().stream()
+				.map(provider -> new ModuleInfo.ProvidesDirective(provider.getKey().replace('$', '.'), provider.getValue().stream().map(type -> type.replace('$', '.')).collect(Collectors.toList())))
+				.collect(Collectors.toList())
+		);
+	}
+
+	/**
+	 * <p>
+	 * Reads the service providers declared in a service entry.
+	 * </p>
+	 *
+	 * @param serviceInput the service entry input stream
+	 *
+	 * @return the list of service providers
+	 *
+	 * @throws IOException if there was an error reading the service entry
+	 */
+	private List<String> readServiceProviders(InputStream serviceInput) throws IOException {
+		List<String> serviceProviders = new ArrayList<>();
+		try(serviceInput) {
+			for(String line : new String(serviceInput.readAllBytes(), StandardCharsets.UTF_8).split("\\R")) {
+				int commentIndex = line.indexOf('#');
+				String provider = (commentIndex >= 0 ? line.substring(0, commentIndex) : line).trim();
+				if(!provider.isEmpty() && !serviceProviders.contains(provider)) {
+					serviceProviders.add(provider);
+				}
+			}
+		}
+		return serviceProviders;
+	}
+
+	/**
+	 * <p>
+	 * Returns the name of the module defining the specified type.
+	 * </p>
+	 *
+	 * @param type a binary type name in internal form
+	 *
+	 * @return an optional returning the module name or an empty optional if the type can't be found
+	 */
+	private Optional<String> getModuleName(String type) {
+		int packageEnd = type.lastIndexOf('/');
+		if(packageEnd < 0) {
+			return Optional.empty();
+		}
+		String systemModuleName = this.systemModuleNamesByPackage.get(type.substring(0, packageEnd).replace('/', '.'));
+		if(systemModuleName != null) {
+			return Optional.of(systemModuleName);
+		}
+		return Optional.ofNullable(this.moduleNamesByClass.get(type));
+	}
+
+	/**
+	 * <p>
+	 * Analyzes a class file.
+	 * </p>
+	 *
+	 * <p>
+	 * The types referenced in the constant pool (classes, field and method references), in field and method descriptors, in signatures and visible annotations are collected as well as the types
+	 * exposed in the API of the class (super class, interfaces, public and protected members) when the class is public. This is consistent with {@code jdeps}.
+	 * </p>
+	 *
+	 * @param classFile       the class file
+	 * @param referencedTypes the set where to add referenced types
+	 * @param apiTypes        the set where to add API types
+	 *
+	 * @return true if the class file defines a class or an interface, false if it is a module descriptor
+	 *
+	 * @throws IOException              if there was an error reading the class file
+	 * @throws IllegalArgumentException if the class file is invalid
+	 */
+	private boolean analyzeClass(byte[] classFile, Set<String> referencedTypes, Set<String> apiTypes) throws IOException, IllegalArgumentException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(classFile));
+		if(input.readInt() != 0xCAFEBABE) {
+			throw new IllegalArgumentException("Invalid class file");
+		}
+		input.skipBytes(4); // minor and major versions
+
+		int constantPoolCount = input.readUnsignedShort();
+		String[] utf8s = new String[constantPoolCount];
+		int[] classNameIndexes = new int[constantPoolCount];
+		List<Integer> descriptorIndexes = new ArrayList<>();
+		for(int i=1;i<constantPoolCount;i++) {
+			int tag = input.readUnsignedByte();
+			switch(tag) {
+				case 1: utf8s[i] = input.readUTF();
+					break;
+				case 7: classNameIndexes[i] = input.readUnsignedShort();
+					break;
+				case 12: input.skipBytes(2);
+					descriptorIndexes.add(input.readUnsignedShort());
+					break;
+				case 8:
+				case 16:
+				case 19:
+				case 20: input.skipBytes(2);
+					break;
+				case 15: input.skipBytes(3);
+					break;
+				case 3:
+				case 4:
+				case 9:
+				case 10:
+				case 11:
+				case 17:
+				case 18: input.skipBytes(4);
+					break;
+				case 5:
+				case 6: input.skipBytes(8);
+					i++;
+					break;
+				default: throw new IllegalArgumentException("Invalid constant pool tag: " + tag);
+			}
+		}
+
+		for(int classNameIndex : classNameIndexes) {
+			if(classNameIndex > 0) {
+				this.addClassType(utf8s[classNameIndex], referencedTypes);
+			}
+		}
+		for(int descriptorIndex : descriptorIndexes) {
+			this.addSignatureTypes(utf8s[descriptorIndex], referencedTypes);
+		}
+
+		int accessFlags = input.readUnsignedShort();
+		if((accessFlags & ACC_MODULE) != 0) {
+			return false;
+		}
+		Set<String> classApiTypes = (accessFlags & ACC_PUBLIC) != 0 ? apiTypes : null;
+		input.skipBytes(2); // this class
+		int superClassIndex = input.readUnsignedShort();
+		if(superClassIndex > 0 && classApiTypes != null) {
+			this.addClassType(utf8s[classNameIndexes[superClassIndex]], classApiTypes);
+		}
+		int interfacesCount = input.readUnsignedShort();
+		for(int i=0;i<interfacesCount;i++) {
+			int interfaceIndex = input.readUnsignedShort();
+			if(classApiTypes != null) {
+				this.addClassType(utf8s[classNameIndexes[interfaceIndex]], classApiTypes);
+			}
+		}
+
+		// fields and methods
+		for(int j=0;j<2;j++) {
+			int membersCount = input.readUnsignedShort();
+			for(int i=0;i<membersCount;i++) {
+				int memberAccessFlags = input.readUnsignedShort();
+				input.skipBytes(2); // name
+				String descriptor = utf8s[input.readUnsignedShort()];
+				this.addSignatureTypes(descriptor, referencedTypes);
+				Set<String> memberApiTypes = classApiTypes != null && (memberAccessFlags & (ACC_PUBLIC | ACC_PROTECTED)) != 0 ? classApiTypes : null;
+				if(memberApiTypes != null) {
+					this.addSignatureTypes(descriptor, memberApiTypes);
+				}
+				this.analyzeAttributes(input, utf8s, classNameIndexes, referencedTypes, memberApiTypes);
+			}
+		}
+		// class signature and annotations are not considered part of the API
+		this.analyzeAttributes(input, utf8s, classNameIndexes, referencedTypes, null);
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Analyzes the attributes of a class, a field or a method.
+	 * </p>
+	 *
+	 * <p>
+	 * Types are extracted from {@code Signature}, {@code Exceptions}, {@code RuntimeVisibleAnnotations} and {@code RuntimeVisibleParameterAnnotations} attributes, other attributes are skipped.
+	 * </p>
+	 *
+	 * @param input            the class file input positioned at the attributes count
+	 * @param utf8s            the UTF-8 entries of the constant pool
+	 * @param classNameIndexes the name indexes of the class entries of the constant pool
+	 * @param referencedTypes  the set where to add referenced types
+	 * @param apiTypes         the set where to add API types or null if the attributes are not part of the API
+	 *
+	 * @throws IOException if there was an error reading the class file
+	 */
+	private void analyzeAttributes(DataInputStream input, String[] utf8s, int[] classNameIndexes, Set<String> referencedTypes, Set<String> apiTypes) throws IOException {
+		int attributesCount = input.readUnsignedShort();
+		for(int i=0;i<attributesCount;i++) {
+			String attributeName = utf8s[input.readUnsignedShort()];
+			int attributeLength = input.readInt();
+			if("Signature".equals(attributeName)) {
+				String signature = utf8s[input.readUnsignedShort()];
+				this.addSignatureTypes(signature, referencedTypes);
+				if(apiTypes != null) {
+					this.addSignatureTypes(signature, apiTypes);
+				}
+			}
+			else if("Exceptions".equals(attributeName) && apiTypes != null) {
+				int exceptionsCount = input.readUnsignedShort();
+				for(int j=0;j<exceptionsCount;j++) {
+					this.addClassType(utf8s[classNameIndexes[input.readUnsignedShort()]], apiTypes);
+				}
+			}
+			else if("RuntimeVisibleAnnotations".equals(attributeName)) {
+				this.analyzeAnnotations(input, utf8s, referencedTypes, apiTypes);
+			}
+			else if("RuntimeVisibleParameterAnnotations".equals(attributeName)) {
+				int parametersCount = input.readUnsignedByte();
+				for(int j=0;j<parametersCount;j++) {
+					this.analyzeAnnotations(input, utf8s, referencedTypes, apiTypes);
+				}
+			}
+			else {
+				input.skipNBytes(attributeLength);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Analyzes a list of annotations and adds the annotation types.
+	 * </p>
+	 *
+	 * @param input           the class file input positioned at the annotations count
+	 * @param utf8s           the UTF-8 entries of the constant pool
+	 * @param referencedTypes the set where to add referenced types
+	 * @param apiTypes        the set where to add API types or null if the annotations are not part of the API
+	 *
+	 * @throws IOException if there was an error reading the class file
+	 */
+	private void analyzeAnnotations(DataInputStream input, String[] utf8s, Set<String> referencedTypes, Set<String> apiTypes) throws IOException {
+		int annotationsCount = input.readUnsignedShort();
+		for(int i=0;i<annotationsCount;i++) {
+			String annotationType = utf8s[input.readUnsignedShort()];
+			this.addSignatureTypes(annotationType, referencedTypes);
+			if(apiTypes != null) {
+				this.addSignatureTypes(annotationType, apiTypes);
+			}
+			this.skipAnnotationElements(input);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Skips the element value pairs of an annotation.
+	 * </p>
+	 *
+	 * @param input the class file input positioned at the element value pairs count
+	 *
+	 * @throws IOException if there was an error reading the class file
+	 */
+	private void skipAnnotationElements(DataInputStream input) throws IOException {
+		int elementsCount = input.readUnsignedShort();
+		for(int i=0;i<elementsCount;i++) {
+			input.skipBytes(2); // element name
+			this.skipAnnotationElementValue(input);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Skips an annotation element value.
+	 * </p>
+	 *
+	 * @param input the class file input positioned at the element value
+	 *
+	 * @throws IOException if there was an error reading the class file
+	 */
+	private void skipAnnotationElementValue(DataInputStream input) throws IOException {
+		int tag = input.readUnsignedByte();
+		switch(tag) {
+			case 'e': input.skipBytes(4);
+				break;
+			case '@': input.skipBytes(2);
+				this.skipAnnotationElements(input);
+				break;
+			case '[': {
+				int valuesCount = input.readUnsignedShort();
+				for(int i=0;i<valuesCount;i++) {
+					this.skipAnnotationElementValue(input);
+				}
+				break;
+			}
+			default: input.skipBytes(2);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Adds the type designated by the name of a class entry.
+	 * </p>
+	 *
+	 * @param className a binary class name in internal form or an array descriptor
+	 * @param types     the set where to add the type
+	 */
+	private void addClassType(String className, Set<String> types) {
+		if(className.startsWith("[")) {
+			this.addSignatureTypes(className, types);
+		}
+		else {
+			types.add(className);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Adds the class types referenced in a descriptor or a signature.
+	 * </p>
+	 *
+	 * @param signature a field or method descriptor or a class, field or method signature
+	 * @param types     the set where to add the types
+	 */
+	private void addSignatureTypes(String signature, Set<String> types) {
+		try {
+			int index = 0;
+			if(signature.charAt(0) == '<') {
+				// formal type parameters: Identifier ClassBound {InterfaceBound}
+				index = 1;
+				while(signature.charAt(index) != '>') {
+					index = signature.indexOf(':', index);
+					while(signature.charAt(index) == ':') {
+						index++;
+						if(signature.charAt(index) != ':') {
+							index = this.parseType(signature, index, types);
+						}
+					}
+				}
+				index++;
+			}
+			while(index < signature.length()) {
+				char c = signature.charAt(index);
+				if(c == '(' || c == ')' || c == '^') {
+					index++;
+				}
+				else {
+					index = this.parseType(signature, index, types);
+				}
+			}
+		}
+		catch(IndexOutOfBoundsException e) {
+			// ignore malformed signatures
+		}
+	}
+
+	/**
+	 * <p>
+	 * Parses a type in a descriptor or a signature and adds the class types it references.
+	 * </p>
+	 *
+	 * @param signature the descriptor or signature
+	 * @param index     the index of the type
+	 * @param types     the set where to add the types
+	 *
+	 * @return the index following the type
+	 */
+	private int parseType(String signature, int index, Set<String> types) {
+		switch(signature.charAt(index)) {
+			case 'L': {
+				int nameEnd = index + 1;
+				while(signature.charAt(nameEnd) != ';' && signature.charAt(nameEnd) != '<' && signature.charAt(nameEnd) != '.') {
+					nameEnd++;
+				}
+				types.add(signature.substring(index + 1, nameEnd));
+				index = nameEnd;
+				while(signature.charAt(index) != ';') {
+					if(signature.charAt(index) == '<') {
+						// type arguments
+						index++;
+						while(signature.charAt(index) != '>') {
+							if(signature.charAt(index) == '*') {
+								index++;
+							}
+							else {
+								if(signature.charAt(index) == '+' || signature.charAt(index) == '-') {
+									index++;
+								}
+								index = this.parseType(signature, index, types);
+							}
+						}
+						index++;
+					}
+					else {
+						// inner class suffix
+						index++;
+						while(signature.charAt(index) != ';' && signature.charAt(index) != '<' && signature.charAt(index) != '.') {
+							index++;
+						}
+					}
+				}
+				return index + 1;
+			}
+			case 'T': {
+				// type variable
+				int typeVariableEnd = signature.indexOf(';', index);
+				if(typeVariableEnd < 0) {
+					throw new IndexOutOfBoundsException(typeVariableEnd);
+				}
+				return typeVariableEnd + 1;
+			}
+			case '[': return this.parseType(signature, index + 1, types);
+			default: return index + 1;
+		}
+	}
+}
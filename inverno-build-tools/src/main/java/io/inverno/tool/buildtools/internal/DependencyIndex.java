@@ -0,0 +1,763 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.module.FindException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.lang.model.SourceVersion;
+
+/**
+ * <p>
+ * An index of the content of the project dependency JARs.
+ * </p>
+ *
+ * <p>
+ * The index records the entries, the manifest attributes, the services and the module descriptors of each dependency JAR. It is built in parallel from the central directory of the JARs, which
+ * are then never scanned again during the build: dependency module descriptors, class and service lookups are resolved from the index.
+ * </p>
+ *
+ * <p>
+ * The index of a JAR is persisted in the project working directory and identified by the hash of the JAR content so that unchanged JARs are not opened on subsequent builds. The hash itself is
+ * cached in the project fingerprint store along with the size and the last modified time of the JAR and only computed again when any of them changed.
+ * </p>
+ *
+ * <p>
+ * A dependency index is immutable and can be used concurrently.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class DependencyIndex {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int RELEASE = Runtime.version().feature();
+
+	private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+	private static final String SERVICES_PREFIX = "META-INF/services/";
+
+	private static final String MODULE_INFO = "module-info.class";
+
+	private static final Attributes.Name AUTOMATIC_MODULE_NAME = new Attributes.Name("Automatic-Module-Name");
+
+	private static final Pattern DASH_VERSION = Pattern.compile("-(\\d+(\\.|$))");
+
+	private static final Pattern NON_ALPHANUM = Pattern.compile("[^A-Za-z0-9]");
+
+	private static final Pattern REPEATING_DOTS = Pattern.compile("(\\.)(\\1)+");
+
+	private final Path path;
+
+	private final Map<Path, DependencyIndex.Jar> jars;
+
+	private final Map<Path, String> jarStamps;
+
+	/**
+	 * <p>
+	 * Creates a dependency index.
+	 * </p>
+	 *
+	 * <p>
+	 * The specified JARs are indexed in parallel, indexes of JARs that are no longer indexed are removed from the index path.
+	 * </p>
+	 *
+	 * @param path             the path where JAR indexes are persisted
+	 * @param fingerprintStore the fingerprint store where JAR hashes are cached
+	 * @param jarPaths         the JARs to index
+	 *
+	 * @throws UncheckedIOException if there was an error indexing a JAR
+	 */
+	public DependencyIndex(Path path, FingerprintStore fingerprintStore, Collection<Path> jarPaths) throws UncheckedIOException {
+		this.path = path;
+		this.jarStamps = new ConcurrentHashMap<>();
+		try {
+			Files.createDirectories(path);
+			this.jars = jarPaths.parallelStream()
+				.distinct()
+				.map(jarPath -> {
+					try {
+						return this.index(jarPath, fingerprintStore);
+					}
+					catch(IOException e) {
+						throw new UncheckedIOException("Error indexing " + jarPath, e);
+					}
+				})
+				.collect(Collectors.toUnmodifiableMap(DependencyIndex.Jar::getPath, Function.identity()));
+
+			Set<Path> jarIndexPaths = this.jars.values().stream().map(jar -> path.resolve(jar.getHash())).collect(Collectors.toSet());
+			try(Stream<Path> list = Files.list(path)) {
+				for(Iterator<Path> pathIterator = list.iterator(); pathIterator.hasNext();) {
+					Path jarIndexPath = pathIterator.next();
+					if(!jarIndexPaths.contains(jarIndexPath)) {
+						Files.deleteIfExists(jarIndexPath);
+					}
+				}
+			}
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the index of the specified JAR.
+	 * </p>
+	 *
+	 * @param jarPath the path to an indexed JAR
+	 *
+	 * @return the JAR index
+	 *
+	 * @throws IllegalArgumentException if the JAR is not indexed
+	 */
+	public DependencyIndex.Jar get(Path jarPath) throws IllegalArgumentException {
+		DependencyIndex.Jar jar = this.jars.get(jarPath);
+		if(jar == null) {
+			throw new IllegalArgumentException("JAR is not indexed: " + jarPath);
+		}
+		return jar;
+	}
+
+	/**
+	 * <p>
+	 * Determines whether the specified class is defined in an indexed JAR.
+	 * </p>
+	 *
+	 * @param className a binary class name (e.g. {@code java.lang.System$Logger})
+	 *
+	 * @return true if the class is defined in an indexed JAR, false otherwise
+	 */
+	public boolean containsClass(String className) {
+		return this.findClass(className).isPresent();
+	}
+
+	/**
+	 * <p>
+	 * Returns the index of the JAR defining the specified class.
+	 * </p>
+	 *
+	 * @param className a binary class name (e.g. {@code java.lang.System$Logger})
+	 *
+	 * @return an optional returning the index of the JAR defining the class or an empty optional if the class is not defined in an indexed JAR
+	 */
+	public Optional<DependencyIndex.Jar> findClass(String className) {
+		String internalName = className.replace('.', '/');
+		for(DependencyIndex.Jar jar : this.jars.values()) {
+			if(jar.getClasses().contains(internalName)) {
+				return Optional.of(jar);
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * <p>
+	 * Determines whether the index is up to date with the specified JARs.
+	 * </p>
+	 *
+	 * <p>
+	 * The index is up to date when it indexes exactly the specified JARs and none of them was modified since it was indexed, which is determined from their size and last modified time so that an
+	 * index can be reused by successive builds without opening the JARs.
+	 * </p>
+	 *
+	 * @param jarPaths the JARs to index
+	 *
+	 * @return true if the index is up to date, false otherwise
+	 */
+	public boolean isUpToDate(Collection<Path> jarPaths) {
+		if(!this.jarStamps.keySet().equals(new HashSet<>(jarPaths))) {
+			return false;
+		}
+		try {
+			for(Map.Entry<Path, String> jarStamp : this.jarStamps.entrySet()) {
+				if(!jarStamp.getValue().equals(getJarStamp(jarStamp.getKey()))) {
+					return false;
+				}
+			}
+			return true;
+		}
+		catch(IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the stamp of the specified JAR used to detect modifications.
+	 * </p>
+	 *
+	 * @param jarPath the path to the JAR
+	 *
+	 * @return the JAR stamp
+	 *
+	 * @throws IOException if there was an error reading the JAR attributes
+	 */
+	private static String getJarStamp(Path jarPath) throws IOException {
+		return Files.size(jarPath) + ":" + Files.getLastModifiedTime(jarPath).toMillis() + ":";
+	}
+
+	/**
+	 * <p>
+	 * Indexes the specified JAR.
+	 * </p>
+	 *
+	 * <p>
+	 * The persisted index is loaded when it exists, otherwise the JAR is scanned and its index persisted.
+	 * </p>
+	 *
+	 * @param jarPath          the path to the JAR
+	 * @param fingerprintStore the fingerprint store where JAR hashes are cached
+	 *
+	 * @return the JAR index
+	 *
+	 * @throws IOException if there was an error indexing the JAR
+	 */
+	private DependencyIndex.Jar index(Path jarPath, FingerprintStore fingerprintStore) throws IOException {
+		String key = "jar." + jarPath.toAbsolutePath();
+		String jarStamp = getJarStamp(jarPath);
+		this.jarStamps.put(jarPath, jarStamp);
+		String hash;
+		Optional<String> cachedHash = fingerprintStore.get(key).filter(value -> value.startsWith(jarStamp));
+		if(cachedHash.isPresent()) {
+			hash = cachedHash.get().substring(jarStamp.length());
+		}
+		else {
+			hash = new Fingerprint().add(jarPath).get();
+			fingerprintStore.put(key, jarStamp + hash);
+		}
+
+		Path jarIndexPath = this.path.resolve(hash);
+		if(Files.exists(jarIndexPath)) {
+			try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(jarIndexPath)))) {
+				if(input.readInt() == FORMAT_VERSION) {
+					return DependencyIndex.Jar.read(jarPath, hash, input);
+				}
+			}
+			catch(IOException e) {
+				// corrupted index, let's scan the JAR again
+			}
+		}
+
+		DependencyIndex.Jar jar = DependencyIndex.Jar.scan(jarPath, hash);
+		Path tmpJarIndexPath = Files.createTempFile(this.path, hash + ".", ".tmp");
+		try {
+			try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpJarIndexPath)))) {
+				output.writeInt(FORMAT_VERSION);
+				jar.write(output);
+			}
+			Files.move(tmpJarIndexPath, jarIndexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tmpJarIndexPath);
+		}
+		return jar;
+	}
+
+	/**
+	 * <p>
+	 * The index of a dependency JAR.
+	 * </p>
+	 *
+	 * <p>
+	 * Views depending on the JDK version, such as the classes of a multi-release JAR, are resolved for the current JDK version.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	public static class Jar {
+
+		private final Path path;
+		private final String hash;
+		private final List<String> entries;
+		private final String automaticModuleName;
+		private final String mainClass;
+		private final boolean multiRelease;
+		private final Map<Integer, byte[]> moduleInfos;
+		private final Map<String, List<String>> services;
+
+		private final SortedSet<Integer> versions;
+		private final Set<String> classes;
+		private final Set<String> packages;
+		private final byte[] moduleInfo;
+
+		private ModuleDescriptor moduleDescriptor;
+
+		/**
+		 * <p>
+		 * Creates a JAR index.
+		 * </p>
+		 *
+		 * @param path                the path to the JAR
+		 * @param hash                the hash of the JAR content
+		 * @param entries             the names of the JAR file entries
+		 * @param automaticModuleName the {@code Automatic-Module-Name} manifest attribute or null
+		 * @param mainClass           the {@code Main-Class} manifest attribute or null
+		 * @param multiRelease        true if the JAR is a multi-release JAR, false otherwise
+		 * @param moduleInfos         the module descriptors defined in the JAR by version, {@code 0} being the base version
+		 * @param services            the service providers declared in {@code META-INF/services} by service name
+		 */
+		private Jar(Path path, String hash, List<String> entries, String automaticModuleName, String mainClass, boolean multiRelease, Map<Integer, byte[]> moduleInfos, Map<String, List<String>> services) {
+			this.path = path;
+			this.hash = hash;
+			this.entries = entries;
+			this.automaticModuleName = automaticModuleName;
+			this.mainClass = mainClass;
+			this.multiRelease = multiRelease;
+			this.moduleInfos = moduleInfos;
+			this.services = services;
+
+			// Resolve the versioned entries visible to the current JDK
+			SortedSet<Integer> jarVersions = new TreeSet<>();
+			Set<String> versionedEntries = new HashSet<>();
+			for(String entry : entries) {
+				if(entry.startsWith(VERSIONS_PREFIX)) {
+					int versionEnd = entry.indexOf('/', VERSIONS_PREFIX.length());
+					if(versionEnd > 0) {
+						try {
+							int version = Integer.parseInt(entry.substring(VERSIONS_PREFIX.length(), versionEnd));
+							jarVersions.add(version);
+							if(multiRelease && version <= RELEASE) {
+								versionedEntries.add(entry.substring(versionEnd + 1));
+							}
+							continue;
+						}
+						catch(NumberFormatException e) {
+							// not a versioned entry
+						}
+					}
+				}
+				versionedEntries.add(entry);
+			}
+			this.versions = multiRelease ? Collections.unmodifiableSortedSet(jarVersions) : Collections.emptySortedSet();
+
+			Set<String> jarClasses = new HashSet<>();
+			Set<String> jarPackages = new HashSet<>();
+			for(String entry : versionedEntries) {
+				if(entry.endsWith(".class") && !entry.equals(MODULE_INFO)) {
+					jarClasses.add(entry.substring(0, entry.length() - 6));
+				}
+				int packageEnd = entry.lastIndexOf('/');
+				if(packageEnd > 0) {
+					String packageName = entry.substring(0, packageEnd).replace('/', '.');
+					if(jarPackages.contains(packageName) || SourceVersion.isName(packageName)) {
+						jarPackages.add(packageName);
+					}
+				}
+			}
+			this.classes = Collections.unmodifiableSet(jarClasses);
+			this.packages = Collections.unmodifiableSet(jarPackages);
+
+			byte[] versionedModuleInfo = moduleInfos.get(0);
+			if(multiRelease) {
+				for(Map.Entry<Integer, byte[]> moduleInfoEntry : moduleInfos.entrySet()) {
+					if(moduleInfoEntry.getKey() <= RELEASE) {
+						versionedModuleInfo = moduleInfoEntry.getValue();
+					}
+				}
+			}
+			this.moduleInfo = versionedModuleInfo;
+		}
+
+		/**
+		 * <p>
+		 * Scans the specified JAR.
+		 * </p>
+		 *
+		 * <p>
+		 * Only the central directory, the manifest, the service declarations and the module descriptors are read.
+		 * </p>
+		 *
+		 * @param path the path to the JAR
+		 * @param hash the hash of the JAR content
+		 *
+		 * @return the JAR index
+		 *
+		 * @throws IOException if there was an error reading the JAR
+		 */
+		private static DependencyIndex.Jar scan(Path path, String hash) throws IOException {
+			try(JarFile jarFile = new JarFile(path.toFile(), false)) {
+				List<String> entries = new ArrayList<>();
+				Map<Integer, byte[]> moduleInfos = new TreeMap<>();
+				Map<String, List<String>> services = new TreeMap<>();
+				for(Iterator<JarEntry> entriesIterator = jarFile.entries().asIterator(); entriesIterator.hasNext();) {
+					JarEntry entry = entriesIterator.next();
+					if(entry.isDirectory()) {
+						continue;
+					}
+					String entryName = entry.getName();
+					entries.add(entryName);
+					if(entryName.equals(MODULE_INFO)) {
+						try(InputStream moduleInfoInput = jarFile.getInputStream(entry)) {
+							moduleInfos.put(0, moduleInfoInput.readAllBytes());
+						}
+					}
+					else if(entryName.startsWith(VERSIONS_PREFIX) && entryName.endsWith("/" + MODULE_INFO)) {
+						try {
+							int version = Integer.parseInt(entryName.substring(VERSIONS_PREFIX.length(), entryName.length() - MODULE_INFO.length() - 1));
+							try(InputStream moduleInfoInput = jarFile.getInputStream(entry)) {
+								moduleInfos.put(version, moduleInfoInput.readAllBytes());
+							}
+						}
+						catch(NumberFormatException e) {
+							// not a versioned module descriptor
+						}
+					}
+					else if(entryName.startsWith(SERVICES_PREFIX) && entryName.length() > SERVICES_PREFIX.length() && entryName.indexOf('/', SERVICES_PREFIX.length()) == -1) {
+						List<String> providers = new ArrayList<>();
+						try(BufferedReader reader = new BufferedReader(new InputStreamReader(jarFile.getInputStream(entry), StandardCharsets.UTF_8))) {
+							String line;
+							while( (line = reader.readLine()) != null) {
+								int commentIndex = line.indexOf('#');
+								if(commentIndex >= 0) {
+									line = line.substring(0, commentIndex);
+								}
+								line = line.trim();
+								if(!line.isEmpty()) {
+									providers.add(line);
+								}
+							}
+						}
+						services.put(entryName.substring(SERVICES_PREFIX.length()), providers);
+					}
+				}
+
+				String automaticModuleName = null;
+				String mainClass = null;
+				boolean multiRelease = false;
+				Manifest manifest = jarFile.getManifest();
+				if(manifest != null) {
+					Attributes attributes = manifest.getMainAttributes();
+					automaticModuleName = attributes.getValue(AUTOMATIC_MODULE_NAME);
+					mainClass = attributes.getValue(Attributes.Name.MAIN_CLASS);
+					multiRelease = Boolean.parseBoolean(attributes.getValue(Attributes.Name.MULTI_RELEASE));
+				}
+				return new DependencyIndex.Jar(path, hash, entries, automaticModuleName, mainClass, multiRelease, moduleInfos, services);
+			}
+		}
+
+		/**
+		 * <p>
+		 * Reads a persisted JAR index.
+		 * </p>
+		 *
+		 * @param path  the path to the JAR
+		 * @param hash  the hash of the JAR content
+		 * @param input the persisted index input
+		 *
+		 * @return the JAR index
+		 *
+		 * @throws IOException if there was an error reading the persisted index
+		 */
+		private static DependencyIndex.Jar read(Path path, String hash, DataInputStream input) throws IOException {
+			String automaticModuleName = input.readBoolean() ? input.readUTF() : null;
+			String mainClass = input.readBoolean() ? input.readUTF() : null;
+			boolean multiRelease = input.readBoolean();
+
+			int entriesCount = input.readInt();
+			List<String> entries = new ArrayList<>(entriesCount);
+			for(int i=0;i<entriesCount;i++) {
+				entries.add(input.readUTF());
+			}
+
+			int moduleInfosCount = input.readInt();
+			Map<Integer, byte[]> moduleInfos = new TreeMap<>();
+			for(int i=0;i<moduleInfosCount;i++) {
+				int version = input.readInt();
+				byte[] moduleInfo = new byte[input.readInt()];
+				input.readFully(moduleInfo);
+				moduleInfos.put(version, moduleInfo);
+			}
+
+			int servicesCount = input.readInt();
+			Map<String, List<String>> services = new TreeMap<>();
+			for(int i=0;i<servicesCount;i++) {
+				String service = input.readUTF();
+				int providersCount = input.readInt();
+				List<String> providers = new ArrayList<>(providersCount);
+				for(int j=0;j<providersCount;j++) {
+					providers.add(input.readUTF());
+				}
+				services.put(service, providers);
+			}
+			return new DependencyIndex.Jar(path, hash, entries, automaticModuleName, mainClass, multiRelease, moduleInfos, services);
+		}
+
+		/**
+		 * <p>
+		 * Writes the JAR index.
+		 * </p>
+		 *
+		 * @param output the output where to persist the index
+		 *
+		 * @throws IOException if there was an error writing the index
+		 */
+		private void write(DataOutputStream output) throws IOException {
+			output.writeBoolean(this.automaticModuleName != null);
+			if(this.automaticModuleName != null) {
+				output.writeUTF(this.automaticModuleName);
+			}
+			output.writeBoolean(this.mainClass != null);
+			if(this.mainClass != null) {
+				output.writeUTF(this.mainClass);
+			}
+			output.writeBoolean(this.multiRelease);
+
+			output.writeInt(this.entries.size());
+			for(String entry : this.entries) {
+				output.writeUTF(entry);
+			}
+
+			output.writeInt(this.moduleInfos.size());
+			for(Map.Entry<Integer, byte[]> moduleInfo : this.moduleInfos.entrySet()) {
+				output.writeInt(moduleInfo.getKey());
+				output.writeInt(moduleInfo.getValue().length);
+				output.write(moduleInfo.getValue());
+			}
+
+			output.writeInt(this.services.size());
+			for(Map.Entry<String, List<String>> service : this.services.entrySet()) {
+				output.writeUTF(service.getKey());
+				output.writeInt(service.getValue().size());
+				for(String provider : service.getValue()) {
+					output.writeUTF(provider);
+				}
+			}
+		}
+
+		/**
+		 * <p>
+		 * Returns the path to the JAR.
+		 * </p>
+		 *
+		 * @return the path to the JAR
+		 */
+		public Path getPath() {
+			return this.path;
+		}
+
+		/**
+		 * <p>
+		 * Returns the SHA-256 hash of the JAR content.
+		 * </p>
+		 *
+		 * @return the hash of the JAR content
+		 */
+		public String getHash() {
+			return this.hash;
+		}
+
+		/**
+		 * <p>
+		 * Determines whether the JAR is a named module, either because it defines a module descriptor or an {@code Automatic-Module-Name}.
+		 * </p>
+		 *
+		 * @return true if the JAR is a named module, false otherwise
+		 */
+		public boolean isNamed() {
+			return this.moduleInfo != null || this.automaticModuleName != null;
+		}
+
+		/**
+		 * <p>
+		 * Returns the versions of a multi-release JAR.
+		 * </p>
+		 *
+		 * @return the versions defined in the JAR or an empty set if the JAR is not a multi-release JAR
+		 */
+		public SortedSet<Integer> getVersions() {
+			return this.versions;
+		}
+
+		/**
+		 * <p>
+		 * Returns the classes defined in the JAR.
+		 * </p>
+		 *
+		 * @return a set of binary class names in internal form (e.g. {@code java/lang/System$Logger})
+		 */
+		public Set<String> getClasses() {
+			return this.classes;
+		}
+
+		/**
+		 * <p>
+		 * Returns the packages defined in the JAR.
+		 * </p>
+		 *
+		 * @return a set of package names
+		 */
+		public Set<String> getPackages() {
+			return this.packages;
+		}
+
+		/**
+		 * <p>
+		 * Returns the service providers declared in {@code META-INF/services}.
+		 * </p>
+		 *
+		 * @return a map of service providers by service name
+		 */
+		public Map<String, List<String>> getServices() {
+			return Collections.unmodifiableMap(this.services);
+		}
+
+		/**
+		 * <p>
+		 * Returns the module descriptor of the JAR as it would be found on the module path.
+		 * </p>
+		 *
+		 * <p>
+		 * The descriptor is read from the module descriptor defined in the JAR or derived like an automatic module otherwise. When it can't be resolved from the index, the JAR is resolved using a
+		 * {@link ModuleFinder} in order to report the actual error.
+		 * </p>
+		 *
+		 * @return the module descriptor
+		 *
+		 * @throws FindException if the module descriptor can't be resolved
+		 */
+		public synchronized ModuleDescriptor getModuleDescriptor() throws FindException {
+			if(this.moduleDescriptor == null) {
+				try {
+					this.moduleDescriptor = this.moduleInfo != null ? ModuleDescriptor.read(ByteBuffer.wrap(this.moduleInfo), () -> this.packages) : this.deriveModuleDescriptor();
+				}
+				catch(RuntimeException e) {
+					this.moduleDescriptor = ModuleFinder.of(this.path).findAll().iterator().next().descriptor();
+				}
+			}
+			return this.moduleDescriptor;
+		}
+
+		/**
+		 * <p>
+		 * Derives the descriptor of an automatic module following the rules of {@link ModuleFinder#of(java.nio.file.Path...) }.
+		 * </p>
+		 *
+		 * @return the module descriptor
+		 *
+		 * @throws IllegalArgumentException if the module descriptor can't be derived
+		 */
+		private ModuleDescriptor deriveModuleDescriptor() throws IllegalArgumentException {
+			String name = this.path.getFileName().toString();
+			name = name.substring(0, name.length() - 4);
+			String version = null;
+			Matcher matcher = DASH_VERSION.matcher(name);
+			if(matcher.find()) {
+				try {
+					String tail = name.substring(matcher.start() + 1);
+					ModuleDescriptor.Version.parse(tail);
+					version = tail;
+				}
+				catch(IllegalArgumentException e) {
+					// not a version
+				}
+				name = name.substring(0, matcher.start());
+			}
+
+			ModuleDescriptor.Builder builder;
+			if(this.automaticModuleName != null) {
+				builder = ModuleDescriptor.newAutomaticModule(this.automaticModuleName);
+			}
+			else {
+				name = REPEATING_DOTS.matcher(NON_ALPHANUM.matcher(name).replaceAll(".")).replaceAll(".");
+				if(name.startsWith(".")) {
+					name = name.substring(1);
+				}
+				if(name.endsWith(".")) {
+					name = name.substring(0, name.length() - 1);
+				}
+				builder = ModuleDescriptor.newAutomaticModule(name);
+			}
+			if(version != null) {
+				builder.version(version);
+			}
+
+			// only packages containing classes are module packages
+			Set<String> classPackages = new HashSet<>();
+			for(String className : this.classes) {
+				int packageEnd = className.lastIndexOf('/');
+				if(packageEnd < 0) {
+					throw new IllegalArgumentException(className + ".class found in top-level directory (unnamed package not allowed in module)");
+				}
+				String packageName = className.substring(0, packageEnd).replace('/', '.');
+				if(this.packages.contains(packageName)) {
+					classPackages.add(packageName);
+				}
+			}
+			builder.packages(classPackages);
+
+			for(Map.Entry<String, List<String>> service : this.services.entrySet()) {
+				if(SourceVersion.isName(service.getKey()) && !service.getValue().isEmpty()) {
+					for(String provider : service.getValue()) {
+						int packageEnd = provider.lastIndexOf('.');
+						if(!classPackages.contains(packageEnd > 0 ? provider.substring(0, packageEnd) : "")) {
+							throw new IllegalArgumentException("Provider class " + provider + " not in JAR file " + this.path.getFileName());
+						}
+					}
+					builder.provides(service.getKey(), service.getValue());
+				}
+			}
+
+			if(this.mainClass != null) {
+				String mainClassName = this.mainClass.replace('/', '.');
+				int packageEnd = mainClassName.lastIndexOf('.');
+				if(SourceVersion.isName(mainClassName) && packageEnd > 0 && classPackages.contains(mainClassName.substring(0, packageEnd))) {
+					builder.mainClass(mainClassName);
+				}
+			}
+			return builder.build();
+		}
+	}
+}
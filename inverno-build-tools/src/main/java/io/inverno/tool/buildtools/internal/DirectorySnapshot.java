@@ -0,0 +1,359 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * A snapshot of the regular files in a directory.
+ * </p>
+ *
+ * <p>
+ * A snapshot records the path, the size and the last modified time of each file obtained in a single directory traversal. It is persisted once an output has been built from the directory along
+ * with a stamp identifying that output, subsequent builds can then determine whether the output is up to date by comparing a new snapshot with the persisted one.
+ * </p>
+ *
+ * <p>
+ * File contents are only read when the last modified time of a file changed but not its size, its hash is then compared to the hash recorded in the persisted snapshot. This typically avoids
+ * rebuilding the output when a directory is regenerated with the same content.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class DirectorySnapshot {
+
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Files modified within that many milliseconds before a snapshot was taken might have been modified again afterwards without changing their last modified time on file systems with a coarse
+	 * time resolution.
+	 */
+	private static final long RACY_TIME_WINDOW = 2000;
+
+	private final Path directory;
+
+	private final long timestamp;
+
+	private final Map<String, DirectorySnapshot.Entry> entries;
+
+	/**
+	 * <p>
+	 * Creates a directory snapshot.
+	 * </p>
+	 *
+	 * @param directory the directory
+	 * @param timestamp the time in milliseconds at which the directory was traversed
+	 * @param entries   the snapshot entries by path relative to the directory
+	 */
+	private DirectorySnapshot(Path directory, long timestamp, Map<String, DirectorySnapshot.Entry> entries) {
+		this.directory = directory;
+		this.timestamp = timestamp;
+		this.entries = entries;
+	}
+
+	/**
+	 * <p>
+	 * Takes a snapshot of the specified directory.
+	 * </p>
+	 *
+	 * @param directory the directory
+	 *
+	 * @return a directory snapshot
+	 *
+	 * @throws IOException if there was an error traversing the directory
+	 */
+	public static DirectorySnapshot scan(Path directory) throws IOException {
+		long timestamp = System.currentTimeMillis();
+		Map<String, DirectorySnapshot.Entry> entries = new TreeMap<>();
+		if(Files.isDirectory(directory)) {
+			Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					if(attrs.isRegularFile()) {
+						entries.put(getEntryName(directory, file), new DirectorySnapshot.Entry(attrs.size(), attrs.lastModifiedTime().toMillis(), null));
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		return new DirectorySnapshot(directory, timestamp, Collections.unmodifiableMap(entries));
+	}
+
+	/**
+	 * <p>
+	 * Loads the snapshot of the specified directory persisted for the specified stamp.
+	 * </p>
+	 *
+	 * @param directory the directory
+	 * @param path      the path to the persisted snapshot
+	 * @param stamp     the stamp identifying the output built from the directory
+	 *
+	 * @return an optional returning the persisted snapshot or an empty optional if there's no valid snapshot persisted for the stamp
+	 */
+	public static Optional<DirectorySnapshot> load(Path directory, Path path, String stamp) {
+		if(!Files.exists(path)) {
+			return Optional.empty();
+		}
+		try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if(input.readInt() != FORMAT_VERSION || !input.readUTF().equals(stamp)) {
+				return Optional.empty();
+			}
+			long timestamp = input.readLong();
+			Map<String, DirectorySnapshot.Entry> entries = new TreeMap<>();
+			int entriesCount = input.readInt();
+			for(int i=0;i<entriesCount;i++) {
+				entries.put(input.readUTF(), new DirectorySnapshot.Entry(input.readLong(), input.readLong(), input.readUTF()));
+			}
+			return Optional.of(new DirectorySnapshot(directory, timestamp, Collections.unmodifiableMap(entries)));
+		}
+		catch(IOException e) {
+			// corrupted snapshot
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the path of a file relative to the directory with {@code /} separators.
+	 * </p>
+	 *
+	 * @param directory the directory
+	 * @param file      a file in the directory
+	 *
+	 * @return an entry name
+	 */
+	private static String getEntryName(Path directory, Path file) {
+		return directory.relativize(file).toString().replace(java.io.File.separatorChar, '/');
+	}
+
+	/**
+	 * <p>
+	 * Returns the snapshot entries.
+	 * </p>
+	 *
+	 * @return a sorted map of entries by path relative to the directory
+	 */
+	public Map<String, DirectorySnapshot.Entry> getEntries() {
+		return this.entries;
+	}
+
+	/**
+	 * <p>
+	 * Returns a fingerprint of the snapshot entries.
+	 * </p>
+	 *
+	 * <p>
+	 * The fingerprint is computed from the path, the size and the last modified time of the files.
+	 * </p>
+	 *
+	 * @return a fingerprint
+	 */
+	public String getFingerprint() {
+		Fingerprint fingerprint = new Fingerprint();
+		for(Map.Entry<String, DirectorySnapshot.Entry> entry : this.entries.entrySet()) {
+			fingerprint.add(entry.getKey()).add(entry.getValue().getSize() + ":" + entry.getValue().getLastModified());
+		}
+		return fingerprint.get();
+	}
+
+	/**
+	 * <p>
+	 * Determines whether the directory changed since the specified snapshot was taken.
+	 * </p>
+	 *
+	 * <p>
+	 * A file is considered unchanged when its size and its last modified time are unchanged unless it was modified right before the previous snapshot was taken, its content hash is compared
+	 * otherwise. The hashes computed in the process are kept in this snapshot.
+	 * </p>
+	 *
+	 * @param previous a previous snapshot of the directory
+	 *
+	 * @return true if a file was added, removed or modified, false otherwise
+	 *
+	 * @throws IOException if there was an error reading a file
+	 */
+	public boolean hasChanged(DirectorySnapshot previous) throws IOException {
+		if(!this.entries.keySet().equals(previous.entries.keySet())) {
+			return true;
+		}
+		try {
+			return this.entries.entrySet().parallelStream().anyMatch(entry -> {
+				DirectorySnapshot.Entry previousEntry = previous.entries.get(entry.getKey());
+				DirectorySnapshot.Entry currentEntry = entry.getValue();
+				if(currentEntry.getSize() != previousEntry.getSize()) {
+					return true;
+				}
+				if(currentEntry.getLastModified() == previousEntry.getLastModified() && previousEntry.getLastModified() < previous.timestamp - RACY_TIME_WINDOW) {
+					currentEntry.hash = previousEntry.getHash();
+					return false;
+				}
+				return !this.getHash(entry.getKey()).equals(previousEntry.getHash());
+			});
+		}
+		catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Persists the snapshot for the specified stamp.
+	 * </p>
+	 *
+	 * <p>
+	 * The content hash of files whose hash is not already known is computed.
+	 * </p>
+	 *
+	 * @param path  the path to the persisted snapshot
+	 * @param stamp the stamp identifying the output built from the directory
+	 *
+	 * @throws IOException if there was an error persisting the snapshot
+	 */
+	public void save(Path path, String stamp) throws IOException {
+		try {
+			this.entries.keySet().parallelStream().forEach(this::getHash);
+		}
+		catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		Files.createDirectories(path.getParent());
+		Path tmpPath = Files.createTempFile(path.getParent(), path.getFileName().toString() + ".", ".tmp");
+		try {
+			try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+				output.writeInt(FORMAT_VERSION);
+				output.writeUTF(stamp);
+				output.writeLong(this.timestamp);
+				output.writeInt(this.entries.size());
+				for(Map.Entry<String, DirectorySnapshot.Entry> entry : this.entries.entrySet()) {
+					output.writeUTF(entry.getKey());
+					output.writeLong(entry.getValue().getSize());
+					output.writeLong(entry.getValue().getLastModified());
+					output.writeUTF(entry.getValue().getHash());
+				}
+			}
+			Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tmpPath);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the content hash of the specified entry, computing it if necessary.
+	 * </p>
+	 *
+	 * @param name the entry name
+	 *
+	 * @return the content hash
+	 *
+	 * @throws UncheckedIOException if there was an error reading the file
+	 */
+	private String getHash(String name) throws UncheckedIOException {
+		DirectorySnapshot.Entry entry = this.entries.get(name);
+		if(entry.hash == null) {
+			try {
+				entry.hash = new Fingerprint().add(this.directory.resolve(name)).get();
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return entry.hash;
+	}
+
+	/**
+	 * <p>
+	 * A file in a directory snapshot.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	public static class Entry {
+
+		private final long size;
+		private final long lastModified;
+		private volatile String hash;
+
+		/**
+		 * <p>
+		 * Creates a snapshot entry.
+		 * </p>
+		 *
+		 * @param size         the size of the file
+		 * @param lastModified the last modified time of the file in milliseconds
+		 * @param hash         the content hash of the file or null if it hasn't been computed
+		 */
+		private Entry(long size, long lastModified, String hash) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+		}
+
+		/**
+		 * <p>
+		 * Returns the size of the file.
+		 * </p>
+		 *
+		 * @return the size in bytes
+		 */
+		public long getSize() {
+			return this.size;
+		}
+
+		/**
+		 * <p>
+		 * Returns the last modified time of the file.
+		 * </p>
+		 *
+		 * @return the last modified time in milliseconds
+		 */
+		public long getLastModified() {
+			return this.lastModified;
+		}
+
+		/**
+		 * <p>
+		 * Returns the content hash of the file.
+		 * </p>
+		 *
+		 * @return the content hash or null if it hasn't been computed
+		 */
+		public String getHash() {
+			return this.hash;
+		}
+	}
+}
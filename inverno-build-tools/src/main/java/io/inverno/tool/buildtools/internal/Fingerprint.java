@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * <p>
+ * Computes a SHA-256 fingerprint from a sequence of inputs.
+ * </p>
+ *
+ * <p>
+ * A fingerprint identifies the inputs of a build operation, it is used to determine whether an output is up to date regardless of file modification times.
+ * </p>
+ *
+ * <p>
+ * A portable fingerprint identifies files by their content instead of their location and attributes, it is used to identify outputs shared between builds running on different hosts or in
+ * different directories.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class Fingerprint {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final MessageDigest digest;
+
+	private final boolean portable;
+
+	/**
+	 * <p>
+	 * Creates a fingerprint.
+	 * </p>
+	 */
+	public Fingerprint() {
+		this(false);
+	}
+
+	/**
+	 * <p>
+	 * Creates a fingerprint.
+	 * </p>
+	 *
+	 * @param portable true to create a portable fingerprint, false otherwise
+	 */
+	public Fingerprint(boolean portable) {
+		this.portable = portable;
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException e) {
+			// SHA-256 is required on every Java platform
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Determines whether the fingerprint is portable.
+	 * </p>
+	 *
+	 * @return true if files are identified by their content, false otherwise
+	 */
+	public boolean isPortable() {
+		return this.portable;
+	}
+
+	/**
+	 * <p>
+	 * Adds the specified string to the fingerprint.
+	 * </p>
+	 *
+	 * @param value a string
+	 *
+	 * @return the fingerprint
+	 */
+	public Fingerprint add(String value) {
+		if(value != null) {
+			this.digest.update(value.getBytes(StandardCharsets.UTF_8));
+		}
+		// separator so that ("ab", "c") and ("a", "bc") result in different fingerprints
+		this.digest.update((byte)0);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Adds the specified bytes to the fingerprint.
+	 * </p>
+	 *
+	 * @param value an array of bytes
+	 *
+	 * @return the fingerprint
+	 */
+	public Fingerprint add(byte[] value) {
+		this.digest.update(value);
+		this.digest.update((byte)0);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Adds the content of the specified file to the fingerprint.
+	 * </p>
+	 *
+	 * @param file the path to a regular file
+	 *
+	 * @return the fingerprint
+	 *
+	 * @throws IOException if there was an error reading the file
+	 */
+	public Fingerprint add(Path file) throws IOException {
+		try(InputStream input = Files.newInputStream(file)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while((read = input.read(buffer)) > 0) {
+				this.digest.update(buffer, 0, read);
+			}
+		}
+		this.digest.update((byte)0);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Adds the path and the attributes of the specified file or directory to the fingerprint.
+	 * </p>
+	 *
+	 * <p>
+	 * Unlike {@link #add(java.nio.file.Path)}, file contents are not read: the size and the last modified time of a regular file are added, the attributes of all regular files are added for a
+	 * directory. A missing file is also accepted.
+	 * </p>
+	 *
+	 * <p>
+	 * When the fingerprint is portable, the content of a regular file is added, the relative paths and the contents of all regular files are added for a directory.
+	 * </p>
+	 *
+	 * @param path the path to a file or a directory or null
+	 *
+	 * @return the fingerprint
+	 *
+	 * @throws IOException if there was an error reading file attributes
+	 */
+	public Fingerprint addAttributes(Path path) throws IOException {
+		if(path == null || !Files.exists(path)) {
+			return this.add((String)null);
+		}
+		if(this.portable) {
+			if(Files.isDirectory(path)) {
+				for(String entryName : DirectorySnapshot.scan(path).getEntries().keySet()) {
+					this.add(entryName).add(path.resolve(entryName));
+				}
+				return this;
+			}
+			return this.add(path);
+		}
+		this.add(path.toAbsolutePath().toString());
+		if(Files.isDirectory(path)) {
+			return this.add(DirectorySnapshot.scan(path).getFingerprint());
+		}
+		return this.add(Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis());
+	}
+
+	/**
+	 * <p>
+	 * Returns the fingerprint as an hexadecimal string.
+	 * </p>
+	 *
+	 * <p>
+	 * The fingerprint is reset afterwards.
+	 * </p>
+	 *
+	 * @return an hexadecimal string
+	 */
+	public String get() {
+		return HexFormat.of().formatHex(this.digest.digest());
+	}
+}
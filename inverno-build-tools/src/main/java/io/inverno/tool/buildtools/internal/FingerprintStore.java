@@ -0,0 +1,160 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * <p>
+ * A persistent store of fingerprints backed by a properties file in the project working directory.
+ * </p>
+ *
+ * <p>
+ * Tasks record the fingerprint of the inputs used to produce an output once it has been successfully generated, an output is then considered up to date as long as the fingerprint of its inputs 
+ * is unchanged.
+ * </p>
+ *
+ * <p>
+ * The store is loaded lazily and saved atomically, only when it has been modified. This class is thread-safe.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class FingerprintStore {
+
+	private final Path path;
+
+	private Properties fingerprints;
+
+	private boolean dirty;
+
+	/**
+	 * <p>
+	 * Creates a fingerprint store.
+	 * </p>
+	 *
+	 * @param path the path to the store file
+	 */
+	public FingerprintStore(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * <p>
+	 * Returns the path to the store file.
+	 * </p>
+	 *
+	 * @return the path to the store file
+	 */
+	public Path getPath() {
+		return this.path;
+	}
+
+	/**
+	 * <p>
+	 * Loads the store if it wasn't loaded already.
+	 * </p>
+	 *
+	 * @return the fingerprints
+	 */
+	private Properties load() {
+		if(this.fingerprints == null) {
+			this.fingerprints = new Properties();
+			if(Files.exists(this.path)) {
+				try(InputStream input = Files.newInputStream(this.path)) {
+					this.fingerprints.load(input);
+				}
+				catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+		return this.fingerprints;
+	}
+
+	/**
+	 * <p>
+	 * Returns the fingerprint stored for the specified key.
+	 * </p>
+	 *
+	 * @param key a key
+	 *
+	 * @return an optional returning the fingerprint or an empty optional if no fingerprint was stored for the key
+	 */
+	public synchronized Optional<String> get(String key) {
+		return Optional.ofNullable(this.load().getProperty(key));
+	}
+
+	/**
+	 * <p>
+	 * Stores a fingerprint for the specified key.
+	 * </p>
+	 *
+	 * @param key         a key
+	 * @param fingerprint a fingerprint
+	 */
+	public synchronized void put(String key, String fingerprint) {
+		if(!fingerprint.equals(this.load().setProperty(key, fingerprint))) {
+			this.dirty = true;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Removes the fingerprint stored for the specified key.
+	 * </p>
+	 *
+	 * @param key a key
+	 */
+	public synchronized void remove(String key) {
+		if(this.load().remove(key) != null) {
+			this.dirty = true;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Saves the store if it has been modified.
+	 * </p>
+	 *
+	 * <p>
+	 * The store is first written to a temporary file which is then moved to the store file in order to never leave a partially written store behind.
+	 * </p>
+	 *
+	 * @throws IOException if there was an error writing the store file
+	 */
+	public synchronized void save() throws IOException {
+		if(!this.dirty) {
+			return;
+		}
+		Files.createDirectories(this.path.getParent());
+		Path tmpPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+		try(OutputStream output = Files.newOutputStream(tmpPath)) {
+			this.fingerprints.store(output, null);
+		}
+		Files.move(tmpPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.dirty = false;
+	}
+}
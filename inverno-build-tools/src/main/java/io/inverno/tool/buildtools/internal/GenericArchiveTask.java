@@ -111,6 +111,20 @@ public class GenericArchiveTask extends AbstractTask<Set<Image>, ArchiveTask> im
 		return this;
 	}
 	
+	@Override
+	protected String getFingerprintKey() {
+		return super.getFingerprintKey() + "." + this.imageType.toString().toLowerCase();
+	}
+
+	@Override
+	protected void fingerprintInputs(BuildProject project, Fingerprint fingerprint) throws IOException {
+		super.fingerprintInputs(project, fingerprint);
+		fingerprint
+			.add(this.imageType.toString())
+			.add(this.prefix.orElse(project.getFinalName()))
+			.add(this.formats.stream().sorted().collect(Collectors.joining(",")));
+	}
+	
 	@Override
 	protected Set<Image> doExecute(BuildProject project, ProgressBar.Step step) throws TaskExecutionException {
 		if(step != null) {
@@ -124,32 +138,48 @@ public class GenericArchiveTask extends AbstractTask<Set<Image>, ArchiveTask> im
 		Path imagePath = project.getImagePath(this.imageType);
 		Map<String, Path> imageArchivesPaths = project.getImageArchivesPaths(this.imageType, this.formats);
 		if(project.isMarked() || project.getDependencies().stream().anyMatch(dependency -> dependency.isMarked()) || 
-				imageArchivesPaths.entrySet().stream().anyMatch(e -> !Files.exists(e.getValue()))) {
+				imageArchivesPaths.entrySet().stream().anyMatch(e -> !Files.exists(e.getValue())) || this.isInputsChanged(project)) {
 			LOGGER.info("[ Creating archives of {}... ]", imagePath);
+			// outputs are sorted by format to be consistently identified in the build cache entry
+			Path[] archivesPaths = imageArchivesPaths.entrySet().stream().sorted(Map.Entry.comparingByKey()).map(Map.Entry::getValue).toArray(Path[]::new);
+			if(this.restoreOutputs(project, archivesPaths)) {
+				this.storeInputsFingerprint(project);
+				return imageArchivesPaths.entrySet().stream()
+					.map(e -> new GenericImage(this.imageType, e.getKey(), e.getValue()))
+					.collect(Collectors.toSet());
+			}
 			
 			List<SingleArchivingTask> archivingTasks = imageArchivesPaths.entrySet().stream().map(e -> new SingleArchivingTask(step, e.getKey(), e.getValue())).collect(Collectors.toList());
 			
-			for(SingleArchivingTask task : archivingTasks) {
-				LOGGER.info(" - {}...", task.getArchivePath());
-				
-				try(ArchiveOutputStream archiveOutput = this.createArchiveOutputStream(task.getFormat(), task.getArchivePath());Stream<Path> walk = Files.walk(imagePath);) {
-					for(Iterator<Path> imageSourcePathIterator = walk.iterator();imageSourcePathIterator.hasNext();) {
-						Path imageSourcePath = imageSourcePathIterator.next();
-						Path imageTargetPath = imagePath.relativize(imageSourcePath);
-						imageTargetPath = Path.of(this.prefix.orElse(project.getFinalName())).resolve(imageTargetPath);
-						ArchiveEntry imageArchiveEntry = this.createArchiveEntry(archiveOutput, imageSourcePath, imageTargetPath);
-						archiveOutput.putArchiveEntry(imageArchiveEntry);
-						if(Files.isRegularFile(imageSourcePath) && !Files.isSymbolicLink(imageTargetPath)) {
-							Files.copy(imageSourcePath, archiveOutput);
+			try(StagingArea stagingArea = this.createStagingArea(project)) {
+				for(SingleArchivingTask task : archivingTasks) {
+					LOGGER.info(" - {}...", task.getArchivePath());
+					
+					try(ArchiveOutputStream archiveOutput = this.createArchiveOutputStream(task.getFormat(), stagingArea.stage(task.getArchivePath()));Stream<Path> walk = Files.walk(imagePath);) {
+						for(Iterator<Path> imageSourcePathIterator = walk.iterator();imageSourcePathIterator.hasNext();) {
+							Path imageSourcePath = imageSourcePathIterator.next();
+							Path imageTargetPath = imagePath.relativize(imageSourcePath);
+							imageTargetPath = Path.of(this.prefix.orElse(project.getFinalName())).resolve(imageTargetPath);
+							ArchiveEntry imageArchiveEntry = this.createArchiveEntry(archiveOutput, imageSourcePath, imageTargetPath);
+							archiveOutput.putArchiveEntry(imageArchiveEntry);
+							if(Files.isRegularFile(imageSourcePath) && !Files.isSymbolicLink(imageTargetPath)) {
+								Files.copy(imageSourcePath, archiveOutput);
+							}
+							archiveOutput.closeArchiveEntry();
 						}
-						archiveOutput.closeArchiveEntry();
+						task.done();
+					} 
+					catch (IOException | ArchiveException | CompressorException e) {
+						throw new TaskExecutionException("Error creating " + task.getFormat() + " archive", e);
 					}
-					task.done();
-				} 
-				catch (IOException | ArchiveException | CompressorException e) {
-					throw new TaskExecutionException("Error creating " + task.getFormat() + " archive", e);
 				}
+				stagingArea.commit();
+			}
+			catch (IOException e) {
+				throw new TaskExecutionException("Error creating archives", e);
 			}
+			this.storeInputsFingerprint(project);
+			this.storeOutputs(project, archivesPaths);
 		}
 		else {
 			LOGGER.info("[ Archives are up to date ]");
@@ -0,0 +1,657 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.BuildDaemon;
+import io.inverno.tool.buildtools.ExecTask;
+import io.inverno.tool.buildtools.ModularizeDependenciesTask;
+import io.inverno.tool.buildtools.Project;
+import io.inverno.tool.buildtools.Task;
+import io.inverno.tool.buildtools.TaskExecutionException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Generic {@link BuildDaemon} implementation.
+ * </p>
+ *
+ * <p>
+ * Tasks created from the daemon are proxies recording configuration method invocations. When a task is executed, the project and the invocations recorded on each task in the chain are sent to the
+ * daemon which replays and executes them, the results of the tasks are sent back to invoke the completion callbacks registered on the client tasks.
+ * </p>
+ *
+ * <p>
+ * A daemon is started in a new JVM using the classpath of the build tools when no daemon is registered in the daemon directory for the build tools classpath and the Java runtime. The startup is
+ * guarded by a file lock so that concurrent builds don't start multiple daemons.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ *
+ * @see BuildDaemonServer
+ */
+public class GenericBuildDaemon implements BuildDaemon {
+
+	private static final Logger LOGGER = LogManager.getLogger(GenericBuildDaemon.class);
+
+	private static final int CONNECT_TIMEOUT = 5000;
+
+	private static final long STARTUP_TIMEOUT = 60000l;
+
+	private static final long POLL_TIMEOUT = 100l;
+
+	private final Path daemonPath;
+
+	private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+	/**
+	 * <p>
+	 * Creates a generic build daemon.
+	 * </p>
+	 *
+	 * @param daemonPath the daemon directory
+	 */
+	public GenericBuildDaemon(Path daemonPath) {
+		this.daemonPath = daemonPath.toAbsolutePath();
+	}
+
+	@Override
+	public BuildDaemon idleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout > 0 ? idleTimeout : DEFAULT_IDLE_TIMEOUT;
+		return this;
+	}
+
+	@Override
+	public ModularizeDependenciesTask modularizeDependencies(Project project) {
+		return (ModularizeDependenciesTask)new GenericBuildDaemon.TaskNode(project, ModularizeDependenciesTask.class, null, null).proxy;
+	}
+
+	/**
+	 * <p>
+	 * Returns the classpath used to start a daemon.
+	 * </p>
+	 *
+	 * @return a list of paths
+	 */
+	private static List<Path> getClasspath() {
+		ClassLoader classLoader = GenericBuildDaemon.class.getClassLoader();
+		if(classLoader instanceof URLClassLoader) {
+			// e.g. Maven plugin class realm
+			List<Path> classpath = new ArrayList<>();
+			for(URL url : ((URLClassLoader)classLoader).getURLs()) {
+				try {
+					classpath.add(Path.of(url.toURI()));
+				}
+				catch(URISyntaxException | IllegalArgumentException e) {
+					LOGGER.warn("Ignoring classpath entry {}", url);
+				}
+			}
+			return classpath;
+		}
+		return Stream.of(System.getProperty("java.class.path", ""), System.getProperty("jdk.module.path", ""))
+			.flatMap(path -> Arrays.stream(path.split(File.pathSeparator)))
+			.filter(entry -> !entry.isBlank())
+			.map(Path::of)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * <p>
+	 * Returns the path to the registry file of the daemon compatible with the build tools classpath and the current Java runtime.
+	 * </p>
+	 *
+	 * @param daemonPath the daemon directory
+	 *
+	 * @return the path to the registry file
+	 *
+	 * @throws IOException if there was an error reading classpath entries
+	 */
+	static Path getRegistryPath(Path daemonPath) throws IOException {
+		return daemonPath.toAbsolutePath().resolve(getDaemonId(getClasspath()) + ".properties");
+	}
+
+	/**
+	 * <p>
+	 * Returns the identifier of the daemon compatible with the specified classpath and the current Java runtime.
+	 * </p>
+	 *
+	 * @param classpath the classpath
+	 *
+	 * @return a daemon identifier
+	 *
+	 * @throws IOException if there was an error reading classpath entries
+	 */
+	private static String getDaemonId(List<Path> classpath) throws IOException {
+		Fingerprint fingerprint = new Fingerprint()
+			.add(Integer.toString(BuildDaemonProtocol.VERSION))
+			.add(AbstractExecTask.JAVA)
+			.add(Runtime.version().toString());
+		for(Path entry : classpath) {
+			fingerprint.addAttributes(entry);
+		}
+		return "daemon-" + fingerprint.get().substring(0, 16);
+	}
+
+	/**
+	 * <p>
+	 * Executes the chain of tasks ending with the specified task in the daemon.
+	 * </p>
+	 *
+	 * @param task the last task in the chain
+	 *
+	 * @return the task result
+	 *
+	 * @throws TaskExecutionException if there was an error executing the tasks
+	 */
+	private Object execute(GenericBuildDaemon.TaskNode task) throws TaskExecutionException {
+		try(GenericBuildDaemon.Connection connection = this.connect()) {
+			return this.execute(connection, task);
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error executing tasks in build daemon, please consult " + this.getLogPath() + " for more details", e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Executes the chain of tasks ending with the specified task asynchronously in the daemon.
+	 * </p>
+	 *
+	 * <p>
+	 * Cancelling the returned future closes the connection which cancels the execution in the daemon.
+	 * </p>
+	 *
+	 * @param task the last task in the chain
+	 *
+	 * @return a future completing with the task result
+	 */
+	private CompletableFuture<Object> executeAsync(GenericBuildDaemon.TaskNode task) {
+		GenericBuildDaemon.ExecutionFuture future = new GenericBuildDaemon.ExecutionFuture();
+		Thread worker = new Thread(LoggingContext.propagate(() -> {
+			try(GenericBuildDaemon.Connection connection = this.connect()) {
+				future.connection = connection;
+				if(!future.isCancelled()) {
+					future.complete(this.execute(connection, task));
+				}
+			}
+			catch(IOException e) {
+				future.completeExceptionally(new TaskExecutionException("Error executing tasks in build daemon, please consult " + this.getLogPath() + " for more details", e));
+			}
+			catch(Throwable e) {
+				future.completeExceptionally(e);
+			}
+		}), "inverno-daemon-client");
+		worker.start();
+		return future;
+	}
+
+	/**
+	 * <p>
+	 * Sends the chain of tasks ending with the specified task to the daemon and waits for the execution to complete.
+	 * </p>
+	 *
+	 * @param connection the daemon connection
+	 * @param task       the last task in the chain
+	 *
+	 * @return the task result
+	 *
+	 * @throws IOException            if there was an error communicating with the daemon
+	 * @throws TaskExecutionException if there was an error executing the tasks
+	 */
+	private Object execute(GenericBuildDaemon.Connection connection, GenericBuildDaemon.TaskNode task) throws IOException, TaskExecutionException {
+		LinkedList<GenericBuildDaemon.TaskNode> chain = new LinkedList<>();
+		for(GenericBuildDaemon.TaskNode current = task; current != null; current = current.parent) {
+			chain.addFirst(current);
+		}
+		Project project = chain.getFirst().project;
+
+		// The request is encoded first to report unsupported configuration before sending anything
+		ByteArrayOutputStream request = new ByteArrayOutputStream();
+		try {
+			DataOutputStream requestOutput = new DataOutputStream(request);
+			// Paths are resolved against the build working directory which is not the one of the daemon
+			BuildDaemonProtocol.writeValue(requestOutput, project.getTargetPath().toAbsolutePath(), Path.class);
+			BuildDaemonProtocol.writeValue(requestOutput, project.getWorkingPath().toAbsolutePath(), Path.class);
+			BuildDaemonProtocol.writeValue(requestOutput, project.getGroup(), String.class);
+			BuildDaemonProtocol.writeValue(requestOutput, project.getName(), String.class);
+			BuildDaemonProtocol.writeValue(requestOutput, project.getVersion(), String.class);
+			BuildDaemonProtocol.writeValue(requestOutput, project.getFinalName(), String.class);
+			BuildDaemonProtocol.writeValue(requestOutput, project.getClassesPath().toAbsolutePath(), Path.class);
+			BuildDaemonProtocol.writeValue(requestOutput, project.getDependencies(), Project.class.getMethod("getDependencies").getGenericReturnType());
+
+			requestOutput.writeInt(chain.size());
+			for(GenericBuildDaemon.TaskNode node : chain) {
+				requestOutput.writeUTF(node.taskType.getName());
+				if(node.parent != null) {
+					requestOutput.writeUTF(node.factoryMethodName);
+				}
+				requestOutput.writeInt(node.invocations.size());
+				for(GenericBuildDaemon.Invocation invocation : node.invocations) {
+					requestOutput.writeUTF(invocation.method.getName());
+					Class<?>[] parameterTypes = invocation.method.getParameterTypes();
+					Type[] genericParameterTypes = invocation.method.getGenericParameterTypes();
+					requestOutput.writeInt(parameterTypes.length);
+					for(Class<?> parameterType : parameterTypes) {
+						requestOutput.writeUTF(parameterType.getName());
+					}
+					for(int i=0;i<parameterTypes.length;i++) {
+						BuildDaemonProtocol.writeValue(requestOutput, invocation.args[i], genericParameterTypes[i]);
+					}
+				}
+			}
+		}
+		catch(IllegalArgumentException | NoSuchMethodException e) {
+			throw new TaskExecutionException("Tasks configuration can't be sent to build daemon", e);
+		}
+		request.writeTo(connection.output);
+		connection.output.flush();
+
+		LOGGER.info("[ Executing tasks in build daemon, logs are written to {} ]", this.getLogPath());
+
+		Object[] results = new Object[chain.size()];
+		List<Integer> completedTaskIndexes = new ArrayList<>();
+		while(true) {
+			byte message = connection.input.readByte();
+			switch(message) {
+				case BuildDaemonProtocol.MESSAGE_RESULT: {
+					int taskIndex = connection.input.readInt();
+					results[taskIndex] = BuildDaemonProtocol.readValue(connection.input);
+					completedTaskIndexes.add(taskIndex);
+					break;
+				}
+				case BuildDaemonProtocol.MESSAGE_COMPLETE: {
+					for(int taskIndex : completedTaskIndexes) {
+						GenericBuildDaemon.TaskNode node = chain.get(taskIndex);
+						if(node.onComplete != null) {
+							node.onComplete.accept(results[taskIndex]);
+						}
+					}
+					return results[chain.size() - 1];
+				}
+				case BuildDaemonProtocol.MESSAGE_ERROR: {
+					BuildDaemonProtocol.RemoteException error = BuildDaemonProtocol.readThrowable(connection.input);
+					throw new TaskExecutionException(error.getClassName().equals(TaskExecutionException.class.getName()) ? error.getMessage() : error.toString(), error);
+				}
+				default: throw new IOException("Invalid build daemon message: " + message);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the path to the daemon log file.
+	 * </p>
+	 *
+	 * @return the path to the log file
+	 */
+	private Path getLogPath() {
+		try {
+			return this.daemonPath.resolve(getDaemonId(getClasspath()) + ".log");
+		}
+		catch(IOException e) {
+			return this.daemonPath;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Connects to the daemon, starting a daemon if none is running.
+	 * </p>
+	 *
+	 * @return a daemon connection
+	 *
+	 * @throws IOException if there was an error connecting to or starting the daemon
+	 */
+	private GenericBuildDaemon.Connection connect() throws IOException {
+		List<Path> classpath = getClasspath();
+		String daemonId = getDaemonId(classpath);
+		Path registryPath = this.daemonPath.resolve(daemonId + ".properties");
+
+		Optional<GenericBuildDaemon.Connection> connection = tryConnect(registryPath);
+		if(connection.isPresent()) {
+			return connection.get();
+		}
+
+		Files.createDirectories(this.daemonPath);
+		try(FileChannel lockChannel = FileChannel.open(this.daemonPath.resolve(daemonId + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			FileLock lock = lockChannel.lock();
+			try {
+				// Another build might have started the daemon in the meantime
+				connection = tryConnect(registryPath);
+				if(connection.isPresent()) {
+					return connection.get();
+				}
+
+				Path logPath = this.daemonPath.resolve(daemonId + ".log");
+				List<String> daemon_command = new ArrayList<>();
+				// The daemon must survive the build process: on POSIX systems, it is started in its own session so it is not interrupted along with the build
+				getSetsidCommand().ifPresent(setsid -> daemon_command.add(setsid.toString()));
+				daemon_command.add(AbstractExecTask.JAVA);
+				daemon_command.add("-Dorg.apache.logging.log4j.level=INFO");
+				daemon_command.add("-cp");
+				daemon_command.add(classpath.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator)));
+				daemon_command.add(BuildDaemonServer.class.getName());
+				daemon_command.add(registryPath.toString());
+				daemon_command.add(Long.toString(this.idleTimeout));
+
+				LOGGER.info("[ Starting build daemon... ]");
+				LOGGER.info(" - {}", daemon_command.stream().collect(Collectors.joining(" ")));
+
+				Process daemon = new ProcessBuilder(daemon_command)
+					.redirectInput(ProcessBuilder.Redirect.from(new File(Platform.getSystemPlatform() == Platform.WINDOWS ? "NUL" : "/dev/null")))
+					.redirectErrorStream(true)
+					.redirectOutput(ProcessBuilder.Redirect.appendTo(logPath.toFile()))
+					.start();
+
+				for(long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;System.currentTimeMillis() < deadline;) {
+					try {
+						Thread.sleep(POLL_TIMEOUT);
+					}
+					catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException("Interrupted while waiting for build daemon startup");
+					}
+					connection = tryConnect(registryPath);
+					if(connection.isPresent()) {
+						return connection.get();
+					}
+					if(!daemon.isAlive()) {
+						throw new IOException("Build daemon exited: exit(" + daemon.exitValue() + ")");
+					}
+				}
+				daemon.destroy();
+				throw new IOException("Build daemon startup timeout exceeded");
+			}
+			finally {
+				lock.release();
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@code setsid} command used to start the daemon in a new session detached from the build process group and controlling terminal.
+	 * </p>
+	 *
+	 * @return an optional returning the path to the setsid command or an empty optional if it is not available on the system
+	 */
+	private static Optional<Path> getSetsidCommand() {
+		if(Platform.getSystemPlatform() == Platform.WINDOWS) {
+			return Optional.empty();
+		}
+		return Stream.of("/usr/bin/setsid", "/bin/setsid")
+			.map(Path::of)
+			.filter(Files::isExecutable)
+			.findFirst();
+	}
+
+	/**
+	 * <p>
+	 * Tries to connect to the daemon advertised in the specified registry file.
+	 * </p>
+	 *
+	 * @param registryPath the path to the registry file
+	 *
+	 * @return an optional returning a daemon connection or an empty optional if the daemon is not running or if it rejected the connection
+	 */
+	private static Optional<GenericBuildDaemon.Connection> tryConnect(Path registryPath) {
+		if(!Files.exists(registryPath)) {
+			return Optional.empty();
+		}
+		Socket socket = new Socket();
+		try {
+			Properties registry = new Properties();
+			try(InputStream input = Files.newInputStream(registryPath)) {
+				registry.load(input);
+			}
+			socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(registry.getProperty("port"))), CONNECT_TIMEOUT);
+			socket.setSoTimeout(CONNECT_TIMEOUT);
+
+			GenericBuildDaemon.Connection connection = new GenericBuildDaemon.Connection(socket);
+			connection.output.writeUTF(registry.getProperty("token"));
+			connection.output.writeInt(BuildDaemonProtocol.VERSION);
+			connection.output.flush();
+			if(connection.input.readByte() != BuildDaemonProtocol.MESSAGE_ACCEPT) {
+				socket.close();
+				return Optional.empty();
+			}
+			socket.setSoTimeout(0);
+			return Optional.of(connection);
+		}
+		catch(IOException | RuntimeException e) {
+			// stale or invalid registry
+			try {
+				socket.close();
+			}
+			catch(IOException e1) {
+				// ignore
+			}
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * <p>
+	 * A connection to a daemon.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private static class Connection implements Closeable {
+
+		private final Socket socket;
+		private final DataInputStream input;
+		private final DataOutputStream output;
+
+		/**
+		 * <p>
+		 * Creates a daemon connection.
+		 * </p>
+		 *
+		 * @param socket the connected socket
+		 *
+		 * @throws IOException if there was an error opening socket streams
+		 */
+		public Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.socket.close();
+		}
+	}
+
+	/**
+	 * <p>
+	 * The future returned when executing tasks asynchronously in the daemon.
+	 * </p>
+	 *
+	 * <p>
+	 * Cancelling the future closes the daemon connection.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private static class ExecutionFuture extends CompletableFuture<Object> {
+
+		private volatile GenericBuildDaemon.Connection connection;
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			GenericBuildDaemon.Connection currentConnection = this.connection;
+			if(cancelled && currentConnection != null) {
+				try {
+					currentConnection.close();
+				}
+				catch(IOException e) {
+					LOGGER.warn("Error closing build daemon connection", e);
+				}
+			}
+			return cancelled;
+		}
+	}
+
+	/**
+	 * <p>
+	 * A task configuration method invocation.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private static class Invocation {
+
+		private final Method method;
+		private final Object[] args;
+
+		/**
+		 * <p>
+		 * Creates a task configuration method invocation.
+		 * </p>
+		 *
+		 * @param method the configuration method
+		 * @param args   the method arguments
+		 */
+		public Invocation(Method method, Object[] args) {
+			this.method = method;
+			this.args = args != null ? args : new Object[0];
+		}
+	}
+
+	/**
+	 * <p>
+	 * A task executed in the daemon.
+	 * </p>
+	 *
+	 * <p>
+	 * A task node records the configuration method invocations done on its proxy, executing the proxy executes the chain of tasks in the daemon.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private class TaskNode implements InvocationHandler {
+
+		private final Project project;
+		private final Class<?> taskType;
+		private final GenericBuildDaemon.TaskNode parent;
+		private final String factoryMethodName;
+		private final List<GenericBuildDaemon.Invocation> invocations;
+		private final Object proxy;
+
+		private Consumer<Object> onComplete;
+
+		/**
+		 * <p>
+		 * Creates a task node.
+		 * </p>
+		 *
+		 * @param project           the project
+		 * @param taskType          the task interface
+		 * @param parent            the parent task or null if the task is a root task
+		 * @param factoryMethodName the name of the parent task method creating the task or null if the task is a root task
+		 */
+		public TaskNode(Project project, Class<?> taskType, GenericBuildDaemon.TaskNode parent, String factoryMethodName) {
+			this.project = project;
+			this.taskType = taskType;
+			this.parent = parent;
+			this.factoryMethodName = factoryMethodName;
+			this.invocations = new ArrayList<>();
+			this.proxy = Proxy.newProxyInstance(taskType.getClassLoader(), new Class<?>[] { taskType }, this);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if(method.getDeclaringClass() == Object.class) {
+				switch(method.getName()) {
+					case "equals": return proxy == args[0];
+					case "hashCode": return System.identityHashCode(proxy);
+					default: return "BuildDaemon" + this.taskType.getSimpleName();
+				}
+			}
+			if(method.getDeclaringClass() == Task.class) {
+				switch(method.getName()) {
+					case "doOnComplete": {
+						Consumer<Object> consumer = (Consumer<Object>)args[0];
+						this.onComplete = this.onComplete != null ? this.onComplete.andThen(consumer) : consumer;
+						return proxy;
+					}
+					case "execute": return GenericBuildDaemon.this.execute(this);
+					case "executeAsync": return GenericBuildDaemon.this.executeAsync(this);
+				}
+			}
+			if(method.isDefault()) {
+				return InvocationHandler.invokeDefault(proxy, method, args);
+			}
+
+			Class<?> returnType = method.getReturnType();
+			if(method.getParameterCount() == 0 && Task.class.isAssignableFrom(returnType) && !returnType.isAssignableFrom(this.taskType)) {
+				if(ExecTask.class.isAssignableFrom(returnType)) {
+					throw new UnsupportedOperationException(returnType.getSimpleName() + " can't be executed in a build daemon");
+				}
+				return new GenericBuildDaemon.TaskNode(this.project, returnType, this, method.getName()).proxy;
+			}
+			if(returnType.isAssignableFrom(this.taskType)) {
+				this.invocations.add(new GenericBuildDaemon.Invocation(method, args));
+				return proxy;
+			}
+			throw new UnsupportedOperationException(method.toString());
+		}
+	}
+}
@@ -19,7 +19,6 @@ import io.inverno.tool.buildtools.BuildJmodTask;
 import io.inverno.tool.buildtools.BuildRuntimeTask;
 import io.inverno.tool.buildtools.TaskExecutionException;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedList;
@@ -27,10 +26,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.io.IoBuilder;
 
 /**
  * <p>
@@ -48,16 +45,6 @@ public class GenericBuildJmodTask extends AbstractTask<Path, BuildJmodTask> impl
 	
 	private static final Logger LOGGER = LogManager.getLogger(GenericBuildJmodTask.class);
 	
-	private static final PrintStream OUT = IoBuilder.forLogger(LOGGER)
-			.setLevel(Level.INFO)
-			.setAutoFlush(true)
-			.buildPrintStream();
-	
-	private static final PrintStream ERR = IoBuilder.forLogger(LOGGER)
-			.setLevel(Level.ERROR)
-			.setAutoFlush(true)
-			.buildPrintStream();
-
 	private String mainClass;
 	private boolean resolveMainClass;
 	private Path configurationPath;
@@ -114,17 +101,45 @@ public class GenericBuildJmodTask extends AbstractTask<Path, BuildJmodTask> impl
 		this.manPath = manPath;
 		return this;
 	}
+	
+	@Override
+	protected void fingerprintInputs(BuildProject project, Fingerprint fingerprint) throws IOException {
+		// The project JMOD doesn't depend on the outputs of the parent task, project classes are tracked by the project classes snapshot
+		fingerprint
+			.add(project.getModuleName())
+			.add(project.getModuleVersion())
+			.add(this.mainClass)
+			.add(Boolean.toString(this.resolveMainClass))
+			.addAttributes(this.configurationPath)
+			.addAttributes(this.legalPath)
+			.addAttributes(this.manPath);
+		if(fingerprint.isPortable()) {
+			// project classes are otherwise tracked by the project classes snapshot
+			fingerprint.addAttributes(project.getClassesPath());
+		}
+	}
+
+	@Override
+	protected String getOutputsFingerprint(BuildProject project, boolean portable) throws IOException {
+		// The project JMOD is not created again when project classes are regenerated with the same content
+		Fingerprint fingerprint = new Fingerprint(portable);
+		super.fingerprintInputs(project, fingerprint);
+		return fingerprint.addAttributes(project.getModulePath()).get();
+	}
 
 	@Override
 	protected Path doExecute(BuildProject project, ProgressBar.Step step) throws TaskExecutionException {
 		if(step != null) {
 			step.setDescription("Creating project jmod...");
 		}
-		if(project.isMarked()) {
+		if(project.isMarked() || this.isInputsChanged(project)) {
 			LOGGER.info("[ Creating project jmod {}... ]", project.getModulePath());
 			try {
-				Files.deleteIfExists(project.getModulePath());
-				
+				if(this.restoreOutputs(project, project.getModulePath())) {
+					project.storeClassesSnapshot();
+					this.storeInputsFingerprint(project);
+					return project.getModulePath();
+				}
 				List<String> jmod_args = new LinkedList<>();
 				
 				jmod_args.add("create");
@@ -162,7 +177,7 @@ public class GenericBuildJmodTask extends AbstractTask<Path, BuildJmodTask> impl
 							throw new TaskExecutionException("Project module " + project.getModuleName() + " defines multipled main classes: " + mainClasses.stream().collect(Collectors.joining(", ")) + ". Please specifies one explicitly");
 						}
 					} 
-					catch (ClassNotFoundException | IOException e) {
+					catch (IOException e) {
 						LOGGER.warn("Could not find project main class", e);
 					}
 				}
@@ -170,19 +185,25 @@ public class GenericBuildJmodTask extends AbstractTask<Path, BuildJmodTask> impl
 					try {
 						project.setDefaultMainClass(resolvedMainClass);
 					}
-					catch (ClassNotFoundException | IOException | IllegalArgumentException e) {
+					catch (IOException | IllegalArgumentException e) {
 						throw new TaskExecutionException("Could not resolve project main class", e);
 					}
 					jmod_args.add("--main-class");
 					jmod_args.add(resolvedMainClass);
 				}
 				
-				jmod_args.add(project.getModulePath().toString());
-				
-				LOGGER.info(" - jmod {}", jmod_args.stream().collect(Collectors.joining(" ")));
-				if(JavaTools.JMOD.run(OUT, ERR, jmod_args.stream().toArray(String[]::new)) != 0) {
-					throw new TaskExecutionException("Error creating project jmod");
+				try(StagingArea stagingArea = this.createStagingArea(project)) {
+					jmod_args.add(stagingArea.stage(project.getModulePath()).toString());
+					
+					LOGGER.info(" - jmod {}", jmod_args.stream().collect(Collectors.joining(" ")));
+					if(JavaTools.run(JavaTools.JMOD, LOGGER, jmod_args.stream().toArray(String[]::new)) != 0) {
+						throw new TaskExecutionException("Error creating project jmod");
+					}
+					stagingArea.commit();
 				}
+				project.storeClassesSnapshot();
+				this.storeInputsFingerprint(project);
+				this.storeOutputs(project, project.getModulePath());
 			} 
 			catch (IOException e) {
 				throw new TaskExecutionException("Error creating project jmod", e);
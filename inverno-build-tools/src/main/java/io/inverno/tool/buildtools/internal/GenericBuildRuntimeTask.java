@@ -19,25 +19,32 @@ import io.inverno.tool.buildtools.ArchiveTask;
 import io.inverno.tool.buildtools.BuildRuntimeTask;
 import io.inverno.tool.buildtools.Image;
 import io.inverno.tool.buildtools.TaskExecutionException;
+import io.inverno.tool.buildtools.TrainRuntimeTask;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.module.Configuration;
+import java.lang.module.FindException;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ResolutionException;
+import java.lang.module.ResolvedModule;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.io.IoBuilder;
 import io.inverno.tool.buildtools.PackageApplicationTask;
 
 /**
@@ -48,6 +55,11 @@ import io.inverno.tool.buildtools.PackageApplicationTask;
  * <p>
  * This implementation relies on JDK's {@code jlink} tool to generate the runtime image from the project module JMOD and previously modularized project dependencies. 
  * </p>
+ * 
+ * <p>
+ * When creating a layered runtime image, {@code jlink} is only used to link the required JDK's modules in a cached base image, the project modular JAR is created from the project classes with the
+ * JDK's {@code jar} tool.
+ * </p>
  *
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.4
@@ -56,15 +68,15 @@ public class GenericBuildRuntimeTask extends AbstractTask<Image, BuildRuntimeTas
 
 	private static final Logger LOGGER = LogManager.getLogger(GenericBuildRuntimeTask.class);
 	
-	private static final PrintStream OUT = IoBuilder.forLogger(LOGGER)
-			.setLevel(Level.INFO)
-			.setAutoFlush(true)
-			.buildPrintStream();
+	/**
+	 * The directory containing the application modules in a layered runtime image.
+	 */
+	static final String LAYERED_MODULES_DIRECTORY = "app";
 	
-	private static final PrintStream ERR = IoBuilder.forLogger(LOGGER)
-			.setLevel(Level.ERROR)
-			.setAutoFlush(true)
-			.buildPrintStream();
+	/**
+	 * The path to the AppCDS archive in a runtime image.
+	 */
+	static final String APPCDS_ARCHIVE = "lib/app.jsa";
 	
 	private Optional<String> addModules = Optional.empty();
 	private Optional<String> addOptions = Optional.empty();
@@ -76,6 +88,13 @@ public class GenericBuildRuntimeTask extends AbstractTask<Image, BuildRuntimeTas
 	private Optional<String> vm = Optional.empty();
 	private List<? extends Launcher> launchers = List.of();
 	private boolean addUnnamedModules = true;
+	private boolean layered;
+	private boolean minimizeModules;
+	private boolean keepAddedModules;
+	private boolean appCds;
+	private Optional<String> appCdsTrainingArguments = Optional.empty();
+	private long appCdsTrainingTimeout = 60000;
+	private boolean profileGuided;
 	
 	/**
 	 * <p>
@@ -158,6 +177,78 @@ public class GenericBuildRuntimeTask extends AbstractTask<Image, BuildRuntimeTas
 		return this;
 	}
 	
+	@Override
+	public BuildRuntimeTask layered(boolean layered) {
+		this.layered = layered;
+		return this;
+	}
+	
+	@Override
+	public BuildRuntimeTask minimizeModules(boolean minimizeModules) {
+		this.minimizeModules = minimizeModules;
+		return this;
+	}
+	
+	@Override
+	public BuildRuntimeTask keepAddedModules(boolean keepAddedModules) {
+		this.keepAddedModules = keepAddedModules;
+		return this;
+	}
+	
+	@Override
+	public BuildRuntimeTask appCds(boolean appCds) {
+		this.appCds = appCds;
+		return this;
+	}
+	
+	@Override
+	public BuildRuntimeTask appCdsTrainingArguments(String appCdsTrainingArguments) {
+		this.appCdsTrainingArguments = Optional.ofNullable(appCdsTrainingArguments);
+		return this;
+	}
+	
+	@Override
+	public BuildRuntimeTask appCdsTrainingTimeout(long appCdsTrainingTimeout) {
+		this.appCdsTrainingTimeout = appCdsTrainingTimeout;
+		return this;
+	}
+	
+	@Override
+	public BuildRuntimeTask profileGuided(boolean profileGuided) {
+		this.profileGuided = profileGuided;
+		return this;
+	}
+	
+	@Override
+	protected void fingerprintInputs(BuildProject project, Fingerprint fingerprint) throws IOException {
+		super.fingerprintInputs(project, fingerprint);
+		fingerprint
+			.add(System.getProperty("java.home"))
+			.add(Runtime.version().toString())
+			.add(this.addModules.orElse(null))
+			.add(this.addOptions.orElse(null))
+			.add(this.compress.orElse(null))
+			.add(Boolean.toString(this.bindServices))
+			.add(Boolean.toString(this.ignoreSigningInformation))
+			.add(Boolean.toString(this.stripDebug))
+			.add(Boolean.toString(this.stripNativeCommands))
+			.add(this.vm.orElse(null))
+			.add(Boolean.toString(this.addUnnamedModules))
+			.add(Boolean.toString(this.layered))
+			.add(Boolean.toString(this.minimizeModules))
+			.add(Boolean.toString(this.keepAddedModules))
+			.add(Boolean.toString(this.appCds))
+			.add(this.appCdsTrainingArguments.orElse(null))
+			.add(Long.toString(this.appCdsTrainingTimeout))
+			.add(Boolean.toString(this.profileGuided));
+		for(Launcher launcher : this.launchers) {
+			fingerprint
+				.add(launcher.getName())
+				.add(launcher.getModule().orElse(null))
+				.add(launcher.getMainClass().orElse(null));
+		}
+	}
+	
 	@Override
 	protected Image doExecute(BuildProject project, ProgressBar.Step step) throws TaskExecutionException {
 		if(step != null) {
@@ -165,108 +256,843 @@ public class GenericBuildRuntimeTask extends AbstractTask<Image, BuildRuntimeTas
 		}
 
 		Path runtimeImagePath = project.getImagePath(ImageType.RUNTIME);
-		if(project.isMarked() || project.getDependencies().stream().anyMatch(dependency -> dependency.isMarked()) || !Files.exists(runtimeImagePath)) {
-			LOGGER.info("[ Creating project runtime {}... ]", runtimeImagePath);
-			if(Files.exists(runtimeImagePath)) {
-				try (Stream<Path> walk = Files.walk(runtimeImagePath)) {
-					for(Iterator<Path> pathIterator = walk.sorted(Comparator.reverseOrder()).iterator(); pathIterator.hasNext();) {
-						Files.delete(pathIterator.next());
-					}
+		if(project.isMarked() || project.getDependencies().stream().anyMatch(dependency -> dependency.isMarked()) || !Files.exists(runtimeImagePath) || this.isInputsChanged(project)) {
+			if(this.layered) {
+				LOGGER.info("[ Creating layered project runtime {}... ]", runtimeImagePath);
+				if(this.appCds) {
+					LOGGER.warn(" - AppCDS archive is not created for a layered runtime");
 				}
-				catch (IOException e) {
-					throw new TaskExecutionException("Error cleaning project runtime", e);
+				if(this.profileGuided) {
+					LOGGER.warn(" - profile-guided linking is not applied to a layered runtime");
 				}
+				this.createLayeredRuntime(project, runtimeImagePath);
+				this.storeInputsFingerprint(project);
+				return new GenericImage(ImageType.RUNTIME, null, runtimeImagePath);
 			}
-			
-			List<String> jlink_args = new LinkedList<>();
+			LOGGER.info("[ Creating project runtime {}... ]", runtimeImagePath);
+			if(this.restoreOutputs(project, runtimeImagePath)) {
+				this.storeInputsFingerprint(project);
+				return new GenericImage(ImageType.RUNTIME, null, runtimeImagePath);
+			}
+			// JDK's modules are resolved once for the training and the final runtime images, they are only passed to jlink when they must be limited
+			Set<String> resolvedJdkModules = this.getJdkModules(project);
+			Optional<Set<String>> jdkModules = this.minimizeModules ? Optional.of(resolvedJdkModules) : Optional.empty();
+			try(StagingArea stagingArea = this.createStagingArea(project)) {
+				Path stagedRuntimeImagePath = stagingArea.stage(runtimeImagePath);
+				List<String> profileOptions = this.profileGuided ? this.getProfileOptions(project, stagingArea, stagedRuntimeImagePath, jdkModules) : List.of();
+				this.createRuntime(project, stagedRuntimeImagePath, jdkModules, profileOptions, false);
+				if(this.appCds) {
+					this.createAppCdsArchive(project, stagedRuntimeImagePath);
+				}
+				stagingArea.commit();
+			}
+			catch (IOException e) {
+				throw new TaskExecutionException("Error creating project runtime", e);
+			}
+			this.storeInputsFingerprint(project);
+			this.storeOutputs(project, runtimeImagePath);
+		}
+		else {
+			LOGGER.info("[ Project runtime is up to date ]");
+		}
+		return new GenericImage(ImageType.RUNTIME, null, runtimeImagePath);
+	}
+	
+	/**
+	 * <p>
+	 * Creates the project runtime image with {@code jlink}.
+	 * </p>
+	 * 
+	 * @param project          the build project
+	 * @param runtimeImagePath the path where the runtime image must be created
+	 * @param jdkModules       an optional returning the JDK's modules to link or an empty optional to let jlink resolve them
+	 * @param profileOptions   the profile-guided jlink options
+	 * @param training         true to create a runtime image used for a training run, false otherwise
+	 * 
+	 * @throws TaskExecutionException if there was an error creating the runtime image
+	 */
+	private void createRuntime(BuildProject project, Path runtimeImagePath, Optional<Set<String>> jdkModules, List<String> profileOptions, boolean training) throws TaskExecutionException {
+		List<String> jlink_args = new LinkedList<>();
 
-			jlink_args.add("--verbose");
-			this.launchers.stream()
-				.map(launcher -> {
-					StringBuilder launcherString = new StringBuilder();
-					launcherString.append(launcher.getName()).append("=").append(launcher.getModule().orElse(project.getModuleName()));
-					launcher.getMainClass().ifPresent(mainClass -> launcherString.append("/").append(mainClass));
-					return launcherString.toString();
-				})
-				.forEach(moduleMain -> {
-					jlink_args.add("--launcher");
-					jlink_args.add(moduleMain);
-				});
-			
-			this.compress.ifPresent(value -> {
-				jlink_args.add("--compress=" + value);
+		jlink_args.add("--verbose");
+		this.launchers.stream()
+			.map(launcher -> {
+				StringBuilder launcherString = new StringBuilder();
+				launcherString.append(launcher.getName()).append("=").append(launcher.getModule().orElse(project.getModuleName()));
+				launcher.getMainClass().ifPresent(mainClass -> launcherString.append("/").append(mainClass));
+				return launcherString.toString();
+			})
+			.forEach(moduleMain -> {
+				jlink_args.add("--launcher");
+				jlink_args.add(moduleMain);
 			});
-			if(this.bindServices) {
-				jlink_args.add("--bind-services");
+		
+		this.compress.ifPresent(value -> {
+			jlink_args.add("--compress=" + value);
+		});
+		if(this.bindServices && !this.minimizeModules) {
+			jlink_args.add("--bind-services");
+		}
+		if(this.ignoreSigningInformation) {
+			jlink_args.add("--ignore-signing-information");
+		}
+		
+		if(this.stripDebug) {
+			jlink_args.add("--strip-debug");
+		}
+		// the java command is required to run the trainings
+		if(this.stripNativeCommands && this.launchers.isEmpty() && !this.appCds && !training) {
+			jlink_args.add("--strip-native-commands");
+		}
+		if(this.appCds && !training) {
+			// a dynamic archive is layered on top of the default CDS archive
+			jlink_args.add("--generate-cds-archive");
+		}
+		this.vm.ifPresent(value -> {
+			jlink_args.add("--vm");
+			jlink_args.add(value);
+		});
+		
+		String javaModulePath = Path.of(System.getProperty("java.home"), "jmods").toAbsolutePath().toString();
+		String dependenciesModulePath = project.getDependencies().stream().map(dependencyModule -> dependencyModule.getModulePath().toString()).collect(Collectors.joining(System.getProperty("path.separator")));
+		String projectJmodPath = project.getModulePath().toString();
+		
+		String jlink_modulePath = String.join(System.getProperty("path.separator"), javaModulePath, dependenciesModulePath, projectJmodPath);
+		
+		jlink_args.add("--module-path");
+		jlink_args.add(jlink_modulePath);
+		
+		Set<String> modules = this.getModules(project);
+		jdkModules.ifPresent(value -> {
+			// only link the specified JDK's modules
+			ModuleFinder systemModuleFinder = ModuleFinder.ofSystem();
+			modules.removeIf(module -> systemModuleFinder.find(module).isPresent());
+			modules.addAll(value);
+		});
+		
+		jlink_args.add("--add-modules");
+		jlink_args.add(modules.stream().collect(Collectors.joining(",")));
+		
+		jlink_args.add("--limit-modules");
+		jlink_args.add(modules.stream().collect(Collectors.joining(",")));
+		
+		jlink_args.add("--output");
+		jlink_args.add(runtimeImagePath.toString());
+		
+		this.getOptions(project).ifPresent(options -> {
+			jlink_args.add("--add-options");
+			jlink_args.add(options);
+		});
+		
+		jlink_args.addAll(profileOptions);
+		
+		LOGGER.info(" - jlink {}", jlink_args.stream().collect(Collectors.joining(" ")));
+		
+		ToolThrottle.Permit permit = project.acquireToolPermit(ToolThrottle.JLINK);
+		try {
+			if(JavaTools.run(JavaTools.JLINK, LOGGER, jlink_args.stream().toArray(String[]::new)) != 0) {
+				throw new TaskExecutionException("Error creating project runtime");
 			}
-			if(this.ignoreSigningInformation) {
-				jlink_args.add("--ignore-signing-information");
+		}
+		finally {
+			permit.close();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@code jlink} options ordering resources and pre-generating lambda form classes from the classes loaded during a training run of the project.
+	 * </p>
+	 * 
+	 * <p>
+	 * The class list is recorded with {@code -XX:DumpLoadedClassList} by running the first launcher, or the project module default main class if no launcher was specified, with the training
+	 * arguments in a runtime image linked in the specified path. It is cached in the project working directory along with the fingerprint of the JDK, the project classes, the dependencies and the
+	 * training command so that subsequent links don't require a new training run as long as they are unchanged.
+	 * </p>
+	 * 
+	 * @param project                the build project
+	 * @param stagingArea            the staging area where the runtime image is created
+	 * @param stagedRuntimeImagePath the path where the runtime image used for the training run must be created
+	 * @param jdkModules             an optional returning the JDK's modules to link or an empty optional to let jlink resolve them
+	 * 
+	 * @return a list of jlink options
+	 * 
+	 * @throws TaskExecutionException if there was an error recording the class list
+	 */
+	private List<String> getProfileOptions(BuildProject project, StagingArea stagingArea, Path stagedRuntimeImagePath, Optional<Set<String>> jdkModules) throws TaskExecutionException {
+		String moduleMain = TrainingRun.getModuleMain(project, !this.launchers.isEmpty() ? this.launchers.getFirst() : null);
+		List<String> trainingArguments = this.getTrainingArguments();
+		try {
+			Fingerprint classListFingerprint = new Fingerprint()
+				.add(System.getProperty("java.home"))
+				.add(System.getProperty("java.version"))
+				.add(project.getClassesSnapshot().getFingerprint())
+				.add(moduleMain)
+				.add(this.appCdsTrainingArguments.orElse(null));
+			for(Path jarPath : project.getDependencies().stream().map(BuildDependency::getJarPath).map(Path::toAbsolutePath).sorted().collect(Collectors.toList())) {
+				classListFingerprint.add(jarPath.toString()).add(Files.size(jarPath) + ":" + Files.getLastModifiedTime(jarPath).toMillis());
 			}
+			String fingerprint = classListFingerprint.get();
 			
-			if(this.stripDebug) {
-				jlink_args.add("--strip-debug");
-			}
-			if(this.stripNativeCommands && this.launchers.isEmpty()) {
-				jlink_args.add("--strip-native-commands");
+			List<String> classList = null;
+			Path classListPath = project.getWorkingPath().resolve("classlist").toAbsolutePath();
+			if(Files.exists(classListPath)) {
+				List<String> lines = Files.readAllLines(classListPath);
+				if(!lines.isEmpty() && lines.getFirst().equals(fingerprint)) {
+					classList = lines.subList(1, lines.size());
+					LOGGER.info(" - using class list {}", classListPath);
+				}
 			}
-			this.vm.ifPresent(value -> {
-				jlink_args.add("--vm");
-				jlink_args.add(value);
-			});
 			
-			String javaModulePath = Path.of(System.getProperty("java.home"), "jmods").toAbsolutePath().toString();
-			String dependenciesModulePath = project.getDependencies().stream().map(dependencyModule -> dependencyModule.getModulePath().toString()).collect(Collectors.joining(System.getProperty("path.separator")));
-			String projectJmodPath = project.getModulePath().toString();
+			if(classList == null) {
+				this.createRuntime(project, stagedRuntimeImagePath, jdkModules, List.of(), true);
+				
+				Path dumpPath = stagingArea.getPath().resolve("classlist.dump");
+				Path trainingLogPath = project.getWorkingPath().resolve("classlist-training.log").toAbsolutePath();
+				
+				List<String> java_command = new LinkedList<>();
+				java_command.add(TrainingRun.getJavaPath(stagedRuntimeImagePath).toString());
+				java_command.add("-XX:DumpLoadedClassList=" + dumpPath);
+				java_command.add("--module");
+				java_command.add(moduleMain);
+				java_command.addAll(trainingArguments);
+				
+				LOGGER.info(" - class list training run (see {}): {}", trainingLogPath, java_command.stream().collect(Collectors.joining(" ")));
+				TrainingRun.run(java_command, List.of(), trainingLogPath, this.appCdsTrainingTimeout);
+				if(!Files.exists(dumpPath)) {
+					throw new TaskExecutionException("Class list was not recorded, see " + trainingLogPath);
+				}
+				classList = Files.readAllLines(dumpPath);
+				
+				Files.createDirectories(classListPath.getParent());
+				Path tmpClassListPath = Files.createTempFile(classListPath.getParent(), "classlist.", ".tmp");
+				try {
+					Files.write(tmpClassListPath, Stream.concat(Stream.of(fingerprint), classList.stream()).collect(Collectors.toList()));
+					Files.move(tmpClassListPath, classListPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+				finally {
+					Files.deleteIfExists(tmpClassListPath);
+				}
+				
+				// the runtime image is linked again with the class list
+				BuildCacheEntry.delete(stagedRuntimeImagePath);
+			}
 			
-			String jlink_modulePath = String.join(System.getProperty("path.separator"), javaModulePath, dependenciesModulePath, projectJmodPath);
+			// class names are listed first, followed by their id and source: java/lang/Object id: 0
+			List<String> orderedClasses = classList.stream()
+				.filter(line -> !line.startsWith("@") && !line.startsWith("#"))
+				.map(line -> line.split(" ", 2)[0])
+				.filter(StringUtils::isNotBlank)
+				.collect(Collectors.toList());
+			List<String> lambdaFormInvokers = classList.stream()
+				.filter(line -> line.startsWith("@lambda-form-invoker"))
+				.collect(Collectors.toList());
+			LOGGER.info(" - {} classes and {} lambda form invokers recorded", orderedClasses.size(), lambdaFormInvokers.size());
 			
-			jlink_args.add("--module-path");
-			jlink_args.add(jlink_modulePath);
+			List<String> profileOptions = new LinkedList<>();
+			Path orderedClassesPath = stagingArea.getPath().resolve("classlist.order");
+			Files.write(orderedClassesPath, orderedClasses);
+			profileOptions.add("--order-resources=**module-info.class,@" + orderedClassesPath);
+			if(!lambdaFormInvokers.isEmpty()) {
+				Path lambdaFormInvokersPath = stagingArea.getPath().resolve("classlist.jli");
+				Files.write(lambdaFormInvokersPath, lambdaFormInvokers);
+				profileOptions.add("--generate-jli-classes=@" + lambdaFormInvokersPath);
+			}
+			return profileOptions;
+		}
+		catch(IOException | UncheckedIOException e) {
+			throw new TaskExecutionException("Error recording class list", e);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Returns the arguments to pass to the application during training runs.
+	 * </p>
+	 * 
+	 * @return a list of arguments
+	 * 
+	 * @throws TaskExecutionException if training arguments are invalid
+	 */
+	private List<String> getTrainingArguments() throws TaskExecutionException {
+		try {
+			return this.appCdsTrainingArguments.map(JavaTools::sanitizeArguments).map(JavaTools::translateArguments).orElse(List.of());
+		}
+		catch(IllegalArgumentException e) {
+			throw new TaskExecutionException("Invalid training arguments", e);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Creates an application CDS archive in the specified runtime image and configures the runtime image launchers to use it.
+	 * </p>
+	 * 
+	 * <p>
+	 * The archive is dumped with {@code -XX:ArchiveClassesAtExit} by running the first launcher, or the project module default main class if no launcher was specified, with the training arguments.
+	 * The training run is stopped when it exceeds the training timeout, which allows to train a server application with a start-then-stop cycle. When the training run terminates by itself, the
+	 * startup time with and without the archive are measured and reported.
+	 * </p>
+	 * 
+	 * @param project          the build project
+	 * @param runtimeImagePath the path to the runtime image
+	 * 
+	 * @throws TaskExecutionException if there was an error creating the archive
+	 */
+	private void createAppCdsArchive(BuildProject project, Path runtimeImagePath) throws TaskExecutionException {
+		Path javaPath = TrainingRun.getJavaPath(runtimeImagePath);
+		String moduleMain = TrainingRun.getModuleMain(project, !this.launchers.isEmpty() ? this.launchers.getFirst() : null);
+		
+		List<String> trainingArguments = this.getTrainingArguments();
+		
+		Path archivePath = runtimeImagePath.resolve(APPCDS_ARCHIVE);
+		Path trainingLogPath = project.getWorkingPath().resolve("appcds-training.log").toAbsolutePath();
+		
+		List<String> java_command = new LinkedList<>();
+		java_command.add(javaPath.toString());
+		java_command.add("-XX:ArchiveClassesAtExit=" + archivePath);
+		java_command.add("--module");
+		java_command.add(moduleMain);
+		java_command.addAll(trainingArguments);
+		
+		LOGGER.info(" - AppCDS training run (see {}): {}", trainingLogPath, java_command.stream().collect(Collectors.joining(" ")));
+		long trainingTime = TrainingRun.run(java_command, List.of(), trainingLogPath, this.appCdsTrainingTimeout);
+		if(!Files.exists(archivePath)) {
+			throw new TaskExecutionException("AppCDS archive was not created, see " + trainingLogPath);
+		}
+		
+		for(Launcher launcher : this.launchers) {
+			TrainingRun.configureLauncher(TrainingRun.getLauncherPath(runtimeImagePath, launcher), "-XX:SharedArchiveFile=", APPCDS_ARCHIVE);
+		}
+		
+		if(trainingTime < 0) {
+			LOGGER.info(" - AppCDS training run stopped after {}ms, startup time can only be compared when the training run terminates by itself", this.appCdsTrainingTimeout);
+			return;
+		}
+		
+		java_command.remove(1);
+		long startupTime = TrainingRun.run(java_command, List.of(), trainingLogPath, this.appCdsTrainingTimeout);
+		java_command.add(1, "-XX:SharedArchiveFile=" + archivePath);
+		long appCdsStartupTime = TrainingRun.run(java_command, List.of(), trainingLogPath, this.appCdsTrainingTimeout);
+		if(startupTime >= 0 && appCdsStartupTime >= 0) {
+			LOGGER.info(" - startup time: {}ms without AppCDS archive, {}ms with AppCDS archive", startupTime, appCdsStartupTime);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Returns the modules to add to the runtime image.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * 
+	 * @return the root modules of the runtime image
+	 */
+	private Set<String> getModules(BuildProject project) {
+		Set<String> modules = new HashSet<>();
+		this.addModules.ifPresent(value -> {
+			for(String addModule : value.split(",")) {
+				modules.add(StringUtils.strip(addModule));				
+			}
+		});
+		project.getDependencies().stream()
+			.forEach(d -> modules.add(d.getModuleName()));
+		// We must add current project as well...
+		modules.add(project.getModuleName());
+		return modules;
+	}
+	
+	/**
+	 * <p>
+	 * Returns the options to prepend before any other options when invoking the JVM of the runtime image.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * 
+	 * @return an optional returning the JVM options or an empty optional if there are no options
+	 */
+	private Optional<String> getOptions(BuildProject project) {
+		List<String> options = new ArrayList<>();
+		this.addOptions.ifPresent(options::add);
+		if(this.addUnnamedModules) {
+			options.add(" --add-modules=" + project.getDependencies().stream()
+				.filter(d -> !d.isNamed())
+				.map(d -> d.getModuleName())
+				.collect(Collectors.joining(","))
+			);
+		}
+		if(options.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.of(options.stream().collect(Collectors.joining(" ")));
+	}
+	
+	/**
+	 * <p>
+	 * Creates or updates a layered project runtime image.
+	 * </p>
+	 * 
+	 * <p>
+	 * A layered runtime image is made of a base image containing the required JDK's modules, the modularized dependencies and the project module as modular JARs in the {@code app/} directory and the
+	 * launchers specifying that directory on the module path. The base image is linked once per JDK and set of JDK's modules and cached in the project working directory. When the runtime image
+	 * already exists and was created from the same base image, only the modular JARs that changed, the project modular JAR when the task inputs changed and the launchers are updated, launchers that
+	 * are no longer specified are removed.
+	 * </p>
+	 * 
+	 * @param project          the build project
+	 * @param runtimeImagePath the path to the runtime image
+	 * 
+	 * @throws TaskExecutionException if there was an error creating the runtime image
+	 */
+	private void createLayeredRuntime(BuildProject project, Path runtimeImagePath) throws TaskExecutionException {
+		Set<String> jdkModules = this.getJdkModules(project);
+		String baseKey = new Fingerprint()
+			.add(System.getProperty("java.home"))
+			.add(Runtime.version().toString())
+			.add(String.join(",", jdkModules))
+			.add(this.compress.orElse(null))
+			.add(Boolean.toString(this.ignoreSigningInformation))
+			.add(Boolean.toString(this.stripDebug))
+			.add(this.vm.orElse(null))
+			.get();
+		String baseFingerprintKey = this.getFingerprintKey() + ".base";
+		Path baseImagePath = this.getBaseImagePath(project, jdkModules, baseKey);
+		
+		Path modulesPath = runtimeImagePath.resolve(LAYERED_MODULES_DIRECTORY);
+		boolean update = Files.isDirectory(modulesPath) && baseKey.equals(project.getFingerprintStore().get(baseFingerprintKey).orElse(null));
+		
+		try(StagingArea stagingArea = this.createStagingArea(project)) {
+			Path stagedImagePath;
+			Path stagedModulesPath;
+			if(update) {
+				LOGGER.info(" - updating application modules in {}", modulesPath);
+				stagedImagePath = null;
+				stagedModulesPath = null;
+			}
+			else {
+				LOGGER.info(" - creating runtime from base image {}", baseImagePath);
+				stagedImagePath = stagingArea.stage(runtimeImagePath);
+				linkTree(baseImagePath, stagedImagePath);
+				stagedModulesPath = stagedImagePath.resolve(LAYERED_MODULES_DIRECTORY);
+				Files.createDirectories(stagedModulesPath);
+			}
 			
-			Set<String> modules = new HashSet<>();
-			this.addModules.ifPresent(value -> {
-				for(String addModule : value.split(",")) {
-					modules.add(StringUtils.strip(addModule));				
+			Set<Path> moduleJarPaths = new HashSet<>();
+			for(BuildDependency dependency : project.getDependencies()) {
+				Path moduleJarPath = modulesPath.resolve(dependency.getModulePath().getFileName());
+				moduleJarPaths.add(moduleJarPath);
+				if(!update || !isSameModuleJar(dependency.getModulePath(), moduleJarPath)) {
+					LOGGER.info(" - adding {}", dependency.getModulePath().getFileName());
+					Path stagedModuleJarPath = update ? stagingArea.stage(moduleJarPath) : stagedModulesPath.resolve(moduleJarPath.getFileName());
+					linkFile(dependency.getModulePath(), stagedModuleJarPath);
 				}
-			});
-			project.getDependencies().stream()
-				.forEach(d -> modules.add(d.getModuleName()));
-			// We must add current project as well...
-			modules.add(project.getModuleName());
+			}
 			
-			jlink_args.add("--add-modules");
-			jlink_args.add(modules.stream().collect(Collectors.joining(",")));
+			// the project JAR also depends on non-class inputs such as the project version
+			Path projectJarPath = modulesPath.resolve(project.getModuleName() + ".jar");
+			moduleJarPaths.add(projectJarPath);
+			if(!update || project.isMarked() || this.isInputsChanged(project) || !Files.exists(projectJarPath)) {
+				LOGGER.info(" - adding {}", projectJarPath.getFileName());
+				this.createProjectJar(project, update ? stagingArea.stage(projectJarPath) : stagedModulesPath.resolve(projectJarPath.getFileName()));
+			}
 			
-			jlink_args.add("--limit-modules");
-			jlink_args.add(modules.stream().collect(Collectors.joining(",")));
+			Path binPath = update ? runtimeImagePath.resolve("bin") : stagedImagePath.resolve("bin");
+			Set<Path> launcherPaths = new HashSet<>();
+			for(Launcher launcher : this.launchers) {
+				Path launcherPath = binPath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? launcher.getName() + ".bat" : launcher.getName());
+				launcherPaths.add(launcherPath);
+				this.createLauncher(project, launcher, update ? stagingArea.stage(launcherPath) : launcherPath);
+			}
 			
-			jlink_args.add("--output");
-			jlink_args.add(runtimeImagePath.toString());
+			stagingArea.commit();
 			
-			List<String> options = new ArrayList<>();
-			this.addOptions.ifPresent(options::add);
-			if(this.addUnnamedModules) {
-				options.add(" --add-modules=" + project.getDependencies().stream()
-					.filter(d -> !d.isNamed())
-					.map(d -> d.getModuleName())
-					.collect(Collectors.joining(","))
-				);
+			if(update) {
+				// remove modules that are no longer required
+				try(Stream<Path> modules = Files.list(modulesPath)) {
+					for(Iterator<Path> modulesIterator = modules.iterator(); modulesIterator.hasNext();) {
+						Path moduleJarPath = modulesIterator.next();
+						if(!moduleJarPaths.contains(moduleJarPath)) {
+							LOGGER.info(" - removing {}", moduleJarPath.getFileName());
+							Files.delete(moduleJarPath);
+						}
+					}
+				}
+				
+				// remove launchers that are no longer specified, any file which is not in the base image is a launcher
+				Path baseBinPath = baseImagePath.resolve("bin");
+				try(Stream<Path> binFiles = Files.list(binPath)) {
+					for(Iterator<Path> binFilesIterator = binFiles.iterator(); binFilesIterator.hasNext();) {
+						Path binFilePath = binFilesIterator.next();
+						if(!launcherPaths.contains(binFilePath) && !Files.exists(baseBinPath.resolve(binFilePath.getFileName()))) {
+							LOGGER.info(" - removing launcher {}", binFilePath.getFileName());
+							Files.delete(binFilePath);
+						}
+					}
+				}
+			}
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error creating layered project runtime", e);
+		}
+		project.getFingerprintStore().put(baseFingerprintKey, baseKey);
+	}
+	
+	/**
+	 * <p>
+	 * Returns the JDK's modules to link in the runtime image.
+	 * </p>
+	 * 
+	 * <p>
+	 * The JDK's modules resolved with the task configuration ({@code addModules} and {@code bindServices}) are compared to the JDK's modules actually required by the project module and its
+	 * dependencies and the difference is reported along with the reduction of the runtime image that would result from excluding them. When {@code minimizeModules} is enabled, only the required
+	 * JDK's modules are returned, services are not bound and the JDK's modules resolved from {@code addModules} are only returned when {@code keepAddedModules} is enabled.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * 
+	 * @return the sorted set of JDK's modules to link
+	 * 
+	 * @throws TaskExecutionException if modules could not be resolved
+	 */
+	private Set<String> getJdkModules(BuildProject project) throws TaskExecutionException {
+		Set<String> requiredJdkModules;
+		try {
+			requiredJdkModules = project.getRequiredJdkModules();
+		}
+		catch(IOException | FindException | ResolutionException e) {
+			throw new TaskExecutionException("Error resolving project required JDK's modules", e);
+		}
+		LOGGER.info(" - required JDK's modules: {}", String.join(", ", requiredJdkModules));
+		
+		Set<String> configuredJdkModules = this.resolveJdkModules(project, this.bindServices);
+		Set<String> extraJdkModules = new TreeSet<>(configuredJdkModules);
+		extraJdkModules.removeAll(requiredJdkModules);
+		if(extraJdkModules.isEmpty()) {
+			return configuredJdkModules;
+		}
+		LOGGER.info(" - JDK's modules added by addModules or bindServices but not required by the project: {}", String.join(", ", extraJdkModules));
+		
+		if(this.minimizeModules && this.bindServices) {
+			LOGGER.warn(" - bindServices is ignored when minimizeModules is enabled: JDK's modules only providing services are not linked unless specified in addModules and kept");
+		}
+		Set<String> minimalJdkModules = this.keepAddedModules ? this.resolveJdkModules(project, false) : requiredJdkModules;
+		Set<String> excludedJdkModules = new TreeSet<>(configuredJdkModules);
+		excludedJdkModules.removeAll(minimalJdkModules);
+		if(excludedJdkModules.isEmpty()) {
+			return configuredJdkModules;
+		}
+		
+		// JMOD files size gives an estimate of the size of the modules in the runtime image
+		Path jmodsPath = Path.of(System.getProperty("java.home"), "jmods");
+		long excludedJmodsSize = 0;
+		for(String module : excludedJdkModules) {
+			try {
+				excludedJmodsSize += Files.size(jmodsPath.resolve(module + ".jmod"));
 			}
-			if(!options.isEmpty()) {
-				jlink_args.add("--add-options");
-				jlink_args.add(options.stream().collect(Collectors.joining(" ")));
+			catch(IOException e) {
+				// ignore, this is an estimate
 			}
+		}
+		// The boot layer is resolved on every startup, the difference in resolution time gives an estimate of the startup time saved
+		long startupReduction = Math.max(0, measureResolutionTime(configuredJdkModules) - measureResolutionTime(minimalJdkModules));
+		String reduction = String.format("~%.1f MB of JMOD files and %d modules, with ~%.2f ms less module resolution at startup", excludedJmodsSize / (1024.0 * 1024.0), excludedJdkModules.size(), startupReduction / 1000000.0);
+		
+		if(this.minimizeModules) {
+			LOGGER.info(" - excluding JDK's modules: {}", String.join(", ", excludedJdkModules));
+			LOGGER.info(" - runtime image reduced by {}", reduction);
+			return minimalJdkModules;
+		}
+		LOGGER.info(" - enabling minimizeModules would reduce the runtime image by {}", reduction);
+		return configuredJdkModules;
+	}
+	
+	/**
+	 * <p>
+	 * Resolves the JDK's modules required by the project module, its dependencies and the modules specified in {@code addModules}.
+	 * </p>
+	 * 
+	 * @param project      the build project
+	 * @param bindServices true to bind service providers, false otherwise
+	 * 
+	 * @return the sorted set of resolved JDK's modules
+	 * 
+	 * @throws TaskExecutionException if modules could not be resolved
+	 */
+	private Set<String> resolveJdkModules(BuildProject project, boolean bindServices) throws TaskExecutionException {
+		ModuleFinder systemModuleFinder = ModuleFinder.ofSystem();
+		ModuleFinder applicationModuleFinder = ModuleFinder.of(Stream.concat(
+				project.getDependencies().stream().map(BuildDependency::getModulePath),
+				Stream.of(project.getClassesPath())
+			)
+			.toArray(Path[]::new)
+		);
+		try {
+			Configuration configuration = bindServices ? 
+				Configuration.empty().resolveAndBind(systemModuleFinder, applicationModuleFinder, this.getModules(project)) : 
+				Configuration.empty().resolve(systemModuleFinder, applicationModuleFinder, this.getModules(project));
+			return configuration.modules().stream()
+				.map(ResolvedModule::name)
+				.filter(name -> systemModuleFinder.find(name).isPresent())
+				.collect(Collectors.toCollection(TreeSet::new));
+		}
+		catch(FindException | ResolutionException e) {
+			throw new TaskExecutionException("Error resolving project runtime JDK's modules", e);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Measures the time it takes to resolve the specified JDK's modules.
+	 * </p>
+	 * 
+	 * <p>
+	 * The best time of several resolutions is returned in order to exclude warmup.
+	 * </p>
+	 * 
+	 * @param jdkModules a set of JDK's modules
+	 * 
+	 * @return the resolution time in nanoseconds
+	 */
+	private static long measureResolutionTime(Set<String> jdkModules) {
+		ModuleFinder systemModuleFinder = ModuleFinder.ofSystem();
+		long resolutionTime = Long.MAX_VALUE;
+		for(int i=0;i<5;i++) {
+			long start = System.nanoTime();
+			Configuration.empty().resolve(systemModuleFinder, ModuleFinder.of(), jdkModules);
+			resolutionTime = Math.min(resolutionTime, System.nanoTime() - start);
+		}
+		return resolutionTime;
+	}
+	
+	/**
+	 * <p>
+	 * Returns the base image containing the specified JDK's modules, linking it when it doesn't exist yet.
+	 * </p>
+	 * 
+	 * <p>
+	 * Base images are cached in the project working directory by key, base images created with different keys are removed when a new base image is linked.
+	 * </p>
+	 * 
+	 * @param project    the build project
+	 * @param jdkModules the JDK's modules to link
+	 * @param baseKey    the key identifying the base image
+	 * 
+	 * @return the path to the base image
+	 * 
+	 * @throws TaskExecutionException if there was an error linking the base image
+	 */
+	private Path getBaseImagePath(BuildProject project, Set<String> jdkModules, String baseKey) throws TaskExecutionException {
+		Path baseImagesPath = project.getWorkingPath().resolve("runtime-base").toAbsolutePath();
+		Path baseImagePath = baseImagesPath.resolve(baseKey);
+		if(Files.exists(baseImagePath)) {
+			return baseImagePath;
+		}
+		
+		List<String> jlink_args = new LinkedList<>();
+		
+		jlink_args.add("--verbose");
+		this.compress.ifPresent(value -> {
+			jlink_args.add("--compress=" + value);
+		});
+		if(this.ignoreSigningInformation) {
+			jlink_args.add("--ignore-signing-information");
+		}
+		if(this.stripDebug) {
+			jlink_args.add("--strip-debug");
+		}
+		this.vm.ifPresent(value -> {
+			jlink_args.add("--vm");
+			jlink_args.add(value);
+		});
+		
+		jlink_args.add("--module-path");
+		jlink_args.add(Path.of(System.getProperty("java.home"), "jmods").toAbsolutePath().toString());
+		
+		jlink_args.add("--add-modules");
+		jlink_args.add(String.join(",", jdkModules));
+		
+		try(StagingArea stagingArea = new StagingArea(this.getStagingPath(project).resolveSibling(this.getFingerprintKey() + ".base"))) {
+			Path stagedBaseImagePath = stagingArea.stage(baseImagePath);
+			jlink_args.add("--output");
+			jlink_args.add(stagedBaseImagePath.toString());
 			
 			LOGGER.info(" - jlink {}", jlink_args.stream().collect(Collectors.joining(" ")));
+			ToolThrottle.Permit permit = project.acquireToolPermit(ToolThrottle.JLINK);
+			try {
+				if(JavaTools.run(JavaTools.JLINK, LOGGER, jlink_args.stream().toArray(String[]::new)) != 0) {
+					throw new TaskExecutionException("Error creating base runtime");
+				}
+			}
+			finally {
+				permit.close();
+			}
 			
-			if(JavaTools.JLINK.run(OUT, ERR, jlink_args.stream().toArray(String[]::new)) != 0) {
-				throw new TaskExecutionException("Error creating project runtime");
+			if(Files.exists(baseImagesPath)) {
+				try(Stream<Path> baseImages = Files.list(baseImagesPath)) {
+					for(Iterator<Path> baseImagesIterator = baseImages.iterator(); baseImagesIterator.hasNext();) {
+						BuildCacheEntry.delete(baseImagesIterator.next());
+					}
+				}
 			}
+			stagingArea.commit();
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error creating base runtime", e);
+		}
+		return baseImagePath;
+	}
+	
+	/**
+	 * <p>
+	 * Creates the project modular JAR with {@code jar}.
+	 * </p>
+	 * 
+	 * <p>
+	 * The project default main class, if any, is recorded in the module descriptor so that launchers without main class can run the module.
+	 * </p>
+	 * 
+	 * @param project        the build project
+	 * @param projectJarPath the path where the project modular JAR must be created
+	 * 
+	 * @throws TaskExecutionException if there was an error creating the JAR
+	 */
+	private void createProjectJar(BuildProject project, Path projectJarPath) throws TaskExecutionException {
+		List<String> jar_args = new LinkedList<>();
+		
+		jar_args.add("--create");
+		jar_args.add("--file");
+		jar_args.add(projectJarPath.toString());
+		
+		jar_args.add("--module-version");
+		jar_args.add(project.getModuleVersion());
+		
+		try {
+			project.getDefaultMainClass().ifPresent(mainClass -> {
+				jar_args.add("--main-class");
+				jar_args.add(mainClass);
+			});
+		}
+		catch (IOException e) {
+			LOGGER.warn("Could not find project main class", e);
+		}
+		
+		jar_args.add("-C");
+		jar_args.add(project.getClassesPath().toString());
+		jar_args.add(".");
+		
+		LOGGER.info(" - jar {}", jar_args.stream().collect(Collectors.joining(" ")));
+		if(JavaTools.run(JavaTools.JAR, LOGGER, jar_args.stream().toArray(String[]::new)) != 0) {
+			throw new TaskExecutionException("Error creating project modular JAR");
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Creates a launcher script in a layered runtime image.
+	 * </p>
+	 * 
+	 * <p>
+	 * The script runs the launcher module with the {@code app/} directory on the module path and the runtime image options, it mimics the scripts generated by {@code jlink}.
+	 * </p>
+	 * 
+	 * @param project      the build project
+	 * @param launcher     the launcher
+	 * @param launcherPath the path to the launcher script
+	 * 
+	 * @throws IOException if there was an error writing the launcher script
+	 */
+	private void createLauncher(BuildProject project, Launcher launcher, Path launcherPath) throws IOException {
+		String moduleMain = launcher.getModule().orElse(project.getModuleName()) + launcher.getMainClass().map(mainClass -> "/" + mainClass).orElse("");
+		String options = this.getOptions(project).map(String::trim).orElse("");
+		
+		StringBuilder script = new StringBuilder();
+		if(Platform.getSystemPlatform() == Platform.WINDOWS) {
+			script.append("@echo off\r\n");
+			script.append("set JLINK_VM_OPTIONS=").append(options).append("\r\n");
+			script.append("set DIR=%~dp0\r\n");
+			script.append("\"%DIR%\\java\" %JLINK_VM_OPTIONS% --module-path \"%DIR%\\..\\").append(LAYERED_MODULES_DIRECTORY).append("\" -m ").append(moduleMain).append(" %*\r\n");
 		}
 		else {
-			LOGGER.info("[ Project runtime is up to date ]");
+			script.append("#!/bin/sh\n");
+			script.append("JLINK_VM_OPTIONS=\"").append(options).append("\"\n");
+			script.append("DIR=`dirname $0`\n");
+			script.append("\"$DIR/java\" $JLINK_VM_OPTIONS --module-path \"$DIR/../").append(LAYERED_MODULES_DIRECTORY).append("\" -m ").append(moduleMain).append(" \"$@\"\n");
+		}
+		
+		// the bin directory is hard linked to the base image: existing files must not be overwritten
+		Files.createDirectories(launcherPath.getParent());
+		Files.deleteIfExists(launcherPath);
+		Files.writeString(launcherPath, script.toString());
+		if(launcherPath.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			Files.setPosixFilePermissions(launcherPath, PosixFilePermissions.fromString("rwxr-xr-x"));
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Determines whether a module JAR in a layered runtime image is the same as the source module JAR.
+	 * </p>
+	 * 
+	 * @param sourcePath the path to the source module JAR
+	 * @param targetPath the path to the module JAR in the runtime image
+	 * 
+	 * @return true if the target is a link to or a copy of the source, false otherwise
+	 * 
+	 * @throws IOException if there was an error accessing the files
+	 */
+	private static boolean isSameModuleJar(Path sourcePath, Path targetPath) throws IOException {
+		if(!Files.exists(targetPath)) {
+			return false;
+		}
+		return Files.isSameFile(sourcePath, targetPath) || (Files.size(sourcePath) == Files.size(targetPath) && Files.getLastModifiedTime(sourcePath).equals(Files.getLastModifiedTime(targetPath)));
+	}
+	
+	/**
+	 * <p>
+	 * Hard links a file to the specified target, copies it when links are not supported.
+	 * </p>
+	 * 
+	 * @param sourcePath the source file
+	 * @param targetPath the target file
+	 * 
+	 * @throws IOException if there was an error linking or copying the file
+	 */
+	private static void linkFile(Path sourcePath, Path targetPath) throws IOException {
+		try {
+			Files.createLink(targetPath, sourcePath);
+		}
+		catch(UnsupportedOperationException | IOException e) {
+			// source and target might be on different file stores
+			Files.copy(sourcePath, targetPath, StandardCopyOption.COPY_ATTRIBUTES);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Hard links the files of a directory tree to the specified target directory.
+	 * </p>
+	 * 
+	 * @param sourcePath the source directory
+	 * @param targetPath the target directory
+	 * 
+	 * @throws IOException if there was an error linking or copying the tree
+	 */
+	static void linkTree(Path sourcePath, Path targetPath) throws IOException {
+		try(Stream<Path> walk = Files.walk(sourcePath)) {
+			for(Iterator<Path> pathIterator = walk.iterator(); pathIterator.hasNext();) {
+				Path path = pathIterator.next();
+				Path target = targetPath.resolve(sourcePath.relativize(path).toString());
+				if(Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+					Files.createDirectories(target);
+				}
+				else if(Files.isSymbolicLink(path)) {
+					Files.createSymbolicLink(target, Files.readSymbolicLink(path));
+				}
+				else {
+					linkFile(path, target);
+				}
+			}
 		}
-		return new GenericImage(ImageType.RUNTIME, null, runtimeImagePath);
 	}
 
 	@Override
@@ -279,6 +1105,22 @@ public class GenericBuildRuntimeTask extends AbstractTask<Image, BuildRuntimeTas
 		return new GenericPackageApplicationTask(this);
 	}
 	
+	@Override
+	public TrainRuntimeTask trainRuntime() {
+		return new GenericTrainRuntimeTask(this);
+	}
+	
+	/**
+	 * <p>
+	 * Returns the launchers generated in the runtime image.
+	 * </p>
+	 * 
+	 * @return a list of launchers
+	 */
+	List<? extends Launcher> getLaunchers() {
+		return this.launchers;
+	}
+	
 	/**
 	 * <p>
 	 * Generic {@link BuildRuntimeTask.Launcher} implementation.
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.BuildSession;
+import io.inverno.tool.buildtools.Dependency;
+import io.inverno.tool.buildtools.Project;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * <p>
+ * Generic {@link BuildSession} implementation.
+ * </p>
+ *
+ * <p>
+ * The session wraps the original project so that tasks created from the session are bound to it, a {@link BuildProject} created for a build of the session reuses the state resolved by the build
+ * project of the previous build.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class GenericBuildSession extends Project implements BuildSession {
+
+	private final Project project;
+
+	private BuildProject lastBuildProject;
+
+	/**
+	 * <p>
+	 * Creates a generic build session.
+	 * </p>
+	 *
+	 * @param project the original project
+	 */
+	public GenericBuildSession(Project project) {
+		this(project, null);
+	}
+
+	/**
+	 * <p>
+	 * Creates a generic build session continuing a previous session of the same project.
+	 * </p>
+	 *
+	 * <p>
+	 * This is used when the project attributes (e.g. version, dependencies...) might have changed since the previous session: the state resolved by the last build of the previous session is reused
+	 * by the first build of the new session as long as it is still valid.
+	 * </p>
+	 *
+	 * @param project         the original project
+	 * @param previousSession the previous session of the project or null
+	 */
+	GenericBuildSession(Project project, GenericBuildSession previousSession) {
+		super(project.getTargetPath(), project.getWorkingPath());
+		this.project = project;
+		if(previousSession != null) {
+			synchronized(previousSession) {
+				this.lastBuildProject = previousSession.lastBuildProject;
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Creates the build project of a new build of the session.
+	 * </p>
+	 *
+	 * @return a new build project
+	 */
+	synchronized BuildProject newBuildProject() {
+		this.lastBuildProject = new BuildProject(this, this.lastBuildProject != null ? this.lastBuildProject.getResolvedState() : null);
+		return this.lastBuildProject;
+	}
+
+	@Override
+	public String getGroup() {
+		return this.project.getGroup();
+	}
+
+	@Override
+	public String getName() {
+		return this.project.getName();
+	}
+
+	@Override
+	public String getVersion() {
+		return this.project.getVersion();
+	}
+
+	@Override
+	public Path getClassesPath() {
+		return this.project.getClassesPath();
+	}
+
+	@Override
+	public Set<? extends Dependency> getDependencies() {
+		return this.project.getDependencies();
+	}
+
+	@Override
+	public String getFinalName() {
+		return this.project.getFinalName();
+	}
+
+	@Override
+	public boolean isDisplayProgressBar() {
+		return this.project.isDisplayProgressBar();
+	}
+
+	@Override
+	public String toString() {
+		return this.project.toString();
+	}
+}
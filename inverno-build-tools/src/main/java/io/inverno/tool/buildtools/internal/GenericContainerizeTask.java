@@ -47,6 +47,7 @@ import java.util.Optional;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -209,6 +210,42 @@ public class GenericContainerizeTask extends AbstractTask<ContainerizeTask.Conta
 		return this;
 	}
 	
+	@Override
+	protected void fingerprintInputs(BuildProject project, Fingerprint fingerprint) throws IOException {
+		super.fingerprintInputs(project, fingerprint);
+		// registry credentials and Docker settings don't change the image, Docker and registry targets are always containerized
+		fingerprint
+			.add(project.getName())
+			.add(project.getModuleVersion())
+			.add(this.target.orElse(DEFAULT_TARGET).toString())
+			.add(this.from.orElse(DEFAULT_FROM))
+			.add(this.executable.orElse(null))
+			.add(this.imageFormat.orElse(DEFAULT_IMAGE_FORMAT).toString())
+			.add(this.repository.orElse(null))
+			.add(this.registry.orElse(null))
+			.add(this.labels.map(GenericContainerizeTask::toFingerprintString).orElse(null))
+			.add(this.ports.map(values -> values.stream().sorted().collect(Collectors.joining(","))).orElse(null))
+			.add(this.volumes.map(values -> values.stream().sorted().collect(Collectors.joining(","))).orElse(null))
+			.add(this.user.orElse(null))
+			.add(this.environment.map(GenericContainerizeTask::toFingerprintString).orElse(null));
+	}
+	
+	/**
+	 * <p>
+	 * Returns a string representation of the specified map independent of the map implementation to be added to a fingerprint.
+	 * </p>
+	 * 
+	 * @param map a map
+	 * 
+	 * @return a string representation of the map sorted by keys
+	 */
+	private static String toFingerprintString(Map<String, String> map) {
+		return map.entrySet().stream()
+			.sorted(Map.Entry.comparingByKey())
+			.map(e -> e.getKey() + "=" + e.getValue())
+			.collect(Collectors.joining("\n"));
+	}
+	
 	@Override
 	protected ContainerizeTask.ContainerImage doExecute(BuildProject project, ProgressBar.Step step) throws TaskExecutionException {
 		if(step != null) {
@@ -219,7 +256,8 @@ public class GenericContainerizeTask extends AbstractTask<ContainerizeTask.Conta
 		Path containerImagePath = project.getImagePath(ImageType.CONTAINER);
 		if(project.isMarked() || 
 			project.getDependencies().stream().anyMatch(dependency -> dependency.isMarked()) || 
-			resolvedTarget == Target.DOCKER || resolvedTarget == Target.REGISTRY || !Files.exists(containerImagePath)) {
+			resolvedTarget == Target.DOCKER || resolvedTarget == Target.REGISTRY || !Files.exists(containerImagePath) ||
+			this.isInputsChanged(project)) {
 			switch(resolvedTarget) {
 				case TAR: LOGGER.info("[ Creating project container image {}... ]", containerImagePath);
 					break;
@@ -262,7 +300,15 @@ public class GenericContainerizeTask extends AbstractTask<ContainerizeTask.Conta
 				
 				Containerizer containerizer = this.getContainerizer(project);
 				
-				JibContainer container = builder.containerize(containerizer);
+				JibContainer container;
+				ToolThrottle.Permit permit = project.acquireToolPermit(ToolThrottle.CONTAINERIZE);
+				try {
+					container = builder.containerize(containerizer);
+				}
+				finally {
+					permit.close();
+				}
+				this.storeInputsFingerprint(project);
 				
 				return new GenericContainerizeTask.ContainerImage(project, container.getTargetImage());
 			} 
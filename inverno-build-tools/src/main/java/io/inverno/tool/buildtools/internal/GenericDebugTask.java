@@ -83,11 +83,6 @@ public class GenericDebugTask extends AbstractExecTask<Integer, DebugTask> imple
 		
 		Process proc = this.startProject(project);
 		
-		try {
-			return proc.waitFor();
-		} 
-		catch (InterruptedException e) {
-			throw new TaskExecutionException("Fatal error", e);
-		}
+		return this.waitForProject(proc);
 	}
 }
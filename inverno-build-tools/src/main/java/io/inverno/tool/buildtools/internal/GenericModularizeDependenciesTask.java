@@ -28,22 +28,28 @@ import io.inverno.tool.buildtools.internal.parser.ModuleInfoParser;
 import io.inverno.tool.buildtools.internal.parser.ParseException;
 import io.inverno.tool.buildtools.internal.parser.StreamProvider;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.module.FindException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
 import java.net.URI;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -51,18 +57,35 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.jar.Attributes;
-import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.ZipFile;
-import org.apache.logging.log4j.Level;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.io.IoBuilder;
 
 /**
  * <p>
@@ -70,7 +93,13 @@ import org.apache.logging.log4j.io.IoBuilder;
  * </p>
  * 
  * <p>
- * This implementation relies on JDK's {@code jdeps} tool for the generation of module descriptors.
+ * This implementation generates module descriptors by analyzing dependencies bytecode with a {@link DependencyAnalyzer}, JDK's {@code jdeps} tool is used when a dependency can't be analyzed
+ * or when specified with {@link #useJdeps(boolean) }. Module descriptors are then written directly using a {@link ModuleInfoClassWriter} or compiled when they can't be written. Dependencies are modularized concurrently, the maximum number of dependencies processed at the same time is specified with {@link #parallelism(int) }.
+ * </p>
+ * 
+ * <p>
+ * Modularized dependencies can be shared between projects using a cache specified with {@link #cachePath(java.nio.file.Path) } and between hosts using a build cache specified with
+ * {@link #buildCache(java.net.URI) } which is also used by the tasks executed in the chain.
  * </p>
  *
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
@@ -82,19 +111,28 @@ public class GenericModularizeDependenciesTask extends AbstractTask<Set<Dependen
 	
 	private static final int UNITARY_WEIGHT = 15;
 	
-	private static final PrintStream OUT = IoBuilder.forLogger(LOGGER)
-			.setLevel(Level.INFO)
-			.setAutoFlush(true)
-			.buildPrintStream();
+	private static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
 	
-	private static final PrintStream ERR = IoBuilder.forLogger(LOGGER)
-			.setLevel(Level.ERROR)
-			.setAutoFlush(true)
-			.buildPrintStream();
+	/**
+	 * The name of the file listing the modules required by a cached modularized dependency.
+	 */
+	private static final String CACHE_REQUIRES = "requires";
 	
 	private Optional<Path> moduleOverridesPath = Optional.empty();
 	
 	private Map<String, ? extends ModuleInfo> moduleOverrides = Map.of();
+	
+	private Optional<Integer> parallelism = Optional.empty();
+	
+	private Optional<Path> cachePath = Optional.empty();
+	
+	private Optional<URI> buildCacheURI = Optional.empty();
+	
+	private Optional<Path> throttlePath = Optional.empty();
+	
+	private Map<String, Integer> throttlePermits = Map.of();
+
+	private boolean useJdeps;
 
 	/**
 	 * <p>
@@ -136,330 +174,1217 @@ public class GenericModularizeDependenciesTask extends AbstractTask<Set<Dependen
 		this.moduleOverrides = moduleOverrides != null ? moduleOverrides.stream().collect(Collectors.toMap(ModuleInfo::getName, Function.identity())) : Map.of();
 		return this;
 	}
+
+	@Override
+	public ModularizeDependenciesTask parallelism(int parallelism) {
+		this.parallelism = parallelism > 0 ? Optional.of(parallelism) : Optional.empty();
+		return this;
+	}
+
+	@Override
+	public ModularizeDependenciesTask cachePath(Path cachePath) {
+		this.cachePath = Optional.ofNullable(cachePath);
+		return this;
+	}
+
+	@Override
+	public ModularizeDependenciesTask buildCache(URI buildCacheURI) {
+		this.buildCacheURI = Optional.ofNullable(buildCacheURI);
+		return this;
+	}
+
+	@Override
+	public ModularizeDependenciesTask throttlePath(Path throttlePath) {
+		this.throttlePath = Optional.ofNullable(throttlePath);
+		return this;
+	}
+
+	@Override
+	public ModularizeDependenciesTask throttlePermits(Map<String, Integer> throttlePermits) {
+		this.throttlePermits = throttlePermits != null ? Map.copyOf(throttlePermits) : Map.of();
+		return this;
+	}
+
+	@Override
+	public ModularizeDependenciesTask useJdeps(boolean useJdeps) {
+		this.useJdeps = useJdeps;
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Returns the path to the user-provided {@code module-info.java} for the specified dependency.
+	 * </p>
+	 * 
+	 * <p>
+	 * When provided, no descriptor is generated for that dependency.
+	 * </p>
+	 * 
+	 * @param dependency a build dependency
+	 * 
+	 * @return an optional returning the path to the overriding module descriptor or an empty optional
+	 */
+	private Optional<Path> getOverriddingModuleInfoPath(BuildDependency dependency) {
+		return this.moduleOverridesPath
+			.map(path -> path.resolve(Path.of(dependency.getModuleName(), "module-info.java")))
+			.filter(Files::exists);
+	}
+	
+	@Override
+	protected void doInitialize(BuildProject project) throws TaskExecutionException {
+		try {
+			project.setBuildCache(this.buildCacheURI.map(BuildCache::of).orElse(null));
+		}
+		catch(IllegalArgumentException e) {
+			throw new TaskExecutionException("Invalid build cache", e);
+		}
+		project.setToolThrottle(this.throttlePath.map(path -> new ToolThrottle(path, this.throttlePermits)).orElse(null));
+		
+		// A dependency must be modularized again when its content, its module overrides, the JDK or the descriptor generation strategy change
+		String jdkVersion = Integer.toString(Runtime.version().feature());
+		try {
+			for(BuildDependency dependency : project.getDependencies()) {
+				Fingerprint fingerprint = new Fingerprint()
+					.add(dependency.getContentHash())
+					.add(jdkVersion);
+				if(dependency.isAutomatic()) {
+					Optional<Path> overriddenModuleInfoPath = this.getOverriddingModuleInfoPath(dependency);
+					if(overriddenModuleInfoPath.isPresent()) {
+						fingerprint.add(overriddenModuleInfoPath.get());
+					}
+					else {
+						fingerprint.add("");
+					}
+					ModuleInfo moduleOverride = this.moduleOverrides.get(dependency.getModuleName());
+					fingerprint.add(moduleOverride != null ? moduleOverride.toString() : "");
+					fingerprint.add(this.useJdeps ? "jdeps" : "analyzer");
+				}
+				dependency.setFingerprint(fingerprint.get());
+			}
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error computing dependencies fingerprints", e);
+		}
+	}
+	
+	@Override
+	protected void fingerprintInputs(BuildProject project, Fingerprint fingerprint) throws IOException {
+		super.fingerprintInputs(project, fingerprint);
+		// dependency fingerprints already include the module overrides and the descriptor generation strategy
+		for(BuildDependency dependency : project.getDependencies().stream().sorted(Comparator.comparing(BuildDependency::getModuleName)).collect(Collectors.toList())) {
+			fingerprint.add(dependency.getModuleName()).add(dependency.getFingerprint());
+		}
+	}
+	
+	@Override
+	protected Set<Dependency> doExecute(BuildProject project, ProgressBar.Step step) throws TaskExecutionException {
+		if(step != null) {
+			step.setDescription("Modularizing, compiling and repackaging project dependencies...");
+		}
+		
+		LOGGER.info("[ Modularizing, compiling and repackaging dependencies for project {}... ]", project);
+
+		try {
+			Files.createDirectories(project.getModulesPath());
+			Files.createDirectories(project.getModulesExplodedPath());
+			Files.createDirectories(project.getModulesUnnamedPath());
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error initializing working directory");
+		}
+		
+		try {
+			if(project.getDependencies().stream().anyMatch(BuildDependency::isMarked)) {
+				return this.modularizeDependencies(project, step);
+			}
+			else {
+				LOGGER.info("[ Project dependencies are up to date ]");
+				return Set.of();
+			}
+		}
+		finally {
+			try {
+				project.getFingerprintStore().save();
+			}
+			catch(IOException e) {
+				LOGGER.warn("Error saving fingerprints to {}", project.getFingerprintStore().getPath(), e);
+			}
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Modularizes the project dependencies.
+	 * </p>
+	 * 
+	 * <p>
+	 * A module decriptor is generated for automatic and unnamed dependencies only when no descriptor was provided in {@link #moduleOverridesPath(java.nio.file.Path) } for that particular dependency. 
+	 * If a {@link ModuleInfo} was specified with {@link #moduleOverrides(java.util.List) } it is merged with the generated descriptor.
+	 * </p>
+	 * 
+	 * <p>
+	 * Dependencies are modularized concurrently using a bounded pool of worker threads, each dependency going through its own pipeline: it is named, restored from the caches or prepared, its
+	 * module descriptor is generated, written or compiled in memory and it is finally repackaged. The only synchronization point is the generation of module descriptors which requires the module
+	 * path and therefore all unnamed dependencies to be named, the descriptors of the dependencies that couldn't be analyzed being generated in a single {@code jdeps} analysis once all
+	 * dependencies have been analyzed. The log output of a dependency is buffered and flushed in one contiguous block once its pipeline completes.
+	 * </p>
+	 * 
+	 * @param project the build project
+	 * @param step    the progress step or null
+	 * 
+	 * @return the set of dependencies that were modularized
+	 * 
+	 * @throws TaskExecutionException if there was an error modularizing the dependencies
+	 */
+	private Set<Dependency> modularizeDependencies(BuildProject project, ProgressBar.Step step) throws TaskExecutionException {
+		LOGGER.info("[ Modularizing project dependencies... ]");
+		
+		AtomicBoolean failed = new AtomicBoolean();
+		List<DependencyModularization> modularizations = new ArrayList<>();
+		for(BuildDependency dependency : project.getDependencies()) {
+			if(dependency.isMarked()) {
+				modularizations.add(new DependencyModularization(dependency, step != null ? step.addStep(dependency.isAutomatic() ? UNITARY_WEIGHT : 1, "Modularizing " + dependency + "...") : null, failed));
+			}
+			else {
+				LOGGER.info(" - skipping dependency {} which is up to date", dependency);
+			}
+		}
+		
+		Set<Dependency> modularizedDependencies = ConcurrentHashMap.newKeySet();
+		int parallelism = Math.min(this.parallelism.orElse(DEFAULT_PARALLELISM), modularizations.size());
+		AtomicInteger workerIndex = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread worker = new Thread(LoggingContext.propagate(runnable), "inverno-modularize-" + workerIndex.incrementAndGet());
+			worker.setDaemon(true);
+			return worker;
+		});
+		try {
+			// Name unnamed dependencies, restore dependencies from the caches or prepare them
+			List<CompletableFuture<Void>> namedFutures = new ArrayList<>();
+			Map<DependencyModularization, CompletableFuture<Void>> preparedFutures = new HashMap<>();
+			for(DependencyModularization modularization : modularizations) {
+				CompletableFuture<Void> namedFuture;
+				if(modularization.dependency.isAutomatic() && !modularization.dependency.isNamed()) {
+					namedFuture = CompletableFuture.runAsync(() -> {
+						modularization.checkFailed();
+						this.nameDependency(modularization.dependency, modularization.logger);
+					}, executor);
+					namedFutures.add(namedFuture);
+				}
+				else {
+					namedFuture = CompletableFuture.completedFuture(null);
+				}
+				preparedFutures.put(modularization, namedFuture.thenRunAsync(() -> this.restoreOrPrepareDependency(project, modularization), executor));
+			}
+			
+			// Unnamed dependencies are on the module path used to generate and write module descriptors, they must then all be named first
+			CompletableFuture<ModuleFinder> moduleFinder = CompletableFuture.allOf(namedFutures.toArray(CompletableFuture[]::new)).thenApply(ignore -> this.createModuleFinder(project));
+			Supplier<CompletableFuture<Optional<DependencyAnalyzer>>> analyzer = lazily(() -> this.useJdeps ? CompletableFuture.completedFuture(Optional.empty()) : moduleFinder.thenApplyAsync(finder -> this.createDependencyAnalyzer(project, finder), executor));
+			Supplier<CompletableFuture<Optional<ModuleInfoClassWriter>>> moduleInfoWriter = lazily(() -> moduleFinder.thenApplyAsync(this::createModuleInfoWriter, executor));
+			
+			// Generate module descriptors by analyzing dependencies, the descriptors of the dependencies that couldn't be analyzed are generated in a single jdeps analysis
+			Map<DependencyModularization, CompletableFuture<Void>> generatedFutures = new HashMap<>();
+			for(DependencyModularization modularization : modularizations) {
+				generatedFutures.put(modularization, preparedFutures.get(modularization).thenCompose(ignore -> modularization.unresolvableServices != null ? 
+					analyzer.get().thenAcceptAsync(dependencyAnalyzer -> this.generateModuleInfo(modularization, dependencyAnalyzer), executor) : 
+					CompletableFuture.completedFuture(null)
+				));
+			}
+			CompletableFuture<Void> jdepsGeneratedFuture = CompletableFuture.allOf(generatedFutures.values().toArray(CompletableFuture[]::new)).thenRunAsync(() -> {
+				Set<BuildDependency> jdepsDependencies = modularizations.stream().filter(modularization -> modularization.jdeps).map(modularization -> modularization.dependency).collect(Collectors.toSet());
+				if(!jdepsDependencies.isEmpty()) {
+					this.generateModuleInfos(project, jdepsDependencies);
+				}
+			}, executor);
+			
+			// Write or compile module descriptors and repackage dependencies
+			List<CompletableFuture<Void>> completedFutures = new ArrayList<>();
+			for(DependencyModularization modularization : modularizations) {
+				completedFutures.add(generatedFutures.get(modularization)
+					.thenCompose(ignore -> modularization.jdeps ? jdepsGeneratedFuture : CompletableFuture.completedFuture(null))
+					.thenCompose(ignore -> modularization.complete ? CompletableFuture.completedFuture(Optional.<ModuleInfoClassWriter>empty()) : moduleInfoWriter.get())
+					.thenAcceptAsync(writer -> this.completeDependency(project, modularization, writer, modularizedDependencies), executor)
+					.whenComplete((ignore, error) -> {
+						if(error != null) {
+							failed.set(true);
+						}
+						modularization.logger.flush();
+						if(modularization.step != null) {
+							modularization.step.done();
+						}
+					})
+				);
+			}
+			this.awaitAll(completedFutures, failed);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		return modularizedDependencies;
+	}
+	
+	/**
+	 * <p>
+	 * Returns a supplier of a future which is only created the first time it is requested.
+	 * </p>
+	 * 
+	 * @param <T>            the type of result
+	 * @param futureSupplier the future supplier
+	 * 
+	 * @return a supplier returning the same future each time it is invoked
+	 */
+	private static <T> Supplier<CompletableFuture<T>> lazily(Supplier<CompletableFuture<T>> futureSupplier) {
+		AtomicBoolean requested = new AtomicBoolean();
+		CompletableFuture<T> result = new CompletableFuture<>();
+		return () -> {
+			if(requested.compareAndSet(false, true)) {
+				futureSupplier.get().whenComplete((value, error) -> {
+					if(error != null) {
+						result.completeExceptionally(error);
+					}
+					else {
+						result.complete(value);
+					}
+				});
+			}
+			return result;
+		};
+	}
+	
+	/**
+	 * <p>
+	 * Waits for the completion of the specified dependency pipelines.
+	 * </p>
+	 * 
+	 * <p>
+	 * The pipelines that were not completed yet are cancelled as soon as a pipeline fails.
+	 * </p>
+	 * 
+	 * @param futures the dependency pipelines
+	 * @param failed  the flag indicating whether a pipeline failed
+	 * 
+	 * @throws TaskExecutionException if a pipeline failed or if the current thread was interrupted
+	 */
+	private void awaitAll(List<CompletableFuture<Void>> futures, AtomicBoolean failed) throws TaskExecutionException {
+		try {
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+			return;
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failed.set(true);
+			throw new TaskExecutionException("Interrupted while modularizing dependencies", e);
+		}
+		catch(ExecutionException e) {
+			// errors are reported below
+		}
+		
+		TaskExecutionException error = null;
+		Set<Throwable> reportedCauses = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(CompletableFuture<Void> future : futures) {
+			Throwable cause;
+			try {
+				future.join();
+				continue;
+			}
+			catch(CompletionException | CancellationException e) {
+				cause = e;
+			}
+			while(cause instanceof CompletionException && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			if(cause instanceof CancellationException || !reportedCauses.add(cause)) {
+				// a pipeline was cancelled after another one failed or the error was raised by the jdeps analysis shared by multiple pipelines
+				continue;
+			}
+			if(error == null) {
+				error = cause instanceof TaskExecutionException ? (TaskExecutionException)cause : new TaskExecutionException("Error modularizing dependencies", cause);
+			}
+			else {
+				error.addSuppressed(cause);
+			}
+		}
+		throw error != null ? error : new TaskExecutionException("Dependencies modularization was cancelled");
+	}
+	
+	/**
+	 * <p>
+	 * Restores the specified dependency from the caches or prepares its modularization.
+	 * </p>
+	 * 
+	 * <p>
+	 * Modular dependencies are simply copied to the working modules path.
+	 * </p>
+	 * 
+	 * @param project        the build project
+	 * @param modularization the dependency modularization
+	 * 
+	 * @throws TaskExecutionException if there was an error restoring or preparing the dependency
+	 */
+	private void restoreOrPrepareDependency(BuildProject project, DependencyModularization modularization) throws TaskExecutionException {
+		modularization.checkFailed();
+		BuildDependency dependency = modularization.dependency;
+		BufferedLogger logger = modularization.logger;
+		try {
+			if(dependency.isAutomatic()) {
+				Optional<Path> cachePath = this.getDependencyCachePath(dependency);
+				if((cachePath.isPresent() && this.restoreDependency(project, dependency, cachePath.get(), logger)) || this.restoreDependencyFromBuildCache(project, dependency, logger)) {
+					modularization.complete = true;
+				}
+				else {
+					modularization.cachePath = cachePath;
+					modularization.unresolvableServices = this.prepareDependency(project, dependency, logger).orElse(null);
+				}
+			}
+			else {
+				logger.info(" - copying modular dependency {} to {}...", dependency, dependency.getModulePath());
+				try(StagingArea stagingArea = this.createStagingArea(project, dependency)) {
+					Files.copy(dependency.getJarPath(), stagingArea.stage(dependency.getModulePath()));
+					stagingArea.commit();
+				}
+				modularization.complete = true;
+			}
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error modularizing dependency " + dependency, e);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Completes the modularization of the specified dependency.
+	 * </p>
+	 * 
+	 * <p>
+	 * Unless the dependency was restored or copied, the module info override is merged with the generated descriptor, the descriptor is written or compiled and the dependency is repackaged and
+	 * cached. The dependency fingerprint is then stored.
+	 * </p>
+	 * 
+	 * @param project                 the build project
+	 * @param modularization          the dependency modularization
+	 * @param moduleInfoWriter        the module info class writer or an empty optional if descriptors must be compiled
+	 * @param modularizedDependencies the set of modularized dependencies
+	 * 
+	 * @throws TaskExecutionException if there was an error completing the dependency modularization
+	 */
+	private void completeDependency(BuildProject project, DependencyModularization modularization, Optional<ModuleInfoClassWriter> moduleInfoWriter, Set<Dependency> modularizedDependencies) throws TaskExecutionException {
+		modularization.checkFailed();
+		BuildDependency dependency = modularization.dependency;
+		BufferedLogger logger = modularization.logger;
+		if(!modularization.complete) {
+			if(modularization.unresolvableServices != null) {
+				ModuleInfo moduleOverride = this.moduleOverrides.get(dependency.getModuleName());
+				if(moduleOverride != null) {
+					this.mergeModuleInfo(dependency, moduleOverride, logger);
+				}
+			}
+			byte[] moduleInfo = moduleInfoWriter
+				.flatMap(writer -> this.writeModuleInfo(dependency, writer, logger))
+				.orElseGet(() -> this.compileModuleInfo(project, dependency, logger));
+			this.packageDependency(project, dependency, moduleInfo, logger);
+			List<String> requires = ModuleDescriptor.read(ByteBuffer.wrap(moduleInfo)).requires().stream().map(ModuleDescriptor.Requires::name).sorted().toList();
+			modularization.cachePath.ifPresent(cachePath -> this.cacheDependency(project, dependency, cachePath, requires, logger));
+			this.storeDependencyToBuildCache(project, dependency, requires, logger);
+		}
+		dependency.storeFingerprint();
+		if(dependency.isAutomatic()) {
+			modularizedDependencies.add(dependency.unwrap());
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Prepares the modularization of the specified automatic or unnamed dependency.
+	 * </p>
+	 * 
+	 * <p>
+	 * The user-provided module descriptor is copied to the exploded module path when specified, otherwise the services which can't be resolved and which must be ignored when generating the
+	 * module descriptor are determined.
+	 * </p>
+	 * 
+	 * @param project    the build project
+	 * @param dependency the build dependency
+	 * @param logger     the dependency logger
+	 * 
+	 * @return an optional returning the names of the JAR entries of the unresolvable services if a module descriptor must be generated, or an empty optional if a module descriptor was provided
+	 * 
+	 * @throws TaskExecutionException if there was an error preparing the dependency
+	 * @throws IOException            if there was an I/O error
+	 */
+	private Optional<Set<String>> prepareDependency(BuildProject project, BuildDependency dependency, BufferedLogger logger) throws TaskExecutionException, IOException {
+		Path explodedJmodPath = dependency.getExplodedModulePath();
+		logger.info(" - modularizing dependency {} to {}...", dependency, explodedJmodPath);
+		if(Files.exists(explodedJmodPath)) {
+			try (Stream<Path> walk = Files.walk(explodedJmodPath)) {
+				for(Iterator<Path> pathIterator = walk.sorted(Comparator.reverseOrder()).iterator(); pathIterator.hasNext();) {
+					Files.delete(pathIterator.next());
+				}
+			}
+			catch(IOException e) {
+				throw new TaskExecutionException("Error cleaning dependency " + dependency, e);
+			}
+		}
+		Files.createDirectories(explodedJmodPath);
+		Files.deleteIfExists(dependency.getModulePath());
+
+		Optional<Path> overriddenModuleInfoPath = this.getOverriddingModuleInfoPath(dependency);
+		if(overriddenModuleInfoPath.isPresent()) {
+			logger.info("   - using {}", overriddenModuleInfoPath.get());
+			Files.copy(overriddenModuleInfoPath.get(), dependency.getModuleInfoPath());
+			return Optional.empty();
+		}
+		else {
+			return Optional.of(this.getUnresolvableServices(project, dependency, logger));
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Returns the key identifying the modularizations of the specified dependency in the modularized dependencies cache and in the build cache.
+	 * </p>
+	 * 
+	 * <p>
+	 * The key is computed from the dependency coordinates and its fingerprint which covers its content, module descriptor overrides and the JDK version. It identifies the list of modules required
+	 * by the modularized dependency which is only known once its module descriptor has been generated.
+	 * </p>
+	 * 
+	 * @param dependency an automatic or unnamed dependency
+	 * 
+	 * @return a cache key
+	 */
+	private String getCacheKey(BuildDependency dependency) {
+		return new Fingerprint()
+			.add(dependency.getGroup())
+			.add(dependency.getName())
+			.add(dependency.getVersion())
+			.add(dependency.getFingerprint())
+			.get();
+	}
+	
+	/**
+	 * <p>
+	 * Returns the key identifying the specified modularized dependency in the modularized dependencies cache and in the build cache.
+	 * </p>
+	 * 
+	 * <p>
+	 * The module descriptor of a modularized dependency only depends on the dependency and on the modules it requires, the key is then computed from the dependency key and the names and versions
+	 * of the required modules in the project so that the modularized dependency is shared by projects requiring the same versions of these modules.
+	 * </p>
+	 * 
+	 * @param project    the build project
+	 * @param dependency an automatic or unnamed dependency
+	 * @param requires   the names of the modules required by the modularized dependency
+	 * 
+	 * @return a cache key
+	 */
+	private String getCacheKey(BuildProject project, BuildDependency dependency, List<String> requires) {
+		Map<String, String> moduleVersions = new HashMap<>();
+		for(BuildDependency projectDependency : project.getDependencies()) {
+			moduleVersions.put(projectDependency.getModuleName(), projectDependency.getModuleVersion());
+		}
+		Fingerprint key = new Fingerprint().add(this.getCacheKey(dependency));
+		requires.stream()
+			.sorted()
+			.map(module -> moduleVersions.containsKey(module) ? module + "@" + moduleVersions.get(module) : module)
+			.forEach(key::add);
+		return key.get();
+	}
+	
+	/**
+	 * <p>
+	 * Returns the path to the directory containing the modularizations of the specified dependency in the modularized dependencies cache.
+	 * </p>
+	 * 
+	 * <p>
+	 * The directory contains an entry per list of required modules, an entry contains the modular JAR and the list of modules it requires in a {@code requires} file.
+	 * </p>
+	 * 
+	 * @param dependency an automatic or unnamed dependency
+	 * 
+	 * @return an optional returning the path to the dependency cache directory or an empty optional if no cache was specified
+	 */
+	private Optional<Path> getDependencyCachePath(BuildDependency dependency) {
+		if(this.cachePath.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.of(this.cachePath.get().resolve(Path.of(dependency.getGroup(), dependency.getName(), dependency.getVersion(), this.getCacheKey(dependency))));
+	}
+	
+	/**
+	 * <p>
+	 * Creates the staging area where the modular JAR of the specified dependency is generated.
+	 * </p>
+	 * 
+	 * <p>
+	 * Dependencies are modularized concurrently, each dependency is then given its own staging area.
+	 * </p>
+	 * 
+	 * @param project    the build project
+	 * @param dependency the build dependency
+	 * 
+	 * @return a new staging area
+	 * 
+	 * @throws IOException if there was an error creating the staging area
+	 */
+	private StagingArea createStagingArea(BuildProject project, BuildDependency dependency) throws IOException {
+		return new StagingArea(this.getStagingPath(project).resolve(dependency.getModulePath().getFileName().toString()));
+	}
+	
+	/**
+	 * <p>
+	 * Restores the specified dependency modular JAR from the modularized dependencies cache.
+	 * </p>
+	 * 
+	 * <p>
+	 * The dependency is restored from the first entry whose required modules resolve to the same key in the project. The cached modular JAR is hard linked to the dependency staging area when 
+	 * possible, it is copied otherwise, before being committed to the working modules path.
+	 * </p>
+	 * 
+	 * @param project             the build project
+	 * @param dependency          the build dependency
+	 * @param dependencyCachePath the path to the dependency cache directory
+	 * @param logger              the dependency logger
+	 * 
+	 * @return true if the dependency was restored, false if it is not in the cache
+	 * 
+	 * @throws IOException if there was an I/O error
+	 */
+	private boolean restoreDependency(BuildProject project, BuildDependency dependency, Path dependencyCachePath, BufferedLogger logger) throws IOException {
+		if(!Files.isDirectory(dependencyCachePath)) {
+			return false;
+		}
+		Optional<Path> cachedModulePath;
+		try(Stream<Path> entries = Files.list(dependencyCachePath)) {
+			cachedModulePath = entries
+				.filter(cacheEntryPath -> {
+					Path requiresPath = cacheEntryPath.resolve(CACHE_REQUIRES);
+					if(!Files.isRegularFile(requiresPath)) {
+						// temporary entry being created by another build
+						return false;
+					}
+					try {
+						return cacheEntryPath.getFileName().toString().equals(this.getCacheKey(project, dependency, Files.readAllLines(requiresPath)));
+					}
+					catch(IOException e) {
+						return false;
+					}
+				})
+				.map(cacheEntryPath -> cacheEntryPath.resolve(dependency.getModulePath().getFileName()))
+				.filter(Files::exists)
+				.findFirst();
+		}
+		if(cachedModulePath.isEmpty()) {
+			return false;
+		}
+		logger.info(" - restoring modularized dependency {} from {}", dependency, cachedModulePath.get().getParent());
+		try(StagingArea stagingArea = this.createStagingArea(project, dependency)) {
+			Path stagedModulePath = stagingArea.stage(dependency.getModulePath());
+			try {
+				Files.createLink(stagedModulePath, cachedModulePath.get());
+			}
+			catch(UnsupportedOperationException | IOException e) {
+				// cache and working directory might be on different file stores
+				Files.copy(cachedModulePath.get(), stagedModulePath);
+			}
+			stagingArea.commit();
+		}
+		return true;
+	}
+	
+	/**
+	 * <p>
+	 * Restores the specified dependency modular JAR from the build cache.
+	 * </p>
+	 * 
+	 * <p>
+	 * The list of modules required by the modularized dependency is retrieved first in order to determine the key of the modular JAR in the project. Since the build cache is an optimization, errors
+	 * are logged and reported as a cache miss.
+	 * </p>
+	 * 
+	 * @param project    the build project
+	 * @param dependency the build dependency
+	 * @param logger     the dependency logger
+	 * 
+	 * @return true if the dependency was restored, false otherwise
+	 */
+	private boolean restoreDependencyFromBuildCache(BuildProject project, BuildDependency dependency, BufferedLogger logger) {
+		Optional<BuildCache> buildCache = project.getBuildCache();
+		if(buildCache.isEmpty()) {
+			return false;
+		}
+		Path requiresPath = null;
+		try {
+			Optional<InputStream> requiresEntry = buildCache.get().get(this.getCacheKey(dependency));
+			if(requiresEntry.isEmpty()) {
+				return false;
+			}
+			requiresPath = Files.createTempFile(project.getWorkingPath(), CACHE_REQUIRES + "-", ".txt");
+			try(InputStream requiresInput = requiresEntry.get()) {
+				BuildCacheEntry.unpack(requiresInput, List.of(requiresPath));
+			}
+			Optional<InputStream> entry = buildCache.get().get(this.getCacheKey(project, dependency, Files.readAllLines(requiresPath)));
+			if(entry.isEmpty()) {
+				return false;
+			}
+			try(InputStream entryInput = entry.get(); StagingArea stagingArea = this.createStagingArea(project, dependency)) {
+				BuildCacheEntry.unpack(entryInput, List.of(stagingArea.stage(dependency.getModulePath())));
+				stagingArea.commit();
+			}
+			logger.info(" - restored modularized dependency {} from build cache {}", dependency, buildCache.get());
+			return true;
+		}
+		catch(IOException e) {
+			logger.warn(" - error restoring modularized dependency {} from build cache {}: {}", dependency, buildCache.get(), e.toString());
+			return false;
+		}
+		finally {
+			if(requiresPath != null) {
+				try {
+					Files.deleteIfExists(requiresPath);
+				}
+				catch(IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Stores the specified modularized dependency in the build cache.
+	 * </p>
+	 * 
+	 * <p>
+	 * The modular JAR is stored with a key computed from the modules it requires, the list of required modules is then stored with the dependency key. Since the build cache is an optimization,
+	 * errors are logged and ignored.
+	 * </p>
+	 * 
+	 * @param project    the build project
+	 * @param dependency the modularized dependency
+	 * @param requires   the names of the modules required by the modularized dependency
+	 * @param logger     the dependency logger
+	 */
+	private void storeDependencyToBuildCache(BuildProject project, BuildDependency dependency, List<String> requires, BufferedLogger logger) {
+		Optional<BuildCache> buildCache = project.getBuildCache();
+		if(buildCache.isEmpty()) {
+			return;
+		}
+		Path entryPath = null;
+		Path requiresPath = null;
+		try {
+			entryPath = Files.createTempFile(project.getWorkingPath(), "cache-", ".tgz");
+			try(OutputStream entryOutput = Files.newOutputStream(entryPath)) {
+				BuildCacheEntry.pack(List.of(dependency.getModulePath()), entryOutput);
+			}
+			buildCache.get().put(this.getCacheKey(project, dependency, requires), entryPath);
+
+			// the required modules are stored last so that they never designate a missing entry
+			requiresPath = Files.createTempFile(project.getWorkingPath(), CACHE_REQUIRES + "-", ".txt");
+			Files.write(requiresPath, requires);
+			try(OutputStream entryOutput = Files.newOutputStream(entryPath)) {
+				BuildCacheEntry.pack(List.of(requiresPath), entryOutput);
+			}
+			buildCache.get().put(this.getCacheKey(dependency), entryPath);
+			logger.info("   - caching modularized dependency to build cache {}", buildCache.get());
+		}
+		catch(IOException e) {
+			logger.warn("   - error caching modularized dependency {} to build cache {}: {}", dependency, buildCache.get(), e.toString());
+		}
+		finally {
+			for(Path path : new Path[] { entryPath, requiresPath }) {
+				if(path != null) {
+					try {
+						Files.deleteIfExists(path);
+					}
+					catch(IOException e) {
+						// ignore
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Stores the specified modularized dependency in the modularized dependencies cache.
+	 * </p>
+	 * 
+	 * <p>
+	 * The entry, which contains the modular JAR and the list of modules it requires, is first created in a temporary directory which is then atomically moved to the entry path so that concurrent
+	 * builds never see a partial entry. Since the cache is an optimization, errors are logged and ignored.
+	 * </p>
+	 * 
+	 * @param project             the build project
+	 * @param dependency          the modularized dependency
+	 * @param dependencyCachePath the path to the dependency cache directory
+	 * @param requires            the names of the modules required by the modularized dependency
+	 * @param logger              the dependency logger
+	 */
+	private void cacheDependency(BuildProject project, BuildDependency dependency, Path dependencyCachePath, List<String> requires, BufferedLogger logger) {
+		Path cacheEntryPath = dependencyCachePath.resolve(this.getCacheKey(project, dependency, requires));
+		if(Files.exists(cacheEntryPath)) {
+			return;
+		}
+		Path tmpEntryPath = null;
+		try {
+			Files.createDirectories(dependencyCachePath);
+			tmpEntryPath = Files.createTempDirectory(dependencyCachePath, cacheEntryPath.getFileName() + ".");
+			Files.copy(dependency.getModulePath(), tmpEntryPath.resolve(dependency.getModulePath().getFileName()));
+			Files.write(tmpEntryPath.resolve(CACHE_REQUIRES), requires);
+			try {
+				Files.move(tmpEntryPath, cacheEntryPath, StandardCopyOption.ATOMIC_MOVE);
+				logger.info("   - caching modularized dependency to {}", cacheEntryPath);
+			}
+			catch(FileAlreadyExistsException | DirectoryNotEmptyException e) {
+				// another build cached the dependency in the meantime
+			}
+		}
+		catch(IOException e) {
+			logger.warn("   - error caching modularized dependency {} to {}: {}", dependency, cacheEntryPath, e.getMessage());
+		}
+		finally {
+			if(tmpEntryPath != null && Files.exists(tmpEntryPath)) {
+				try(Stream<Path> walk = Files.walk(tmpEntryPath)) {
+					for(Iterator<Path> pathIterator = walk.sorted(Comparator.reverseOrder()).iterator(); pathIterator.hasNext();) {
+						Files.delete(pathIterator.next());
+					}
+				}
+				catch(IOException e) {
+					logger.warn("   - error cleaning {}: {}", tmpEntryPath, e.getMessage());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Copies the specified unnamed dependency JAR to the unnamed modules path and sets the {@code Automatic-Module-Name} in its manifest.
+	 * </p>
+	 * 
+	 * @param dependency the unnamed dependency
+	 * @param logger     the dependency logger
+	 * 
+	 * @throws TaskExecutionException if there was an error copying the unnamed dependency JAR
+	 */
+	private void nameDependency(BuildDependency dependency, BufferedLogger logger) throws TaskExecutionException {
+		logger.info(" - setting Automatic-Module-Name in unnamed module JAR: {}", dependency.getUnnamedModulePath());
+		try {
+			Files.deleteIfExists(dependency.getUnnamedModulePath());
+			this.repackageJar(dependency.getJarPath(), dependency.getUnnamedModulePath(), this.getModuleManifest(dependency), null, UnaryOperator.identity());
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error copying unnamed dependency " + dependency + "", e);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Returns the manifest of the modularized dependency.
+	 * </p>
+	 * 
+	 * <p>
+	 * This is the manifest of the dependency JAR with the {@code Automatic-Module-Name} attribute set when the dependency is unnamed.
+	 * </p>
+	 * 
+	 * @param dependency the build dependency
+	 * 
+	 * @return the manifest or null if the dependency is named and doesn't define a manifest
+	 * 
+	 * @throws IOException if there was an error reading the dependency JAR
+	 */
+	private Manifest getModuleManifest(BuildDependency dependency) throws IOException {
+		Manifest manifest;
+		try(JarFile jarFile = new JarFile(dependency.getJarPath().toFile(), false)) {
+			manifest = jarFile.getManifest();
+		}
+		if(!dependency.isNamed()) {
+			if(manifest == null) {
+				manifest = new Manifest();
+				manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+			}
+			manifest.getMainAttributes().put(new Attributes.Name("Automatic-Module-Name"), dependency.getModuleName());
+		}
+		return manifest;
+	}
+	
+	/**
+	 * <p>
+	 * Returns a function that relocates the resources of the specified dependency when it is a WebJar.
+	 * </p>
+	 * 
+	 * <p>
+	 * WebJar resources are relocated from {@code META-INF/resources/webjars/[NAME]/[VERSION]/} to {@code META-INF/resources/webjars/[MODULE_NAME]/} in order to be able to resolve them from 
+	 * the module name regardless of the version.
+	 * </p>
+	 * 
+	 * @param dependency the build dependency
+	 * 
+	 * @return an entry name mapper returning the relocated entry name or null if the entry must be ignored
+	 */
+	private UnaryOperator<String> getWebjarRelocator(BuildDependency dependency) {
+		if(!dependency.getModuleName().startsWith("org.webjars")) {
+			return UnaryOperator.identity();
+		}
+		String webjarName = dependency.getModuleName().substring(dependency.getGroup().length() + 1);
+		Path webjarResourcesPath = Path.of("META-INF/resources/webjars/");
+		return entryName -> {
+			Path jarEntryPath = Path.of(entryName);
+			if(jarEntryPath.startsWith(webjarResourcesPath) && jarEntryPath.getNameCount() > webjarResourcesPath.getNameCount()) {
+				if(jarEntryPath.getNameCount() == webjarResourcesPath.getNameCount() + 1) {
+					return entryName.endsWith("/") ? "META-INF/resources/webjars/" + webjarName + "/" : null;
+				}
+				String relocatedEntryName = webjarResourcesPath.resolve(webjarName).resolve(jarEntryPath.subpath(webjarResourcesPath.getNameCount() + 1, jarEntryPath.getNameCount())).toString().replace(java.io.File.separatorChar, '/');
+				return entryName.endsWith("/") ? relocatedEntryName + "/" : relocatedEntryName;
+			}
+			return entryName;
+		};
+	}
+	
+	/**
+	 * <p>
+	 * Repackages a JAR in a single pass.
+	 * </p>
+	 * 
+	 * <p>
+	 * Entries are copied in their compressed form from the source JAR to the target JAR without being decompressed and recompressed. The manifest and the module descriptor are written first when
+	 * specified, the module descriptor and the manifest of the source JAR are then ignored.
+	 * </p>
+	 * 
+	 * @param sourceJarPath  the source JAR
+	 * @param targetJarPath  the target JAR
+	 * @param manifest       the manifest to write in place of the source manifest or null to keep the source manifest
+	 * @param moduleInfo     the compiled module descriptor to add or null
+	 * @param entryMapper    a function returning the name of a source entry in the target JAR or null to ignore it
+	 * 
+	 * @throws IOException if there was an I/O error
+	 */
+	private void repackageJar(Path sourceJarPath, Path targetJarPath, Manifest manifest, byte[] moduleInfo, UnaryOperator<String> entryMapper) throws IOException {
+		try(ZipFile sourceJar = ZipFile.builder().setPath(sourceJarPath).get(); ZipArchiveOutputStream targetJar = new ZipArchiveOutputStream(targetJarPath)) {
+			if(manifest != null) {
+				targetJar.putArchiveEntry(new ZipArchiveEntry("META-INF/"));
+				targetJar.closeArchiveEntry();
+				targetJar.putArchiveEntry(new ZipArchiveEntry(JarFile.MANIFEST_NAME));
+				manifest.write(targetJar);
+				targetJar.closeArchiveEntry();
+			}
+			if(moduleInfo != null) {
+				targetJar.putArchiveEntry(new ZipArchiveEntry("module-info.class"));
+				targetJar.write(moduleInfo);
+				targetJar.closeArchiveEntry();
+			}
+			
+			for(Iterator<ZipArchiveEntry> entriesIterator = sourceJar.getEntriesInPhysicalOrder().asIterator(); entriesIterator.hasNext();) {
+				ZipArchiveEntry entry = entriesIterator.next();
+				String entryName = entry.getName();
+				if((manifest != null && (entryName.equals("META-INF/") || entryName.equals(JarFile.MANIFEST_NAME))) || (moduleInfo != null && entryName.equals("module-info.class"))) {
+					continue;
+				}
+				String targetEntryName = entryMapper.apply(entryName);
+				if(targetEntryName == null) {
+					continue;
+				}
+				
+				ZipArchiveEntry targetEntry = entry;
+				if(!targetEntryName.equals(entryName)) {
+					targetEntry = new ZipArchiveEntry(targetEntryName);
+					targetEntry.setMethod(entry.getMethod());
+					targetEntry.setCrc(entry.getCrc());
+					targetEntry.setSize(entry.getSize());
+					targetEntry.setCompressedSize(entry.getCompressedSize());
+					targetEntry.setTime(entry.getTime());
+				}
+				try(InputStream rawInput = sourceJar.getRawInputStream(entry)) {
+					targetJar.addRawArchiveEntry(targetEntry, rawInput);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Returns the services provided in the specified dependency JAR which can't be resolved.
+	 * </p>
+	 * 
+	 * <p>
+	 * A service whose interface is neither defined in a project dependency nor in the JDK must be excluded from the generated module descriptor. Services are resolved from the project dependency
+	 * index, no class is loaded.
+	 * </p>
+	 * 
+	 * @param project    the build project
+	 * @param dependency the build dependency
+	 * @param logger     the dependency logger
+	 * 
+	 * @return the names of the JAR entries of the services to exclude
+	 */
+	private Set<String> getUnresolvableServices(BuildProject project, BuildDependency dependency, BufferedLogger logger) {
+		DependencyIndex index = project.getDependencyIndex();
+		ClassLoader platformClassLoader = ClassLoader.getPlatformClassLoader();
+		Set<String> unresolvableServices = new HashSet<>();
+		for(String serviceName : dependency.getIndex().getServices().keySet()) {
+			if(!index.containsClass(serviceName) && platformClassLoader.getResource(serviceName.replace('.', '/') + ".class") == null) {
+				logger.warn("Ignoring service {} provided in module {} which doesn't exist on the classpath", serviceName, dependency);
+				unresolvableServices.add("META-INF/services/" + serviceName);
+			}
+		}
+		return unresolvableServices;
+	}
+	
+	/**
+	 * <p>
+	 * Generates the {@code module-info.java} descriptor of the specified dependency by analyzing its bytecode.
+	 * </p>
+	 * 
+	 * <p>
+	 * When the dependency can't be analyzed or when {@link #useJdeps(boolean) } was specified, the dependency is repackaged without its unresolvable services in the working modules path so that its
+	 * descriptor can be generated later on with {@code jdeps}.
+	 * </p>
+	 * 
+	 * @param modularization the dependency modularization
+	 * @param analyzer       the dependency analyzer or an empty optional to generate the descriptor with {@code jdeps}
+	 * 
+	 * @throws TaskExecutionException if there was an error generating the module descriptor
+	 */
+	private void generateModuleInfo(DependencyModularization modularization, Optional<DependencyAnalyzer> analyzer) throws TaskExecutionException {
+		modularization.checkFailed();
+		BuildDependency dependency = modularization.dependency;
+		try {
+			Optional<ModuleInfo> moduleInfo = analyzer.flatMap(dependencyAnalyzer -> this.analyzeDependency(dependency, modularization.unresolvableServices, dependencyAnalyzer, modularization.logger));
+			if(moduleInfo.isPresent()) {
+				this.writeModuleInfoSource(moduleInfo.get(), dependency.getModuleInfoPath());
+			}
+			else {
+				// jdeps analyzes the dependency repackaged without its unresolvable services
+				this.repackageJar(dependency.getJarPath(), dependency.getModulePath(), null, null, entryName -> modularization.unresolvableServices.contains(entryName) ? null : entryName);
+				modularization.jdeps = true;
+			}
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error generating module-info.java for " + dependency + "", e);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Generates the {@code module-info.java} descriptors of the specified dependencies in a single {@code jdeps} analysis.
+	 * </p>
+	 * 
+	 * <p>
+	 * The dependencies repackaged without their unresolvable services are deleted from the working modules path once the descriptors have been generated.
+	 * </p>
+	 * 
+	 * @param project      the build project
+	 * @param dependencies the build dependencies repackaged to the working modules path
+	 * 
+	 * @throws TaskExecutionException if there was an error generating the module descriptors
+	 */
+	private void generateModuleInfos(BuildProject project, Set<BuildDependency> dependencies) throws TaskExecutionException {
+		BufferedLogger logger = new BufferedLogger(LOGGER);
+		try {
+			this.generateModuleInfosWithJdeps(project, dependencies, logger);
+		}
+		finally {
+			logger.flush();
+			for(BuildDependency dependency : dependencies) {
+				try {
+					Files.deleteIfExists(dependency.getModulePath());
+				}
+				catch (IOException e) {
+					LOGGER.warn("Error deleting {}", dependency.getModulePath(), e);
+				}
+			}
+		}
+	}
 	
 	/**
 	 * <p>
-	 * Returns the path to the user-provided {@code module-info.java} for the specified dependency.
+	 * Creates the dependency analyzer used to generate module descriptors.
 	 * </p>
 	 * 
 	 * <p>
-	 * When provided, no descriptor is generated for that dependency.
+	 * The classes of the project dependencies are resolved from the project dependency index.
 	 * </p>
-	 * 
-	 * @param dependency a build dependency
-	 * 
-	 * @return an optional returning the path to the overriding module descriptor or an empty optional
+	 *
+	 * @param project      the build project
+	 * @param moduleFinder the finder used to resolve the modules required by the dependencies
+	 *
+	 * @return an optional returning the dependency analyzer or an empty optional if the module path can't be indexed
 	 */
-	private Optional<Path> getOverriddingModuleInfoPath(BuildDependency dependency) {
-		return this.moduleOverridesPath
-			.map(path -> path.resolve(Path.of(dependency.getModuleName(), "module-info.java")))
-			.filter(Files::exists);
-	}
-	
-	@Override
-	protected Set<Dependency> doExecute(BuildProject project, ProgressBar.Step step) throws TaskExecutionException {
-		if(step != null) {
-			step.setDescription("Modularizing, compiling and repackaging project dependencies...");
+	private Optional<DependencyAnalyzer> createDependencyAnalyzer(BuildProject project, ModuleFinder moduleFinder) {
+		Map<String, Set<String>> classesByModuleName = new HashMap<>();
+		for(BuildDependency dependency : project.getDependencies()) {
+			classesByModuleName.putIfAbsent(dependency.getModuleName(), dependency.getIndex().getClasses());
 		}
-		
-		LOGGER.info("[ Modularizing, compiling and repackaging dependencies for project {}... ]", project);
-
 		try {
-			Files.createDirectories(project.getModulesPath());
-			Files.createDirectories(project.getModulesExplodedPath());
-			Files.createDirectories(project.getModulesUnnamedPath());
+			return Optional.of(new DependencyAnalyzer(moduleFinder, classesByModuleName));
 		}
-		catch(IOException e) {
-			throw new TaskExecutionException("Error initializing working directory");
+		catch(FindException | IOException e) {
+			LOGGER.warn(" - error indexing module path, module descriptors will be generated with jdeps: {}", e.getMessage());
+			return Optional.empty();
 		}
-		
-		if(project.getDependencies().stream().anyMatch(BuildDependency::isMarked)) {
-			ProgressBar.Step modularizeStep = step != null ? step.addStep(80, "Modularizing project dependencies...") : null;
-			ProgressBar.Step compileStep = step != null ? step.addStep(10, "Compiling project dependencies...") : null;
-			ProgressBar.Step repackageStep = step != null ? step.addStep(10, "Repackaging project dependencies...") : null;
-		
-			Set<Dependency> modularizeDependencies;
-			try {
-				modularizeDependencies = this.modularizeDependencies(project);
-			}
-			finally {
-				if(modularizeStep != null) {
-					modularizeStep.done();
-				}
-			}
-
-			try {
-				this.compileModularizedDependencies(project);
-			}
-			finally {
-				if(compileStep != null) {
-					compileStep.done();
-				}
-			}
-
-			try {
-				this.packageModularizedDependencies(project);
-			}
-			finally {
-				if(repackageStep != null) {
-					repackageStep.done();
-				}
-			}
-			return modularizeDependencies;
+	}
+	
+	/**
+	 * <p>
+	 * Analyzes the specified dependency to generate its module descriptor.
+	 * </p>
+	 *
+	 * @param dependency           the build dependency
+	 * @param unresolvableServices the names of the JAR entries of the services to ignore
+	 * @param analyzer             the dependency analyzer
+	 * @param logger               the dependency logger
+	 *
+	 * @return an optional returning the module info or an empty optional if the descriptor must be generated with jdeps
+	 */
+	private Optional<ModuleInfo> analyzeDependency(BuildDependency dependency, Set<String> unresolvableServices, DependencyAnalyzer analyzer, BufferedLogger logger) {
+		logger.info(" - analyzing dependency {}", dependency);
+		try {
+			return Optional.of(analyzer.analyze(dependency.getModuleName(), dependency.getJarPath(), unresolvableServices));
 		}
-		else {
-			LOGGER.info("[ Project dependencies are up to date ]");
-			return Set.of();
+		catch(IOException | IllegalArgumentException e) {
+			logger.warn("   - {}, module descriptor will be generated with jdeps", e.getMessage());
+			return Optional.empty();
 		}
 	}
 	
 	/**
 	 * <p>
-	 * Modularizes the project dependencies.
+	 * Writes the {@code module-info.java} descriptor generated by analyzing a dependency.
 	 * </p>
-	 * 
+	 *
 	 * <p>
-	 * A module decriptor is generated for automatic and unnamed dependencies only when no descriptor was provided in {@link #moduleOverridesPath(java.nio.file.Path) } for that particular dependency. 
-	 * If a {@link ModuleInfo} was specified with {@link #moduleOverrides(java.util.List) } it is merged with the generated descriptor.
+	 * The descriptor is formatted like the ones generated by {@code jdeps} so that generated descriptors look the same regardless of the generation strategy.
 	 * </p>
-	 * 
-	 * @param project the build project
-	 * 
-	 * @return the set of dependencies that were modularized
-	 * 
-	 * @throws TaskExecutionException if there was an error modularizing the dependencies
+	 *
+	 * @param moduleInfo     the generated module info
+	 * @param moduleInfoPath the path to the {@code module-info.java} descriptor
+	 *
+	 * @throws IOException if there was an error writing the descriptor
 	 */
-	private Set<Dependency> modularizeDependencies(BuildProject project) throws TaskExecutionException {
-		LOGGER.info("[ Modularizing project dependencies... ]");
-		try {
-			Set<Dependency> modularizedDependencies = new HashSet<>();
-			for(BuildDependency dependency : project.getDependencies()) {
-				if(dependency.isMarked()) {
-					if(dependency.isAutomatic()) {
-						Path explodedJmodPath = dependency.getExplodedModulePath();
-						LOGGER.info(" - modularizing dependency {} to {}...", dependency, explodedJmodPath);
-						try {
-							if(Files.exists(explodedJmodPath)) {
-								try (Stream<Path> walk = Files.walk(explodedJmodPath)) {
-									for(Iterator<Path> pathIterator = walk.sorted(Comparator.reverseOrder()).iterator(); pathIterator.hasNext();) {
-										Files.delete(pathIterator.next());
-									}
-								}
-								catch(IOException e) {
-									throw new TaskExecutionException("Error cleaning dependency " + dependency, e);
-								}
-							}
-							Files.deleteIfExists(dependency.getModulePath());
-							Files.copy(dependency.getJarPath(), dependency.getModulePath());
-
-							this.unpackDependency(dependency);
-
-							Optional<Path> overriddenModuleInfoPath = this.getOverriddingModuleInfoPath(dependency);
-							if(overriddenModuleInfoPath.isPresent()) {
-								LOGGER.info("   - using ", overriddenModuleInfoPath.get());
-								Files.copy(overriddenModuleInfoPath.get(), dependency.getModuleInfoPath());
-							}
-							else {
-								this.generateModuleInfo(project, dependency);
-							}
-							modularizedDependencies.add(dependency.unwrap());
-						}
-						finally {
-							Files.deleteIfExists(dependency.getModulePath());
-						}
-					}
-					else {
-						LOGGER.info(" - copying modular dependency {} to {}...", dependency, dependency.getModulePath());
-						Files.deleteIfExists(dependency.getModulePath());
-						Files.copy(dependency.getJarPath(), dependency.getModulePath());
-					}
-				}
-				else {
-					LOGGER.info(" - skipping dependency {} which is up to date", dependency);
-				}
+	private void writeModuleInfoSource(ModuleInfo moduleInfo, Path moduleInfoPath) throws IOException {
+		try(PrintWriter writer = new PrintWriter(Files.newBufferedWriter(moduleInfoPath))) {
+			writer.format("module %s {%n", moduleInfo.getName());
+			
+			List<ModuleInfo.RequiresDirective> requires = moduleInfo.getRequires().stream().filter(directive -> !directive.isTransitive()).toList();
+			requires.forEach(directive -> writer.format("    requires %s;%n", directive.getModule()));
+			if(!requires.isEmpty()) {
+				writer.println();
 			}
-			return modularizedDependencies;
-		}
-		catch (IOException e) {
-			throw new TaskExecutionException("Error modularizing dependencies", e);
+			
+			List<ModuleInfo.RequiresDirective> transitiveRequires = moduleInfo.getRequires().stream().filter(ModuleInfo.RequiresDirective::isTransitive).toList();
+			transitiveRequires.forEach(directive -> writer.format("    requires transitive %s;%n", directive.getModule()));
+			if(!transitiveRequires.isEmpty()) {
+				writer.println();
+			}
+			
+			moduleInfo.getExports().forEach(directive -> writer.format("    exports %s;%n", directive.getPackage()));
+			if(!moduleInfo.getExports().isEmpty()) {
+				writer.println();
+			}
+			
+			moduleInfo.getProvides().forEach(directive -> writer.println(directive.getWith().stream()
+				.map(implementation -> "        " + implementation)
+				.collect(Collectors.joining(",\n", String.format("    provides %s with%n", directive.getType()), ";"))
+			));
+			if(!moduleInfo.getProvides().isEmpty()) {
+				writer.println();
+			}
+			writer.println("}");
 		}
 	}
 	
 	/**
 	 * <p>
-	 * Unpacks the specified dependency JAR to the exploded module path.
+	 * Generates the {@code module-info.java} descriptors for the specified dependencies with {@code jdeps}.
+	 * </p>
+	 * 
+	 * <p>
+	 * Descriptors are generated in a single {@code jdeps} analysis. If it fails, descriptors are generated one dependency at a time in order to identify the faulty dependency.
 	 * </p>
 	 * 
-	 * @param dependency the dependency to unpack
+	 * @param project      the build project
+	 * @param dependencies the build dependencies repackaged to the working modules path
+	 * @param logger       the logger
 	 * 
-	 * @throws TaskExecutionException if there was an error unpacking the dependency JAR
+	 * @throws TaskExecutionException if there was an error generating the module descriptors
 	 */
-	private void unpackDependency(BuildDependency dependency) throws TaskExecutionException {
-		Path jarSourcePath = dependency.getJarPath();
-		if(!dependency.isNamed()) {
-			LOGGER.info("   - setting Automatic-Module-Name in unnamed module JAR: {}", dependency.getUnnamedModulePath());
-
-			// copy to modules-unnamed
-			try {
-				Files.deleteIfExists(dependency.getUnnamedModulePath());
-				Files.copy(jarSourcePath, dependency.getUnnamedModulePath());
-				jarSourcePath = dependency.getUnnamedModulePath();
-				// Set Automatic-Module-Name
-				
-				try(FileSystem jarFs = FileSystems.newFileSystem(URI.create("jar:" + jarSourcePath.toUri()), Map.of())) {
-					Path manifestPath = jarFs.getPath("META-INF", "MANIFEST.MF");
-					if(Files.exists(manifestPath)) {
-						try (InputStream is = Files.newInputStream(manifestPath)) {
-							Manifest manifest = new Manifest(is);
-							manifest.getMainAttributes().put(new Attributes.Name("Automatic-Module-Name"), dependency.getModuleName());
-							try (OutputStream jarOutput = Files.newOutputStream(manifestPath)) {
-								manifest.write(jarOutput);
-							}
-						}
-					}
-					else {
-						if(!Files.exists(manifestPath.getParent())) {
-							jarFs.provider().createDirectory(manifestPath.getParent());
-						}
-						Manifest manifest = new Manifest();
-						manifest.getMainAttributes().put(new Attributes.Name("Automatic-Module-Name"), dependency.getModuleName());
-						try (OutputStream jarOutput = Files.newOutputStream(manifestPath)) {
-							manifest.write(jarOutput);
-						}
-					}
-				}
+	private void generateModuleInfosWithJdeps(BuildProject project, Set<BuildDependency> dependencies, BufferedLogger logger) throws TaskExecutionException {
+		String version = Integer.toString(Runtime.version().feature());
+		
+		logger.info(" - generating module descriptors for {} dependencies...", dependencies.size());
+		if(!this.runJdeps(project, dependencies, version, logger)) {
+			if(dependencies.size() == 1) {
+				throw new TaskExecutionException("Error generating module-info.java for " + dependencies.iterator().next());
 			}
-			catch(IOException e) {
-				throw new TaskExecutionException("Error copying unnamed dependency " + dependency + "", e);
+			logger.warn("   - error generating module descriptors, retrying one dependency at a time...");
+			for(BuildDependency dependency : dependencies) {
+				if(!Files.exists(dependency.getExplodedModulePath().resolve(Path.of("versions", version, "module-info.java"))) && !this.runJdeps(project, Set.of(dependency), version, logger)) {
+					throw new TaskExecutionException("Error generating module-info.java for " + dependency);
+				}
 			}
 		}
 		
-		Path explodedModulePath = dependency.getExplodedModulePath();
-		try(JarFile moduleJar = new JarFile(jarSourcePath.toFile(), true, ZipFile.OPEN_READ, Runtime.version())) {
-			boolean webjar = dependency.getModuleName().startsWith("org.webjars");
-			String webjarName = null;
-			if(webjar) {
-				webjarName = dependency.getModuleName().substring(dependency.getGroup().length() + 1);
+		for(BuildDependency dependency : dependencies) {
+			Path explodedModulePath = dependency.getExplodedModulePath();
+			try {
+				Files.move(explodedModulePath.resolve(Path.of("versions", version, "module-info.java")), dependency.getModuleInfoPath());
+				Files.delete(explodedModulePath.resolve(Path.of("versions", version)));
+				Files.delete(explodedModulePath.resolve(Path.of("versions")));
 			}
-			
-			Path webjarResourcesPath = Path.of("META-INF/resources/webjars/");
-			LOGGER.info("   - unpacking {} {} to {}", webjar ? "WebJar " : "", dependency, explodedModulePath);
-			
-			for(JarEntry jarEntry : moduleJar.stream().collect(Collectors.toList())) {
-				Path jarEntryPath = Path.of(jarEntry.getName());
-				Path targetEntry;
-				if(webjar && jarEntryPath.startsWith(webjarResourcesPath) && jarEntryPath.getNameCount() > webjarResourcesPath.getNameCount()) {
-					if(jarEntryPath.getNameCount() == webjarResourcesPath.getNameCount() + 1) {
-						continue;
-					}
-					targetEntry = explodedModulePath.resolve(webjarResourcesPath.resolve(webjarName).resolve(jarEntryPath.subpath(webjarResourcesPath.getNameCount() + 1, jarEntryPath.getNameCount())));
-				}
-				else {
-					targetEntry = explodedModulePath.resolve(jarEntry.getName()).normalize();
-				}
-				
-				if(!targetEntry.startsWith(explodedModulePath)) {
-					throw new IOException("Entry is outside of the module output dir: " + jarEntry.getName());
-				}
-				
-				if(jarEntry.isDirectory()) {
-					Files.createDirectories(targetEntry);
-				}
-				else {
-					Files.createDirectories(targetEntry.getParent());
-					Files.copy(moduleJar.getInputStream(jarEntry), targetEntry);
-				}
+			catch (IOException e) {
+				throw new TaskExecutionException("Error generating module-info.java for " + dependency + "", e);
 			}
-		} 
-		catch (IOException e) {
-			throw new TaskExecutionException("Error unpacking dependency " + dependency + "", e);
 		}
 	}
 	
 	/**
 	 * <p>
-	 * Generates the {@code module-info.java} descriptor for the specified dependency.
+	 * Runs {@code jdeps} to generate the {@code module-info.java} descriptors of the specified dependencies.
 	 * </p>
 	 * 
-	 * @param project    the build project
-	 * @param dependency the build dependency
+	 * @param project      the build project
+	 * @param dependencies the build dependencies
+	 * @param version      the JDK feature version
+	 * @param logger       the logger
 	 * 
-	 * @throws TaskExecutionException if there was an error generating the module descriptor
+	 * @return true if descriptors were generated, false otherwise
 	 */
-	private void generateModuleInfo(BuildProject project, BuildDependency dependency) throws TaskExecutionException {
-		try {
-			Set<URL> urls = new HashSet<>();
-			for(Dependency d : project.getDependencies()) {
-				urls.add(d.getJarPath().toUri().toURL());
-			}
-			
-			// We should first look at the META-INF/services defined in the jar:
-			// if a service correspond to an interface that can't be resolved it must be excluded
-			// If we get there we must have a JAR resource because unpack uses JarFile
-			URI dependencyJarURI = URI.create("jar:" + dependency.getModulePath().toAbsolutePath().toUri());
-			try (FileSystem fs = FileSystems.newFileSystem(dependencyJarURI, Map.of("create", "false"));URLClassLoader classLoader = new URLClassLoader(urls.stream().toArray(URL[]::new));) {
-				Path services = fs.getPath("META-INF", "services").toAbsolutePath();
-				if(Files.exists(services)) {
-					for(Path servicePath : Files.list(services).filter(Files::isRegularFile).toArray(Path[]::new)) {
-						try {
-							classLoader.loadClass(servicePath.getFileName().toString());
-						} 
-						catch (ClassNotFoundException e1) {
-							LOGGER.warn("Ignoring service {} provided in module {} which doesn't exist on the classpath", servicePath.getFileName().toString(), dependency);
-							Files.delete(servicePath);
-						}
-					}
+	private boolean runJdeps(BuildProject project, Set<BuildDependency> dependencies, String version, BufferedLogger logger) {
+		String jdeps_modulePath = project.getDependencies().stream().map(d -> {
+				if(d.isNamed()) {
+					return d.getJarPath().toString();
 				}
-			}
-			
-			String version = Integer.toString(Runtime.version().feature());
-			
-			String jdeps_modulePath = project.getDependencies().stream().map(d -> {
-					if(d.isNamed()) {
-						return d.getJarPath().toString();
-					}
-					else {
-						return d.getUnnamedModulePath().toString();
-					}
-				}).collect(Collectors.joining(System.getProperty("path.separator")));
-			
-			Optional<ModuleInfo> moduleOverride = Optional.ofNullable(this.moduleOverrides.get(dependency.getModuleName()));
-			
-			List<String> jdeps_args = new LinkedList<>();
-			
-			jdeps_args.add("--ignore-missing-deps");
-			jdeps_args.add("--multi-release");
-			jdeps_args.add(version);
-			jdeps_args.add("--module-path");
-			jdeps_args.add(jdeps_modulePath);
+				else {
+					return d.getUnnamedModulePath().toString();
+				}
+			}).collect(Collectors.joining(System.getProperty("path.separator")));
+		
+		List<String> jdeps_args = new LinkedList<>();
+		
+		jdeps_args.add("--ignore-missing-deps");
+		jdeps_args.add("--multi-release");
+		jdeps_args.add(version);
+		jdeps_args.add("--module-path");
+		jdeps_args.add(jdeps_modulePath);
+		jdeps_args.add("--generate-module-info");
+		// When generating a open module, no exports is created so let's keep it that way
+		/*if(moduleOverride.map(override -> override.isOpen()).orElse(false)) {
+			jdeps_args.add("--generate-open-module");
+		}
+		else {
 			jdeps_args.add("--generate-module-info");
-			// When generating a open module, no exports is created so let's keep it that way
-			/*if(moduleOverride.map(override -> override.isOpen()).orElse(false)) {
-				jdeps_args.add("--generate-open-module");
-			}
-			else {
-				jdeps_args.add("--generate-module-info");
-			}*/
-			jdeps_args.add(project.getModulesExplodedPath().toString());
+		}*/
+		jdeps_args.add(project.getModulesExplodedPath().toString());
+		for(BuildDependency dependency : dependencies) {
 			jdeps_args.add(dependency.getModulePath().toString());
-			
-			LOGGER.info("   - jdeps {}", jdeps_args.stream().collect(Collectors.joining(" ")));
-			if(JavaTools.JDEPS.run(OUT, ERR, jdeps_args.stream().toArray(String[]::new)) == 0) {
-				Path explodedModulePath = dependency.getExplodedModulePath();
-				Files.move(explodedModulePath.resolve(Path.of("versions", version, "module-info.java")), dependency.getModuleInfoPath());
-				Files.delete(explodedModulePath.resolve(Path.of("versions", version)));
-				Files.delete(explodedModulePath.resolve(Path.of("versions")));
-				
-				if(moduleOverride.isPresent()) {
-					this.mergeModuleInfo(dependency, moduleOverride.get());
-				}
-			}
-			else {
-				throw new TaskExecutionException("Error generating module-info.java for " + dependency + "");
-			}
 		}
-		catch (IOException e) {
-			throw new TaskExecutionException("Error generating module-info.java for " + dependency + "", e);
+		
+		logger.info("   - jdeps {}", jdeps_args.stream().collect(Collectors.joining(" ")));
+		ToolThrottle.Permit permit = project.acquireToolPermit(ToolThrottle.JDEPS);
+		try {
+			return JavaTools.JDEPS.run(logger.out(), logger.err(), jdeps_args.stream().toArray(String[]::new)) == 0;
+		}
+		finally {
+			permit.close();
 		}
 	}
 	
@@ -470,11 +1395,12 @@ public class GenericModularizeDependenciesTask extends AbstractTask<Set<Dependen
 	 * 
 	 * @param dependency the build dependency
 	 * @param moduleInfoOverride the module info override
+	 * @param logger     the dependency logger
 	 * 
 	 * @throws TaskExecutionException if there was an error merging the module info override with the dependency module descriptor
 	 */
-	private void mergeModuleInfo(BuildDependency dependency, ModuleInfo moduleInfoOverride) throws TaskExecutionException {
-		LOGGER.info("   - overriding module-info.java");
+	private void mergeModuleInfo(BuildDependency dependency, ModuleInfo moduleInfoOverride, BufferedLogger logger) throws TaskExecutionException {
+		logger.info("   - overriding module-info.java");
 		ModuleInfo moduleInfo;
 		try(BufferedReader moduleInfoReader = Files.newBufferedReader(dependency.getModuleInfoPath())) {
 			moduleInfo = new ModuleInfoParser(new StreamProvider(moduleInfoReader)).ModuleInfo();
@@ -549,64 +1475,133 @@ public class GenericModularizeDependenciesTask extends AbstractTask<Set<Dependen
 	
 	/**
 	 * <p>
-	 * Compiles the generated or user-provided module descriptors.
+	 * Creates the module finder used to generate and write module descriptors.
 	 * </p>
-	 * 
+	 *
+	 * <p>
+	 * The finder resolves modules from the system modules and from the module path used to compile module descriptors. Modules are lazily found and cached so the module path is only scanned
+	 * once.
+	 * </p>
+	 *
 	 * @param project the build project
+	 *
+	 * @return a module finder
 	 */
-	private void compileModularizedDependencies(BuildProject project) {
-		LOGGER.info("[ Compiling modularized project dependencies... ]");
-
-		String javac_modulePath = project.getDependencies().stream()
-			.filter(dependency -> !dependency.isAutomatic())
-			.map(d -> d.getJarPath().toString())
-			.collect(Collectors.joining(System.getProperty("path.separator")));
-
-		List<String> javac_args = new ArrayList<>();
+	private ModuleFinder createModuleFinder(BuildProject project) {
+		Path[] modulePath = project.getDependencies().stream()
+			.map(d -> d.isNamed() ? d.getJarPath() : d.getUnnamedModulePath())
+			.toArray(Path[]::new);
+		return ModuleFinder.compose(ModuleFinder.ofSystem(), ModuleFinder.of(modulePath));
+	}
 
-		javac_args.add("-verbose");
-		//javac_args.add("-nowarn");
-		javac_args.add("--module-source-path");
-		javac_args.add(project.getModulesExplodedPath().toString());
-		javac_args.add("-d");
-		javac_args.add(project.getModulesExplodedPath().toString());
-		javac_args.add("--module-path");
-		javac_args.add(javac_modulePath);
+	/**
+	 * <p>
+	 * Creates the module info class writer used to write module descriptors without compiling them.
+	 * </p>
+	 *
+	 * @param moduleFinder the finder used to resolve the modules required by the dependencies
+	 *
+	 * @return an optional returning the module info class writer or an empty optional if the module path can't be resolved
+	 */
+	private Optional<ModuleInfoClassWriter> createModuleInfoWriter(ModuleFinder moduleFinder) {
+		try {
+			return Optional.of(new ModuleInfoClassWriter(moduleFinder));
+		}
+		catch(FindException e) {
+			LOGGER.warn(" - error resolving module path, module descriptors will be compiled: {}", e.getMessage());
+			return Optional.empty();
+		}
+	}
 
-		int size = javac_args.size();
-		javac_args.addAll(project.getDependencies().stream()
-			.filter(dependency -> dependency.isAutomatic() && dependency.isMarked())
-			.map(d -> d.getModuleInfoPath().toString())
-			.collect(Collectors.toList())
-		);
-		if(javac_args.size() == size) {
-			// Nothing to compile
-			LOGGER.info("Nothing to compile");
+	/**
+	 * <p>
+	 * Writes the generated or user-provided module descriptor of the specified dependency without compiling it.
+	 * </p>
+	 *
+	 * <p>
+	 * This is much faster than compiling the descriptor, but the writer only performs minimal validation. When the descriptor can't be written, it must be compiled in order to get proper
+	 * diagnostics.
+	 * </p>
+	 *
+	 * @param dependency the build dependency
+	 * @param writer     the module info class writer
+	 * @param logger     the dependency logger
+	 *
+	 * @return an optional returning the module descriptor class or an empty optional if the descriptor must be compiled
+	 */
+	private Optional<byte[]> writeModuleInfo(BuildDependency dependency, ModuleInfoClassWriter writer, BufferedLogger logger) {
+		logger.info(" - writing module descriptor of {}", dependency);
+		try(BufferedReader moduleInfoReader = Files.newBufferedReader(dependency.getModuleInfoPath())) {
+			ModuleInfo moduleInfo = new ModuleInfoParser(new StreamProvider(moduleInfoReader)).ModuleInfo();
+			return Optional.of(writer.write(moduleInfo, dependency.getModuleVersion(), dependency.getModuleDescriptor().packages()));
 		}
-		else {
-			LOGGER.info(" - javac {}", javac_args.stream().collect(Collectors.joining(" ")));
-			if(JavaTools.JAVAC.run(OUT, ERR, javac_args.stream().toArray(String[]::new)) != 0) {
-				throw new TaskExecutionException("Error compiling generated module descriptors");
-			}
+		catch(IOException | ParseException | IllegalArgumentException e) {
+			logger.info("   - {}, module descriptor will be compiled", e.getMessage());
+			return Optional.empty();
 		}
 	}
-	
+
 	/**
 	 * <p>
-	 * Packages the dependencies that were modularized in JAR archives and put them in the working modules path.
+	 * Compiles the generated or user-provided module descriptor of the specified dependency in memory.
 	 * </p>
 	 * 
-	 * @param project the build project
+	 * <p>
+	 * This is only used when the descriptor can't be written directly. The descriptor is compiled as part of the dependency pipeline so that it never waits for other dependencies: the module
+	 * being compiled is patched with its dependency JAR from which classes are read directly, other dependencies are resolved from the module path as named or automatic modules and the compiled
+	 * descriptor is kept in memory by a {@link ModuleInfoFileManager}.
+	 * </p>
+	 * 
+	 * @param project    the build project
+	 * @param dependency the build dependency
+	 * @param logger     the dependency logger
 	 * 
-	 * @throws TaskExecutionException if there was an error packaging the modularized dependencies
+	 * @return the compiled module descriptor
+	 * 
+	 * @throws TaskExecutionException if there was an error compiling the module descriptor
 	 */
-	private void packageModularizedDependencies(BuildProject project) throws TaskExecutionException {
-		LOGGER.info("[ Packaging modularized project dependencies... ]");
-		for(BuildDependency dependency : project.getDependencies()) {
-			if(dependency.isMarked() && dependency.isAutomatic()) {
-				LOGGER.info(" - ", dependency);
-				this.packageDependency(dependency);
+	private byte[] compileModuleInfo(BuildProject project, BuildDependency dependency, BufferedLogger logger) throws TaskExecutionException {
+		List<Path> javac_modulePath = project.getDependencies().stream()
+			.filter(d -> d != dependency)
+			.map(d -> {
+				if(d.isNamed()) {
+					return d.getJarPath();
+				}
+				else {
+					return d.getUnnamedModulePath();
+				}
+			})
+			.collect(Collectors.toList());
+		
+		List<String> javac_args = new ArrayList<>();
+		javac_args.add("--module-version");
+		javac_args.add(dependency.getModuleVersion());
+		// patch module path can't be set programmatically on the file manager
+		javac_args.add("--patch-module");
+		javac_args.add(dependency.getModuleName() + "=" + dependency.getJarPath());
+		
+		StandardJavaFileManager standardFileManager = JavaTools.JAVA_COMPILER.getStandardFileManager(null, null, null);
+		try(ModuleInfoFileManager fileManager = new ModuleInfoFileManager(standardFileManager)) {
+			standardFileManager.setLocationFromPaths(StandardLocation.MODULE_PATH, javac_modulePath);
+			// nothing is actually written to the class output
+			standardFileManager.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(project.getModulesExplodedPath()));
+			standardFileManager.setLocationForModule(StandardLocation.MODULE_SOURCE_PATH, dependency.getModuleName(), List.of(dependency.getExplodedModulePath()));
+			
+			logger.info(" - compiling module descriptor of {}", dependency);
+			logger.info("   - javac {} {}", javac_args.stream().collect(Collectors.joining(" ")), dependency.getModuleInfoPath());
+			
+			Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromPaths(List.of(dependency.getModuleInfoPath()));
+			PrintWriter javacOutput = new PrintWriter(logger.err(), true);
+			boolean compiled = JavaTools.JAVA_COMPILER.getTask(javacOutput, fileManager, null, javac_args, null, compilationUnits).call();
+			javacOutput.flush();
+			byte[] moduleInfo = fileManager.getModuleInfo(dependency.getModuleName());
+			if(!compiled || moduleInfo == null) {
+				throw new TaskExecutionException("Error compiling module descriptor for " + dependency);
 			}
+			return moduleInfo;
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error compiling module descriptor for " + dependency, e);
 		}
 	}
 	
@@ -615,28 +1610,23 @@ public class GenericModularizeDependenciesTask extends AbstractTask<Set<Dependen
 	 * Packages a single dependency in a JAR archive and put it in the working modules path.
 	 * </p>
 	 * 
+	 * <p>
+	 * The dependency JAR is repackaged with the compiled module descriptor in the dependency staging area, WebJar resources are relocated on the fly. The resulting modular JAR is then committed to
+	 * the working modules path.
+	 * </p>
+	 * 
+	 * @param project    the build project
 	 * @param dependency the build dependency
+	 * @param moduleInfo the compiled module descriptor
+	 * @param logger     the dependency logger
 	 * 
 	 * @throws TaskExecutionException if there was an error packaging the dependency
 	 */
-	private void packageDependency(BuildDependency dependency) throws TaskExecutionException {
-		String[] jar_args = {
-			"--create",
-			"--no-manifest",
-			"--file", dependency.getModulePath().toString(),
-			"--module-version", dependency.getModuleVersion(),
-			"-C", dependency.getExplodedModulePath().toString(),
-			"."
-		};
-		
-		LOGGER.info("   - jar {}", Arrays.stream(jar_args).collect(Collectors.joining(" ")));
-		
-		if(JavaTools.JAR.run(OUT, ERR, jar_args) != 0) {
-			throw new TaskExecutionException("Error packaging dependency " + dependency);
-		}
-		
-		try(FileSystem jarFs = FileSystems.newFileSystem(URI.create("jar:" + dependency.getModulePath().toUri()), Map.of())) {
-			Files.deleteIfExists(jarFs.getPath("module-info.java"));
+	private void packageDependency(BuildProject project, BuildDependency dependency, byte[] moduleInfo, BufferedLogger logger) throws TaskExecutionException {
+		logger.info("   - packaging {} to {}", dependency, dependency.getModulePath());
+		try(StagingArea stagingArea = this.createStagingArea(project, dependency)) {
+			this.repackageJar(dependency.getJarPath(), stagingArea.stage(dependency.getModulePath()), this.getModuleManifest(dependency), moduleInfo, this.getWebjarRelocator(dependency));
+			stagingArea.commit();
 		}
 		catch (IOException e) {
 			throw new TaskExecutionException("Error packaging dependency " + dependency, e);
@@ -662,4 +1652,136 @@ public class GenericModularizeDependenciesTask extends AbstractTask<Set<Dependen
 	public BuildJmodTask buildJmod() {
 		return new GenericBuildJmodTask(this);
 	}
+	
+	/**
+	 * <p>
+	 * The state of the modularization of a dependency carried along its pipeline.
+	 * </p>
+	 * 
+	 * <p>
+	 * The stages of a pipeline are executed sequentially, the state is then never accessed concurrently.
+	 * </p>
+	 * 
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private static class DependencyModularization {
+		
+		private final BuildDependency dependency;
+		
+		private final ProgressBar.Step step;
+		
+		private final BufferedLogger logger;
+		
+		private final AtomicBoolean failed;
+		
+		private Optional<Path> cachePath = Optional.empty();
+		
+		private boolean complete;
+		
+		private Set<String> unresolvableServices;
+		
+		private boolean jdeps;
+		
+		/**
+		 * <p>
+		 * Creates a dependency modularization.
+		 * </p>
+		 * 
+		 * @param dependency the build dependency
+		 * @param step       the dependency progress step or null
+		 * @param failed     the flag indicating whether the modularization of a dependency failed
+		 */
+		public DependencyModularization(BuildDependency dependency, ProgressBar.Step step, AtomicBoolean failed) {
+			this.dependency = dependency;
+			this.step = step;
+			this.logger = new BufferedLogger(LOGGER);
+			this.failed = failed;
+		}
+		
+		/**
+		 * <p>
+		 * Cancels the pipeline when the modularization of another dependency failed.
+		 * </p>
+		 * 
+		 * @throws CancellationException if the modularization of a dependency failed
+		 */
+		public void checkFailed() throws CancellationException {
+			if(this.failed.get()) {
+				throw new CancellationException("Modularization of " + this.dependency + " was cancelled");
+			}
+		}
+	}
+	
+	/**
+	 * <p>
+	 * A Java file manager that keeps the module descriptors compiled in multi-module mode in memory.
+	 * </p>
+	 * 
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private static class ModuleInfoFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+		private final Map<JavaFileManager.Location, String> moduleNamesByOutputLocation;
+		
+		private final Map<String, byte[]> moduleInfos;
+		
+		/**
+		 * <p>
+		 * Creates a module info file manager.
+		 * </p>
+		 * 
+		 * @param fileManager the standard file manager
+		 */
+		public ModuleInfoFileManager(StandardJavaFileManager fileManager) {
+			super(fileManager);
+			this.moduleNamesByOutputLocation = new HashMap<>();
+			this.moduleInfos = new HashMap<>();
+		}
+
+		@Override
+		public JavaFileManager.Location getLocationForModule(JavaFileManager.Location location, String moduleName) throws IOException {
+			JavaFileManager.Location moduleLocation = super.getLocationForModule(location, moduleName);
+			if(location == StandardLocation.CLASS_OUTPUT && moduleLocation != null) {
+				this.moduleNamesByOutputLocation.put(moduleLocation, moduleName);
+			}
+			return moduleLocation;
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+			String moduleName = this.moduleNamesByOutputLocation.get(location);
+			if(moduleName == null || kind != JavaFileObject.Kind.CLASS || !className.equals("module-info")) {
+				return super.getJavaFileForOutput(location, className, kind, sibling);
+			}
+			return new SimpleJavaFileObject(URI.create("mem:///" + moduleName + "/module-info.class"), JavaFileObject.Kind.CLASS) {
+				
+				@Override
+				public OutputStream openOutputStream() throws IOException {
+					return new ByteArrayOutputStream() {
+						
+						@Override
+						public void close() throws IOException {
+							super.close();
+							ModuleInfoFileManager.this.moduleInfos.put(moduleName, this.toByteArray());
+						}
+					};
+				}
+			};
+		}
+		
+		/**
+		 * <p>
+		 * Returns the compiled module descriptor of the specified module.
+		 * </p>
+		 * 
+		 * @param moduleName a module name
+		 * 
+		 * @return the compiled module descriptor or null if the module descriptor was not compiled
+		 */
+		public byte[] getModuleInfo(String moduleName) {
+			return this.moduleInfos.get(moduleName);
+		}
+	}
 }
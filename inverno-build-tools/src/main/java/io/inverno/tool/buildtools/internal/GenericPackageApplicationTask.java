@@ -21,28 +21,24 @@ import io.inverno.tool.buildtools.Image;
 import io.inverno.tool.buildtools.TaskExecutionException;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.io.IoBuilder;
 import io.inverno.tool.buildtools.PackageApplicationTask;
 
 /**
@@ -63,16 +59,6 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 	
 	private static final int UNITARY_WEIGHT = 450;
 	
-	private static final PrintStream OUT = IoBuilder.forLogger(LOGGER)
-			.setLevel(Level.INFO)
-			.setAutoFlush(true)
-			.buildPrintStream();
-	
-	private static final PrintStream ERR = IoBuilder.forLogger(LOGGER)
-			.setLevel(Level.ERROR)
-			.setAutoFlush(true)
-			.buildPrintStream();
-	
 	private Optional<String> copyright = Optional.empty();
 	private Optional<String> vendor = Optional.empty();
 	private Optional<URI> aboutURL = Optional.empty();
@@ -191,6 +177,92 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 		return this;
 	}
 	
+	@Override
+	protected void fingerprintInputs(BuildProject project, Fingerprint fingerprint) throws IOException {
+		super.fingerprintInputs(project, fingerprint);
+		fingerprint
+			.add(project.getName())
+			.add(project.getModuleVersion())
+			.add(Runtime.version().toString())
+			.add(this.copyright.orElse(null))
+			.add(this.vendor.orElse(null))
+			.add(this.aboutURL.map(URI::toString).orElse(null))
+			.add(this.installDirectory.orElse(null))
+			.addAttributes(this.licensePath.orElse(null))
+			.addAttributes(this.resourcePath.orElse(null))
+			.add(Boolean.toString(this.automaticLaunchers))
+			.add(this.types.stream().map(PackageType::getFormat).sorted().collect(Collectors.joining(",")));
+		for(Path appContent : this.appContents.stream().sorted().collect(Collectors.toList())) {
+			fingerprint.addAttributes(appContent);
+		}
+		for(Launcher launcher : this.launchers) {
+			fingerprint
+				.add(toFingerprintString(launcher.getName()))
+				.add(toFingerprintString(launcher.getDescription()))
+				.add(toFingerprintString(launcher.getModule()))
+				.add(toFingerprintString(launcher.getMainClass()))
+				.add(toFingerprintString(launcher.getVmOptions()))
+				.add(toFingerprintString(launcher.getArguments()))
+				.addAttributes(launcher.getIconPath() != null ? launcher.getIconPath().orElse(null) : null)
+				.add(toFingerprintString(launcher.getAppVersion()))
+				.add(Boolean.toString(launcher.isAddUnnamedModules()))
+				.add(Boolean.toString(launcher.isLauncherAsService()))
+				.add(Boolean.toString(launcher.isWinConsole()))
+				.add(Boolean.toString(launcher.isWinShortcut()))
+				.add(Boolean.toString(launcher.isWinMenu()))
+				.add(toFingerprintString(launcher.getLinuxAppCategory()))
+				.add(Boolean.toString(launcher.isLinuxShortcut()));
+		}
+		this.linuxConfiguration.ifPresentOrElse(
+			configuration -> fingerprint
+				.add(toFingerprintString(configuration.getPackageName()))
+				.add(toFingerprintString(configuration.getDebMaintainer()))
+				.add(toFingerprintString(configuration.getMenuGroup()))
+				.add(toFingerprintString(configuration.getPackageDeps()))
+				.add(toFingerprintString(configuration.getRpmLicenseType()))
+				.add(toFingerprintString(configuration.getAppRelease()))
+				.add(toFingerprintString(configuration.getAppCategory()))
+				.add(Boolean.toString(configuration.isShortcut())),
+			() -> fingerprint.add((String)null)
+		);
+		this.macOSConfiguration.ifPresentOrElse(
+			configuration -> fingerprint
+				.add(toFingerprintString(configuration.getPackageIdentifier()))
+				.add(toFingerprintString(configuration.getPackageName()))
+				.add(toFingerprintString(configuration.getPackageSigningPrefix()))
+				.add(Boolean.toString(configuration.isSign()))
+				.add(toFingerprintString(configuration.getSigningKeychain()))
+				.add(toFingerprintString(configuration.getSigningKeyUserName())),
+			() -> fingerprint.add((String)null)
+		);
+		this.windowsConfiguration.ifPresentOrElse(
+			configuration -> fingerprint
+				.add(Boolean.toString(configuration.isConsole()))
+				.add(Boolean.toString(configuration.isDirChooser()))
+				.add(Boolean.toString(configuration.isMenu()))
+				.add(toFingerprintString(configuration.getMenuGroup()))
+				.add(Boolean.toString(configuration.isPerUserInstall()))
+				.add(Boolean.toString(configuration.isShortcut()))
+				.add(Boolean.toString(configuration.isShortcutPrompt()))
+				.add(toFingerprintString(configuration.getUpdateURL()))
+				.add(toFingerprintString(configuration.getUpgradeUUID())),
+			() -> fingerprint.add((String)null)
+		);
+	}
+	
+	/**
+	 * <p>
+	 * Returns the string representation of an optional value provided in a launcher or a platform configuration to be added to a fingerprint.
+	 * </p>
+	 * 
+	 * @param value an optional value or null
+	 * 
+	 * @return the string representation of the value or null
+	 */
+	private static String toFingerprintString(Optional<?> value) {
+		return value != null ? value.map(Object::toString).orElse(null) : null;
+	}
+	
 	@Override
 	protected Set<Image> doExecute(BuildProject project, ProgressBar.Step step) throws TaskExecutionException {
 		if(step != null) {
@@ -206,22 +278,26 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 		if(project.isMarked() || 
 			project.getDependencies().stream().anyMatch(dependency -> dependency.isMarked()) || 
 			!Files.exists(applicationImagePath) || 
-			applicationImageArchivesPaths.entrySet().stream().anyMatch(e -> !Files.exists(e.getValue()))) {
+			applicationImageArchivesPaths.entrySet().stream().anyMatch(e -> !Files.exists(e.getValue())) ||
+			this.isInputsChanged(project)) {
 			LOGGER.info("[ Packaging application {}... ]", applicationImagePath);
 			
+			// outputs are sorted by format to be consistently identified in the build cache entry
+			Path[] applicationOutputs = Stream.concat(
+					Stream.of(applicationImagePath), 
+					applicationImageArchivesPaths.entrySet().stream().sorted(Map.Entry.comparingByKey()).map(Map.Entry::getValue)
+				)
+				.toArray(Path[]::new);
+			if(this.restoreOutputs(project, applicationOutputs)) {
+				this.storeInputsFingerprint(project);
+				return getApplicationImages(applicationImagePath, applicationImageArchivesPaths);
+			}
+			
 			if(!Files.exists(runtimeImagePath)) {
 				throw new TaskExecutionException("Missing project runtime: " + runtimeImagePath);
 			}
-			
-			if(Files.exists(applicationImagePath)) {
-				try (Stream<Path> walk = Files.walk(applicationImagePath)) {
-					for(Iterator<Path> pathIterator = walk.sorted(Comparator.reverseOrder()).iterator(); pathIterator.hasNext();) {
-						Files.delete(pathIterator.next());
-					}
-				}
-				catch (IOException e) {
-					throw new TaskExecutionException("Error cleaning project application", e);
-				}
+			if(Files.isDirectory(runtimeImagePath.resolve(GenericBuildRuntimeTask.LAYERED_MODULES_DIRECTORY))) {
+				throw new TaskExecutionException("Project application can't be packaged from a layered runtime: " + runtimeImagePath);
 			}
 			
 			List<String> jpackage_args = new LinkedList<>();
@@ -229,9 +305,6 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 			
 			jpackage_args.add("--runtime-image");
 			jpackage_args.add(runtimeImagePath.toString());
-
-			jpackage_args.add("--dest");
-			jpackage_args.add(applicationImagePath.getParent().toString());
 			
 			List<Launcher> appLaunchers = new ArrayList<>(this.launchers);
 			final Launcher mainLauncher;
@@ -327,7 +400,7 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 								return defaultMainClass;
 							});
 						} 
-						catch (ClassNotFoundException | IOException e) {
+						catch (IOException e) {
 							LOGGER.warn("Could not find project main class", e);
 						}
 					}
@@ -361,9 +434,12 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 				.filter(StringUtils::isNotEmpty)
 				.map(unnamedModules -> "--add-modules " + unnamedModules) : Optional.empty();
 			
-			if(addUnnamedVmOption.isPresent() || mainLauncher.getVmOptions().isPresent()) {
+			// AppCDS archive or AOT cache created in the runtime image
+			Optional<String> archiveVmOption = TrainingRun.getApplicationArchiveOption(runtimeImagePath);
+			
+			if(archiveVmOption.isPresent() || addUnnamedVmOption.isPresent() || mainLauncher.getVmOptions().isPresent()) {
 				jpackage_args.add("--java-options");
-				jpackage_args.add(Stream.concat(addUnnamedVmOption.stream(), mainLauncher.getVmOptions().stream()).collect(Collectors.joining(" ")));
+				jpackage_args.add(Stream.of(archiveVmOption.stream(), addUnnamedVmOption.stream(), mainLauncher.getVmOptions().stream()).flatMap(Function.identity()).collect(Collectors.joining(" ")));
 			}
 			
 			mainLauncher.getArguments().map(JavaTools::sanitizeArguments).ifPresent(value -> {
@@ -442,9 +518,9 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 							launcherProperties.put("arguments", value);
 						});
 						
-						if(addUnnamedVmOption.isPresent() || launcher.getVmOptions().isPresent()) {
+						if(archiveVmOption.isPresent() || addUnnamedVmOption.isPresent() || launcher.getVmOptions().isPresent()) {
 							jpackage_args.add("--java-options");
-							jpackage_args.add(Stream.concat(addUnnamedVmOption.stream(), launcher.getVmOptions().stream()).collect(Collectors.joining(" ")));
+							jpackage_args.add(Stream.of(archiveVmOption.stream(), addUnnamedVmOption.stream(), launcher.getVmOptions().stream()).flatMap(Function.identity()).collect(Collectors.joining(" ")));
 						}
 						
 						launcher.getAppVersion().ifPresent(value -> {
@@ -519,7 +595,7 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 						}
 					}
 				}
-				catch (ClassNotFoundException | IOException e) {
+				catch (IOException e) {
 					throw new TaskExecutionException("Could not find project main classes", e);
 				}
 			}
@@ -648,30 +724,30 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 				default: LOGGER.warn("Could not apply platform specific configuration because the platform could not be determined");
 			}
 			
-			// Build Application image
-			try {
+			// jpackage outputs are generated in the staging area and committed once they have all been generated
+			try(StagingArea stagingArea = this.createStagingArea(project)) {
+				Path jpackageDestPath = stagingArea.getPath().resolve("jpackage");
+				jpackage_args.add("--dest");
+				jpackage_args.add(jpackageDestPath.toString());
+				
+				// Build Application image
 				List<String> image_jpackage_args = new ArrayList<>(jpackage_args);
 				image_jpackage_args.add("--type");
 				image_jpackage_args.add("app-image");
 
 				// We must generate app-image and invoke CreateImageArchivesTask later in the process
 				LOGGER.info(" - jpackage {}", image_jpackage_args.stream().collect(Collectors.joining(" ")));
-				if(JavaTools.JPACKAGE.run(OUT, ERR, image_jpackage_args.stream().toArray(String[]::new)) == 0) {
+				if(this.runJpackage(project, image_jpackage_args) == 0) {
 					// jpackage creates the app in the main launcher name folder
-					Files.move(applicationImagePath.getParent().resolve(mainLauncherName), applicationImagePath);
+					Files.move(jpackageDestPath.resolve(mainLauncherName), stagingArea.stage(applicationImagePath));
 					jpackageImages.add(new GenericImage(ImageType.APPLICATION, null, applicationImagePath));
 				}
 				else {
 					throw new TaskExecutionException("Error packaging project application");
 				}
-			} 
-			catch (IOException e) {
-				throw new TaskExecutionException("Error packaging project application", e);
-			}
-			
-			jpackage_args.addAll(package_jpackage_args);
-			
-			try {	
+				
+				jpackage_args.addAll(package_jpackage_args);
+				
 				// Package Application
 				for(Map.Entry<String, Path> e : applicationImageArchivesPaths.entrySet()) {
 					List<String> archive_jpackage_args = new ArrayList<>(jpackage_args);
@@ -679,38 +755,77 @@ public class GenericPackageApplicationTask extends AbstractTask<Set<Image>, Pack
 					archive_jpackage_args.add(e.getKey());
 
 					LOGGER.info(" - jpackage {}", archive_jpackage_args.stream().collect(Collectors.joining(" ")));
-					if(JavaTools.JPACKAGE.run(OUT, ERR, archive_jpackage_args.stream().toArray(String[]::new)) == 0) {
-						Optional<Path> jpackagePath = Files.list(applicationImagePath.getParent())
-							.filter(path -> path.getFileName().toString().endsWith(e.getKey()))
-							.findFirst();
+					if(this.runJpackage(project, archive_jpackage_args) == 0) {
+						Optional<Path> jpackagePath;
+						try(Stream<Path> jpackagePaths = Files.list(jpackageDestPath)) {
+							jpackagePath = jpackagePaths
+								.filter(path -> path.getFileName().toString().endsWith(e.getKey()))
+								.findFirst();
+						}
 
 						if(!jpackagePath.isPresent()) {
-							throw new TaskExecutionException("Generated application of type " + e.getKey() + " could not be found in " + applicationImagePath.getParent());
+							throw new TaskExecutionException("Generated application of type " + e.getKey() + " could not be found in " + jpackageDestPath);
 						}
-						Files.move(jpackagePath.get(), e.getValue());
+						Files.move(jpackagePath.get(), stagingArea.stage(e.getValue()));
 						jpackageImages.add(new GenericImage(ImageType.APPLICATION, e.getKey(), e.getValue()));
 					}
 					else {
 						throw new TaskExecutionException("Error packaging project application");
 					}
 				}
-				return jpackageImages;
-			} 
+				stagingArea.commit();
+			}
 			catch (IOException e) {
 				throw new TaskExecutionException("Error packaging project application", e);
 			}
+			this.storeInputsFingerprint(project);
+			this.storeOutputs(project, applicationOutputs);
+			return jpackageImages;
 		}
 		else {
 			LOGGER.info("[ Project application package is up to date ]");
-			
-			Set<Image> jpackageImages = new HashSet<>();
-			jpackageImages.add(new GenericImage(ImageType.APPLICATION, null, applicationImagePath));
-			
-			for(Map.Entry<String, Path> e : applicationImageArchivesPaths.entrySet()) {
-				jpackageImages.add(new GenericImage(ImageType.APPLICATION, e.getKey(), e.getValue()));
-			}
-			return jpackageImages;
+			return getApplicationImages(applicationImagePath, applicationImageArchivesPaths);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Runs {@code jpackage} once a permit has been acquired from the project tool throttle.
+	 * </p>
+	 * 
+	 * @param project       the build project
+	 * @param jpackage_args the {@code jpackage} arguments
+	 * 
+	 * @return the {@code jpackage} exit code
+	 */
+	private int runJpackage(BuildProject project, List<String> jpackage_args) {
+		ToolThrottle.Permit permit = project.acquireToolPermit(ToolThrottle.JPACKAGE);
+		try {
+			return JavaTools.run(JavaTools.JPACKAGE, LOGGER, jpackage_args.stream().toArray(String[]::new));
+		}
+		finally {
+			permit.close();
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Returns the images of an application which is up to date.
+	 * </p>
+	 * 
+	 * @param applicationImagePath          the path to the application image
+	 * @param applicationImageArchivesPaths the paths to the application packages by format
+	 * 
+	 * @return a set of images
+	 */
+	private static Set<Image> getApplicationImages(Path applicationImagePath, Map<String, Path> applicationImageArchivesPaths) {
+		Set<Image> jpackageImages = new HashSet<>();
+		jpackageImages.add(new GenericImage(ImageType.APPLICATION, null, applicationImagePath));
+		
+		for(Map.Entry<String, Path> e : applicationImageArchivesPaths.entrySet()) {
+			jpackageImages.add(new GenericImage(ImageType.APPLICATION, e.getKey(), e.getValue()));
 		}
+		return jpackageImages;
 	}
 
 	@Override
@@ -63,11 +63,6 @@ public class GenericRunTask extends AbstractExecTask<Integer, RunTask> implement
 		
 		Process proc = this.startProject(project);
 		
-		try {
-			return proc.waitFor();
-		} 
-		catch (InterruptedException e) {
-			throw new TaskExecutionException("Fatal error", e);
-		}
+		return this.waitForProject(proc);
 	}
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.Project;
+import io.inverno.tool.buildtools.Task;
+import io.inverno.tool.buildtools.TaskExecutionException;
+import io.inverno.tool.buildtools.TaskGraph;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * Generic {@link TaskGraph} implementation.
+ * </p>
+ *
+ * <p>
+ * The tasks in the graph and their parent tasks form a tree rooted at the project tasks, they are all initialized and executed against a single {@link BuildProject}. Each task is scheduled on a
+ * bounded executor once its parent task completed so that sibling tasks are executed concurrently.
+ * </p>
+ *
+ * <p>
+ * A task that modifies the outputs of its parent task, such as a {@link GenericTrainRuntimeTask} which trains the runtime image created by its parent task, is a barrier: its sibling tasks, which
+ * consume the same outputs, are only scheduled once it completed.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class GenericTaskGraph implements TaskGraph {
+
+	private static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+	private final Project project;
+
+	private final Set<AbstractTask<?, ?>> tasks;
+
+	private Optional<Integer> parallelism = Optional.empty();
+
+	/**
+	 * <p>
+	 * Creates a generic task graph.
+	 * </p>
+	 *
+	 * @param project the project
+	 */
+	public GenericTaskGraph(Project project) {
+		this.project = project;
+		this.tasks = Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	@Override
+	public TaskGraph add(Task<?, ?> task) throws IllegalArgumentException {
+		if(!(task instanceof AbstractTask) || ((AbstractTask<?, ?>)task).getProject() != this.project) {
+			throw new IllegalArgumentException("Task was not created from project " + this.project);
+		}
+		this.tasks.add((AbstractTask<?, ?>)task);
+		return this;
+	}
+
+	@Override
+	public TaskGraph parallelism(int parallelism) {
+		this.parallelism = parallelism > 0 ? Optional.of(parallelism) : Optional.empty();
+		return this;
+	}
+
+	@Override
+	public void execute() throws TaskExecutionException {
+		if(this.tasks.isEmpty()) {
+			return;
+		}
+
+		// Parents come before their children
+		Set<AbstractTask<?, ?>> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<AbstractTask<?, ?>> orderedNodes = new ArrayList<>();
+		for(AbstractTask<?, ?> task : this.tasks) {
+			LinkedList<AbstractTask<?, ?>> chain = new LinkedList<>();
+			for(AbstractTask<?, ?> current = task; current != null && !nodes.contains(current); current = current.getParentTask()) {
+				chain.addFirst(current);
+			}
+			nodes.addAll(chain);
+			orderedNodes.addAll(chain);
+		}
+
+		// Barriers come before their siblings
+		orderedNodes.sort(Comparator.comparingInt(GenericTaskGraph::getDepth).thenComparing(node -> !isBarrier(node)));
+
+		BuildProject buildProject = BuildProject.of(this.project);
+		for(AbstractTask<?, ?> node : orderedNodes) {
+			node.doInitialize(buildProject);
+		}
+
+		ProgressBar progressBar = null;
+		Map<AbstractTask<?, ?>, ProgressBar.Step> steps = new IdentityHashMap<>();
+		if(buildProject.isDisplayProgressBar()) {
+			progressBar = new ProgressBar(this.tasks.stream().map(task -> task.getTaskCompletionMessage(buildProject)).collect(Collectors.joining(", ")));
+			for(AbstractTask<?, ?> node : orderedNodes) {
+				steps.put(node, progressBar.addStep(node.getTaskWeight(buildProject)));
+			}
+			progressBar.display();
+		}
+
+		int parallelism = Math.min(this.parallelism.orElse(DEFAULT_PARALLELISM), orderedNodes.size());
+		AtomicInteger workerIndex = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread worker = new Thread(LoggingContext.propagate(runnable), "inverno-task-" + workerIndex.incrementAndGet());
+			worker.setDaemon(true);
+			return worker;
+		});
+		try {
+			AtomicBoolean failed = new AtomicBoolean();
+			AtomicReference<Throwable> error = new AtomicReference<>();
+			Map<AbstractTask<?, ?>, CompletableFuture<Void>> futures = new IdentityHashMap<>();
+			Map<AbstractTask<?, ?>, List<CompletableFuture<Void>>> barrierFutures = new IdentityHashMap<>();
+			for(AbstractTask<?, ?> node : orderedNodes) {
+				Runnable nodeExecution = () -> {
+					if(failed.get()) {
+						return;
+					}
+					try {
+						node.executeTask(buildProject, steps.get(node));
+					}
+					catch(Throwable e) {
+						if(!error.compareAndSet(null, e)) {
+							error.get().addSuppressed(e);
+						}
+						failed.set(true);
+					}
+				};
+				CompletableFuture<Void> parentFuture = node.getParentTask() != null ? futures.get(node.getParentTask()) : null;
+				if(parentFuture != null && !isBarrier(node) && barrierFutures.containsKey(node.getParentTask())) {
+					List<CompletableFuture<Void>> dependencies = new ArrayList<>(barrierFutures.get(node.getParentTask()));
+					dependencies.add(parentFuture);
+					parentFuture = CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new));
+				}
+				CompletableFuture<Void> future = parentFuture != null ? parentFuture.thenRunAsync(nodeExecution, executor) : CompletableFuture.runAsync(nodeExecution, executor);
+				futures.put(node, future);
+				if(isBarrier(node)) {
+					barrierFutures.computeIfAbsent(node.getParentTask(), ign -> new ArrayList<>()).add(future);
+				}
+			}
+
+			try {
+				CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+			}
+			catch(CompletionException e) {
+				// task errors are recorded, this can only be raised if the executor rejected a task
+				error.compareAndSet(null, e.getCause());
+			}
+
+			Throwable cause = error.get();
+			if(cause instanceof TaskExecutionException) {
+				throw (TaskExecutionException)cause;
+			}
+			else if(cause != null) {
+				throw new TaskExecutionException("Error executing task graph", cause);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the depth of the specified task in the tree formed by the tasks and their parent tasks.
+	 * </p>
+	 *
+	 * @param task a task
+	 *
+	 * @return the number of ancestors of the task
+	 */
+	private static int getDepth(AbstractTask<?, ?> task) {
+		int depth = 0;
+		for(AbstractTask<?, ?> current = task.getParentTask(); current != null; current = current.getParentTask()) {
+			depth++;
+		}
+		return depth;
+	}
+
+	/**
+	 * <p>
+	 * Determines whether the specified task modifies the outputs of its parent task in which case its sibling tasks must be executed after it.
+	 * </p>
+	 *
+	 * @param task a task
+	 *
+	 * @return true if the task is a barrier to its sibling tasks, false otherwise
+	 */
+	private static boolean isBarrier(AbstractTask<?, ?> task) {
+		return task instanceof GenericTrainRuntimeTask;
+	}
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.ArchiveTask;
+import io.inverno.tool.buildtools.BuildRuntimeTask;
+import io.inverno.tool.buildtools.Image;
+import io.inverno.tool.buildtools.PackageApplicationTask;
+import io.inverno.tool.buildtools.TaskExecutionException;
+import io.inverno.tool.buildtools.TrainRuntimeTask;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Generic {@link TrainRuntimeTask} implementation.
+ * </p>
+ *
+ * <p>
+ * On JDK 24 or later, the AOT cache is created in two steps: the application is first run with {@code -XX:AOTMode=record} to record an AOT configuration, the AOT cache is then created from that
+ * configuration with {@code -XX:AOTMode=create}. With an earlier JDK, a dynamic AppCDS archive is recorded with {@code -XX:ArchiveClassesAtExit} provided the runtime image contains a default CDS
+ * archive.
+ * </p>
+ *
+ * <p>
+ * The training run is executed from a copy of the runtime image in which the archive is created and the launchers are configured, the copy then replaces the runtime image so that the runtime image
+ * is never left partially trained. The trained AppCDS archive is distinct from the AppCDS archive created when building the runtime image.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class GenericTrainRuntimeTask extends AbstractTask<Image, TrainRuntimeTask> implements TrainRuntimeTask {
+
+	private static final Logger LOGGER = LogManager.getLogger(GenericTrainRuntimeTask.class);
+
+	/**
+	 * The path to the AOT cache in a runtime image.
+	 */
+	static final String AOT_CACHE = "lib/app.aot";
+
+	/**
+	 * The path to the AppCDS archive recorded by a training run in a runtime image.
+	 */
+	static final String TRAINED_APPCDS_ARCHIVE = "lib/app-trained.jsa";
+
+	/**
+	 * The first JDK feature release supporting AOT caches.
+	 */
+	private static final int AOT_CACHE_MIN_VERSION = 24;
+
+	private final GenericBuildRuntimeTask buildRuntimeTask;
+
+	private Optional<String> launcher = Optional.empty();
+	private Optional<String> arguments = Optional.empty();
+	private Optional<String> vmOptions = Optional.empty();
+	private Optional<String> workload = Optional.empty();
+	private long timeout = 60000;
+
+	/**
+	 * <p>
+	 * Creates a generic train runtime task.
+	 * </p>
+	 *
+	 * @param parentTask the parent task
+	 */
+	public GenericTrainRuntimeTask(GenericBuildRuntimeTask parentTask) {
+		super(parentTask);
+		this.buildRuntimeTask = parentTask;
+	}
+
+	@Override
+	protected String getTaskCompletionMessage(BuildProject project) {
+		return "Project runtime image trained";
+	}
+
+	@Override
+	protected int getTaskWeight(BuildProject project) {
+		return 300;
+	}
+
+	@Override
+	public TrainRuntimeTask launcher(String launcher) {
+		this.launcher = Optional.ofNullable(launcher);
+		return this;
+	}
+
+	@Override
+	public TrainRuntimeTask arguments(String arguments) {
+		this.arguments = Optional.ofNullable(arguments);
+		return this;
+	}
+
+	@Override
+	public TrainRuntimeTask vmOptions(String vmOptions) {
+		this.vmOptions = Optional.ofNullable(vmOptions);
+		return this;
+	}
+
+	@Override
+	public TrainRuntimeTask workload(String workload) {
+		this.workload = Optional.ofNullable(workload);
+		return this;
+	}
+
+	@Override
+	public TrainRuntimeTask timeout(long timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+
+	@Override
+	protected void fingerprintInputs(BuildProject project, Fingerprint fingerprint) throws IOException {
+		super.fingerprintInputs(project, fingerprint);
+		fingerprint
+			.add(this.launcher.orElse(null))
+			.add(this.arguments.orElse(null))
+			.add(this.vmOptions.orElse(null))
+			.add(this.workload.orElse(null))
+			.add(Long.toString(this.timeout));
+	}
+
+	@Override
+	protected Image doExecute(BuildProject project, ProgressBar.Step step) throws TaskExecutionException {
+		if(step != null) {
+			step.setDescription("Training project runtime...");
+		}
+
+		Path runtimeImagePath = project.getImagePath(ImageType.RUNTIME);
+		if(!Files.exists(runtimeImagePath)) {
+			throw new TaskExecutionException("Missing project runtime: " + runtimeImagePath);
+		}
+		if(Files.isDirectory(runtimeImagePath.resolve(GenericBuildRuntimeTask.LAYERED_MODULES_DIRECTORY))) {
+			LOGGER.warn("[ Skipping training of layered project runtime {} ]", runtimeImagePath);
+			return new GenericImage(ImageType.RUNTIME, null, runtimeImagePath);
+		}
+
+		Runtime.Version runtimeVersion = getRuntimeVersion(runtimeImagePath);
+		boolean aotCache = runtimeVersion.feature() >= AOT_CACHE_MIN_VERSION;
+		if(!aotCache && !hasDefaultCdsArchive(runtimeImagePath)) {
+			LOGGER.warn("[ Skipping training of project runtime {}: AOT cache requires JDK {} or later and no default CDS archive was found to record an AppCDS archive ]", runtimeImagePath, AOT_CACHE_MIN_VERSION);
+			return new GenericImage(ImageType.RUNTIME, null, runtimeImagePath);
+		}
+
+		String archive = aotCache ? AOT_CACHE : TRAINED_APPCDS_ARCHIVE;
+		Path archivePath = runtimeImagePath.resolve(archive);
+		if(project.isMarked() || project.getDependencies().stream().anyMatch(dependency -> dependency.isMarked()) || !Files.exists(archivePath) || this.isInputsChanged(project)) {
+			LOGGER.info("[ Training project runtime {}... ]", runtimeImagePath);
+			if(!aotCache) {
+				LOGGER.warn(" - AOT cache requires JDK {} or later, recording an AppCDS archive for JDK {}", AOT_CACHE_MIN_VERSION, runtimeVersion);
+			}
+			if(this.restoreOutputs(project, runtimeImagePath)) {
+				this.storeInputsFingerprint(project);
+				return new GenericImage(ImageType.RUNTIME, null, runtimeImagePath);
+			}
+
+			BuildRuntimeTask.Launcher trainedLauncher = this.getTrainedLauncher();
+
+			List<String> java_command = new LinkedList<>();
+			List<String> application_args;
+			List<String> workload_command;
+			try {
+				this.vmOptions.map(JavaTools::sanitizeArguments).map(JavaTools::translateArguments).ifPresent(java_command::addAll);
+				java_command.add("--module");
+				java_command.add(TrainingRun.getModuleMain(project, trainedLauncher));
+				application_args = this.arguments.map(JavaTools::sanitizeArguments).map(JavaTools::translateArguments).orElse(List.of());
+				workload_command = this.workload.map(JavaTools::sanitizeArguments).map(JavaTools::translateArguments).orElse(List.of());
+			}
+			catch(IllegalArgumentException e) {
+				throw new TaskExecutionException("Invalid training arguments", e);
+			}
+
+			Path trainingLogPath = project.getWorkingPath().resolve("training.log").toAbsolutePath();
+			try(StagingArea stagingArea = this.createStagingArea(project)) {
+				// the archive and the launchers are added to a copy of the runtime image which then replaces the runtime image at once
+				Path stagedRuntimeImagePath = stagingArea.stage(runtimeImagePath);
+				GenericBuildRuntimeTask.linkTree(runtimeImagePath, stagedRuntimeImagePath);
+				java_command.add(0, TrainingRun.getJavaPath(stagedRuntimeImagePath).toString());
+
+				// files are hard linked to the runtime image, a previous archive must be removed and not overwritten
+				Path stagedArchivePath = stagedRuntimeImagePath.resolve(archive);
+				Files.deleteIfExists(stagedArchivePath);
+				if(aotCache) {
+					Path aotConfigurationPath = stagingArea.getPath().resolve("app.aotconf");
+
+					List<String> record_command = new LinkedList<>(java_command);
+					record_command.addAll(1, List.of("-XX:AOTMode=record", "-XX:AOTConfiguration=" + aotConfigurationPath));
+					record_command.addAll(application_args);
+					LOGGER.info(" - training run (see {}): {}", trainingLogPath, record_command.stream().collect(Collectors.joining(" ")));
+					TrainingRun.run(record_command, workload_command, trainingLogPath, this.timeout);
+					if(!Files.exists(aotConfigurationPath)) {
+						throw new TaskExecutionException("AOT configuration was not recorded, see " + trainingLogPath);
+					}
+
+					// the JVM exits once the AOT cache is created, options must be consistent with the training run
+					List<String> create_command = new LinkedList<>(java_command);
+					create_command.addAll(1, List.of("-XX:AOTMode=create", "-XX:AOTConfiguration=" + aotConfigurationPath, "-XX:AOTCache=" + stagedArchivePath));
+					LOGGER.info(" - creating AOT cache: {}", create_command.stream().collect(Collectors.joining(" ")));
+					if(TrainingRun.run(create_command, List.of(), trainingLogPath, this.timeout) < 0) {
+						throw new TaskExecutionException("AOT cache creation timed out, see " + trainingLogPath);
+					}
+				}
+				else {
+					List<String> record_command = new LinkedList<>(java_command);
+					record_command.add(1, "-XX:ArchiveClassesAtExit=" + stagedArchivePath);
+					record_command.addAll(application_args);
+					LOGGER.info(" - training run (see {}): {}", trainingLogPath, record_command.stream().collect(Collectors.joining(" ")));
+					TrainingRun.run(record_command, workload_command, trainingLogPath, this.timeout);
+				}
+				if(!Files.exists(stagedArchivePath)) {
+					throw new TaskExecutionException((aotCache ? "AOT cache" : "AppCDS archive") + " was not created, see " + trainingLogPath);
+				}
+
+				for(BuildRuntimeTask.Launcher launcher : this.buildRuntimeTask.getLaunchers()) {
+					TrainingRun.configureLauncher(TrainingRun.getLauncherPath(stagedRuntimeImagePath, launcher), aotCache ? "-XX:AOTCache=" : "-XX:SharedArchiveFile=", archive);
+				}
+				stagingArea.commit();
+			}
+			catch(IOException e) {
+				throw new TaskExecutionException("Error training project runtime", e);
+			}
+
+			try {
+				LOGGER.info(" - {} created: {} ({} MB)", aotCache ? "AOT cache" : "AppCDS archive", archivePath, Files.size(archivePath) / (1024 * 1024));
+			}
+			catch(IOException e) {
+				LOGGER.info(" - {} created: {}", aotCache ? "AOT cache" : "AppCDS archive", archivePath);
+			}
+			this.storeInputsFingerprint(project);
+			this.storeOutputs(project, runtimeImagePath);
+		}
+		else {
+			LOGGER.info("[ Project runtime training is up to date ]");
+		}
+
+		return new GenericImage(ImageType.RUNTIME, null, runtimeImagePath);
+	}
+
+	/**
+	 * <p>
+	 * Returns the runtime image launcher to train.
+	 * </p>
+	 *
+	 * @return a launcher or null to train the project module default main class
+	 *
+	 * @throws TaskExecutionException if the specified launcher is not defined in the build runtime task
+	 */
+	private BuildRuntimeTask.Launcher getTrainedLauncher() throws TaskExecutionException {
+		List<? extends BuildRuntimeTask.Launcher> launchers = this.buildRuntimeTask.getLaunchers();
+		if(this.launcher.isPresent()) {
+			return launchers.stream()
+				.filter(launcher -> launcher.getName().equals(this.launcher.get()))
+				.findFirst()
+				.orElseThrow(() -> new TaskExecutionException("Unknown runtime launcher: " + this.launcher.get()));
+		}
+		return !launchers.isEmpty() ? launchers.getFirst() : null;
+	}
+
+	/**
+	 * <p>
+	 * Returns the version of the JDK the runtime image was created from.
+	 * </p>
+	 *
+	 * @param runtimeImagePath the path to the runtime image
+	 *
+	 * @return the runtime image version
+	 *
+	 * @throws TaskExecutionException if the runtime image version could not be determined
+	 */
+	private static Runtime.Version getRuntimeVersion(Path runtimeImagePath) throws TaskExecutionException {
+		Properties releaseProperties = new Properties();
+		try(InputStream releaseInput = Files.newInputStream(runtimeImagePath.resolve("release"))) {
+			releaseProperties.load(releaseInput);
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error reading project runtime release file", e);
+		}
+		String javaVersion = StringUtils.strip(releaseProperties.getProperty("JAVA_VERSION"), "\"");
+		if(StringUtils.isEmpty(javaVersion)) {
+			throw new TaskExecutionException("Missing JAVA_VERSION in project runtime release file");
+		}
+		try {
+			return Runtime.Version.parse(javaVersion);
+		}
+		catch(IllegalArgumentException e) {
+			throw new TaskExecutionException("Invalid project runtime version: " + javaVersion, e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Determines whether the specified runtime image contains a default CDS archive.
+	 * </p>
+	 *
+	 * <p>
+	 * A dynamic AppCDS archive is layered on top of the default CDS archive which is generated by {@code jlink} with the {@code --generate-cds-archive} option.
+	 * </p>
+	 *
+	 * @param runtimeImagePath the path to the runtime image
+	 *
+	 * @return true if the runtime image contains a default CDS archive, false otherwise
+	 */
+	private static boolean hasDefaultCdsArchive(Path runtimeImagePath) {
+		Path vmPath = runtimeImagePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/server" : "lib/server");
+		return Files.exists(vmPath.resolve("classes.jsa")) || Files.exists(vmPath.resolve("classes_nocoops.jsa"));
+	}
+
+	@Override
+	public ArchiveTask archive() {
+		return new GenericArchiveTask(this, ImageType.RUNTIME);
+	}
+
+	@Override
+	public PackageApplicationTask packageApplication() {
+		return new GenericPackageApplicationTask(this);
+	}
+}
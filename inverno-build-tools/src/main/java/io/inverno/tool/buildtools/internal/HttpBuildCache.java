@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * <p>
+ * A {@link BuildCache} storing entries on a remote HTTP server.
+ * </p>
+ *
+ * <p>
+ * An entry is retrieved with a {@code GET} request and stored with a {@code PUT} request on the cache URI resolved against the entry key (e.g. {@code https://cache.example.com/inverno/<key>}), a
+ * missing entry is indicated with a {@code 404} response. Any HTTP server supporting these methods (e.g. an NGINX WebDAV location) can then be used. Basic authentication credentials can be specified
+ * in the user info of the cache URI.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class HttpBuildCache implements BuildCache {
+
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+	private final URI cacheURI;
+
+	private final Optional<String> authorization;
+
+	private final HttpClient httpClient;
+
+	/**
+	 * <p>
+	 * Creates an HTTP build cache.
+	 * </p>
+	 *
+	 * @param cacheURI the cache URI
+	 *
+	 * @throws IllegalArgumentException if the URI is invalid
+	 */
+	public HttpBuildCache(URI cacheURI) throws IllegalArgumentException {
+		try {
+			String path = cacheURI.getPath() == null || cacheURI.getPath().isEmpty() ? "/" : cacheURI.getPath().endsWith("/") ? cacheURI.getPath() : cacheURI.getPath() + "/";
+			this.cacheURI = new URI(cacheURI.getScheme(), null, cacheURI.getHost(), cacheURI.getPort(), path, null, null);
+		}
+		catch(URISyntaxException e) {
+			throw new IllegalArgumentException("Invalid build cache URI: " + cacheURI, e);
+		}
+		this.authorization = Optional.ofNullable(cacheURI.getUserInfo())
+			.map(userInfo -> "Basic " + Base64.getEncoder().encodeToString(userInfo.getBytes(StandardCharsets.UTF_8)));
+		this.httpClient = HttpClient.newBuilder()
+			.connectTimeout(CONNECT_TIMEOUT)
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.build();
+	}
+
+	/**
+	 * <p>
+	 * Creates a request builder for the entry identified by the specified key.
+	 * </p>
+	 *
+	 * @param key the entry key
+	 *
+	 * @return a request builder
+	 */
+	private HttpRequest.Builder newRequest(String key) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(this.cacheURI.resolve(key));
+		this.authorization.ifPresent(value -> request.header("Authorization", value));
+		return request;
+	}
+
+	@Override
+	public Optional<InputStream> get(String key) throws IOException {
+		try {
+			HttpResponse<InputStream> response = this.httpClient.send(this.newRequest(key).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+			if(response.statusCode() == 200) {
+				return Optional.of(response.body());
+			}
+			response.body().close();
+			if(response.statusCode() == 404) {
+				return Optional.empty();
+			}
+			throw new IOException("Error retrieving build cache entry " + key + ": HTTP " + response.statusCode());
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while retrieving build cache entry " + key);
+		}
+	}
+
+	@Override
+	public void put(String key, Path entryPath) throws IOException {
+		try {
+			HttpResponse<Void> response = this.httpClient.send(this.newRequest(key).PUT(HttpRequest.BodyPublishers.ofFile(entryPath)).build(), HttpResponse.BodyHandlers.discarding());
+			if(response.statusCode() / 100 != 2) {
+				throw new IOException("Error storing build cache entry " + key + ": HTTP " + response.statusCode());
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while storing build cache entry " + key);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.cacheURI.toString();
+	}
+}
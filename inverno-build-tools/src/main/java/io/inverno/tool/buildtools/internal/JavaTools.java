@@ -15,10 +15,16 @@
  */
 package io.inverno.tool.buildtools.internal;
 
+import java.io.PrintStream;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.CancellationException;
 import java.util.spi.ToolProvider;
+import javax.tools.JavaCompiler;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.io.IoBuilder;
 
 /**
  * <p>
@@ -34,6 +40,10 @@ public final class JavaTools {
 	 * {@code javac} tool provider.
 	 */
 	public static final ToolProvider JAVAC;
+	/**
+	 * Java compiler used to compile sources in memory.
+	 */
+	public static final JavaCompiler JAVA_COMPILER = javax.tools.ToolProvider.getSystemJavaCompiler();
 	/**
 	 * {@code jar} tool provider.
 	 */
@@ -94,6 +104,62 @@ public final class JavaTools {
 		JPACKAGE = jpackage;
 	}
 	
+	/**
+	 * <p>
+	 * Runs the specified tool in-process.
+	 * </p>
+	 * 
+	 * <p>
+	 * A tool run can't be stopped, when the current thread is interrupted, typically when a task execution is cancelled, the tool is not run or its result is discarded when it returns. Note that
+	 * tools performing interruptible I/O operations might also fail early.
+	 * </p>
+	 * 
+	 * @param tool the tool to run
+	 * @param out  the standard output
+	 * @param err  the error output
+	 * @param args the tool arguments
+	 * 
+	 * @return the tool exit code
+	 * 
+	 * @throws CancellationException if the current thread was interrupted before or while running the tool
+	 */
+	public static int run(ToolProvider tool, PrintStream out, PrintStream err, String... args) throws CancellationException {
+		if(Thread.currentThread().isInterrupted()) {
+			throw new CancellationException(tool.name() + " run was cancelled");
+		}
+		int exitCode = tool.run(out, err, args);
+		if(Thread.currentThread().isInterrupted()) {
+			throw new CancellationException(tool.name() + " run was cancelled");
+		}
+		return exitCode;
+	}
+	
+	/**
+	 * <p>
+	 * Runs the specified tool in-process logging its standard and error outputs to the specified logger.
+	 * </p>
+	 * 
+	 * <p>
+	 * Output streams are created for the run so that the outputs of tools run concurrently (e.g. by different projects built in parallel) are not mixed with each other.
+	 * </p>
+	 * 
+	 * @param tool   the tool to run
+	 * @param logger the logger
+	 * @param args   the tool arguments
+	 * 
+	 * @return the tool exit code
+	 * 
+	 * @throws CancellationException if the current thread was interrupted before or while running the tool
+	 */
+	public static int run(ToolProvider tool, Logger logger, String... args) throws CancellationException {
+		try(
+			PrintStream out = IoBuilder.forLogger(logger).setLevel(Level.INFO).setAutoFlush(true).buildPrintStream();
+			PrintStream err = IoBuilder.forLogger(logger).setLevel(Level.ERROR).setAutoFlush(true).buildPrintStream()
+		) {
+			return run(tool, out, err, args);
+		}
+	}
+	
 	/**
 	 * <p>
 	 * Sanitizes the specified command line arguments.
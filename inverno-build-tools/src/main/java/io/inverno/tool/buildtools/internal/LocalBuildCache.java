@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * <p>
+ * A {@link BuildCache} storing entries in a local directory.
+ * </p>
+ *
+ * <p>
+ * The directory can be shared between projects and between builds running concurrently: an entry is first written to a temporary file which is then atomically moved to the entry path so that a
+ * partial entry is never visible.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class LocalBuildCache implements BuildCache {
+
+	private final Path cachePath;
+
+	/**
+	 * <p>
+	 * Creates a local build cache.
+	 * </p>
+	 *
+	 * @param cachePath the cache directory
+	 */
+	public LocalBuildCache(Path cachePath) {
+		this.cachePath = cachePath.toAbsolutePath();
+	}
+
+	/**
+	 * <p>
+	 * Returns the path to the entry identified by the specified key.
+	 * </p>
+	 *
+	 * @param key the entry key
+	 *
+	 * @return the path to the entry
+	 */
+	private Path getEntryPath(String key) {
+		// entries are spread over sub directories to keep directories small
+		return this.cachePath.resolve(key.substring(0, Math.min(2, key.length()))).resolve(key);
+	}
+
+	@Override
+	public Optional<InputStream> get(String key) throws IOException {
+		try {
+			return Optional.of(Files.newInputStream(this.getEntryPath(key)));
+		}
+		catch(NoSuchFileException e) {
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public void put(String key, Path entryPath) throws IOException {
+		Path cacheEntryPath = this.getEntryPath(key);
+		if(Files.exists(cacheEntryPath)) {
+			return;
+		}
+		Files.createDirectories(cacheEntryPath.getParent());
+		Path tmpEntryPath = Files.createTempFile(cacheEntryPath.getParent(), key + ".", ".tmp");
+		try {
+			Files.copy(entryPath, tmpEntryPath, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(tmpEntryPath, cacheEntryPath, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(FileAlreadyExistsException e) {
+			// another build cached the entry in the meantime
+		}
+		finally {
+			Files.deleteIfExists(tmpEntryPath);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.cachePath.toString();
+	}
+}
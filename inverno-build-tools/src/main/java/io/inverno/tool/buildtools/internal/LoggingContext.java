@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.util.Map;
+import org.apache.logging.log4j.ThreadContext;
+
+/**
+ * <p>
+ * A utility class used to propagate the logging context of the thread executing a build to the worker threads it creates.
+ * </p>
+ *
+ * <p>
+ * When several projects are built concurrently in the same JVM, the logging context (i.e. Log4j {@link ThreadContext}) allows to route the logs of each build to a specific destination (e.g. a
+ * project log file). Since it is bound to the current thread, it must be propagated to the worker threads executing tasks or part of a task on behalf of a build.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+final class LoggingContext {
+
+	private LoggingContext() {}
+
+	/**
+	 * <p>
+	 * Wraps the specified runnable so that it is executed with the logging context of the current thread.
+	 * </p>
+	 *
+	 * <p>
+	 * The logging context is captured when this method is invoked and it is cleared once the runnable completes.
+	 * </p>
+	 *
+	 * @param runnable the runnable to wrap
+	 *
+	 * @return a runnable executing the specified runnable within the current logging context
+	 */
+	public static Runnable propagate(Runnable runnable) {
+		Map<String, String> context = ThreadContext.getImmutableContext();
+		if(context.isEmpty()) {
+			return runnable;
+		}
+		return () -> {
+			ThreadContext.putAll(context);
+			try {
+				runnable.run();
+			}
+			finally {
+				ThreadContext.clearMap();
+			}
+		};
+	}
+}
@@ -0,0 +1,437 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>
+ * Resolves the main classes defined in a classes directory.
+ * </p>
+ *
+ * <p>
+ * A main class is a class exposing a public {@code void main(String[])} method, either declared or inherited as defined by {@link Class#getMethod(java.lang.String, java.lang.Class...)}. Class
+ * files are parsed in parallel and no class is ever loaded: super classes and interfaces outside the classes directory are read from the dependency JARs or the platform. A dependency JAR is
+ * opened at most once per resolution no matter how many classes are read from it.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class MainClassResolver {
+
+	private static final String MODULE_INFO = "module-info.class";
+
+	private static final String MAIN_METHOD_NAME = "main";
+
+	private static final String MAIN_METHOD_DESCRIPTOR = "([Ljava/lang/String;)V";
+
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_STATIC = 0x0008;
+	private static final int ACC_INTERFACE = 0x0200;
+	private static final int ACC_MODULE = 0x8000;
+
+	private final Path classesPath;
+
+	private final DependencyIndex dependencyIndex;
+
+	private final Map<String, Optional<ClassInfo>> classInfos;
+
+	private final Map<Path, JarFile> jarFiles;
+
+	/**
+	 * <p>
+	 * Creates a main class resolver.
+	 * </p>
+	 *
+	 * @param classesPath     the path to the classes directory
+	 * @param dependencyIndex the index of the dependencies of the classes
+	 */
+	public MainClassResolver(Path classesPath, DependencyIndex dependencyIndex) {
+		this.classesPath = classesPath;
+		this.dependencyIndex = dependencyIndex;
+		this.classInfos = new ConcurrentHashMap<>();
+		this.jarFiles = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * <p>
+	 * Resolves the main classes defined in the classes directory.
+	 * </p>
+	 *
+	 * @return a sorted set of binary class names or an empty set if no main class is defined
+	 *
+	 * @throws IOException              if there was an error reading a class file
+	 * @throws IllegalArgumentException if a class file is invalid
+	 */
+	public Set<String> resolve() throws IOException, IllegalArgumentException {
+		List<Path> classFiles;
+		try(Stream<Path> walk = Files.walk(this.classesPath)) {
+			classFiles = walk
+				.filter(path -> {
+					String fileName = path.getFileName().toString();
+					return fileName.endsWith(".class") && !fileName.equals(MODULE_INFO) && !this.classesPath.relativize(path).startsWith("META-INF");
+				})
+				.collect(Collectors.toList());
+		}
+
+		try {
+			Map<String, ClassInfo> projectClassInfos = classFiles.parallelStream()
+				.map(classFile -> {
+					try {
+						return ClassInfo.read(Files.readAllBytes(classFile));
+					}
+					catch(IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.filter(classInfo -> classInfo != null)
+				.collect(Collectors.toMap(ClassInfo::getName, Function.identity(), (c1, c2) -> c1));
+			projectClassInfos.values().forEach(classInfo -> this.classInfos.put(classInfo.getName(), Optional.of(classInfo)));
+
+			Set<String> mainClasses = projectClassInfos.values().parallelStream()
+				.filter(classInfo -> this.hasMainMethod(classInfo, true))
+				.map(classInfo -> classInfo.getName().replace('/', '.'))
+				.collect(Collectors.toCollection(TreeSet::new));
+			return Collections.unmodifiableSet(mainClasses);
+		}
+		catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+		finally {
+			this.closeJarFiles();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Determines whether the specified class exposes a main method.
+	 * </p>
+	 *
+	 * <p>
+	 * Like {@link Class#getMethod(java.lang.String, java.lang.Class...)}, static methods inherited from interfaces are ignored.
+	 * </p>
+	 *
+	 * @param classInfo the class
+	 * @param root      true if the class is the class being resolved, false if it is one of its super types
+	 *
+	 * @return true if the class exposes a main method, false otherwise
+	 */
+	private boolean hasMainMethod(ClassInfo classInfo, boolean root) {
+		int mainAccessFlags = classInfo.getMainAccessFlags();
+		if(mainAccessFlags != -1 && (mainAccessFlags & ACC_PUBLIC) != 0 && (root || !classInfo.isInterface() || (mainAccessFlags & ACC_STATIC) == 0)) {
+			return true;
+		}
+		if(classInfo.getSuperName() != null && this.getClassInfo(classInfo.getSuperName()).map(superClassInfo -> this.hasMainMethod(superClassInfo, false)).orElse(false)) {
+			return true;
+		}
+		for(String interfaceName : classInfo.getInterfaceNames()) {
+			if(this.getClassInfo(interfaceName).map(interfaceInfo -> this.hasMainMethod(interfaceInfo, false)).orElse(false)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * <p>
+	 * Returns the specified class outside the classes directory.
+	 * </p>
+	 *
+	 * <p>
+	 * The class is read from the dependency JAR defining it or from the platform, it is ignored if it can't be found.
+	 * </p>
+	 *
+	 * @param name a binary class name in internal form
+	 *
+	 * @return an optional returning the class or an empty optional if the class could not be found
+	 *
+	 * @throws UncheckedIOException if there was an error reading the class file
+	 */
+	private Optional<ClassInfo> getClassInfo(String name) throws UncheckedIOException {
+		if(name.equals("java/lang/Object")) {
+			return Optional.empty();
+		}
+		Optional<ClassInfo> classInfo = this.classInfos.get(name);
+		if(classInfo == null) {
+			try {
+				byte[] classFile = null;
+				Optional<DependencyIndex.Jar> jar = this.dependencyIndex.findClass(name);
+				if(jar.isPresent()) {
+					JarFile jarFile = this.getJarFile(jar.get().getPath());
+					JarEntry classEntry = jarFile.getJarEntry(name + ".class");
+					if(classEntry != null) {
+						try(InputStream classInput = jarFile.getInputStream(classEntry)) {
+							classFile = classInput.readAllBytes();
+						}
+					}
+				}
+				else {
+					try(InputStream classInput = ClassLoader.getPlatformClassLoader().getResourceAsStream(name + ".class")) {
+						if(classInput != null) {
+							classFile = classInput.readAllBytes();
+						}
+					}
+				}
+				classInfo = Optional.ofNullable(classFile != null ? ClassInfo.read(classFile) : null);
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			this.classInfos.putIfAbsent(name, classInfo);
+		}
+		return classInfo;
+	}
+
+	/**
+	 * <p>
+	 * Returns the specified dependency JAR, opening it if it wasn't opened yet during the current resolution.
+	 * </p>
+	 *
+	 * @param jarPath the path to the dependency JAR
+	 *
+	 * @return the dependency JAR
+	 *
+	 * @throws UncheckedIOException if there was an error opening the JAR
+	 */
+	private JarFile getJarFile(Path jarPath) throws UncheckedIOException {
+		return this.jarFiles.computeIfAbsent(jarPath, path -> {
+			try {
+				return new JarFile(path.toFile(), false, ZipFile.OPEN_READ, Runtime.version());
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * <p>
+	 * Closes the dependency JARs opened during the current resolution.
+	 * </p>
+	 */
+	private void closeJarFiles() {
+		for(JarFile jarFile : this.jarFiles.values()) {
+			try {
+				jarFile.close();
+			}
+			catch(IOException e) {
+				// JARs are only read, this must not hide the outcome of the resolution
+			}
+		}
+		this.jarFiles.clear();
+	}
+
+	/**
+	 * <p>
+	 * The information extracted from a class file required to resolve main methods.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private static class ClassInfo {
+
+		private final String name;
+		private final int accessFlags;
+		private final String superName;
+		private final String[] interfaceNames;
+		private final int mainAccessFlags;
+
+		/**
+		 * <p>
+		 * Creates a class info.
+		 * </p>
+		 *
+		 * @param name            the binary name of the class in internal form
+		 * @param accessFlags     the class access flags
+		 * @param superName       the binary name of the super class in internal form or null
+		 * @param interfaceNames  the binary names of the interfaces in internal form
+		 * @param mainAccessFlags the access flags of the declared main method or {@code -1} if the class doesn't declare a main method
+		 */
+		private ClassInfo(String name, int accessFlags, String superName, String[] interfaceNames, int mainAccessFlags) {
+			this.name = name;
+			this.accessFlags = accessFlags;
+			this.superName = superName;
+			this.interfaceNames = interfaceNames;
+			this.mainAccessFlags = mainAccessFlags;
+		}
+
+		/**
+		 * <p>
+		 * Reads a class file.
+		 * </p>
+		 *
+		 * <p>
+		 * Only the constant pool, the class header and the method table are read, code and attributes are skipped.
+		 * </p>
+		 *
+		 * @param classFile the class file
+		 *
+		 * @return the class info or null if the class file is a module descriptor
+		 *
+		 * @throws IOException              if there was an error reading the class file
+		 * @throws IllegalArgumentException if the class file is invalid
+		 */
+		private static ClassInfo read(byte[] classFile) throws IOException, IllegalArgumentException {
+			DataInputStream input = new DataInputStream(new ByteArrayInputStream(classFile));
+			if(input.readInt() != 0xCAFEBABE) {
+				throw new IllegalArgumentException("Invalid class file");
+			}
+			input.skipBytes(4); // minor and major versions
+
+			int constantPoolCount = input.readUnsignedShort();
+			String[] utf8s = new String[constantPoolCount];
+			int[] classNameIndexes = new int[constantPoolCount];
+			for(int i=1;i<constantPoolCount;i++) {
+				int tag = input.readUnsignedByte();
+				switch(tag) {
+					case 1: utf8s[i] = input.readUTF();
+						break;
+					case 7: classNameIndexes[i] = input.readUnsignedShort();
+						break;
+					case 8:
+					case 16:
+					case 19:
+					case 20: input.skipBytes(2);
+						break;
+					case 15: input.skipBytes(3);
+						break;
+					case 3:
+					case 4:
+					case 9:
+					case 10:
+					case 11:
+					case 12:
+					case 17:
+					case 18: input.skipBytes(4);
+						break;
+					case 5:
+					case 6: input.skipBytes(8);
+						i++;
+						break;
+					default: throw new IllegalArgumentException("Invalid constant pool tag: " + tag);
+				}
+			}
+
+			int accessFlags = input.readUnsignedShort();
+			if((accessFlags & ACC_MODULE) != 0) {
+				return null;
+			}
+			String name = utf8s[classNameIndexes[input.readUnsignedShort()]];
+			int superClassIndex = input.readUnsignedShort();
+			String superName = superClassIndex > 0 ? utf8s[classNameIndexes[superClassIndex]] : null;
+			String[] interfaceNames = new String[input.readUnsignedShort()];
+			for(int i=0;i<interfaceNames.length;i++) {
+				interfaceNames[i] = utf8s[classNameIndexes[input.readUnsignedShort()]];
+			}
+
+			// fields are skipped, methods are checked
+			int mainAccessFlags = -1;
+			for(int j=0;j<2;j++) {
+				int membersCount = input.readUnsignedShort();
+				for(int i=0;i<membersCount;i++) {
+					int memberAccessFlags = input.readUnsignedShort();
+					String memberName = utf8s[input.readUnsignedShort()];
+					String memberDescriptor = utf8s[input.readUnsignedShort()];
+					if(j == 1 && MAIN_METHOD_NAME.equals(memberName) && MAIN_METHOD_DESCRIPTOR.equals(memberDescriptor)) {
+						mainAccessFlags = memberAccessFlags;
+					}
+					int attributesCount = input.readUnsignedShort();
+					for(int k=0;k<attributesCount;k++) {
+						input.skipBytes(2); // name
+						input.skipBytes(input.readInt());
+					}
+				}
+			}
+			return new ClassInfo(name, accessFlags, superName, interfaceNames, mainAccessFlags);
+		}
+
+		/**
+		 * <p>
+		 * Returns the binary name of the class in internal form.
+		 * </p>
+		 *
+		 * @return the class name
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * <p>
+		 * Determines whether the class is an interface.
+		 * </p>
+		 *
+		 * @return true if the class is an interface, false otherwise
+		 */
+		public boolean isInterface() {
+			return (this.accessFlags & ACC_INTERFACE) != 0;
+		}
+
+		/**
+		 * <p>
+		 * Returns the binary name of the super class in internal form.
+		 * </p>
+		 *
+		 * @return the super class name or null
+		 */
+		public String getSuperName() {
+			return this.superName;
+		}
+
+		/**
+		 * <p>
+		 * Returns the binary names of the interfaces in internal form.
+		 * </p>
+		 *
+		 * @return the interface names
+		 */
+		public String[] getInterfaceNames() {
+			return this.interfaceNames;
+		}
+
+		/**
+		 * <p>
+		 * Returns the access flags of the main method declared in the class.
+		 * </p>
+		 *
+		 * @return the main method access flags or {@code -1} if the class doesn't declare a main method
+		 */
+		public int getMainAccessFlags() {
+			return this.mainAccessFlags;
+		}
+	}
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.ModuleInfo;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.module.InvalidModuleDescriptorException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * A class file writer that serializes a {@link ModuleInfo} directly to a {@code module-info.class} without invoking the Java compiler.
+ * </p>
+ *
+ * <p>
+ * The resulting class file contains the {@code Module} attribute, including module and requires versions, and the {@code ModulePackages} attribute. It is equivalent to the descriptor compiled by
+ * {@code javac} and packaged by the {@code jar} tool: required modules are resolved using the module finder provided on creation in order to record the compiled versions of explicit modules and
+ * nested types are resolved to their binary names using the packages of the module and of the modules that can be found.
+ * </p>
+ *
+ * <p>
+ * Unlike the compiler, the writer only performs minimal validation: an {@link IllegalArgumentException} is thrown when the descriptor can't be serialized reliably (e.g. import declarations, missing
+ * module or package...), the descriptor should then be compiled with {@code javac} which reports proper diagnostics.
+ * </p>
+ *
+ * <p>
+ * A module info class writer is immutable and can be used concurrently.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class ModuleInfoClassWriter {
+
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private static final int MAJOR_VERSION = Runtime.version().feature() + 44;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_MODULE = 19;
+	private static final int CONSTANT_PACKAGE = 20;
+
+	private static final int ACC_MODULE = 0x8000;
+	private static final int ACC_OPEN = 0x0020;
+	private static final int ACC_TRANSITIVE = 0x0020;
+	private static final int ACC_STATIC_PHASE = 0x0040;
+	private static final int ACC_MANDATED = 0x8000;
+
+	private static final String JAVA_BASE = "java.base";
+
+	private final Map<String, ModuleDescriptor> modules;
+
+	private final Set<String> packages;
+
+	/**
+	 * <p>
+	 * Creates a module info class writer.
+	 * </p>
+	 *
+	 * <p>
+	 * All the modules that can be found by the specified module finder are loaded on creation, this can be costly and a writer should then be reused for all the descriptors sharing the same module
+	 * path.
+	 * </p>
+	 *
+	 * @param moduleFinder the finder used to resolve required modules and external types
+	 *
+	 * @throws java.lang.module.FindException if an error occurs finding modules
+	 */
+	public ModuleInfoClassWriter(ModuleFinder moduleFinder) {
+		Map<String, ModuleDescriptor> modulesByName = new HashMap<>();
+		Set<String> modulesPackages = new HashSet<>();
+		for(ModuleReference moduleReference : moduleFinder.findAll()) {
+			ModuleDescriptor descriptor = moduleReference.descriptor();
+			modulesByName.putIfAbsent(descriptor.name(), descriptor);
+			modulesPackages.addAll(descriptor.packages());
+		}
+		this.modules = Collections.unmodifiableMap(modulesByName);
+		this.packages = Collections.unmodifiableSet(modulesPackages);
+	}
+
+	/**
+	 * <p>
+	 * Serializes the specified module info to a {@code module-info.class}.
+	 * </p>
+	 *
+	 * @param moduleInfo the module info
+	 * @param version    the module version or null
+	 * @param packages   the packages of the module
+	 *
+	 * @return the module descriptor class file
+	 *
+	 * @throws IllegalArgumentException if the module info can't be serialized
+	 */
+	public byte[] write(ModuleInfo moduleInfo, String version, Set<String> packages) throws IllegalArgumentException {
+		if(!moduleInfo.getImports().isEmpty()) {
+			throw new IllegalArgumentException("Import declarations are not supported");
+		}
+		if(moduleInfo.isOpen() && !moduleInfo.getOpens().isEmpty()) {
+			throw new IllegalArgumentException("Opens directives are not allowed in an open module");
+		}
+
+		ConstantPool constantPool = new ConstantPool();
+		ByteArrayOutputStream moduleAttributeBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream packagesAttributeBytes = new ByteArrayOutputStream();
+		try {
+			int thisClassIndex = constantPool.classInfo("module-info");
+			int sourceFileIndex = constantPool.utf8("SourceFile");
+			int sourceFileNameIndex = constantPool.utf8("module-info.java");
+
+			int moduleAttributeIndex = constantPool.utf8("Module");
+			DataOutputStream moduleAttribute = new DataOutputStream(moduleAttributeBytes);
+			moduleAttribute.writeShort(constantPool.moduleInfo(moduleInfo.getName()));
+			moduleAttribute.writeShort(moduleInfo.isOpen() ? ACC_OPEN : 0);
+			moduleAttribute.writeShort(version != null ? constantPool.utf8(version) : 0);
+
+			// Requires: java.base is implicitly required when not explicitly specified
+			List<ModuleInfo.RequiresDirective> requires = new ArrayList<>();
+			if(moduleInfo.getRequires().stream().noneMatch(directive -> directive.getModule().equals(JAVA_BASE))) {
+				requires.add(null);
+			}
+			requires.addAll(moduleInfo.getRequires());
+			moduleAttribute.writeShort(requires.size());
+			for(ModuleInfo.RequiresDirective directive : requires) {
+				String requiredModuleName = directive != null ? directive.getModule() : JAVA_BASE;
+				ModuleDescriptor requiredModule = this.modules.get(requiredModuleName);
+				if(requiredModule == null) {
+					throw new IllegalArgumentException("Module not found: " + requiredModuleName);
+				}
+				int flags = 0;
+				if(directive == null) {
+					flags |= ACC_MANDATED;
+				}
+				else {
+					if(directive.isTransitive()) {
+						flags |= ACC_TRANSITIVE;
+					}
+					if(directive.isStatic()) {
+						flags |= ACC_STATIC_PHASE;
+					}
+				}
+				moduleAttribute.writeShort(constantPool.moduleInfo(requiredModuleName));
+				moduleAttribute.writeShort(flags);
+				// like javac, the version of automatic modules is not recorded
+				moduleAttribute.writeShort(!requiredModule.isAutomatic() && requiredModule.rawVersion().isPresent() ? constantPool.utf8(requiredModule.rawVersion().get()) : 0);
+			}
+
+			// Exports
+			moduleAttribute.writeShort(moduleInfo.getExports().size());
+			for(ModuleInfo.ExportsDirective directive : moduleInfo.getExports()) {
+				this.writePackageDirective(moduleAttribute, constantPool, directive.getPackage(), directive.getTo(), packages);
+			}
+
+			// Opens
+			moduleAttribute.writeShort(moduleInfo.getOpens().size());
+			for(ModuleInfo.OpensDirective directive : moduleInfo.getOpens()) {
+				this.writePackageDirective(moduleAttribute, constantPool, directive.getPackage(), directive.getTo(), packages);
+			}
+
+			// Uses
+			moduleAttribute.writeShort(moduleInfo.getUses().size());
+			for(ModuleInfo.UsesDirective directive : moduleInfo.getUses()) {
+				moduleAttribute.writeShort(constantPool.classInfo(this.getBinaryName(directive.getType(), packages, false)));
+			}
+
+			// Provides
+			moduleAttribute.writeShort(moduleInfo.getProvides().size());
+			for(ModuleInfo.ProvidesDirective directive : moduleInfo.getProvides()) {
+				if(directive.getWith().isEmpty()) {
+					throw new IllegalArgumentException("No implementation specified for service " + directive.getType());
+				}
+				moduleAttribute.writeShort(constantPool.classInfo(this.getBinaryName(directive.getType(), packages, false)));
+				moduleAttribute.writeShort(directive.getWith().size());
+				for(String implementation : directive.getWith()) {
+					// service implementations must be in the module
+					moduleAttribute.writeShort(constantPool.classInfo(this.getBinaryName(implementation, packages, true)));
+				}
+			}
+
+			// ModulePackages
+			int packagesAttributeIndex = constantPool.utf8("ModulePackages");
+			DataOutputStream packagesAttribute = new DataOutputStream(packagesAttributeBytes);
+			Set<String> sortedPackages = new TreeSet<>(packages);
+			packagesAttribute.writeShort(sortedPackages.size());
+			for(String packageName : sortedPackages) {
+				packagesAttribute.writeShort(constantPool.packageInfo(packageName));
+			}
+
+			ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+			DataOutputStream classFile = new DataOutputStream(classBytes);
+			classFile.writeInt(MAGIC);
+			classFile.writeShort(0);
+			classFile.writeShort(MAJOR_VERSION);
+			constantPool.write(classFile);
+			classFile.writeShort(ACC_MODULE);
+			classFile.writeShort(thisClassIndex);
+			classFile.writeShort(0); // super class
+			classFile.writeShort(0); // interfaces
+			classFile.writeShort(0); // fields
+			classFile.writeShort(0); // methods
+			classFile.writeShort(3); // attributes
+
+			classFile.writeShort(sourceFileIndex);
+			classFile.writeInt(2);
+			classFile.writeShort(sourceFileNameIndex);
+
+			classFile.writeShort(moduleAttributeIndex);
+			classFile.writeInt(moduleAttributeBytes.size());
+			moduleAttributeBytes.writeTo(classFile);
+
+			classFile.writeShort(packagesAttributeIndex);
+			classFile.writeInt(packagesAttributeBytes.size());
+			packagesAttributeBytes.writeTo(classFile);
+			classFile.flush();
+
+			byte[] moduleInfoClass = classBytes.toByteArray();
+			// Let the JDK validate the result (module and package names, duplicate directives...)
+			ModuleDescriptor.read(ByteBuffer.wrap(moduleInfoClass));
+			return moduleInfoClass;
+		}
+		catch(IOException e) {
+			// Can't happen with byte array output streams
+			throw new UncheckedIOException(e);
+		}
+		catch(InvalidModuleDescriptorException e) {
+			throw new IllegalArgumentException("Invalid module descriptor: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Writes an exports or opens directive.
+	 * </p>
+	 *
+	 * @param output       the module attribute output
+	 * @param constantPool the constant pool
+	 * @param packageName  the exported or opened package
+	 * @param to           the target modules
+	 * @param packages     the packages of the module
+	 *
+	 * @throws IOException if there was an error writing the directive
+	 */
+	private void writePackageDirective(DataOutputStream output, ConstantPool constantPool, String packageName, List<String> to, Set<String> packages) throws IOException {
+		if(!packages.contains(packageName)) {
+			throw new IllegalArgumentException("Package is empty or does not exist: " + packageName);
+		}
+		output.writeShort(constantPool.packageInfo(packageName));
+		output.writeShort(0);
+		if(to != null) {
+			output.writeShort(to.size());
+			for(String moduleName : to) {
+				output.writeShort(constantPool.moduleInfo(moduleName));
+			}
+		}
+		else {
+			output.writeShort(0);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the binary name in internal form of the specified qualified type name.
+	 * </p>
+	 *
+	 * <p>
+	 * The package of the type is the longest prefix of the qualified name that corresponds to a package of the module or of a module that can be found, remaining segments designate nested types.
+	 * </p>
+	 *
+	 * @param typeName  the qualified type name
+	 * @param packages  the packages of the module
+	 * @param inModule true if the type must be defined in the module
+	 *
+	 * @return the binary name in internal form
+	 *
+	 * @throws IllegalArgumentException if the package of the type can't be determined
+	 */
+	private String getBinaryName(String typeName, Set<String> packages, boolean inModule) throws IllegalArgumentException {
+		int index = typeName.lastIndexOf('.');
+		while(index > 0) {
+			String packageName = typeName.substring(0, index);
+			if(packages.contains(packageName) || (!inModule && this.packages.contains(packageName))) {
+				return packageName.replace('.', '/') + "/" + typeName.substring(index + 1).replace('.', '$');
+			}
+			index = typeName.lastIndexOf('.', index - 1);
+		}
+		throw new IllegalArgumentException("Type not found" + (inModule ? " in module: " : ": ") + typeName);
+	}
+
+	/**
+	 * <p>
+	 * A class file constant pool.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	private static class ConstantPool {
+
+		private final Map<String, Integer> entries;
+
+		private final ByteArrayOutputStream bytes;
+
+		private final DataOutputStream output;
+
+		/**
+		 * <p>
+		 * Creates an empty constant pool.
+		 * </p>
+		 */
+		public ConstantPool() {
+			this.entries = new LinkedHashMap<>();
+			this.bytes = new ByteArrayOutputStream();
+			this.output = new DataOutputStream(this.bytes);
+		}
+
+		/**
+		 * <p>
+		 * Returns the index of a {@code CONSTANT_Utf8_info} entry, adding it if necessary.
+		 * </p>
+		 *
+		 * @param value the string value
+		 *
+		 * @return the index of the entry
+		 *
+		 * @throws IOException if there was an error adding the entry
+		 */
+		public int utf8(String value) throws IOException {
+			Integer index = this.entries.get(value);
+			if(index == null) {
+				this.output.writeByte(CONSTANT_UTF8);
+				this.output.writeUTF(value);
+				index = this.entries.size() + 1;
+				this.entries.put(value, index);
+			}
+			return index;
+		}
+
+		/**
+		 * <p>
+		 * Returns the index of a {@code CONSTANT_Class_info} entry, adding it if necessary.
+		 * </p>
+		 *
+		 * @param binaryName the binary name of the class in internal form
+		 *
+		 * @return the index of the entry
+		 *
+		 * @throws IOException if there was an error adding the entry
+		 */
+		public int classInfo(String binaryName) throws IOException {
+			return this.reference(CONSTANT_CLASS, binaryName);
+		}
+
+		/**
+		 * <p>
+		 * Returns the index of a {@code CONSTANT_Module_info} entry, adding it if necessary.
+		 * </p>
+		 *
+		 * @param moduleName the module name
+		 *
+		 * @return the index of the entry
+		 *
+		 * @throws IOException if there was an error adding the entry
+		 */
+		public int moduleInfo(String moduleName) throws IOException {
+			return this.reference(CONSTANT_MODULE, moduleName);
+		}
+
+		/**
+		 * <p>
+		 * Returns the index of a {@code CONSTANT_Package_info} entry, adding it if necessary.
+		 * </p>
+		 *
+		 * @param packageName the package name
+		 *
+		 * @return the index of the entry
+		 *
+		 * @throws IOException if there was an error adding the entry
+		 */
+		public int packageInfo(String packageName) throws IOException {
+			return this.reference(CONSTANT_PACKAGE, packageName.replace('.', '/'));
+		}
+
+		/**
+		 * <p>
+		 * Returns the index of an entry referencing a {@code CONSTANT_Utf8_info} entry, adding them if necessary.
+		 * </p>
+		 *
+		 * @param tag   the tag of the entry
+		 * @param value the string value
+		 *
+		 * @return the index of the entry
+		 *
+		 * @throws IOException if there was an error adding the entry
+		 */
+		private int reference(int tag, String value) throws IOException {
+			// tags can't be confused with string values which are stored as is
+			String key = (char)tag + value;
+			Integer index = this.entries.get(key);
+			if(index == null) {
+				int valueIndex = this.utf8(value);
+				this.output.writeByte(tag);
+				this.output.writeShort(valueIndex);
+				index = this.entries.size() + 1;
+				this.entries.put(key, index);
+			}
+			return index;
+		}
+
+		/**
+		 * <p>
+		 * Writes the constant pool count and entries.
+		 * </p>
+		 *
+		 * @param classFile the class file output
+		 *
+		 * @throws IOException if there was an error writing the constant pool
+		 */
+		public void write(DataOutputStream classFile) throws IOException {
+			this.output.flush();
+			classFile.writeShort(this.entries.size() + 1);
+			this.bytes.writeTo(classFile);
+		}
+	}
+}
@@ -32,6 +32,10 @@ import java.util.Optional;
  * <p>
  * These steps can themselves be subdivided into steps to refine the progress information.
  * </p>
+ * 
+ * <p>
+ * A progress bar is thread-safe: steps can be added, described and completed from different threads, all operations being serialized on the progress bar instance.
+ * </p>
  *
  * @author <a href="mailto:jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.4
@@ -84,7 +88,7 @@ public class ProgressBar {
 	 * Displays the progress bar explicitly regardless of whether it is enabled or not.
 	 * </p>
 	 */
-	public void display() {
+	public synchronized void display() {
 		this.output.print("\033[2K");
 		if(this.remaining > 0) {
 			StringBuilder progressBar = new StringBuilder();
@@ -137,7 +141,7 @@ public class ProgressBar {
 	 * 
 	 * @param progress the amount of work completed
 	 */
-	protected void progress(float progress) {
+	protected synchronized void progress(float progress) {
 		if (this.isEnabled() && this.remaining > 0) {
 			this.remaining -= progress;
 			if (this.remaining <= 0) {
@@ -152,7 +156,7 @@ public class ProgressBar {
 	 * Completes the progress bar.
 	 * </p>
 	 */
-	public void complete() {
+	public synchronized void complete() {
 		if (!this.isComplete()) {
 			this.remaining = 0;
 			this.display();
@@ -196,7 +200,7 @@ public class ProgressBar {
 	 * 
 	 * @return true if the progress bar is completed
 	 */
-	public boolean isComplete() {
+	public synchronized boolean isComplete() {
 		return this.remaining == 0;
 	}
 
@@ -333,8 +337,10 @@ public class ProgressBar {
 		 * @param description the description to set
 		 */
 		public void setDescription(String description) {
-			this.description = Optional.ofNullable(description);
-			ProgressBar.this.progress(0);
+			synchronized(ProgressBar.this) {
+				this.description = Optional.ofNullable(description);
+				ProgressBar.this.progress(0);
+			}
 		}
 
 		/**
@@ -374,9 +380,11 @@ public class ProgressBar {
 		 * @return a new step
 		 */
 		public Step addStepFirst(int weight, String description) {
-			Step child = new Step(this, weight, description);
-			this.children.addFirst(child);
-			return child;
+			synchronized(ProgressBar.this) {
+				Step child = new Step(this, weight, description);
+				this.children.addFirst(child);
+				return child;
+			}
 		}
 		
 		/**
@@ -390,9 +398,11 @@ public class ProgressBar {
 		 * @return a new step
 		 */
 		public Step addStep(int weight, String description) {
-			Step child = new Step(this, weight, description);
-			this.children.add(child);
-			return child;
+			synchronized(ProgressBar.this) {
+				Step child = new Step(this, weight, description);
+				this.children.add(child);
+				return child;
+			}
 		}
 		
 		/**
@@ -404,23 +414,25 @@ public class ProgressBar {
 		 * @param childProgress the amount of work completed in the child step
 		 */
 		protected void childProgress(ProgressBar.Step child, float childProgress) {
-			if(this.children.contains(child)) {
-				float progress;
-				if(child.weight == 0) {
-					progress = 0;
-				}
-				else {
-					progress = this.remaining * (childProgress * (float)child.weight) / ((float)this.children.stream().filter(s -> !s.equals(child)).mapToDouble(s -> s.remaining * (float)s.weight).sum() + ((child.remaining + childProgress) * (float)child.weight));
-				}
+			synchronized(ProgressBar.this) {
+				if(this.children.contains(child)) {
+					float progress;
+					if(child.weight == 0) {
+						progress = 0;
+					}
+					else {
+						progress = this.remaining * (childProgress * (float)child.weight) / ((float)this.children.stream().filter(s -> !s.equals(child)).mapToDouble(s -> s.remaining * (float)s.weight).sum() + ((child.remaining + childProgress) * (float)child.weight));
+					}
 
-				if(child.isDone()) {
-					this.children.remove(child);
-				}
+					if(child.isDone()) {
+						this.children.remove(child);
+					}
 
-				if(this.children.isEmpty()) {
-					progress = this.remaining;
+					if(this.children.isEmpty()) {
+						progress = this.remaining;
+					}
+					this.progress(progress);
 				}
-				this.progress(progress);
 			}
 		}
 
@@ -432,13 +444,15 @@ public class ProgressBar {
 		 * @param progress the amount of work completed
 		 */
 		protected void progress(float progress) {
-			if(!this.isDone()) {
-				this.remaining = Math.max(0, this.remaining - progress);
-				if(this.parent != null) {
-					this.parent.childProgress(this, progress);
-				} 
-				else {
-					ProgressBar.this.progress(progress);
+			synchronized(ProgressBar.this) {
+				if(!this.isDone()) {
+					this.remaining = Math.max(0, this.remaining - progress);
+					if(this.parent != null) {
+						this.parent.childProgress(this, progress);
+					} 
+					else {
+						ProgressBar.this.progress(progress);
+					}
 				}
 			}
 		}
@@ -460,7 +474,9 @@ public class ProgressBar {
 		 * @return true if the step is done, false otherwise
 		 */
 		public boolean isDone() {
-			return this.remaining == 0;
+			synchronized(ProgressBar.this) {
+				return this.remaining == 0;
+			}
 		}
 	}
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * A staging area where a task generates its outputs before committing them to their actual location.
+ * </p>
+ *
+ * <p>
+ * Outputs are generated in a staging directory and moved to their actual location once they have all been successfully generated, a staged output replacing the existing output with an atomic
+ * rename. A build interrupted while a task is generating its outputs then leaves existing outputs untouched instead of incomplete outputs and, since the task inputs fingerprint must be stored once
+ * outputs are committed, only the interrupted task is executed again on the next build.
+ * </p>
+ *
+ * <p>
+ * Any leftover from a previous interrupted build is removed when the staging area is created, the staging directory is removed when the staging area is closed.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class StagingArea implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger(StagingArea.class);
+
+	private final Path path;
+
+	private final Map<Path, Path> stagedOutputs;
+
+	/**
+	 * <p>
+	 * Creates a staging area.
+	 * </p>
+	 *
+	 * @param path the staging directory
+	 *
+	 * @throws IOException if there was an error creating the staging directory
+	 */
+	public StagingArea(Path path) throws IOException {
+		this.path = path.toAbsolutePath();
+		this.stagedOutputs = new LinkedHashMap<>();
+		BuildCacheEntry.delete(this.path);
+		Files.createDirectories(this.path);
+	}
+
+	/**
+	 * <p>
+	 * Returns the staging directory.
+	 * </p>
+	 *
+	 * <p>
+	 * This can be used as a scratch directory by tools generating multiple outputs in a given directory.
+	 * </p>
+	 *
+	 * @return the staging directory
+	 */
+	public Path getPath() {
+		return this.path;
+	}
+
+	/**
+	 * <p>
+	 * Stages the specified output.
+	 * </p>
+	 *
+	 * <p>
+	 * The returned path has the same file name as the output, its parent directory exists but the path itself doesn't so it can be used as the output of a tool which requires the output not to
+	 * exist (e.g. {@code jlink}).
+	 * </p>
+	 *
+	 * @param output the path to a task output
+	 *
+	 * @return the path where the output must be generated
+	 *
+	 * @throws IOException if there was an error creating the staged output parent directory
+	 */
+	public Path stage(Path output) throws IOException {
+		Path stagedOutput = this.stagedOutputs.get(output);
+		if(stagedOutput == null) {
+			stagedOutput = this.path.resolve(String.valueOf(this.stagedOutputs.size())).resolve(output.getFileName());
+			Files.createDirectories(stagedOutput.getParent());
+			this.stagedOutputs.put(output, stagedOutput);
+		}
+		return stagedOutput;
+	}
+
+	/**
+	 * <p>
+	 * Moves staged outputs to their actual location, replacing existing outputs.
+	 * </p>
+	 *
+	 * <p>
+	 * A staged file replaces an existing file with an atomic rename. Since a directory can't be atomically replaced, an existing directory is first moved aside and deleted once the staged directory
+	 * has been moved in place. When the staging directory and the output are on different file stores, the staged output can't be renamed: it is copied next to the output, the copy is renamed in
+	 * place and the staged output is then deleted.
+	 * </p>
+	 *
+	 * @throws IOException if a staged output is missing or if there was an error moving a staged output
+	 */
+	public void commit() throws IOException {
+		for(Map.Entry<Path, Path> e : this.stagedOutputs.entrySet()) {
+			if(!Files.exists(e.getValue(), LinkOption.NOFOLLOW_LINKS)) {
+				throw new IOException("Missing staged output: " + e.getValue());
+			}
+		}
+		for(Map.Entry<Path, Path> e : this.stagedOutputs.entrySet()) {
+			Path output = e.getKey().toAbsolutePath();
+			Path stagedOutput = e.getValue();
+			Files.createDirectories(output.getParent());
+
+			Path previousOutput = null;
+			if(Files.isDirectory(output, LinkOption.NOFOLLOW_LINKS)) {
+				previousOutput = output.resolveSibling("." + output.getFileName() + ".previous");
+				BuildCacheEntry.delete(previousOutput);
+				move(output, previousOutput);
+			}
+			else if(Files.isDirectory(stagedOutput, LinkOption.NOFOLLOW_LINKS)) {
+				Files.deleteIfExists(output);
+			}
+			move(stagedOutput, output);
+			if(previousOutput != null) {
+				BuildCacheEntry.delete(previousOutput);
+			}
+		}
+		this.stagedOutputs.clear();
+	}
+
+	/**
+	 * <p>
+	 * Atomically moves a file or a directory.
+	 * </p>
+	 *
+	 * <p>
+	 * When source and target are on different file stores, the source is copied next to the target, the copy is atomically moved to the target and the source is deleted.
+	 * </p>
+	 *
+	 * @param source the source path
+	 * @param target the target path
+	 *
+	 * @throws IOException if there was an error moving the path
+	 */
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch(AtomicMoveNotSupportedException e) {
+			// source and target are on different file stores: a non-empty directory can't be moved and a file would be moved with a non-atomic copy
+			Path copiedSource = target.resolveSibling("." + target.getFileName() + ".copy");
+			BuildCacheEntry.delete(copiedSource);
+			try {
+				copy(source, copiedSource);
+				Files.move(copiedSource, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			finally {
+				BuildCacheEntry.delete(copiedSource);
+			}
+			BuildCacheEntry.delete(source);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Copies a file or a directory tree.
+	 * </p>
+	 *
+	 * <p>
+	 * Symbolic links are copied as is, file attributes are copied but directories are created with default attributes so the tree can be populated.
+	 * </p>
+	 *
+	 * @param source the source path
+	 * @param target the target path which must not exist
+	 *
+	 * @throws IOException if there was an error copying the tree
+	 */
+	private static void copy(Path source, Path target) throws IOException {
+		try(Stream<Path> walk = Files.walk(source)) {
+			for(Iterator<Path> pathIterator = walk.iterator(); pathIterator.hasNext();) {
+				Path path = pathIterator.next();
+				Path targetPath = target.resolve(source.relativize(path).toString());
+				if(Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+					Files.createDirectory(targetPath);
+				}
+				else {
+					Files.copy(path, targetPath, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Deletes the staging directory including any uncommitted output.
+	 * </p>
+	 */
+	@Override
+	public void close() {
+		try {
+			BuildCacheEntry.delete(this.path);
+		}
+		catch(IOException e) {
+			LOGGER.warn("Error deleting staging directory {}: {}", this.path, e.toString());
+		}
+	}
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Limits the number of heavyweight tools (e.g. {@code jlink}, {@code jpackage}...) running concurrently on a host.
+ * </p>
+ *
+ * <p>
+ * Tools such as {@code jlink}, {@code jpackage} or Jib use a lot of memory and I/O, running too many of them at the same time, typically when multiple projects are built in parallel or when multiple
+ * builds are running on the same host, degrades the overall build time. A throttle is located in a directory shared by all builds on the host, a permit must be acquired before running a tool, permits
+ * are represented by lock files which are locked by the build holding the permit so that they are shared between processes and automatically released when a process exits.
+ * </p>
+ *
+ * <p>
+ * File locks are held on behalf of the whole JVM and closing any channel opened on a lock file releases all the locks held by the JVM on that file. The lock files locked in the JVM are then
+ * registered and a lock file is only opened once it could be registered, a registered lock file is never opened by another thread.
+ * </p>
+ *
+ * <p>
+ * The throttle is an optimization: when a permit can't be acquired due to an I/O error, the error is logged and the tool is run without permit.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+public class ToolThrottle {
+
+	private static final Logger LOGGER = LogManager.getLogger(ToolThrottle.class);
+
+	/**
+	 * The {@code jdeps} tool.
+	 */
+	public static final String JDEPS = "jdeps";
+	/**
+	 * The {@code jlink} tool.
+	 */
+	public static final String JLINK = "jlink";
+	/**
+	 * The {@code jpackage} tool.
+	 */
+	public static final String JPACKAGE = "jpackage";
+	/**
+	 * Container image builds.
+	 */
+	public static final String CONTAINERIZE = "containerize";
+
+	/**
+	 * The default number of permits per tool.
+	 */
+	public static final Map<String, Integer> DEFAULT_PERMITS = Map.of(
+		JDEPS, Runtime.getRuntime().availableProcessors(),
+		JLINK, 1,
+		JPACKAGE, 1,
+		CONTAINERIZE, 1
+	);
+
+	/**
+	 * The interval in milliseconds between two attempts to acquire a permit.
+	 */
+	private static final long ACQUIRE_INTERVAL = 200;
+
+	/**
+	 * A permit which doesn't hold any lock.
+	 */
+	private static final ToolThrottle.Permit NO_PERMIT = new ToolThrottle.Permit(null, null);
+
+	/**
+	 * The lock files locked or being locked in the JVM.
+	 */
+	private static final Set<Path> LOCKED_PATHS = ConcurrentHashMap.newKeySet();
+
+	private final Path path;
+
+	private final Map<String, Integer> permits;
+
+	/**
+	 * <p>
+	 * Creates a tool throttle.
+	 * </p>
+	 *
+	 * <p>
+	 * Tools for which no number of permits is specified are given the {@link #DEFAULT_PERMITS default number of permits}, a number of permits lower or equal to zero indicates that the tool is not
+	 * throttled.
+	 * </p>
+	 *
+	 * @param path    the directory shared by builds on the host where lock files are created
+	 * @param permits the number of permits per tool
+	 */
+	public ToolThrottle(Path path, Map<String, Integer> permits) {
+		this.path = path;
+		this.permits = new HashMap<>(DEFAULT_PERMITS);
+		if(permits != null) {
+			this.permits.putAll(permits);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns a permit that doesn't limit the number of concurrent tool runs.
+	 * </p>
+	 *
+	 * @return a no-op permit
+	 */
+	public static ToolThrottle.Permit noPermit() {
+		return NO_PERMIT;
+	}
+
+	/**
+	 * <p>
+	 * Acquires a permit to run the specified tool, waiting for a permit to be released if necessary.
+	 * </p>
+	 *
+	 * @param tool the tool to run
+	 *
+	 * @return a permit that must be closed once the tool completes
+	 *
+	 * @throws CancellationException if the current thread was interrupted while waiting for a permit
+	 */
+	public ToolThrottle.Permit acquire(String tool) throws CancellationException {
+		int toolPermits = this.permits.getOrDefault(tool, 0);
+		if(toolPermits <= 0) {
+			return NO_PERMIT;
+		}
+		try {
+			Files.createDirectories(this.path);
+			boolean waiting = false;
+			while(true) {
+				for(int i=0;i<toolPermits;i++) {
+					ToolThrottle.Permit permit = this.tryAcquire(this.path.resolve(tool + "." + i + ".lock"));
+					if(permit != null) {
+						return permit;
+					}
+				}
+				if(!waiting) {
+					LOGGER.info(" - waiting for a {} permit...", tool);
+					waiting = true;
+				}
+				Thread.sleep(ACQUIRE_INTERVAL);
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Waiting for a " + tool + " permit was cancelled");
+		}
+		catch(IOException e) {
+			LOGGER.warn(" - error acquiring a {} permit from {}: {}", tool, this.path, e.toString());
+			return NO_PERMIT;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Tries to lock the specified lock file.
+	 * </p>
+	 *
+	 * @param lockPath the path to the lock file
+	 *
+	 * @return a permit or null if the lock file is already locked by this or another process
+	 *
+	 * @throws IOException if there was an error opening the lock file
+	 */
+	private ToolThrottle.Permit tryAcquire(Path lockPath) throws IOException {
+		Path lockedPath = lockPath.toAbsolutePath().normalize();
+		if(!LOCKED_PATHS.add(lockedPath)) {
+			// the lock is held in this JVM
+			return null;
+		}
+		FileChannel channel = null;
+		try {
+			// no other channel is opened on the lock file in this JVM, closing the channel can't release a lock held by another thread
+			channel = FileChannel.open(lockedPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			if(channel.tryLock() != null) {
+				return new ToolThrottle.Permit(lockedPath, channel);
+			}
+			channel.close();
+			LOCKED_PATHS.remove(lockedPath);
+			return null;
+		}
+		catch(IOException | RuntimeException e) {
+			if(channel != null) {
+				channel.close();
+			}
+			LOCKED_PATHS.remove(lockedPath);
+			throw e;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.path.toString();
+	}
+
+	/**
+	 * <p>
+	 * A permit to run a tool.
+	 * </p>
+	 *
+	 * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+	 * @since 1.7
+	 */
+	public static class Permit implements AutoCloseable {
+
+		private final Path lockPath;
+		private final FileChannel channel;
+
+		/**
+		 * <p>
+		 * Creates a permit.
+		 * </p>
+		 *
+		 * @param lockPath the path to the locked lock file or null
+		 * @param channel  the locked lock file channel or null
+		 */
+		private Permit(Path lockPath, FileChannel channel) {
+			this.lockPath = lockPath;
+			this.channel = channel;
+		}
+
+		/**
+		 * <p>
+		 * Releases the permit.
+		 * </p>
+		 *
+		 * <p>
+		 * Closing the lock file channel releases the lock, the lock file is then unregistered so it can be locked again in the JVM.
+		 * </p>
+		 */
+		@Override
+		public void close() {
+			if(this.channel != null && this.channel.isOpen()) {
+				try {
+					this.channel.close();
+				}
+				catch(IOException e) {
+					LOGGER.warn(" - error releasing permit: {}", e.toString());
+				}
+				finally {
+					LOCKED_PATHS.remove(this.lockPath);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.BuildRuntimeTask;
+import io.inverno.tool.buildtools.TaskExecutionException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * A utility class used to run an application from a runtime image in order to record class data sharing archives or AOT caches and to configure the runtime image launchers to use them.
+ * </p>
+ *
+ * <p>
+ * A training run is stopped when it exceeds a timeout or when the training workload completes, it is then given the chance to exit gracefully so that the JVM can dump the archive at exit. Note that
+ * on Windows a process can only be forcibly stopped, the application must then exit by itself.
+ * </p>
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ * @since 1.7
+ */
+final class TrainingRun {
+
+	private static final Logger LOGGER = LogManager.getLogger(TrainingRun.class);
+
+	/**
+	 * The time in milliseconds given to a training run to exit gracefully once stopped.
+	 */
+	private static final long STOP_TIMEOUT = 30000;
+
+	private TrainingRun() {}
+
+	/**
+	 * <p>
+	 * Returns the path to the {@code java} command in the specified runtime image.
+	 * </p>
+	 *
+	 * @param runtimeImagePath the path to the runtime image
+	 *
+	 * @return the path to the java command
+	 *
+	 * @throws TaskExecutionException if the runtime image does not contain the java command
+	 */
+	public static Path getJavaPath(Path runtimeImagePath) throws TaskExecutionException {
+		Path javaPath = runtimeImagePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/java.exe" : "bin/java");
+		if(!Files.exists(javaPath)) {
+			throw new TaskExecutionException("Missing java command in project runtime, native commands must not be stripped: " + javaPath);
+		}
+		return javaPath;
+	}
+
+	/**
+	 * <p>
+	 * Returns the module and main class to run in order to train the specified launcher.
+	 * </p>
+	 *
+	 * @param project  the build project
+	 * @param launcher the launcher to train or null to train the project module default main class
+	 *
+	 * @return the module and main class in the form {@code module[/mainClass]}
+	 *
+	 * @throws TaskExecutionException if the project module default main class could not be determined
+	 */
+	public static String getModuleMain(BuildProject project, BuildRuntimeTask.Launcher launcher) throws TaskExecutionException {
+		if(launcher != null) {
+			return launcher.getModule().orElse(project.getModuleName()) + launcher.getMainClass().map(mainClass -> "/" + mainClass).orElse("");
+		}
+		try {
+			return project.getModuleName() + "/" + project.getDefaultMainClass().orElseThrow(() -> new TaskExecutionException("Main project class is missing"));
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Could not find project main class", e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Runs the specified training command.
+	 * </p>
+	 *
+	 * <p>
+	 * When a workload command is specified, it is started along with the training command and the training command is stopped once the workload command completes.
+	 * </p>
+	 *
+	 * @param command  the training command
+	 * @param workload the workload command or an empty list
+	 * @param logPath  the path to the file where the output of the commands must be written
+	 * @param timeout  the time in milliseconds after which the training command is stopped
+	 *
+	 * @return the time in milliseconds it took for the training command to terminate by itself or -1 if it was stopped
+	 *
+	 * @throws TaskExecutionException if there was an error running the commands or if the workload command failed
+	 * @throws CancellationException  if the current thread was interrupted while waiting for the commands to terminate
+	 */
+	public static long run(List<String> command, List<String> workload, Path logPath, long timeout) throws TaskExecutionException, CancellationException {
+		Process process = null;
+		Process workloadProcess = null;
+		try {
+			Files.createDirectories(logPath.getParent());
+			long startTime = System.nanoTime();
+			process = start(command, logPath);
+			if(!workload.isEmpty()) {
+				LOGGER.info(" - training workload: {}", workload.stream().collect(Collectors.joining(" ")));
+				workloadProcess = start(workload, logPath);
+				long remaining = timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+				if(!workloadProcess.waitFor(Math.max(remaining, 0), TimeUnit.MILLISECONDS)) {
+					LOGGER.warn(" - training workload did not complete within {}ms", timeout);
+				}
+				else if(workloadProcess.exitValue() != 0) {
+					throw new TaskExecutionException("Training workload failed with exit code " + workloadProcess.exitValue() + ", see " + logPath);
+				}
+				else if(process.isAlive()) {
+					stop(process);
+					return -1;
+				}
+			}
+			long remaining = timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			if(process.waitFor(Math.max(remaining, 0), TimeUnit.MILLISECONDS)) {
+				long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+				if(process.exitValue() != 0) {
+					LOGGER.warn(" - training run exited with code {}", process.exitValue());
+				}
+				return time;
+			}
+			stop(process);
+			return -1;
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error running training", e);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Training was cancelled");
+		}
+		finally {
+			if(workloadProcess != null && workloadProcess.isAlive()) {
+				workloadProcess.destroyForcibly();
+			}
+			if(process != null && process.isAlive()) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Starts the specified command.
+	 * </p>
+	 *
+	 * @param command the command
+	 * @param logPath the path to the file where the output of the command must be written
+	 *
+	 * @return the process
+	 *
+	 * @throws IOException if there was an error starting the command
+	 */
+	private static Process start(List<String> command, Path logPath) throws IOException {
+		return new ProcessBuilder(command)
+			.redirectErrorStream(true)
+			.redirectOutput(ProcessBuilder.Redirect.appendTo(logPath.toFile()))
+			.start();
+	}
+
+	/**
+	 * <p>
+	 * Stops the specified process, gracefully if possible so that the JVM can dump the archive at exit.
+	 * </p>
+	 *
+	 * @param process the process to stop
+	 *
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the process to terminate
+	 */
+	private static void stop(Process process) throws InterruptedException {
+		process.destroy();
+		if(!process.waitFor(STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+			process.destroyForcibly();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Configures the specified launcher script generated by {@code jlink} to use an archive located in the runtime image.
+	 * </p>
+	 *
+	 * <p>
+	 * The archive is resolved relative to the launcher script so that the runtime image can be moved. An archive previously configured in the launcher is replaced.
+	 * </p>
+	 *
+	 * <p>
+	 * The launcher script might be hard linked to the launcher script of another runtime image, it is then replaced by a new file with the same permissions rather than overwritten.
+	 * </p>
+	 *
+	 * @param launcherPath the path to the launcher script
+	 * @param option       the JVM option specifying the archive (e.g. {@code -XX:SharedArchiveFile=})
+	 * @param archive      the path to the archive relative to the runtime image
+	 *
+	 * @throws TaskExecutionException if there was an error updating the launcher script
+	 */
+	public static void configureLauncher(Path launcherPath, String option, String archive) throws TaskExecutionException {
+		try {
+			String lineSeparator;
+			String dirLine;
+			String optionsLinePrefix;
+			String optionsLine;
+			if(Platform.getSystemPlatform() == Platform.WINDOWS) {
+				lineSeparator = "\r\n";
+				dirLine = "set DIR=%~dp0";
+				optionsLinePrefix = "set JLINK_VM_OPTIONS=-XX:";
+				optionsLine = "set JLINK_VM_OPTIONS=" + option + "\"%DIR%..\\" + archive.replace('/', '\\') + "\" %JLINK_VM_OPTIONS%";
+			}
+			else {
+				lineSeparator = "\n";
+				dirLine = "DIR=`dirname $0`";
+				optionsLinePrefix = "JLINK_VM_OPTIONS=\"-XX:";
+				optionsLine = "JLINK_VM_OPTIONS=\"" + option + "$DIR/../" + archive + " $JLINK_VM_OPTIONS\"";
+			}
+
+			// remove the archive previously configured
+			List<String> lines = Files.readAllLines(launcherPath);
+			lines.removeIf(line -> line.startsWith(optionsLinePrefix));
+			int dirLineIndex = lines.indexOf(dirLine);
+			if(dirLineIndex < 0) {
+				LOGGER.warn(" - could not configure archive {} in launcher {}", archive, launcherPath);
+				return;
+			}
+			lines.add(dirLineIndex + 1, optionsLine);
+			Path configuredLauncherPath = launcherPath.resolveSibling(launcherPath.getFileName() + ".tmp");
+			Files.writeString(configuredLauncherPath, lines.stream().collect(Collectors.joining(lineSeparator, "", lineSeparator)));
+			if(Files.getFileStore(launcherPath).supportsFileAttributeView(PosixFileAttributeView.class)) {
+				Files.setPosixFilePermissions(configuredLauncherPath, Files.getPosixFilePermissions(launcherPath));
+			}
+			Files.move(configuredLauncherPath, launcherPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(IOException e) {
+			throw new TaskExecutionException("Error configuring archive " + archive + " in launcher " + launcherPath, e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the path to the launcher script generated by {@code jlink} for the specified launcher.
+	 * </p>
+	 *
+	 * @param runtimeImagePath the path to the runtime image
+	 * @param launcher         a launcher
+	 *
+	 * @return the path to the launcher script
+	 */
+	public static Path getLauncherPath(Path runtimeImagePath, BuildRuntimeTask.Launcher launcher) {
+		return runtimeImagePath.resolve("bin").resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? launcher.getName() + ".bat" : launcher.getName());
+	}
+
+	/**
+	 * <p>
+	 * Returns the JVM option configuring the specified archive in an application image created by {@code jpackage} from a runtime image.
+	 * </p>
+	 *
+	 * @param runtimeImagePath the path to the runtime image
+	 *
+	 * @return an optional returning the JVM option or an empty optional if the runtime image does not contain any archive
+	 */
+	public static Optional<String> getApplicationArchiveOption(Path runtimeImagePath) {
+		// the runtime image is copied in the application image, the archive must then be resolved relative to the application directory
+		String applicationRuntimePath = "$APPDIR/../runtime/" + (Platform.getSystemPlatform() == Platform.MACOS ? "Contents/Home/" : "");
+		if(Files.exists(runtimeImagePath.resolve(GenericTrainRuntimeTask.AOT_CACHE))) {
+			return Optional.of("-XX:AOTCache=" + applicationRuntimePath + GenericTrainRuntimeTask.AOT_CACHE);
+		}
+		else if(Files.exists(runtimeImagePath.resolve(GenericTrainRuntimeTask.TRAINED_APPCDS_ARCHIVE))) {
+			return Optional.of("-XX:SharedArchiveFile=" + applicationRuntimePath + GenericTrainRuntimeTask.TRAINED_APPCDS_ARCHIVE);
+		}
+		else if(Files.exists(runtimeImagePath.resolve(GenericBuildRuntimeTask.APPCDS_ARCHIVE))) {
+			return Optional.of("-XX:SharedArchiveFile=" + applicationRuntimePath + GenericBuildRuntimeTask.APPCDS_ARCHIVE);
+		}
+		return Optional.empty();
+	}
+}
@@ -28,6 +28,7 @@
  * <li>Run or start/stop the project application in a separated process</li>
  * <li>Create a JMOD archive of the project</li>
  * <li>Build an optimized Java runtime containing the project, its dependencies along with an optimized specific Java runtime.</li>
+ * <li>Train the Java runtime with a workload to record an AOT cache reducing the application startup and warmup times.</li>
  * <li>Package the project application in optimized native delivrables</li>
  * <li>Create a container image of the project application as a TAR archive or load it to a local Docker daemon or deploy it to a remote image registry.</li>
  * </ul>
@@ -72,6 +73,8 @@
  * @since 1.4
  */
 module io.inverno.tool.buildtools {
+	requires java.compiler;
+	requires java.net.http;
 	requires com.google.cloud.tools.jib;
 	requires com.google.cloud.tools.jib.api.buildplan;
 	requires org.apache.commons.compress;
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.Image;
+import io.inverno.tool.buildtools.TestProject;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class BuildCacheTest {
+
+	static {
+		System.setProperty("org.apache.logging.log4j.simplelog.level", "INFO");
+		System.setProperty("org.apache.logging.log4j.simplelog.logFile", "system.out");
+	}
+
+	private static final Path CACHE_PATH = Path.of("target/inverno-cache").toAbsolutePath();
+
+	private TestProject project;
+
+	@BeforeEach
+	public void init() {
+		this.project = new TestProject();
+		this.project.compile();
+	}
+
+	@AfterEach
+	public void cleanup() throws IOException {
+		this.project.clean();
+		delete(CACHE_PATH);
+	}
+
+	private static void delete(Path path) throws IOException {
+		if(Files.exists(path)) {
+			try(Stream<Path> walk = Files.walk(path)) {
+				walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+
+	private Image buildRuntime(URI buildCacheURI) throws Exception {
+		return this.project
+			.modularizeDependencies()
+			.buildCache(buildCacheURI)
+			.buildJmod()
+			.buildRuntime()
+			.execute();
+	}
+
+	private void assertRuntime(Image runtimeImage) throws IOException {
+		Path runtimePath = runtimeImage.getPath().get();
+		Properties releaseProperties = new Properties();
+		try(InputStream releaseInput = Files.newInputStream(runtimePath.resolve("release"))) {
+			releaseProperties.load(releaseInput);
+			Assertions.assertEquals("\"java.base io.inverno.test.automaticModuleDep io.inverno.test.moduleDep io.inverno.test.project io.inverno.test.unnamed.dep org.webjars.webjar.dep\"", releaseProperties.getProperty("MODULES"));
+		}
+	}
+
+	@Test
+	public void testExecuteWithLocalBuildCache() throws Exception {
+		this.assertRuntime(this.buildRuntime(CACHE_PATH.toUri()));
+
+		List<Path> entries;
+		try(Stream<Path> walk = Files.walk(CACHE_PATH)) {
+			entries = walk.filter(Files::isRegularFile).sorted().toList();
+		}
+		// modularized dependencies and their required modules, project jmod and project runtime
+		Assertions.assertEquals(8, entries.size());
+
+		// Same inputs on another host
+		delete(TestProject.WORKING_PATH);
+		delete(this.project.getRuntimePath());
+
+		this.assertRuntime(this.buildRuntime(CACHE_PATH.toUri()));
+		Assertions.assertTrue(Files.exists(this.project.getJmodPath()));
+
+		try(Stream<Path> walk = Files.walk(CACHE_PATH)) {
+			Assertions.assertEquals(entries, walk.filter(Files::isRegularFile).sorted().toList());
+		}
+	}
+
+	@Test
+	public void testExecuteWithHttpBuildCache() throws Exception {
+		try(StubCacheServer server = new StubCacheServer()) {
+			URI buildCacheURI = URI.create("http://user:password@" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort() + "/cache");
+
+			this.assertRuntime(this.buildRuntime(buildCacheURI));
+			Assertions.assertEquals(8, server.entries.size());
+			Assertions.assertEquals(8, server.puts.get());
+			Assertions.assertEquals(0, server.hits.get());
+			Assertions.assertTrue(server.entries.keySet().stream().allMatch(path -> path.startsWith("/cache/")));
+			Assertions.assertEquals("Basic dXNlcjpwYXNzd29yZA==", server.authorization);
+
+			// Same inputs on another host
+			delete(TestProject.WORKING_PATH);
+			delete(this.project.getRuntimePath());
+
+			this.assertRuntime(this.buildRuntime(buildCacheURI));
+			Assertions.assertEquals(8, server.puts.get());
+			Assertions.assertEquals(8, server.hits.get());
+
+			// changed options result in a cache miss for the runtime only
+			this.project
+				.modularizeDependencies()
+				.buildCache(buildCacheURI)
+				.buildJmod()
+				.buildRuntime()
+				.stripNativeCommands(false)
+				.execute();
+			Assertions.assertEquals(9, server.puts.get());
+			Assertions.assertEquals(9, server.entries.size());
+			Assertions.assertTrue(Files.exists(this.project.getRuntimePath().resolve("bin")));
+		}
+	}
+
+	@Test
+	public void testExecuteWithUnavailableBuildCache() throws Exception {
+		int port;
+		try(ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			port = serverSocket.getLocalPort();
+		}
+		// the build cache is an optimization: errors are ignored
+		this.assertRuntime(this.buildRuntime(URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port + "/cache")));
+	}
+
+	@Test
+	public void testPackUnpack() throws Exception {
+		Path sourcePath = CACHE_PATH.resolve("source");
+		Files.createDirectories(sourcePath.resolve("bin"));
+		Files.writeString(sourcePath.resolve("bin/app"), "#!/bin/sh");
+		Files.createDirectories(sourcePath.resolve("legal/a"));
+		Files.writeString(sourcePath.resolve("legal/a/LICENSE"), "license");
+		Files.createDirectories(sourcePath.resolve("legal/b"));
+		Path sourceFile = CACHE_PATH.resolve("source.txt");
+		Files.writeString(sourceFile, "file");
+		boolean posix = Platform.getSystemPlatform() != Platform.WINDOWS;
+		if(posix) {
+			Files.setPosixFilePermissions(sourcePath.resolve("bin/app"), PosixFilePermissions.fromString("rwxr-xr-x"));
+			Files.createSymbolicLink(sourcePath.resolve("legal/b/LICENSE"), Path.of("../a/LICENSE"));
+		}
+
+		ByteArrayOutputStream entry = new ByteArrayOutputStream();
+		BuildCacheEntry.pack(List.of(sourcePath, sourceFile), entry);
+
+		Path targetPath = CACHE_PATH.resolve("target");
+		Path targetFile = CACHE_PATH.resolve("target.txt");
+		Files.createDirectories(targetPath.resolve("stale"));
+		BuildCacheEntry.unpack(new ByteArrayInputStream(entry.toByteArray()), List.of(targetPath, targetFile));
+
+		Assertions.assertFalse(Files.exists(targetPath.resolve("stale")));
+		Assertions.assertEquals("#!/bin/sh", Files.readString(targetPath.resolve("bin/app")));
+		Assertions.assertEquals("license", Files.readString(targetPath.resolve("legal/a/LICENSE")));
+		Assertions.assertEquals("file", Files.readString(targetFile));
+		if(posix) {
+			Assertions.assertEquals("rwxr-xr-x", PosixFilePermissions.toString(Files.getPosixFilePermissions(targetPath.resolve("bin/app"))));
+			Assertions.assertTrue(Files.isSymbolicLink(targetPath.resolve("legal/b/LICENSE")));
+			Assertions.assertEquals("license", Files.readString(targetPath.resolve("legal/b/LICENSE")));
+		}
+
+		// entries are restricted to the outputs
+		Assertions.assertThrows(IOException.class, () -> BuildCacheEntry.unpack(new ByteArrayInputStream(entry.toByteArray()), List.of(targetPath)));
+	}
+
+	/**
+	 * A minimal HTTP/1.1 server storing entries in memory.
+	 */
+	private static class StubCacheServer implements AutoCloseable {
+
+		private final ServerSocket serverSocket;
+		private final Thread thread;
+		private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+		private final AtomicInteger hits = new AtomicInteger();
+		private final AtomicInteger puts = new AtomicInteger();
+		private volatile String authorization;
+
+		public StubCacheServer() throws IOException {
+			this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+			this.thread = new Thread(() -> {
+				try {
+					while(true) {
+						Socket socket = this.serverSocket.accept();
+						Thread worker = new Thread(() -> this.handle(socket));
+						worker.setDaemon(true);
+						worker.start();
+					}
+				}
+				catch(IOException e) {
+					// closed
+				}
+			});
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		public int getPort() {
+			return this.serverSocket.getLocalPort();
+		}
+
+		private static String readLine(InputStream input) throws IOException {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			int b;
+			while((b = input.read()) != -1 && b != '\n') {
+				if(b != '\r') {
+					line.write(b);
+				}
+			}
+			return b == -1 && line.size() == 0 ? null : line.toString(StandardCharsets.ISO_8859_1);
+		}
+
+		private void handle(Socket socket) {
+			try(socket) {
+				InputStream input = new BufferedInputStream(socket.getInputStream());
+				OutputStream output = socket.getOutputStream();
+				String requestLine;
+				while((requestLine = readLine(input)) != null && !requestLine.isEmpty()) {
+					String[] request = requestLine.split(" ");
+					long contentLength = 0;
+					String header;
+					while((header = readLine(input)) != null && !header.isEmpty()) {
+						int index = header.indexOf(':');
+						String name = header.substring(0, index).trim().toLowerCase();
+						String value = header.substring(index + 1).trim();
+						if(name.equals("content-length")) {
+							contentLength = Long.parseLong(value);
+						}
+						else if(name.equals("authorization")) {
+							this.authorization = value;
+						}
+					}
+					byte[] body = input.readNBytes((int)contentLength);
+
+					if(request[0].equals("GET")) {
+						byte[] entry = this.entries.get(request[1]);
+						if(entry != null) {
+							this.hits.incrementAndGet();
+							output.write(("HTTP/1.1 200 OK\r\nContent-Length: " + entry.length + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+							output.write(entry);
+						}
+						else {
+							output.write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+						}
+					}
+					else if(request[0].equals("PUT")) {
+						this.puts.incrementAndGet();
+						this.entries.put(request[1], body);
+						output.write("HTTP/1.1 201 Created\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+					}
+					else {
+						output.write("HTTP/1.1 405 Method Not Allowed\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+					}
+					output.flush();
+				}
+			}
+			catch(SocketException e) {
+				// client closed the connection
+			}
+			catch(IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.serverSocket.close();
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.BuildDaemon;
+import io.inverno.tool.buildtools.BuildRuntimeTask;
+import io.inverno.tool.buildtools.Image;
+import io.inverno.tool.buildtools.TaskExecutionException;
+import io.inverno.tool.buildtools.TestProject;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class BuildDaemonTest {
+
+	static {
+		System.setProperty("org.apache.logging.log4j.simplelog.level", "INFO");
+		System.setProperty("org.apache.logging.log4j.simplelog.logFile", "system.out");
+	}
+
+	private static final Path DAEMON_PATH = Path.of("target/inverno-daemon").toAbsolutePath();
+
+	private TestProject project;
+
+	private BuildDaemonServer server;
+
+	private Thread serverThread;
+
+	@BeforeEach
+	public void init() throws Exception {
+		this.project = new TestProject();
+		this.project.compile();
+		this.startServer(BuildDaemon.DEFAULT_IDLE_TIMEOUT);
+	}
+
+	@AfterEach
+	public void cleanup() throws Exception {
+		this.server.stop();
+		this.serverThread.join();
+		this.project.clean();
+		if(Files.exists(DAEMON_PATH)) {
+			Files.walk(DAEMON_PATH)
+				.sorted(Comparator.reverseOrder())
+				.map(Path::toFile)
+				.forEach(File::delete);
+		}
+	}
+
+	private void startServer(long idleTimeout) throws Exception {
+		Path registryPath = GenericBuildDaemon.getRegistryPath(DAEMON_PATH);
+		this.server = new BuildDaemonServer(registryPath, idleTimeout);
+		this.serverThread = new Thread(() -> {
+			try {
+				this.server.run();
+			}
+			catch(Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+		this.serverThread.start();
+		for(int i=0;i<100 && !Files.exists(registryPath);i++) {
+			Thread.sleep(100);
+		}
+		Assertions.assertTrue(Files.exists(registryPath));
+	}
+
+	@Test
+	public void testExecute() throws Exception {
+		AtomicInteger buildJmodCount = new AtomicInteger();
+		AtomicReference<Image> runtimeImage = new AtomicReference<>();
+
+		Image result = BuildDaemon.of(DAEMON_PATH)
+			.modularizeDependencies(this.project)
+			.buildJmod()
+			.doOnComplete(jmod -> buildJmodCount.incrementAndGet())
+			.buildRuntime()
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("project", this.project.getModuleName(), "io.inverno.test.project.Main")
+			))
+			.doOnComplete(runtimeImage::set)
+			.execute();
+
+		Path runtimePath = result.getPath().get();
+		Assertions.assertEquals(this.project.getRuntimePath(), runtimePath);
+		Assertions.assertEquals(runtimePath, runtimeImage.get().getPath().get());
+		Assertions.assertEquals(1, buildJmodCount.get());
+
+		Properties releaseProperties = new Properties();
+		try(InputStream releaseInput = Files.newInputStream(runtimePath.resolve("release"))) {
+			releaseProperties.load(releaseInput);
+			Assertions.assertEquals("\"java.base io.inverno.test.automaticModuleDep io.inverno.test.moduleDep io.inverno.test.project io.inverno.test.unnamed.dep org.webjars.webjar.dep\"", releaseProperties.getProperty("MODULES"));
+		}
+		Assertions.assertTrue(Files.exists(runtimePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/project.bat" : "bin/project")));
+	}
+
+	@Test
+	public void testExecuteInSession() throws Exception {
+		// the second build continues the session of the first build
+		for(int i=0;i<2;i++) {
+			Image result = BuildDaemon.of(DAEMON_PATH)
+				.modularizeDependencies(this.project)
+				.buildJmod()
+				.buildRuntime()
+				.execute();
+
+			Assertions.assertEquals(this.project.getRuntimePath(), result.getPath().get());
+		}
+	}
+
+	@Test
+	public void testExecuteWithError() throws Exception {
+		AtomicInteger buildRuntimeCount = new AtomicInteger();
+
+		TaskExecutionException error = Assertions.assertThrows(TaskExecutionException.class, () -> BuildDaemon.of(DAEMON_PATH)
+			.modularizeDependencies(this.project)
+			.buildJmod()
+			.mainClass("io.inverno.test.project.Unknown")
+			.buildRuntime()
+			.doOnComplete(ign -> buildRuntimeCount.incrementAndGet())
+			.execute()
+		);
+		Assertions.assertTrue(error.getCause() instanceof BuildDaemonProtocol.RemoteException);
+		Assertions.assertEquals(0, buildRuntimeCount.get());
+	}
+
+	@Test
+	public void testExecTaskNotSupported() {
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> BuildDaemon.of(DAEMON_PATH)
+			.modularizeDependencies(this.project)
+			.run()
+		);
+	}
+
+	@Test
+	public void testIdleTimeout() throws Exception {
+		this.server.stop();
+		this.serverThread.join();
+
+		this.startServer(500);
+		this.serverThread.join(10000);
+		Assertions.assertFalse(this.serverThread.isAlive());
+		Assertions.assertFalse(Files.exists(GenericBuildDaemon.getRegistryPath(DAEMON_PATH)));
+	}
+}
@@ -22,8 +22,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -92,6 +96,130 @@ public class BuildRuntimeTest {
 		Assertions.assertTrue(Files.exists(runtimePath.resolve("bin")));
 	}
 	
+	@Test
+	public void testExecuteWithChangedInputs() throws Exception {
+		Path runtimePath = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.execute()
+			.getPath().get();
+		FileTime releaseLastModified = Files.getLastModifiedTime(runtimePath.resolve("release"));
+		Assertions.assertFalse(Files.exists(runtimePath.resolve("bin")));
+		
+		// unchanged inputs: the runtime is up to date
+		this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.execute();
+		Assertions.assertEquals(releaseLastModified, Files.getLastModifiedTime(runtimePath.resolve("release")));
+		
+		// changed options: the runtime must be created again
+		this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.stripNativeCommands(false)
+			.execute();
+		Assertions.assertTrue(Files.exists(runtimePath.resolve("bin")));
+	}
+	
+	@Test
+	public void testExecuteMinimizeModules() throws Exception {
+		Path runtimePath = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.addModules("jdk.jdwp.agent")
+			.bindServices(true)
+			.execute()
+			.getPath().get();
+		
+		Properties releaseProperties = new Properties();
+		try(InputStream releaseInput = Files.newInputStream(runtimePath.resolve("release"))) {
+			releaseProperties.load(releaseInput);
+			Assertions.assertTrue(releaseProperties.getProperty("MODULES").contains("jdk.jdwp.agent"));
+		}
+		
+		// jdk.jdwp.agent is not required by the project
+		this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.addModules("jdk.jdwp.agent")
+			.bindServices(true)
+			.minimizeModules(true)
+			.execute();
+		
+		releaseProperties = new Properties();
+		try(InputStream releaseInput = Files.newInputStream(runtimePath.resolve("release"))) {
+			releaseProperties.load(releaseInput);
+			Assertions.assertEquals("\"java.base io.inverno.test.automaticModuleDep io.inverno.test.moduleDep io.inverno.test.project io.inverno.test.unnamed.dep org.webjars.webjar.dep\"", releaseProperties.getProperty("MODULES"));
+		}
+		
+		// jdk.jdwp.agent is explicitly added and kept
+		this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.addModules("jdk.jdwp.agent")
+			.bindServices(true)
+			.minimizeModules(true)
+			.keepAddedModules(true)
+			.execute();
+		
+		releaseProperties = new Properties();
+		try(InputStream releaseInput = Files.newInputStream(runtimePath.resolve("release"))) {
+			releaseProperties.load(releaseInput);
+			Assertions.assertEquals("\"java.base io.inverno.test.automaticModuleDep io.inverno.test.moduleDep io.inverno.test.project io.inverno.test.unnamed.dep jdk.jdwp.agent org.webjars.webjar.dep\"", releaseProperties.getProperty("MODULES"));
+		}
+	}
+	
+	@Test
+	public void testExecuteAsync() throws Exception {
+		Image runtimeImage = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.executeAsync()
+			.get();
+		
+		Assertions.assertTrue(Files.exists(runtimeImage.getPath().get().resolve("release")));
+	}
+	
+	@Test
+	public void testExecuteAsyncCancel() throws Exception {
+		AtomicReference<CompletableFuture<Image>> future = new AtomicReference<>();
+		future.set(this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.doOnComplete(ign -> {
+				while(future.get() == null) {
+					Thread.onSpinWait();
+				}
+				future.get().cancel(true);
+			})
+			.buildRuntime()
+			.executeAsync()
+		);
+		
+		Assertions.assertThrows(CancellationException.class, () -> future.get().join());
+		for(Thread thread : Thread.getAllStackTraces().keySet()) {
+			if(thread.getName().equals("inverno-GenericBuildRuntimeTask")) {
+				thread.join();
+			}
+		}
+		Assertions.assertFalse(Files.exists(this.project.getRuntimePath()));
+		
+		Image runtimeImage = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.execute();
+		Assertions.assertTrue(Files.exists(runtimeImage.getPath().get().resolve("release")));
+	}
+	
 	@Test
 	public void testExecuteWithConfLegalManInJmod() throws Exception {
 		Image runtimeImage = this.project
@@ -146,4 +274,142 @@ public class BuildRuntimeTest {
 		process.waitFor();
 		Assertions.assertEquals("execute module dep, execute automatic module dep, webjar module dep, execute unnamed module dep" + System.lineSeparator(), Files.readString(PROCESS_OUTPUT_PATH));
 	}
+	
+	@Test
+	public void testExecuteLayered() throws Exception {
+		Path runtimePath = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.layered(true)
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("project", this.project.getModuleName(), "io.inverno.test.project.Main")
+			))
+			.execute()
+			.getPath().get();
+		
+		// only JDK's modules are linked, application modules are in app/
+		Properties releaseProperties = new Properties();
+		try(InputStream releaseInput = Files.newInputStream(runtimePath.resolve("release"))) {
+			releaseProperties.load(releaseInput);
+			Assertions.assertEquals("\"java.base\"", releaseProperties.getProperty("MODULES"));
+		}
+		Path projectJarPath = runtimePath.resolve("app/" + this.project.getModuleName() + ".jar");
+		Assertions.assertTrue(Files.exists(projectJarPath));
+		
+		String command = runtimePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/project.bat" : "bin/project").toAbsolutePath().toString();
+		
+		ProcessBuilder pb = new ProcessBuilder(command)
+			.redirectOutput(PROCESS_OUTPUT_PATH.toFile());
+		
+		Process process = pb.start();
+		process.waitFor();
+		Assertions.assertEquals("execute module dep, execute automatic module dep, webjar module dep, execute unnamed module dep" + System.lineSeparator(), Files.readString(PROCESS_OUTPUT_PATH));
+		
+		// unchanged inputs: the runtime is up to date
+		FileTime projectJarLastModified = Files.getLastModifiedTime(projectJarPath);
+		FileTime releaseLastModified = Files.getLastModifiedTime(runtimePath.resolve("release"));
+		this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.layered(true)
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("project", this.project.getModuleName(), "io.inverno.test.project.Main")
+			))
+			.execute();
+		Assertions.assertEquals(projectJarLastModified, Files.getLastModifiedTime(projectJarPath));
+		Assertions.assertEquals(releaseLastModified, Files.getLastModifiedTime(runtimePath.resolve("release")));
+
+		// changed inputs: the project JAR and the launchers are updated, the removed launcher is deleted
+		this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.layered(true)
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("app", this.project.getModuleName(), "io.inverno.test.project.Main")
+			))
+			.execute();
+		Assertions.assertNotEquals(projectJarLastModified, Files.getLastModifiedTime(projectJarPath));
+		Assertions.assertEquals(releaseLastModified, Files.getLastModifiedTime(runtimePath.resolve("release")));
+		Assertions.assertTrue(Files.exists(runtimePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/app.bat" : "bin/app")));
+		Assertions.assertFalse(Files.exists(runtimePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/project.bat" : "bin/project")));
+		Assertions.assertTrue(Files.exists(runtimePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/java.exe" : "bin/java")));
+	}
+	
+	@Test
+	public void testExecuteWithAppCds() throws Exception {
+		Path runtimePath = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.appCds(true)
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("project", this.project.getModuleName(), "io.inverno.test.project.Main")
+			))
+			.execute()
+			.getPath().get();
+		
+		Assertions.assertTrue(Files.exists(runtimePath.resolve(GenericBuildRuntimeTask.APPCDS_ARCHIVE)));
+		
+		String command = runtimePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/project.bat" : "bin/project").toAbsolutePath().toString();
+		Path classLoadLogPath = PROCESS_OUTPUT_PATH.resolveSibling("class-load.log").toAbsolutePath();
+		Files.deleteIfExists(classLoadLogPath);
+		
+		// the JVM fails to start if the archive configured in the launcher can't be mapped
+		ProcessBuilder pb = new ProcessBuilder(command)
+			.redirectOutput(PROCESS_OUTPUT_PATH.toFile());
+		pb.environment().put("JDK_JAVA_OPTIONS", "-Xshare:on -Xlog:class+load=info:file=" + classLoadLogPath);
+		
+		Process process = pb.start();
+		Assertions.assertEquals(0, process.waitFor());
+		Assertions.assertEquals("execute module dep, execute automatic module dep, webjar module dep, execute unnamed module dep" + System.lineSeparator(), Files.readString(PROCESS_OUTPUT_PATH));
+		
+		// application classes are loaded from the dynamic archive layered on top of the default CDS archive
+		List<String> classLoadLog = Files.readAllLines(classLoadLogPath);
+		for(String className : List.of("io.inverno.test.project.Main", "io.inverno.test.moduledep.ModuleDepService")) {
+			Assertions.assertTrue(classLoadLog.stream().anyMatch(line -> line.contains(" " + className + " source: shared objects file (top)")), className + " was not loaded from the AppCDS archive");
+		}
+	}
+	
+	@Test
+	public void testExecuteProfileGuided() throws Exception {
+		Path runtimePath = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.profileGuided(true)
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("project", this.project.getModuleName(), "io.inverno.test.project.Main")
+			))
+			.execute()
+			.getPath().get();
+		
+		Path classListPath = TestProject.WORKING_PATH.resolve("classlist");
+		Assertions.assertTrue(Files.readAllLines(classListPath).stream().anyMatch(line -> line.startsWith("io/inverno/test/project/Main ")));
+		
+		String command = runtimePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/project.bat" : "bin/project").toAbsolutePath().toString();
+		
+		ProcessBuilder pb = new ProcessBuilder(command)
+			.redirectOutput(PROCESS_OUTPUT_PATH.toFile());
+		
+		Process process = pb.start();
+		process.waitFor();
+		Assertions.assertEquals("execute module dep, execute automatic module dep, webjar module dep, execute unnamed module dep" + System.lineSeparator(), Files.readString(PROCESS_OUTPUT_PATH));
+		
+		// unchanged project classes: the runtime is linked again with the cached class list
+		FileTime classListLastModified = Files.getLastModifiedTime(classListPath);
+		this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.profileGuided(true)
+			.addModules("jdk.jdwp.agent")
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("project", this.project.getModuleName(), "io.inverno.test.project.Main")
+			))
+			.execute();
+		Assertions.assertEquals(classListLastModified, Files.getLastModifiedTime(classListPath));
+	}
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.ModuleInfo;
+import io.inverno.tool.buildtools.TestProject;
+import io.inverno.tool.buildtools.internal.parser.ModuleInfoParser;
+import io.inverno.tool.buildtools.internal.parser.StreamProvider;
+import java.io.BufferedReader;
+import java.io.File;
+import java.lang.module.ModuleFinder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class DependencyAnalyzerTest {
+
+	private static final Path ANALYZER_PATH = TestProject.TARGET_PATH.resolve("analyzer");
+
+	private static final String MODULE_NAME = "io.inverno.test.analyzer";
+
+	private static final String SERVICE_ENTRY = "META-INF/services/java.lang.System$LoggerFinder";
+
+	private Path jarPath;
+
+	@BeforeEach
+	public void init() throws Exception {
+		Path sourcePath = ANALYZER_PATH.resolve("src");
+		Path versionedSourcePath = ANALYZER_PATH.resolve("src-21");
+		Files.createDirectories(sourcePath.resolve("io/inverno/test/analyzer/internal"));
+		Files.createDirectories(versionedSourcePath.resolve("io/inverno/test/analyzer"));
+		// java.sql is exposed in the API, java.logging is used internally, java.desktop is only referenced by a class annotation
+		Files.writeString(sourcePath.resolve("io/inverno/test/analyzer/Analyzer.java"), "package io.inverno.test.analyzer; @java.beans.JavaBean public class Analyzer { public java.sql.Connection getConnection() { java.util.logging.Logger.getLogger(\"analyzer\"); return null; } }");
+		Files.writeString(sourcePath.resolve("io/inverno/test/analyzer/internal/AnalyzerLoggerFinder.java"), "package io.inverno.test.analyzer.internal; public class AnalyzerLoggerFinder extends System.LoggerFinder { public System.Logger getLogger(String name, Module module) { return null; } }");
+		// java.net.http is only used in the versioned class
+		Files.writeString(versionedSourcePath.resolve("io/inverno/test/analyzer/Analyzer.java"), "package io.inverno.test.analyzer; @java.beans.JavaBean public class Analyzer { public java.sql.Connection getConnection() { java.net.http.HttpClient.newHttpClient(); return null; } }");
+
+		Path classesPath = ANALYZER_PATH.resolve("classes");
+		Path versionedClassesPath = ANALYZER_PATH.resolve("classes-21");
+		Assertions.assertEquals(0, JavaTools.JAVAC.run(System.out, System.err, "-d", classesPath.toString(), sourcePath.resolve("io/inverno/test/analyzer/Analyzer.java").toString(), sourcePath.resolve("io/inverno/test/analyzer/internal/AnalyzerLoggerFinder.java").toString()));
+		Assertions.assertEquals(0, JavaTools.JAVAC.run(System.out, System.err, "-d", versionedClassesPath.toString(), versionedSourcePath.resolve("io/inverno/test/analyzer/Analyzer.java").toString()));
+
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+		manifest.getMainAttributes().put(new Attributes.Name("Automatic-Module-Name"), MODULE_NAME);
+		this.jarPath = ANALYZER_PATH.resolve("analyzer.jar");
+		try(JarOutputStream jar = new JarOutputStream(Files.newOutputStream(this.jarPath), manifest)) {
+			this.addClasses(jar, classesPath, "");
+			this.addClasses(jar, versionedClassesPath, "META-INF/versions/21/");
+			jar.putNextEntry(new JarEntry(SERVICE_ENTRY));
+			jar.write("# logger finder\nio.inverno.test.analyzer.internal.AnalyzerLoggerFinder\n".getBytes());
+			jar.closeEntry();
+		}
+	}
+
+	private void addClasses(JarOutputStream jar, Path classesPath, String prefix) throws Exception {
+		try(Stream<Path> walk = Files.walk(classesPath)) {
+			for(Iterator<Path> classPathIterator = walk.filter(Files::isRegularFile).iterator(); classPathIterator.hasNext();) {
+				Path classPath = classPathIterator.next();
+				jar.putNextEntry(new JarEntry(prefix + classesPath.relativize(classPath).toString().replace(File.separatorChar, '/')));
+				Files.copy(classPath, jar);
+				jar.closeEntry();
+			}
+		}
+	}
+
+	@AfterEach
+	public void cleanup() throws Exception {
+		try(Stream<Path> walk = Files.walk(ANALYZER_PATH)) {
+			walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	private ModuleInfo analyze(Set<String> excludedServices) throws Exception {
+		return new DependencyAnalyzer(ModuleFinder.compose(ModuleFinder.ofSystem(), ModuleFinder.of(this.jarPath))).analyze(MODULE_NAME, this.jarPath, excludedServices);
+	}
+
+	private ModuleInfo generateWithJdeps() throws Exception {
+		String version = Integer.toString(Runtime.version().feature());
+		Path outputPath = ANALYZER_PATH.resolve("jdeps");
+		Assertions.assertEquals(0, JavaTools.JDEPS.run(System.out, System.err, "--ignore-missing-deps", "--multi-release", version, "--module-path", this.jarPath.toString(), "--generate-module-info", outputPath.toString(), this.jarPath.toString()));
+		try(BufferedReader moduleInfoReader = Files.newBufferedReader(outputPath.resolve(Path.of(MODULE_NAME, "versions", version, "module-info.java")))) {
+			return new ModuleInfoParser(new StreamProvider(moduleInfoReader)).ModuleInfo();
+		}
+	}
+
+	@Test
+	public void testParity() throws Exception {
+		ModuleInfo expected = this.generateWithJdeps();
+		ModuleInfo actual = this.analyze(Set.of());
+
+		Assertions.assertEquals(MODULE_NAME, actual.getName());
+		Assertions.assertEquals(
+			List.of("requires java.desktop;", "requires java.net.http;", "requires transitive java.sql;"),
+			actual.getRequires().stream().map(ModuleInfo.RequiresDirective::toString).collect(Collectors.toList())
+		);
+		Assertions.assertEquals(
+			expected.getRequires().stream().map(ModuleInfo.RequiresDirective::toString).collect(Collectors.toList()),
+			actual.getRequires().stream().map(ModuleInfo.RequiresDirective::toString).collect(Collectors.toList())
+		);
+		Assertions.assertEquals(
+			expected.getExports().stream().map(ModuleInfo.ExportsDirective::toString).collect(Collectors.toList()),
+			actual.getExports().stream().map(ModuleInfo.ExportsDirective::toString).collect(Collectors.toList())
+		);
+		Assertions.assertEquals(
+			expected.getProvides().stream().map(ModuleInfo.ProvidesDirective::toString).collect(Collectors.toList()),
+			actual.getProvides().stream().map(ModuleInfo.ProvidesDirective::toString).collect(Collectors.toList())
+		);
+	}
+
+	@Test
+	public void testAnalyzeWithExcludedServices() throws Exception {
+		ModuleInfo moduleInfo = this.analyze(Set.of(SERVICE_ENTRY));
+
+		Assertions.assertTrue(moduleInfo.getProvides().isEmpty());
+		Assertions.assertEquals(
+			List.of("exports io.inverno.test.analyzer;", "exports io.inverno.test.analyzer.internal;"),
+			moduleInfo.getExports().stream().map(ModuleInfo.ExportsDirective::toString).collect(Collectors.toList())
+		);
+	}
+}
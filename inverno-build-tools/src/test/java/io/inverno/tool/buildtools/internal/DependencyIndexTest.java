@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.TestDependency;
+import io.inverno.tool.buildtools.TestProject;
+import java.io.File;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class DependencyIndexTest {
+
+	private static final Path INDEX_PATH = TestProject.TARGET_PATH.resolve("index");
+
+	private TestProject project;
+
+	private FingerprintStore fingerprintStore;
+
+	@BeforeEach
+	public void init() {
+		this.project = new TestProject();
+		this.project.compile();
+		this.fingerprintStore = new FingerprintStore(INDEX_PATH.resolve("fingerprints.properties"));
+	}
+
+	@AfterEach
+	public void cleanup() throws Exception {
+		this.project.clean();
+		if(Files.exists(INDEX_PATH)) {
+			try(Stream<Path> walk = Files.walk(INDEX_PATH)) {
+				walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+
+	private List<Path> getJarPaths() {
+		return this.project.getDependencies().stream()
+			.map(TestDependency::getJarPath)
+			.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testModuleDescriptors() throws Exception {
+		DependencyIndex index = new DependencyIndex(INDEX_PATH.resolve("jars"), this.fingerprintStore, this.getJarPaths());
+
+		for(Path jarPath : this.getJarPaths()) {
+			ModuleDescriptor expected = ModuleFinder.of(jarPath).findAll().iterator().next().descriptor();
+			ModuleDescriptor actual = index.get(jarPath).getModuleDescriptor();
+
+			Assertions.assertEquals(expected, actual);
+			Assertions.assertEquals(expected.packages(), actual.packages());
+			Assertions.assertEquals(new Fingerprint().add(jarPath).get(), index.get(jarPath).getHash());
+		}
+
+		Assertions.assertTrue(index.containsClass("io.inverno.test.automaticmoduledep.AutomaticMessageProvider"));
+		Assertions.assertFalse(index.containsClass("io.inverno.test.automaticmoduledep.Missing"));
+	}
+
+	@Test
+	public void testPersistence() throws Exception {
+		DependencyIndex index = new DependencyIndex(INDEX_PATH.resolve("jars"), this.fingerprintStore, this.getJarPaths());
+		Path jarPath = this.getJarPaths().getFirst();
+		Path jarIndexPath = INDEX_PATH.resolve("jars").resolve(index.get(jarPath).getHash());
+		Assertions.assertTrue(Files.exists(jarIndexPath));
+
+		// the persisted index is used instead of scanning the JAR again
+		DependencyIndex persistedIndex = new DependencyIndex(INDEX_PATH.resolve("jars"), this.fingerprintStore, this.getJarPaths());
+		Assertions.assertEquals(index.get(jarPath).getClasses(), persistedIndex.get(jarPath).getClasses());
+		Assertions.assertEquals(index.get(jarPath).getServices(), persistedIndex.get(jarPath).getServices());
+		Assertions.assertEquals(index.get(jarPath).getModuleDescriptor(), persistedIndex.get(jarPath).getModuleDescriptor());
+
+		// a corrupted index is rebuilt
+		Files.write(jarIndexPath, new byte[] { 0, 0, 0, 1, 1 });
+		DependencyIndex rebuiltIndex = new DependencyIndex(INDEX_PATH.resolve("jars"), this.fingerprintStore, this.getJarPaths());
+		Assertions.assertEquals(index.get(jarPath).getModuleDescriptor(), rebuiltIndex.get(jarPath).getModuleDescriptor());
+
+		// indexes of JARs that are no longer dependencies are removed
+		new DependencyIndex(INDEX_PATH.resolve("jars"), this.fingerprintStore, List.of());
+		Assertions.assertFalse(Files.exists(jarIndexPath));
+	}
+}
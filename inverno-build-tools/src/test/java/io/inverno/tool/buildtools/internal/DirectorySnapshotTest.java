@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.TestProject;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class DirectorySnapshotTest {
+
+	private static final Path SNAPSHOT_PATH = TestProject.TARGET_PATH.resolve("snapshot");
+
+	private static final Path DIRECTORY_PATH = SNAPSHOT_PATH.resolve("classes");
+
+	private static final Path PERSISTED_SNAPSHOT_PATH = SNAPSHOT_PATH.resolve("classes.snapshot");
+
+	private static final FileTime LAST_MODIFIED = FileTime.fromMillis(System.currentTimeMillis() - 60000);
+
+	@BeforeEach
+	public void init() throws Exception {
+		Files.createDirectories(DIRECTORY_PATH.resolve("io/inverno/test"));
+		Files.writeString(DIRECTORY_PATH.resolve("io/inverno/test/A.class"), "aaaa");
+		Files.writeString(DIRECTORY_PATH.resolve("io/inverno/test/B.class"), "bbbb");
+		Files.setLastModifiedTime(DIRECTORY_PATH.resolve("io/inverno/test/A.class"), LAST_MODIFIED);
+		Files.setLastModifiedTime(DIRECTORY_PATH.resolve("io/inverno/test/B.class"), LAST_MODIFIED);
+
+		DirectorySnapshot.scan(DIRECTORY_PATH).save(PERSISTED_SNAPSHOT_PATH, "1");
+	}
+
+	@AfterEach
+	public void cleanup() throws Exception {
+		try(Stream<Path> walk = Files.walk(SNAPSHOT_PATH)) {
+			walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	private DirectorySnapshot load() {
+		return DirectorySnapshot.load(DIRECTORY_PATH, PERSISTED_SNAPSHOT_PATH, "1").get();
+	}
+
+	@Test
+	public void testUnchanged() throws Exception {
+		DirectorySnapshot snapshot = DirectorySnapshot.scan(DIRECTORY_PATH);
+
+		Assertions.assertEquals(Set.of("io/inverno/test/A.class", "io/inverno/test/B.class"), snapshot.getEntries().keySet());
+		Assertions.assertFalse(snapshot.hasChanged(this.load()));
+		Assertions.assertEquals(this.load().getFingerprint(), snapshot.getFingerprint());
+	}
+
+	@Test
+	public void testStamp() throws Exception {
+		Assertions.assertTrue(DirectorySnapshot.load(DIRECTORY_PATH, PERSISTED_SNAPSHOT_PATH, "2").isEmpty());
+		Assertions.assertTrue(DirectorySnapshot.load(DIRECTORY_PATH, SNAPSHOT_PATH.resolve("missing.snapshot"), "1").isEmpty());
+
+		Files.write(PERSISTED_SNAPSHOT_PATH, new byte[] { 0, 0, 0, 1, 0 });
+		Assertions.assertTrue(DirectorySnapshot.load(DIRECTORY_PATH, PERSISTED_SNAPSHOT_PATH, "1").isEmpty());
+	}
+
+	@Test
+	public void testTouched() throws Exception {
+		Files.setLastModifiedTime(DIRECTORY_PATH.resolve("io/inverno/test/A.class"), FileTime.fromMillis(System.currentTimeMillis()));
+		DirectorySnapshot snapshot = DirectorySnapshot.scan(DIRECTORY_PATH);
+
+		// same content
+		Assertions.assertFalse(snapshot.hasChanged(this.load()));
+		Assertions.assertNotEquals(this.load().getFingerprint(), snapshot.getFingerprint());
+	}
+
+	@Test
+	public void testModified() throws Exception {
+		// same size, different content
+		Files.writeString(DIRECTORY_PATH.resolve("io/inverno/test/A.class"), "cccc");
+		Assertions.assertTrue(DirectorySnapshot.scan(DIRECTORY_PATH).hasChanged(this.load()));
+
+		Files.writeString(DIRECTORY_PATH.resolve("io/inverno/test/A.class"), "aaaaa");
+		Files.setLastModifiedTime(DIRECTORY_PATH.resolve("io/inverno/test/A.class"), LAST_MODIFIED);
+		Assertions.assertTrue(DirectorySnapshot.scan(DIRECTORY_PATH).hasChanged(this.load()));
+	}
+
+	@Test
+	public void testAddedRemoved() throws Exception {
+		Files.writeString(DIRECTORY_PATH.resolve("io/inverno/test/C.class"), "cccc");
+		Assertions.assertTrue(DirectorySnapshot.scan(DIRECTORY_PATH).hasChanged(this.load()));
+
+		Files.delete(DIRECTORY_PATH.resolve("io/inverno/test/C.class"));
+		Files.delete(DIRECTORY_PATH.resolve("io/inverno/test/B.class"));
+		Assertions.assertTrue(DirectorySnapshot.scan(DIRECTORY_PATH).hasChanged(this.load()));
+	}
+}
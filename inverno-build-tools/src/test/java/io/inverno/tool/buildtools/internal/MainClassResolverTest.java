@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.TestProject;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class MainClassResolverTest {
+
+	private static final Path RESOLVER_PATH = TestProject.TARGET_PATH.resolve("mainclasses");
+
+	private static final Map<String, String> SOURCES = Map.of(
+		"StaticMain", "public class StaticMain { public static void main(String[] args) {} }",
+		"InheritedMain", "public class InheritedMain extends StaticMain {}",
+		"InstanceMain", "public class InstanceMain { public void main(String[] args) {} }",
+		"InterfaceMain", "public interface InterfaceMain { static void main(String[] args) {} }",
+		"InterfaceMainImpl", "public class InterfaceMainImpl implements InterfaceMain {}",
+		"DefaultMain", "public interface DefaultMain { default void main(String[] args) {} }",
+		"DefaultMainImpl", "public abstract class DefaultMainImpl implements DefaultMain {}",
+		"NonVoidMain", "public class NonVoidMain { public static int main(String[] args) { return 0; } }",
+		"PrivateMain", "public class PrivateMain { private static void main(String[] args) {} }",
+		"NestedMain", "public class NestedMain { public static class Nested { public static void main(String... args) {} } }"
+	);
+
+	private Path classesPath;
+
+	private DependencyIndex dependencyIndex;
+
+	@BeforeEach
+	public void init() throws Exception {
+		Path sourcePath = RESOLVER_PATH.resolve("src");
+		Files.createDirectories(sourcePath.resolve("io/inverno/test/mainclasses"));
+		List<String> javac_args = new ArrayList<>();
+		this.classesPath = RESOLVER_PATH.resolve("classes");
+		javac_args.add("-d");
+		javac_args.add(this.classesPath.toString());
+		for(Map.Entry<String, String> source : SOURCES.entrySet()) {
+			Path sourceFile = sourcePath.resolve("io/inverno/test/mainclasses/" + source.getKey() + ".java");
+			Files.writeString(sourceFile, "package io.inverno.test.mainclasses; " + source.getValue());
+			javac_args.add(sourceFile.toString());
+		}
+		Assertions.assertEquals(0, JavaTools.JAVAC.run(System.out, System.err, javac_args.stream().toArray(String[]::new)));
+
+		this.dependencyIndex = new DependencyIndex(RESOLVER_PATH.resolve("index"), new FingerprintStore(RESOLVER_PATH.resolve("fingerprints.properties")), List.of());
+	}
+
+	@AfterEach
+	public void cleanup() throws Exception {
+		try(Stream<Path> walk = Files.walk(RESOLVER_PATH)) {
+			walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	@Test
+	public void testResolve() throws Exception {
+		Set<String> mainClasses = new MainClassResolver(this.classesPath, this.dependencyIndex).resolve();
+
+		Assertions.assertEquals(
+			new TreeSet<>(List.of(
+				"io.inverno.test.mainclasses.DefaultMain",
+				"io.inverno.test.mainclasses.DefaultMainImpl",
+				"io.inverno.test.mainclasses.InheritedMain",
+				"io.inverno.test.mainclasses.InstanceMain",
+				"io.inverno.test.mainclasses.InterfaceMain",
+				"io.inverno.test.mainclasses.NestedMain$Nested",
+				"io.inverno.test.mainclasses.StaticMain"
+			)),
+			mainClasses
+		);
+	}
+
+	@Test
+	public void testParityWithReflection() throws Exception {
+		Set<String> expected = new TreeSet<>();
+		try(URLClassLoader classLoader = new URLClassLoader(new URL[] { this.classesPath.toUri().toURL() })) {
+			for(String className : List.of("StaticMain", "InheritedMain", "InstanceMain", "InterfaceMain", "InterfaceMainImpl", "DefaultMain", "DefaultMainImpl", "NonVoidMain", "PrivateMain", "NestedMain", "NestedMain$Nested")) {
+				Class<?> cl = classLoader.loadClass("io.inverno.test.mainclasses." + className);
+				try {
+					Method m = cl.getMethod("main", String[].class);
+					if(m.getReturnType().equals(void.class)) {
+						expected.add(cl.getName());
+					}
+				}
+				catch(NoSuchMethodException e) {
+					continue;
+				}
+			}
+		}
+
+		Assertions.assertEquals(expected, new MainClassResolver(this.classesPath, this.dependencyIndex).resolve());
+	}
+}
@@ -18,12 +18,20 @@ package io.inverno.tool.buildtools.internal;
 import io.inverno.tool.buildtools.Dependency;
 import io.inverno.tool.buildtools.ModuleInfo;
 import io.inverno.tool.buildtools.TestProject;
+import java.io.File;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -124,6 +132,99 @@ public class ModularizeDependenciesTest {
 		Assertions.assertTrue(Files.exists(TestProject.getDependencyModulePath(dependencyName)));
 	}
 	
+	@Test
+	public void testExecuteWithParallelism() throws Exception {
+		Map<String, Dependency> modularizedDependencies = this.project.modularizeDependencies()
+			.parallelism(1)
+			.execute().stream()
+			.collect(Collectors.toMap(Dependency::getName, Function.identity()));
+		
+		Assertions.assertEquals(3, modularizedDependencies.size());
+		
+		Assertions.assertTrue(Files.exists(TestProject.getDependencyModulePath("module-dep")));
+		for(String dependencyName : List.of("automatic-module-dep", "unnamed-dep", "webjar-dep")) {
+			Assertions.assertTrue(modularizedDependencies.containsKey(dependencyName));
+			Assertions.assertTrue(Files.exists(TestProject.getDependencyModulePath(dependencyName)));
+			
+			ModuleDescriptor moduleDescriptor = ModuleFinder.of(TestProject.getDependencyModulePath(dependencyName)).findAll().iterator().next().descriptor();
+			Assertions.assertFalse(moduleDescriptor.isAutomatic());
+			Assertions.assertEquals(TestProject.getDependencyVersion(dependencyName), moduleDescriptor.rawVersion().get());
+		}
+	}
+	
+	@Test
+	public void testExecuteIncremental() throws Exception {
+		Assertions.assertEquals(3, this.project.modularizeDependencies().execute().size());
+		
+		// touching dependencies must not trigger a new modularization
+		for(Dependency dependency : this.project.getDependencies()) {
+			Files.setLastModifiedTime(dependency.getJarPath(), FileTime.fromMillis(System.currentTimeMillis() + 10000));
+		}
+		Assertions.assertTrue(this.project.modularizeDependencies().execute().isEmpty());
+		
+		// changing module overrides must trigger a new modularization of the overridden dependency only
+		Set<Dependency> modularizedDependencies = this.project.modularizeDependencies()
+			.moduleOverrides(List.of(
+				new ModuleInfo(
+					TestProject.getDependencyModuleName("automatic-module-dep"), 
+					true, 
+					null, 
+					null, 
+					null,
+					null,
+					List.of(new ModuleInfo.UsesDirective("io.inverno.test.automaticmoduledep.AutomaticMessageProvider")), 
+					null
+				)
+			))
+			.execute();
+		Assertions.assertEquals(1, modularizedDependencies.size());
+		Assertions.assertEquals("automatic-module-dep", modularizedDependencies.iterator().next().getName());
+		Assertions.assertTrue(Files.readString(TestProject.getDependencyModuleExplodedPath("automatic-module-dep").resolve("module-info.java")).contains("uses io.inverno.test.automaticmoduledep.AutomaticMessageProvider;"));
+	}
+	
+	@Test
+	public void testExecuteWithCachePath() throws Exception {
+		Path cachePath = TestProject.TARGET_PATH.resolve("modules-cache");
+		Assertions.assertEquals(3, this.project.modularizeDependencies().cachePath(cachePath).execute().size());
+
+		// entries are identified by the modules required by the modularized dependencies
+		try(Stream<Path> walk = Files.walk(cachePath)) {
+			List<Path> cachedModulePaths = walk.filter(path -> path.getFileName().toString().endsWith(".jar")).toList();
+			Assertions.assertEquals(3, cachedModulePaths.size());
+			for(Path cachedModulePath : cachedModulePaths) {
+				Assertions.assertTrue(Files.readAllLines(cachedModulePath.resolveSibling("requires")).contains("java.base"));
+				Assertions.assertFalse(Files.exists(cachedModulePath.resolveSibling("module-info.java")));
+			}
+		}
+
+		// simulates another project with the same dependencies
+		try(Stream<Path> walk = Files.walk(TestProject.WORKING_PATH)) {
+			walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+		
+		Assertions.assertEquals(3, this.project.modularizeDependencies().cachePath(cachePath).execute().size());
+		for(String dependencyName : List.of("automatic-module-dep", "unnamed-dep", "webjar-dep")) {
+			Assertions.assertTrue(Files.exists(TestProject.getDependencyModulePath(dependencyName)));
+			Assertions.assertFalse(Files.exists(TestProject.getDependencyModuleExplodedPath(dependencyName)));
+		}
+	}
+	
+	@Test
+	public void testExecuteWithJdeps() throws Exception {
+		Assertions.assertEquals(3, this.project.modularizeDependencies().execute().size());
+		Map<String, String> analyzedModuleInfos = new HashMap<>();
+		for(String dependencyName : List.of("automatic-module-dep", "unnamed-dep", "webjar-dep")) {
+			analyzedModuleInfos.put(dependencyName, Files.readString(TestProject.getDependencyModuleExplodedPath(dependencyName).resolve("module-info.java")));
+		}
+		
+		// changing the generation strategy must trigger a new modularization and generate the same descriptors
+		Assertions.assertEquals(3, this.project.modularizeDependencies().useJdeps(true).execute().size());
+		for(String dependencyName : List.of("automatic-module-dep", "unnamed-dep", "webjar-dep")) {
+			Assertions.assertEquals(analyzedModuleInfos.get(dependencyName), Files.readString(TestProject.getDependencyModuleExplodedPath(dependencyName).resolve("module-info.java")));
+			Assertions.assertTrue(Files.exists(TestProject.getDependencyModulePath(dependencyName)));
+		}
+	}
+	
 	@Test
 	public void testExecuteWithModuleOverridesPath() throws Exception {
 		Map<String, Dependency> modularizedDependencies = this.project.modularizeDependencies()
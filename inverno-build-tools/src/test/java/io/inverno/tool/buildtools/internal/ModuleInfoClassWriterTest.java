@@ -0,0 +1,158 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.ModuleInfo;
+import io.inverno.tool.buildtools.TestDependency;
+import io.inverno.tool.buildtools.TestProject;
+import java.io.IOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class ModuleInfoClassWriterTest {
+
+	private static final Path PARITY_PATH = TestProject.TARGET_PATH.resolve("parity");
+
+	private static final Set<String> PACKAGES = Set.of("io.inverno.test.parity", "io.inverno.test.parity.internal");
+
+	private TestProject project;
+
+	private ModuleInfoClassWriter writer;
+
+	@BeforeEach
+	public void init() {
+		this.project = new TestProject();
+		this.project.compile();
+		this.writer = new ModuleInfoClassWriter(ModuleFinder.compose(ModuleFinder.ofSystem(), ModuleFinder.of(this.getModulePath())));
+	}
+
+	@AfterEach
+	public void cleanup() {
+		this.project.clean();
+	}
+
+	private Path[] getModulePath() {
+		return this.project.getDependencies().stream()
+			.map(TestDependency::getJarPath)
+			.toArray(Path[]::new);
+	}
+
+	private byte[] compile(ModuleInfo moduleInfo, String version) throws IOException {
+		Path sourcePath = PARITY_PATH.resolve("src");
+		Path classesPath = PARITY_PATH.resolve("classes");
+		Files.createDirectories(sourcePath.resolve("io/inverno/test/parity/internal"));
+		Files.writeString(sourcePath.resolve("module-info.java"), moduleInfo.toString());
+		Files.writeString(sourcePath.resolve("io/inverno/test/parity/Parity.java"), "package io.inverno.test.parity; public class Parity {}");
+		Files.writeString(sourcePath.resolve("io/inverno/test/parity/internal/ParityLoggerFinder.java"), "package io.inverno.test.parity.internal; public class ParityLoggerFinder extends System.LoggerFinder { public System.Logger getLogger(String name, Module module) { return null; } }");
+
+		List<String> javac_args = new ArrayList<>();
+		javac_args.add("--module-version");
+		javac_args.add(version);
+		javac_args.add("--module-path");
+		javac_args.add(String.join(System.getProperty("path.separator"), List.of(this.getModulePath()).stream().map(Path::toString).toList()));
+		javac_args.add("-d");
+		javac_args.add(classesPath.toString());
+		javac_args.add(sourcePath.resolve("module-info.java").toString());
+		javac_args.add(sourcePath.resolve("io/inverno/test/parity/Parity.java").toString());
+		javac_args.add(sourcePath.resolve("io/inverno/test/parity/internal/ParityLoggerFinder.java").toString());
+
+		Assertions.assertEquals(0, JavaTools.JAVAC.run(System.out, System.err, javac_args.stream().toArray(String[]::new)));
+		return Files.readAllBytes(classesPath.resolve("module-info.class"));
+	}
+
+	private void assertParity(ModuleInfo moduleInfo, String version) throws IOException {
+		// javac doesn't write the ModulePackages attribute which is added by the jar tool
+		ModuleDescriptor expected = ModuleDescriptor.read(ByteBuffer.wrap(this.compile(moduleInfo, version)), () -> PACKAGES);
+		ModuleDescriptor actual = ModuleDescriptor.read(ByteBuffer.wrap(this.writer.write(moduleInfo, version, PACKAGES)));
+
+		Assertions.assertEquals(expected, actual);
+		Assertions.assertEquals(expected.toString(), actual.toString());
+		Assertions.assertEquals(PACKAGES, actual.packages());
+	}
+
+	@Test
+	public void testParity() throws IOException {
+		ModuleInfo moduleInfo = new ModuleInfo(
+			"io.inverno.test.parity",
+			false,
+			null,
+			List.of(
+				new ModuleInfo.RequiresDirective("java.sql", false, true),
+				new ModuleInfo.RequiresDirective("java.xml", true, false),
+				new ModuleInfo.RequiresDirective("io.inverno.test.moduleDep", false, false),
+				new ModuleInfo.RequiresDirective("io.inverno.test.automaticModuleDep", true, false)
+			),
+			List.of(
+				new ModuleInfo.ExportsDirective("io.inverno.test.parity", null),
+				new ModuleInfo.ExportsDirective("io.inverno.test.parity.internal", List.of("java.sql", "io.inverno.test.moduleDep"))
+			),
+			List.of(
+				new ModuleInfo.OpensDirective("io.inverno.test.parity.internal", List.of("io.inverno.test.moduleDep"))
+			),
+			List.of(
+				new ModuleInfo.UsesDirective("java.lang.System.LoggerFinder"),
+				new ModuleInfo.UsesDirective("java.sql.Driver")
+			),
+			List.of(
+				new ModuleInfo.ProvidesDirective("java.lang.System.LoggerFinder", List.of("io.inverno.test.parity.internal.ParityLoggerFinder"))
+			)
+		);
+
+		this.assertParity(moduleInfo, "1.2.3-SNAPSHOT");
+	}
+
+	@Test
+	public void testParityOpenModule() throws IOException {
+		ModuleInfo moduleInfo = new ModuleInfo(
+			"io.inverno.test.parity",
+			true,
+			null,
+			List.of(new ModuleInfo.RequiresDirective("java.logging", false, false)),
+			List.of(new ModuleInfo.ExportsDirective("io.inverno.test.parity", null)),
+			null,
+			null,
+			null
+		);
+
+		this.assertParity(moduleInfo, "1.0.0");
+	}
+
+	@Test
+	public void testWriteInvalid() {
+		ModuleInfo missingModule = new ModuleInfo("io.inverno.test.parity", false, null, List.of(new ModuleInfo.RequiresDirective("io.inverno.test.missing", false, false)), null, null, null, null);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> this.writer.write(missingModule, "1.0.0", PACKAGES));
+
+		ModuleInfo missingPackage = new ModuleInfo("io.inverno.test.parity", false, null, null, List.of(new ModuleInfo.ExportsDirective("io.inverno.test.missing", null)), null, null, null);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> this.writer.write(missingPackage, "1.0.0", PACKAGES));
+
+		ModuleInfo missingImplementation = new ModuleInfo("io.inverno.test.parity", false, null, null, null, null, null, List.of(new ModuleInfo.ProvidesDirective("java.lang.System.LoggerFinder", List.of("io.inverno.test.missing.MissingLoggerFinder"))));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> this.writer.write(missingImplementation, "1.0.0", PACKAGES));
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.TestProject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class StagingAreaTest {
+
+	private static final Path STAGING_TEST_PATH = TestProject.TARGET_PATH.resolve("staging-test");
+
+	private static final Path STAGING_PATH = STAGING_TEST_PATH.resolve("staging");
+
+	private static final Path OUTPUTS_PATH = STAGING_TEST_PATH.resolve("outputs");
+
+	@BeforeEach
+	@AfterEach
+	public void cleanup() throws IOException {
+		BuildCacheEntry.delete(STAGING_TEST_PATH);
+	}
+
+	@Test
+	public void testCommit() throws IOException {
+		Path directoryOutput = OUTPUTS_PATH.resolve("image");
+		Path fileOutput = OUTPUTS_PATH.resolve("module.jar");
+
+		Files.createDirectories(directoryOutput.resolve("lib"));
+		Files.writeString(directoryOutput.resolve("lib/old"), "old");
+		Files.writeString(fileOutput, "old");
+
+		try(StagingArea stagingArea = new StagingArea(STAGING_PATH)) {
+			Path stagedDirectoryOutput = stagingArea.stage(directoryOutput);
+			Path stagedFileOutput = stagingArea.stage(fileOutput);
+
+			Assertions.assertEquals(directoryOutput.getFileName(), stagedDirectoryOutput.getFileName());
+			Assertions.assertTrue(Files.isDirectory(stagedDirectoryOutput.getParent()));
+			Assertions.assertFalse(Files.exists(stagedDirectoryOutput));
+
+			Files.createDirectories(stagedDirectoryOutput.resolve("bin"));
+			Files.writeString(stagedDirectoryOutput.resolve("bin/new"), "new");
+			Files.writeString(stagedFileOutput, "new");
+
+			// outputs are untouched until the staging area is committed
+			Assertions.assertEquals("old", Files.readString(directoryOutput.resolve("lib/old")));
+			Assertions.assertEquals("old", Files.readString(fileOutput));
+
+			stagingArea.commit();
+		}
+
+		Assertions.assertFalse(Files.exists(directoryOutput.resolve("lib")));
+		Assertions.assertEquals("new", Files.readString(directoryOutput.resolve("bin/new")));
+		Assertions.assertEquals("new", Files.readString(fileOutput));
+		Assertions.assertFalse(Files.exists(OUTPUTS_PATH.resolve(".image.previous")));
+		Assertions.assertFalse(Files.exists(STAGING_PATH));
+	}
+
+	@Test
+	public void testCommitAcrossFileStores() throws IOException {
+		Path directoryOutput = OUTPUTS_PATH.resolve("image");
+		Path fileOutput = OUTPUTS_PATH.resolve("module.jar");
+
+		Files.createDirectories(directoryOutput.resolve("lib"));
+		Files.writeString(directoryOutput.resolve("lib/old"), "old");
+
+		// the staging directory must be on another file store than the outputs
+		Path sharedMemoryPath = Path.of("/dev/shm");
+		Assumptions.assumeTrue(Files.isDirectory(sharedMemoryPath) && Files.isWritable(sharedMemoryPath) && !Files.getFileStore(sharedMemoryPath).equals(Files.getFileStore(OUTPUTS_PATH)));
+		Path stagingPath = sharedMemoryPath.resolve("inverno-staging-test");
+		try {
+			try(StagingArea stagingArea = new StagingArea(stagingPath)) {
+				Path stagedDirectoryOutput = stagingArea.stage(directoryOutput);
+				Files.createDirectories(stagedDirectoryOutput.resolve("bin"));
+				Files.writeString(stagedDirectoryOutput.resolve("bin/new"), "new");
+				Files.writeString(stagingArea.stage(fileOutput), "new");
+
+				stagingArea.commit();
+			}
+
+			Assertions.assertFalse(Files.exists(directoryOutput.resolve("lib")));
+			Assertions.assertEquals("new", Files.readString(directoryOutput.resolve("bin/new")));
+			Assertions.assertEquals("new", Files.readString(fileOutput));
+			Assertions.assertFalse(Files.exists(OUTPUTS_PATH.resolve(".image.copy")));
+			Assertions.assertFalse(Files.exists(OUTPUTS_PATH.resolve(".module.jar.copy")));
+			Assertions.assertFalse(Files.exists(stagingPath));
+		}
+		finally {
+			BuildCacheEntry.delete(stagingPath);
+		}
+	}
+
+	@Test
+	public void testInterrupted() throws IOException {
+		Path fileOutput = OUTPUTS_PATH.resolve("module.jar");
+
+		Files.createDirectories(OUTPUTS_PATH);
+		Files.writeString(fileOutput, "old");
+
+		// a previous build was interrupted before committing its outputs
+		Files.createDirectories(STAGING_PATH.resolve("0"));
+		Files.writeString(STAGING_PATH.resolve("0/module.jar"), "partial");
+
+		try(StagingArea stagingArea = new StagingArea(STAGING_PATH)) {
+			Assertions.assertFalse(Files.exists(STAGING_PATH.resolve("0/module.jar")));
+
+			Files.writeString(stagingArea.stage(fileOutput), "partial");
+			// interrupted before commit
+		}
+
+		Assertions.assertEquals("old", Files.readString(fileOutput));
+		Assertions.assertFalse(Files.exists(STAGING_PATH));
+	}
+
+	@Test
+	public void testMissingStagedOutput() throws IOException {
+		Path fileOutput = OUTPUTS_PATH.resolve("module.jar");
+		Path otherFileOutput = OUTPUTS_PATH.resolve("other.jar");
+
+		try(StagingArea stagingArea = new StagingArea(STAGING_PATH)) {
+			Files.writeString(stagingArea.stage(fileOutput), "new");
+			stagingArea.stage(otherFileOutput);
+
+			Assertions.assertThrows(IOException.class, stagingArea::commit);
+		}
+
+		Assertions.assertFalse(Files.exists(fileOutput));
+	}
+}
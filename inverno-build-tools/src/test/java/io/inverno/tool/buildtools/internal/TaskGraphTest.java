@@ -0,0 +1,164 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.BuildRuntimeTask;
+import io.inverno.tool.buildtools.Image;
+import io.inverno.tool.buildtools.TaskExecutionException;
+import io.inverno.tool.buildtools.TestProject;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.zip.ZipFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class TaskGraphTest {
+
+	static {
+		System.setProperty("org.apache.logging.log4j.simplelog.level", "INFO");
+		System.setProperty("org.apache.logging.log4j.simplelog.logFile", "system.out");
+	}
+
+	private TestProject project;
+
+	@BeforeEach
+	public void init() {
+		this.project = new TestProject();
+		this.project.compile();
+	}
+
+	@AfterEach
+	public void cleanup() throws Exception {
+		this.project.clean();
+	}
+
+	@Test
+	public void testExecute() throws Exception {
+		AtomicInteger modularizeCount = new AtomicInteger();
+		AtomicInteger buildJmodCount = new AtomicInteger();
+		AtomicInteger buildRuntimeCount = new AtomicInteger();
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		AtomicReference<Set<Image>> archiveImages = new AtomicReference<>();
+		AtomicReference<Set<Image>> applicationImages = new AtomicReference<>();
+
+		BuildRuntimeTask buildRuntime = this.project
+			.modularizeDependencies()
+			.doOnComplete(ign -> modularizeCount.incrementAndGet())
+			.buildJmod()
+			.doOnComplete(ign -> buildJmodCount.incrementAndGet())
+			.buildRuntime()
+			.doOnComplete(ign -> buildRuntimeCount.incrementAndGet());
+
+		this.project.taskGraph()
+			.add(buildRuntime.archive()
+				.formats(Set.of("zip"))
+				.doOnComplete(images -> {
+					threads.add(Thread.currentThread().getName());
+					archiveImages.set(images);
+				})
+			)
+			.add(buildRuntime.packageApplication()
+				.doOnComplete(images -> {
+					threads.add(Thread.currentThread().getName());
+					applicationImages.set(images);
+				})
+			)
+			.add(buildRuntime)
+			.parallelism(2)
+			.execute();
+
+		Assertions.assertEquals(1, modularizeCount.get());
+		Assertions.assertEquals(1, buildJmodCount.get());
+		Assertions.assertEquals(1, buildRuntimeCount.get());
+
+		Assertions.assertEquals(Set.of(this.project.getArchivePath("zip")), archiveImages.get().stream().map(image -> image.getPath().get()).collect(Collectors.toSet()));
+		Assertions.assertEquals(Set.of(this.project.getApplicationPath(null)), applicationImages.get().stream().map(image -> image.getPath().get()).collect(Collectors.toSet()));
+		Assertions.assertTrue(Files.exists(this.project.getArchivePath("zip")));
+		Assertions.assertTrue(Files.exists(this.project.getApplicationPath(null)));
+		Assertions.assertTrue(threads.stream().allMatch(name -> name.startsWith("inverno-task-")));
+	}
+
+	@Test
+	public void testExecuteWithTraining() throws Exception {
+		List<String> completions = Collections.synchronizedList(new ArrayList<>());
+
+		BuildRuntimeTask buildRuntime = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			// generates the default CDS archive required to fall back to AppCDS before JDK 24
+			.appCds(true)
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("project", this.project.getModuleName(), "io.inverno.test.project.Main")
+			));
+
+		// the runtime image is archived once it has been trained
+		this.project.taskGraph()
+			.add(buildRuntime.archive()
+				.formats(Set.of("zip"))
+				.doOnComplete(ign -> completions.add("archive"))
+			)
+			.add(buildRuntime.trainRuntime()
+				.doOnComplete(ign -> completions.add("trainRuntime"))
+			)
+			.parallelism(2)
+			.execute();
+
+		Assertions.assertEquals(List.of("trainRuntime", "archive"), completions);
+		String archive = Runtime.version().feature() >= 24 ? GenericTrainRuntimeTask.AOT_CACHE : GenericTrainRuntimeTask.TRAINED_APPCDS_ARCHIVE;
+		try(ZipFile zipFile = new ZipFile(this.project.getArchivePath("zip").toFile())) {
+			Assertions.assertTrue(zipFile.stream().anyMatch(entry -> entry.getName().endsWith(archive)));
+		}
+	}
+
+	@Test
+	public void testExecuteWithError() throws Exception {
+		AtomicInteger buildRuntimeCount = new AtomicInteger();
+
+		BuildRuntimeTask buildRuntime = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.mainClass("io.inverno.test.project.Unknown")
+			.buildRuntime()
+			.doOnComplete(ign -> buildRuntimeCount.incrementAndGet());
+
+		Assertions.assertThrows(TaskExecutionException.class, () -> this.project.taskGraph()
+			.add(buildRuntime.archive().formats(Set.of("zip")))
+			.add(buildRuntime.packageApplication())
+			.execute()
+		);
+		Assertions.assertEquals(0, buildRuntimeCount.get());
+		Assertions.assertFalse(Files.exists(this.project.getArchivePath("zip")));
+	}
+
+	@Test
+	public void testAddForeignTask() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> this.project.taskGraph().add(new TestProject().modularizeDependencies()));
+	}
+}
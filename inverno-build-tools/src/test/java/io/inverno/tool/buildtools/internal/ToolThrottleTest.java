@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.TestProject;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class ToolThrottleTest {
+
+	private static final Path THROTTLE_PATH = TestProject.TARGET_PATH.resolve("throttle");
+
+	@AfterEach
+	public void cleanup() throws Exception {
+		if(Files.exists(THROTTLE_PATH)) {
+			try(Stream<Path> walk = Files.walk(THROTTLE_PATH)) {
+				walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+
+	@Test
+	public void testAcquire() throws Exception {
+		ToolThrottle throttle = new ToolThrottle(THROTTLE_PATH, Map.of(ToolThrottle.JLINK, 1));
+
+		CompletableFuture<Void> acquired;
+		try(ToolThrottle.Permit permit = throttle.acquire(ToolThrottle.JLINK)) {
+			acquired = CompletableFuture.runAsync(() -> throttle.acquire(ToolThrottle.JLINK).close());
+			Assertions.assertThrows(TimeoutException.class, () -> acquired.get(1, TimeUnit.SECONDS));
+		}
+		acquired.get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testAcquireAcrossProcesses() throws Exception {
+		ToolThrottle throttle = new ToolThrottle(THROTTLE_PATH, Map.of(ToolThrottle.JLINK, 1));
+		Path lockPath = THROTTLE_PATH.resolve("jlink.0.lock");
+
+		CompletableFuture<Void> acquired;
+		try(ToolThrottle.Permit permit = throttle.acquire(ToolThrottle.JLINK)) {
+			// another thread in this JVM tries to acquire the held permit and must not release it
+			acquired = CompletableFuture.runAsync(() -> throttle.acquire(ToolThrottle.JLINK).close());
+			Assertions.assertThrows(TimeoutException.class, () -> acquired.get(1, TimeUnit.SECONDS));
+			Assertions.assertFalse(tryLockInProcess(lockPath));
+		}
+		acquired.get(5, TimeUnit.SECONDS);
+		Assertions.assertTrue(tryLockInProcess(lockPath));
+	}
+
+	/**
+	 * <p>
+	 * Tries to lock the specified lock file from another JVM process.
+	 * </p>
+	 *
+	 * @param lockPath the path to the lock file
+	 *
+	 * @return true if the lock file could be locked, false otherwise
+	 */
+	private static boolean tryLockInProcess(Path lockPath) throws Exception {
+		Path lockerPath = THROTTLE_PATH.resolve("Locker.java");
+		Files.writeString(lockerPath,
+			"import java.nio.channels.FileChannel;\n" +
+			"import java.nio.file.Path;\n" +
+			"import java.nio.file.StandardOpenOption;\n" +
+			"public class Locker {\n" +
+			"	public static void main(String[] args) throws Exception {\n" +
+			"		try(FileChannel channel = FileChannel.open(Path.of(args[0]), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {\n" +
+			"			System.exit(channel.tryLock() != null ? 0 : 1);\n" +
+			"		}\n" +
+			"	}\n" +
+			"}\n"
+		);
+		Process process = new ProcessBuilder(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(), lockerPath.toAbsolutePath().toString(), lockPath.toAbsolutePath().toString()))
+			.redirectErrorStream(true)
+			.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+			.start();
+		Assertions.assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+		return process.exitValue() == 0;
+	}
+
+	@Test
+	public void testMultiplePermits() throws Exception {
+		ToolThrottle throttle = new ToolThrottle(THROTTLE_PATH, Map.of(ToolThrottle.JPACKAGE, 2));
+
+		try(
+			ToolThrottle.Permit permit1 = throttle.acquire(ToolThrottle.JPACKAGE);
+			ToolThrottle.Permit permit2 = CompletableFuture.supplyAsync(() -> throttle.acquire(ToolThrottle.JPACKAGE)).get(5, TimeUnit.SECONDS)
+		) {
+			CompletableFuture<Void> acquired = CompletableFuture.runAsync(() -> throttle.acquire(ToolThrottle.JPACKAGE).close());
+			Assertions.assertThrows(TimeoutException.class, () -> acquired.get(1, TimeUnit.SECONDS));
+			permit1.close();
+			acquired.get(5, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void testUnthrottled() throws Exception {
+		ToolThrottle throttle = new ToolThrottle(THROTTLE_PATH, Map.of(ToolThrottle.JLINK, 0));
+
+		try(ToolThrottle.Permit permit = throttle.acquire(ToolThrottle.JLINK)) {
+			CompletableFuture.runAsync(() -> throttle.acquire(ToolThrottle.JLINK).close()).get(5, TimeUnit.SECONDS);
+		}
+		Assertions.assertFalse(Files.exists(THROTTLE_PATH.resolve("jlink.0.lock")));
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		ToolThrottle throttle = new ToolThrottle(THROTTLE_PATH, Map.of(ToolThrottle.CONTAINERIZE, 1));
+
+		try(ToolThrottle.Permit permit = throttle.acquire(ToolThrottle.CONTAINERIZE)) {
+			CompletableFuture<Throwable> error = new CompletableFuture<>();
+			Thread waiting = new Thread(() -> {
+				try {
+					throttle.acquire(ToolThrottle.CONTAINERIZE).close();
+					error.complete(null);
+				}
+				catch(Throwable e) {
+					error.complete(e);
+				}
+			});
+			waiting.start();
+			Thread.sleep(500);
+			waiting.interrupt();
+			Assertions.assertInstanceOf(CancellationException.class, error.get(5, TimeUnit.SECONDS));
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 Jeremy KUHN
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.inverno.tool.buildtools.internal;
+
+import io.inverno.tool.buildtools.BuildRuntimeTask;
+import io.inverno.tool.buildtools.TestProject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
+ */
+public class TrainRuntimeTest {
+
+	static {
+		System.setProperty("org.apache.logging.log4j.simplelog.level", "INFO");
+		System.setProperty("org.apache.logging.log4j.simplelog.logFile", "system.out");
+	}
+	
+	private static final Path PROCESS_OUTPUT_PATH = TestProject.TARGET_PATH.resolve("process.out");
+	
+	private TestProject project;
+	
+	@BeforeEach
+	public void init() {
+		this.project = new TestProject();
+		this.project.compile();
+	}
+	
+	@AfterEach
+	public void cleanup() throws IOException {
+		this.project.clean();
+		Files.deleteIfExists(PROCESS_OUTPUT_PATH);
+	}
+	
+	@Test
+	public void testExecute() throws Exception {
+		Path runtimePath = this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			// generates the default CDS archive required to fall back to AppCDS before JDK 24
+			.appCds(true)
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("project", this.project.getModuleName(), "io.inverno.test.project.Main")
+			))
+			.trainRuntime()
+			.execute()
+			.getPath().get();
+		
+		String archive = Runtime.version().feature() >= 24 ? GenericTrainRuntimeTask.AOT_CACHE : GenericTrainRuntimeTask.TRAINED_APPCDS_ARCHIVE;
+		Path archivePath = runtimePath.resolve(archive);
+		Assertions.assertTrue(Files.exists(archivePath));
+		// the AppCDS archive created with the runtime image is not overwritten
+		Assertions.assertTrue(Files.exists(runtimePath.resolve(GenericBuildRuntimeTask.APPCDS_ARCHIVE)));
+		
+		String command = runtimePath.resolve(Platform.getSystemPlatform() == Platform.WINDOWS ? "bin/project.bat" : "bin/project").toAbsolutePath().toString();
+		Assertions.assertTrue(Files.readString(Path.of(command)).contains(Platform.getSystemPlatform() == Platform.WINDOWS ? archive.replace('/', '\\') : archive));
+		Assertions.assertTrue(Files.isExecutable(Path.of(command)));
+		
+		Path classLoadLogPath = PROCESS_OUTPUT_PATH.resolveSibling("class-load.log").toAbsolutePath();
+		Files.deleteIfExists(classLoadLogPath);
+		
+		// the archive is recorded in a copy of the runtime image, the JVM fails to start if it can't be mapped once the copy replaced the runtime image
+		ProcessBuilder pb = new ProcessBuilder(command)
+			.redirectOutput(PROCESS_OUTPUT_PATH.toFile());
+		pb.environment().put("JDK_JAVA_OPTIONS", "-Xshare:on -Xlog:class+load=info:file=" + classLoadLogPath);
+		
+		Process process = pb.start();
+		Assertions.assertEquals(0, process.waitFor());
+		Assertions.assertEquals("execute module dep, execute automatic module dep, webjar module dep, execute unnamed module dep" + System.lineSeparator(), Files.readString(PROCESS_OUTPUT_PATH));
+		Assertions.assertTrue(Files.readAllLines(classLoadLogPath).stream().anyMatch(line -> line.contains(" io.inverno.test.project.Main source: shared objects file")), "Main class was not loaded from the trained archive");
+		
+		// unchanged inputs: the runtime is not trained again
+		FileTime archiveLastModified = Files.getLastModifiedTime(archivePath);
+		this.project
+			.modularizeDependencies()
+			.buildJmod()
+			.buildRuntime()
+			.appCds(true)
+			.launchers(List.of(
+				BuildRuntimeTask.Launcher.of("project", this.project.getModuleName(), "io.inverno.test.project.Main")
+			))
+			.trainRuntime()
+			.execute();
+		Assertions.assertEquals(archiveLastModified, Files.getLastModifiedTime(archivePath));
+	}
+}
@@ -32,6 +32,7 @@ import io.inverno.tool.buildtools.ArchiveTask;
 import io.inverno.tool.buildtools.BuildJmodTask;
 import io.inverno.tool.buildtools.BuildRuntimeTask;
 import io.inverno.tool.buildtools.Image;
+import io.inverno.tool.buildtools.TrainRuntimeTask;
 import io.inverno.tool.maven.internal.MavenInvernoProject;
 
 /**
@@ -46,7 +47,7 @@ import io.inverno.tool.maven.internal.MavenInvernoProject;
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.0
  */
-@Mojo(name = "build-runtime", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+@Mojo(name = "build-runtime", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, threadSafe = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
 public class BuildRuntimeMojo extends AbstractInvernoMojo {
 	
 	/**
@@ -227,6 +228,87 @@ public class BuildRuntimeMojo extends AbstractInvernoMojo {
 	 */
 	@Parameter(required = false)
 	protected List<RuntimeLauncherParameters> launchers;
+	
+	/**
+	 * Creates a layered runtime with the required JDK's modules linked in a cached base image and the application modules in the {@code app/} directory to speed up development builds.
+	 */
+	@Parameter(property = "inverno.runtime.layered", defaultValue = "false", required = false)
+	protected boolean layered;
+	
+	/**
+	 * Only links the JDK's modules required by the project module and its dependencies, services are not bound and {@code bindServices} is ignored, the JDK's modules specified in
+	 * {@code addModules} are only linked when {@code keepAddedModules} is enabled.
+	 */
+	@Parameter(property = "inverno.runtime.minimizeModules", defaultValue = "false", required = false)
+	protected boolean minimizeModules;
+	
+	/**
+	 * Links the JDK's modules specified in {@code addModules} when {@code minimizeModules} is enabled.
+	 */
+	@Parameter(property = "inverno.runtime.keepAddedModules", defaultValue = "false", required = false)
+	protected boolean keepAddedModules;
+	
+	/**
+	 * Creates an application class data sharing (AppCDS) archive in the runtime with a training run of the first launcher or of the project main class to reduce the application startup time.
+	 */
+	@Parameter(property = "inverno.runtime.appCds", defaultValue = "false", required = false)
+	protected boolean appCds;
+	
+	/**
+	 * The arguments to pass to the application during the AppCDS training run.
+	 */
+	@Parameter(property = "inverno.runtime.appCdsTrainingArguments", required = false)
+	protected String appCdsTrainingArguments;
+	
+	/**
+	 * The time in milliseconds after which the AppCDS training run is stopped.
+	 */
+	@Parameter(property = "inverno.runtime.appCdsTrainingTimeout", defaultValue = "60000", required = false)
+	protected long appCdsTrainingTimeout;
+	
+	/**
+	 * Links the runtime with resources ordered and lambda form classes pre-generated from the classes loaded during a training run of the first launcher or of the project main class.
+	 */
+	@Parameter(property = "inverno.runtime.profileGuided", defaultValue = "false", required = false)
+	protected boolean profileGuided;
+	
+	/* TrainRuntimeTask */
+	
+	/**
+	 * Trains the runtime with a workload to record an AOT cache (JDK 24+) or an AppCDS archive used by the runtime and application launchers to reduce the application startup and warmup times.
+	 */
+	@Parameter(property = "inverno.runtime.train", defaultValue = "false", required = false)
+	protected boolean train;
+	
+	/**
+	 * The name of the runtime launcher to train, defaults to the first launcher or to the project main class.
+	 */
+	@Parameter(property = "inverno.runtime.train.launcher", required = false)
+	protected String trainLauncher;
+	
+	/**
+	 * The arguments to pass to the application during the training run.
+	 */
+	@Parameter(property = "inverno.runtime.train.arguments", required = false)
+	protected String trainArguments;
+	
+	/**
+	 * The VM options to use during the training run.
+	 */
+	@Parameter(property = "inverno.runtime.train.vmOptions", required = false)
+	protected String trainVmOptions;
+	
+	/**
+	 * The workload command to run against the application during the training run, the application is stopped once the workload completes.
+	 */
+	@Parameter(property = "inverno.runtime.train.workload", required = false)
+	protected String trainWorkload;
+	
+	/**
+	 * The time in milliseconds after which the training run is stopped.
+	 */
+	@Parameter(property = "inverno.runtime.train.timeout", defaultValue = "60000", required = false)
+	protected long trainTimeout;
 
 	/* ArchiveTask */
 	
@@ -258,14 +340,13 @@ public class BuildRuntimeMojo extends AbstractInvernoMojo {
 	@Override
 	protected void doExecute(MavenInvernoProject project) throws Exception {
 		Set<Image> runtimeImages = new HashSet<>();
-		runtimeImages.addAll(project
-			.modularizeDependencies(this::configureTask)
+		BuildRuntimeTask buildRuntime = this.modularizeDependencies(project)
 			.buildJmod(this::configureTask)
-			.buildRuntime(this::configureTask)
-			.doOnComplete(runtimeImages::add)
-			.archive(this::configureTask)
-			.execute()
-		);
+			.buildRuntime(this::configureTask);
+		ArchiveTask archive = this.train ? 
+			buildRuntime.trainRuntime(this::configureTask).doOnComplete(runtimeImages::add).archive(this::configureTask) : 
+			buildRuntime.doOnComplete(runtimeImages::add).archive(this::configureTask);
+		runtimeImages.addAll(archive.execute());
 		
 		this.attachImages(runtimeImages);
 	}
@@ -339,10 +420,36 @@ public class BuildRuntimeMojo extends AbstractInvernoMojo {
 			.bindServices(this.bindServices)
 			.ignoreSigningInformation(this.ignoreSigningInformation)
 			.stripDebug(this.stripDebug)
-			.stripNativeCommands(this.stripNativeCommands)
+			// the java command is required to train the runtime
+			.stripNativeCommands(this.stripNativeCommands && !this.train)
 			.vm(this.vm)
 			.addUnnamedModules(this.addUnnamedModules)
-			.launchers(this.launchers);
+			.launchers(this.launchers)
+			.layered(this.layered)
+			.minimizeModules(this.minimizeModules)
+			.keepAddedModules(this.keepAddedModules)
+			.appCds(this.appCds)
+			.appCdsTrainingArguments(this.appCdsTrainingArguments)
+			.appCdsTrainingTimeout(this.appCdsTrainingTimeout)
+			.profileGuided(this.profileGuided);
+	}
+	
+	/**
+	 * <p>
+	 * Configures the train runtime task.
+	 * </p>
+	 * 
+	 * @param trainRuntimeTask the train runtime task
+	 * 
+	 * @return the train runtime task
+	 */
+	protected TrainRuntimeTask configureTask(TrainRuntimeTask trainRuntimeTask) {
+		return trainRuntimeTask
+			.launcher(this.trainLauncher)
+			.arguments(this.trainArguments)
+			.vmOptions(this.trainVmOptions)
+			.workload(this.trainWorkload)
+			.timeout(this.trainTimeout);
 	}
 	
 	/**
@@ -32,7 +32,7 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.4
  */
-@Mojo(name = "debug", defaultPhase = LifecyclePhase.VALIDATE, requiresProject = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+@Mojo(name = "debug", defaultPhase = LifecyclePhase.VALIDATE, requiresProject = true, threadSafe = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
 @Execute(phase = LifecyclePhase.COMPILE)
 public class DebugMojo extends AbstractExecMojo {
 
@@ -67,7 +67,7 @@ public class DebugMojo extends AbstractExecMojo {
 	
 	@Override
 	protected void doExecute(MavenInvernoProject project) throws Exception {
-		project
+		project.getBuildSession()
 			.modularizeDependencies(this::configureTask)
 			.debug(this::configureTask)
 			.execute();
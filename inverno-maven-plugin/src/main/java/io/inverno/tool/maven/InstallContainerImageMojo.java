@@ -33,7 +33,7 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.4
  */
-@Mojo(name = "install-image", defaultPhase = LifecyclePhase.INSTALL, requiresProject = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+@Mojo(name = "install-image", defaultPhase = LifecyclePhase.INSTALL, requiresProject = true, threadSafe = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
 @Execute(phase = LifecyclePhase.PACKAGE)
 public class InstallContainerImageMojo extends AbstractContainerizeMojo {
 
@@ -62,11 +62,11 @@ public class InstallContainerImageMojo extends AbstractContainerizeMojo {
 
 	@Override
 	protected void doExecute(MavenInvernoProject project) throws Exception {
-		ContainerizeTask.ContainerImage image = project
-			.modularizeDependencies(this::configureTask)
-			.buildJmod(this::configureTask)
-			.buildRuntime(this::configureTask)
-			.packageApplication(this::configureTask)
+		ContainerizeTask.ContainerImage image = this.packageApplication(project.getBuildSession()
+				.modularizeDependencies(this::configureTask)
+				.buildJmod(this::configureTask)
+				.buildRuntime(this::configureTask)
+			)
 			.containerize(this::configureTask)
 			.execute();
 
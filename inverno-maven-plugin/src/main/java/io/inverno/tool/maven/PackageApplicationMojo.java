@@ -29,6 +29,7 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 
+import io.inverno.tool.buildtools.BuildRuntimeTask;
 import io.inverno.tool.buildtools.Image;
 import io.inverno.tool.buildtools.PackageApplicationTask;
 import io.inverno.tool.maven.internal.MavenInvernoProject;
@@ -45,7 +46,7 @@ import io.inverno.tool.maven.internal.MavenInvernoProject;
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.4
  */
-@Mojo(name = "package-app", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+@Mojo(name = "package-app", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, threadSafe = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
 @Execute(phase = LifecyclePhase.PACKAGE)
 public class PackageApplicationMojo extends BuildRuntimeMojo {
 
@@ -144,11 +145,10 @@ public class PackageApplicationMojo extends BuildRuntimeMojo {
 	protected void doExecute(MavenInvernoProject project) throws Exception {
 		// We need to get intermediary results as well... like a callback
 		Set<Image> appArchives = new HashSet<>();
-		appArchives.addAll(project
-			.modularizeDependencies(this::configureTask)
-			.buildJmod(this::configureTask)
-			.buildRuntime(this::configureTask)
-			.packageApplication(this::configureTask)
+		appArchives.addAll(this.packageApplication(this.modularizeDependencies(project)
+				.buildJmod(this::configureTask)
+				.buildRuntime(this::configureTask)
+			)
 			.doOnComplete(appArchives::addAll)
 			.archive(this::configureTask)
 			.execute()
@@ -157,6 +157,39 @@ public class PackageApplicationMojo extends BuildRuntimeMojo {
 		this.attachImages(appArchives);
 	}
 	
+	/**
+	 * <p>
+	 * Creates and configures the package application task following the specified build runtime task, the runtime being trained first when training is enabled.
+	 * </p>
+	 * 
+	 * @param buildRuntimeTask the build runtime task
+	 * 
+	 * @return the package application task
+	 */
+	protected PackageApplicationTask packageApplication(BuildRuntimeTask buildRuntimeTask) {
+		return this.train ? 
+			buildRuntimeTask.trainRuntime(this::configureTask).packageApplication(this::configureTask) : 
+			buildRuntimeTask.packageApplication(this::configureTask);
+	}
+	
+	/**
+	 * <p>
+	 * Configures the build runtime task.
+	 * </p>
+	 * 
+	 * <p>
+	 * The application can only be packaged from a fully linked runtime, the runtime is then never layered.
+	 * </p>
+	 * 
+	 * @param buildRuntimeTask the build runtime task
+	 * 
+	 * @return the build runtime task
+	 */
+	@Override
+	protected BuildRuntimeTask configureTask(BuildRuntimeTask buildRuntimeTask) {
+		return super.configureTask(buildRuntimeTask).layered(false);
+	}
+	
 	/**
 	 * <p>
 	 * Configures the package application task.
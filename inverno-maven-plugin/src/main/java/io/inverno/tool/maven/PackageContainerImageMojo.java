@@ -32,7 +32,7 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.4
  */
-@Mojo(name = "package-image", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+@Mojo(name = "package-image", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, threadSafe = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
 @Execute(phase = LifecyclePhase.PACKAGE)
 public class PackageContainerImageMojo extends AbstractContainerizeMojo {
 	
@@ -49,11 +49,11 @@ public class PackageContainerImageMojo extends AbstractContainerizeMojo {
 
 	@Override
 	protected void doExecute(MavenInvernoProject project) throws Exception {
-		ContainerizeTask.ContainerImage image = project
-			.modularizeDependencies(this::configureTask)
-			.buildJmod(this::configureTask)
-			.buildRuntime(this::configureTask)
-			.packageApplication(this::configureTask)
+		ContainerizeTask.ContainerImage image = this.packageApplication(project.getBuildSession()
+				.modularizeDependencies(this::configureTask)
+				.buildJmod(this::configureTask)
+				.buildRuntime(this::configureTask)
+			)
 			.containerize(this::configureTask)
 			.execute();
 
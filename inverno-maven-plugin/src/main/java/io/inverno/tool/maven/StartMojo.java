@@ -35,7 +35,7 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.0
  */
-@Mojo(name = "start", defaultPhase = LifecyclePhase.PRE_INTEGRATION_TEST, requiresProject = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+@Mojo(name = "start", defaultPhase = LifecyclePhase.PRE_INTEGRATION_TEST, requiresProject = true, threadSafe = true, requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
 public class StartMojo extends AbstractExecMojo {
 
 	/**
@@ -62,7 +62,7 @@ public class StartMojo extends AbstractExecMojo {
 
 	@Override
 	protected void doExecute(MavenInvernoProject project) throws Exception {
-		project
+		project.getBuildSession()
 			.modularizeDependencies(this::configureTask)
 			.start(startTask -> this.configureTask(project, startTask))
 			.execute();
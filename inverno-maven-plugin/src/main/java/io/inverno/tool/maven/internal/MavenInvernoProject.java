@@ -15,6 +15,7 @@
  */
 package io.inverno.tool.maven.internal;
 
+import io.inverno.tool.buildtools.BuildSession;
 import io.inverno.tool.buildtools.Dependency;
 import io.inverno.tool.buildtools.Project;
 import io.inverno.tool.buildtools.TaskExecutionException;
@@ -38,6 +39,11 @@ import org.apache.maven.shared.artifact.filter.collection.TypeFilter;
  * <p>
  * Maven specific {@link Project} implementation.
  * </p>
+ * 
+ * <p>
+ * Projects are shared by the mojos executed on the same Maven project in a Maven session: a project built with the same dependency filters is stored in the Maven project context and reused by
+ * subsequent mojo executions which execute tasks in the project {@link BuildSession} in order to reuse the dependencies introspected by previous executions.
+ * </p>
  *
  * @author <a href="jeremy.kuhn@inverno.io">Jeremy Kuhn</a>
  * @since 1.4
@@ -50,6 +56,10 @@ public class MavenInvernoProject extends Project {
 	
 	private final Set<MavenInvernoDependency> dependencies;
 	
+	private BuildSession buildSession;
+	
+	private volatile boolean displayProgressBar;
+	
 	/**
 	 * <p>
 	 * Creates a Maven Inverno project.
@@ -101,6 +111,29 @@ public class MavenInvernoProject extends Project {
 		return this.mavenProject.getVersion();
 	}
 	
+	@Override
+	public boolean isDisplayProgressBar() {
+		return this.displayProgressBar;
+	}
+	
+	/**
+	 * <p>
+	 * Returns the project build session.
+	 * </p>
+	 * 
+	 * <p>
+	 * Tasks created from the build session reuse the project state resolved by previous mojo executions.
+	 * </p>
+	 * 
+	 * @return the build session
+	 */
+	public synchronized BuildSession getBuildSession() {
+		if(this.buildSession == null) {
+			this.buildSession = BuildSession.of(this);
+		}
+		return this.buildSession;
+	}
+	
 	/**
 	 * <p>
 	 * Returns the path to the project pidfile.
@@ -126,6 +159,8 @@ public class MavenInvernoProject extends Project {
 	 * @since 1.4
 	 */
 	public static class Builder {
+		
+		private static final String CONTEXT_KEY_PREFIX = MavenInvernoProject.class.getName() + ":";
 	
 		private final MavenProject mavenProject;
 
@@ -143,6 +178,8 @@ public class MavenInvernoProject extends Project {
 
 		private String includeGroupIds;
 		private String excludeGroupIds;
+		
+		private boolean displayProgressBar;
 
 		/**
 		 * <p>
@@ -319,16 +356,49 @@ public class MavenInvernoProject extends Project {
 			return this;
 		}
 
+		/**
+		 * <p>
+		 * Specifies whether a progress bar should be displayed while executing the build tasks.
+		 * </p>
+		 * 
+		 * @param displayProgressBar true to display a progress bar, false otherwise
+		 * 
+		 * @return the builder
+		 */
+		public MavenInvernoProject.Builder displayProgressBar(boolean displayProgressBar) {
+			this.displayProgressBar = displayProgressBar;
+			return this;
+		}
+
 		/**
 		 * <p>
 		 * Resolves project dependencies and builds the Maven Inverno project.
 		 * </p>
 		 * 
+		 * <p>
+		 * The project is stored in the Maven project context so that it can be reused by subsequent mojo executions using the same dependency filters.
+		 * </p>
+		 * 
 		 * @return the Maven Inverno project
 		 * 
 		 * @throws TaskExecutionException if there was an error resolving dependencies or building the project
 		 */
 		public MavenInvernoProject build() throws TaskExecutionException {
+			String contextKey = CONTEXT_KEY_PREFIX + String.join("|", 
+				cleanToBeTokenizedString(this.includeScope), cleanToBeTokenizedString(this.excludeScope),
+				cleanToBeTokenizedString(this.includeTypes), cleanToBeTokenizedString(this.excludeTypes),
+				cleanToBeTokenizedString(this.includeClassifiers), cleanToBeTokenizedString(this.excludeClassifiers),
+				cleanToBeTokenizedString(this.includeGroupIds), cleanToBeTokenizedString(this.excludeGroupIds),
+				cleanToBeTokenizedString(this.includeArtifactIds), cleanToBeTokenizedString(this.excludeArtifactIds)
+			);
+			// The plugin class realm might differ between executions
+			if(this.mavenProject.getContextValue(contextKey) instanceof MavenInvernoProject) {
+				LOGGER.info("[ Reusing dependencies resolved for {} ]", this.mavenProject);
+				MavenInvernoProject project = (MavenInvernoProject)this.mavenProject.getContextValue(contextKey);
+				project.displayProgressBar = this.displayProgressBar;
+				return project;
+			}
+			
 			LOGGER.info("[ Resolving dependencies for {}... ]", this.mavenProject);
 			try {
 				// add filters in well known order, least specific to most specific
@@ -342,13 +412,16 @@ public class MavenInvernoProject extends Project {
 				// Filter artifacts
 				Set<Artifact> filteredArtifacts = filter.filter(this.mavenProject.getArtifacts());
 
-				return new MavenInvernoProject(
+				MavenInvernoProject project = new MavenInvernoProject(
 					this.mavenProject, 
 					filteredArtifacts.stream()
 						.map(MavenInvernoDependency::new)
 						.peek(dependency -> LOGGER.info(" - " + dependency))
 						.collect(Collectors.toSet())
 				);
+				project.displayProgressBar = this.displayProgressBar;
+				this.mavenProject.setContextValue(contextKey, project);
+				return project;
 			}
 			catch (ArtifactFilterException e) {
 				throw new TaskExecutionException("Error resolving project dependencies", e);